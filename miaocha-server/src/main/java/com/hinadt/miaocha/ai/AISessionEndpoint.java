@@ -6,6 +6,8 @@ import com.hinadt.miaocha.ai.tool.LogSearchTool;
 import com.hinadt.miaocha.ai.tool.ModuleTool;
 import com.hinadt.miaocha.application.service.LogSearchService;
 import com.hinadt.miaocha.application.service.ModuleInfoService;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.AssistantSearchRegistry;
+import com.hinadt.miaocha.common.util.UserContextUtil;
 import com.hinadt.miaocha.domain.dto.ai.AISessionRequestDTO;
 import com.hinadt.miaocha.domain.dto.ai.AISessionResponseDTO;
 import io.swagger.v3.oas.annotations.Operation;
@@ -70,16 +72,19 @@ public class AISessionEndpoint {
 
     private final LogSearchService logSearchService;
     private final ModuleInfoService moduleInfoService;
+    private final AssistantSearchRegistry assistantSearchRegistry;
 
     public AISessionEndpoint(
             ChatModel chatModel,
             ActionSseService actionSseService,
             LogSearchService logSearchService,
             ModuleInfoService moduleInfoService,
+            AssistantSearchRegistry assistantSearchRegistry,
             ChatMemoryRepository chatMemoryRepository) {
         this.actionSseService = actionSseService;
         this.logSearchService = logSearchService;
         this.moduleInfoService = moduleInfoService;
+        this.assistantSearchRegistry = assistantSearchRegistry;
         ChatMemory chatMemory =
                 MessageWindowChatMemory.builder()
                         .chatMemoryRepository(chatMemoryRepository)
@@ -112,7 +117,12 @@ public class AISessionEndpoint {
         actionSseService.register(conversationId, emitter);
 
         LogSearchTool scopedLogSearchTool =
-                new LogSearchTool(logSearchService, actionSseService, conversationId);
+                new LogSearchTool(
+                        logSearchService,
+                        actionSseService,
+                        assistantSearchRegistry,
+                        conversationId,
+                        UserContextUtil.getCurrentUserEmail());
         ModuleTool moduleTool = new ModuleTool(moduleInfoService);
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
@@ -2,6 +2,7 @@ package com.hinadt.miaocha.ai.tool;
 
 import com.hinadt.miaocha.ai.sse.ActionSseService;
 import com.hinadt.miaocha.application.service.LogSearchService;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.AssistantSearchRegistry;
 import com.hinadt.miaocha.domain.dto.SchemaInfoDTO;
 import com.hinadt.miaocha.domain.dto.cache.SystemCacheDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchCacheDTO;
@@ -21,15 +22,21 @@ public class LogSearchTool {
 
     private final LogSearchService logSearchService;
     private final ActionSseService actionSseService;
+    private final AssistantSearchRegistry assistantSearchRegistry;
     private final String conversationId;
+    private final String userEmail;
 
     public LogSearchTool(
             LogSearchService logSearchService,
             ActionSseService actionSseService,
-            String conversationId) {
+            AssistantSearchRegistry assistantSearchRegistry,
+            String conversationId,
+            String userEmail) {
         this.logSearchService = logSearchService;
         this.actionSseService = actionSseService;
+        this.assistantSearchRegistry = assistantSearchRegistry;
         this.conversationId = conversationId;
+        this.userEmail = userEmail;
     }
 
     /**
@@ -87,6 +94,7 @@ public class LogSearchTool {
         logSearchDTO.setFields(fields);
 
         try {
+            assistantSearchRegistry.register(userEmail, logSearchDTO);
             actionSseService.sendAction(conversationId, "sendSearchLogDetailsAction", logSearchDTO);
             return "日志明细查询查询结果已经生成，结果已经呈现在前端日志查询主界面上";
         } catch (Exception e) {
@@ -146,6 +154,7 @@ public class LogSearchTool {
         dto.setTargetBuckets(targetBuckets);
 
         try {
+            assistantSearchRegistry.register(userEmail, dto);
             actionSseService.sendAction(conversationId, "sendSearchLogHistogramAction", dto);
             return "日志时间分布查询结果已经生成，结果已经呈现在前端日志查询主界面上";
         } catch (Exception e) {
@@ -199,6 +208,7 @@ public class LogSearchTool {
         dto.setTimeRange(timeRange);
 
         try {
+            assistantSearchRegistry.register(userEmail, dto);
             actionSseService.sendAction(conversationId, "sendSearchFieldDistributionsAction", dto);
             return "字段分布查询结果已经生成，结果已经呈现在前端日志查询主界面上";
         } catch (Exception e) {
@@ -97,4 +97,23 @@ public abstract class AbstractLogstashCommand implements LogstashCommand {
     protected LogstashMachine getLogstashMachine() {
         return logstashMachineMapper.selectById(logstashMachineId);
     }
+
+    /**
+     * 生成写入文件的脚本片段，先写入临时文件再移动到目标位置
+     *
+     * @param path 目标文件路径
+     * @param content 文件内容
+     * @return shell脚本片段
+     */
+    protected static String writeFileScript(String path, String content) {
+        // heredoc结束符不能出现在内容中
+        String delimiter = "MIAOCHA_EOF";
+        while (content.contains(delimiter)) {
+            delimiter += "_";
+        }
+        String tempFile = path + ".tmp";
+        return String.format(
+                "cat > \"%s\" << '%s'\n%s\n%s\nmv -f \"%s\" \"%s\"\n",
+                tempFile, delimiter, content, delimiter, tempFile, path);
+    }
 }
@@ -0,0 +1,288 @@
+package com.hinadt.miaocha.application.logstash.command;
+
+import com.hinadt.miaocha.application.logstash.enums.StepStatus;
+import com.hinadt.miaocha.common.exception.SshException;
+import com.hinadt.miaocha.domain.entity.MachineInfo;
+import com.hinadt.miaocha.infrastructure.ssh.SshClient;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logstash命令流水线
+ *
+ * <p>按顺序执行同一机器上的一组命令：连续的 {@link ScriptableCommand} 编译为一个脚本，在一次SSH调用中执行，
+ * 脚本在输出中用标记行报告每个步骤的开始和退出码，据此得到每个步骤的结果；不能编译为脚本的命令（如上传安装包）单独执行， 并把前后的命令分为两个脚本。任一必需步骤失败后不再执行后续步骤
+ *
+ * <p>实例有状态，每次操作创建一个
+ */
+public class CommandPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommandPipeline.class);
+
+    /** 步骤标记行前缀 */
+    private static final String MARKER = "@@miaocha-step";
+
+    /** 错误信息中保留的步骤输出长度 */
+    private static final int MAX_ERROR_OUTPUT = 500;
+
+    private final SshClient sshClient;
+    private final List<Step> steps = new ArrayList<>();
+
+    public CommandPipeline(SshClient sshClient) {
+        this.sshClient = sshClient;
+    }
+
+    /**
+     * 添加步骤
+     *
+     * @param stepId 步骤ID，结果通过监听器报告
+     * @param command 命令
+     * @return 当前流水线
+     */
+    public CommandPipeline add(String stepId, LogstashCommand command) {
+        steps.add(new Step(stepId, command));
+        return this;
+    }
+
+    /**
+     * 添加可选步骤，失败时继续执行后续步骤，结果不报告
+     *
+     * @param command 命令
+     * @return 当前流水线
+     */
+    public CommandPipeline addOptional(LogstashCommand command) {
+        steps.add(new Step(null, command));
+        return this;
+    }
+
+    /**
+     * 执行流水线，不报告步骤状态
+     *
+     * @param machineInfo 目标机器
+     * @return 第一个失败的必需步骤的结果，全部成功时返回null
+     */
+    public StepResult execute(MachineInfo machineInfo) {
+        return execute(machineInfo, new StepListener() {});
+    }
+
+    /**
+     * 执行流水线
+     *
+     * @param machineInfo 目标机器
+     * @param listener 步骤状态监听器
+     * @return 第一个失败的必需步骤的结果，全部成功时返回null
+     */
+    public StepResult execute(MachineInfo machineInfo, StepListener listener) {
+        int start = 0;
+        while (start < steps.size()) {
+            int end = start;
+            while (end < steps.size() && steps.get(end).command() instanceof ScriptableCommand) {
+                end++;
+            }
+            List<StepResult> results;
+            if (end == start) {
+                results = List.of(executeCommand(machineInfo, steps.get(start), listener));
+                end = start + 1;
+            } else {
+                results = executeScript(machineInfo, steps.subList(start, end), listener);
+            }
+            for (StepResult result : results) {
+                if (result.stepId() != null && result.status() == StepStatus.FAILED) {
+                    return result;
+                }
+            }
+            start = end;
+        }
+        return null;
+    }
+
+    /** 单独执行不能编译为脚本的命令 */
+    private StepResult executeCommand(MachineInfo machineInfo, Step step, StepListener listener) {
+        if (step.stepId() != null) {
+            listener.onStart(step.stepId());
+        }
+        String output = null;
+        boolean success;
+        try {
+            success = step.command().execute(machineInfo);
+        } catch (Exception e) {
+            success = false;
+            output = e.getMessage();
+        }
+        StepResult result =
+                new StepResult(
+                        step.stepId(),
+                        step.command().getDescription(),
+                        success ? StepStatus.COMPLETED : StepStatus.FAILED,
+                        output);
+        if (step.stepId() != null) {
+            listener.onFinish(result);
+        }
+        return result;
+    }
+
+    /** 把连续的可编译命令编译为一个脚本执行，按标记行解析每个步骤的结果 */
+    private List<StepResult> executeScript(
+            MachineInfo machineInfo, List<Step> segment, StepListener listener) {
+        for (Step step : segment) {
+            if (step.stepId() != null) {
+                listener.onStart(step.stepId());
+            }
+        }
+        logger.info("在机器 [{}] 上以单个脚本执行 {} 个步骤", machineInfo.getName(), segment.size());
+
+        String output;
+        try {
+            output = sshClient.executeCommand(machineInfo, compile(segment));
+        } catch (SshException e) {
+            // 脚本整体执行失败时无法确定各步骤的进度，所有步骤都视为失败
+            List<StepResult> results = new ArrayList<>();
+            for (Step step : segment) {
+                results.add(
+                        report(
+                                listener,
+                                new StepResult(
+                                        step.stepId(),
+                                        step.command().getDescription(),
+                                        StepStatus.FAILED,
+                                        e.getMessage())));
+            }
+            return results;
+        }
+
+        Map<Integer, StringBuilder> outputs = new HashMap<>();
+        Map<Integer, Integer> exitCodes = new HashMap<>();
+        parse(output, outputs, exitCodes);
+
+        List<StepResult> results = new ArrayList<>();
+        for (int i = 0; i < segment.size(); i++) {
+            Step step = segment.get(i);
+            StringBuilder stepOutput = outputs.get(i);
+            Integer exitCode = exitCodes.get(i);
+            StepStatus status;
+            String text = stepOutput != null ? stepOutput.toString().trim() : null;
+            if (stepOutput == null) {
+                // 前面的步骤失败，本步骤未执行
+                status = StepStatus.SKIPPED;
+            } else if (exitCode == null) {
+                status = StepStatus.FAILED;
+                text = text.isEmpty() ? "脚本未返回步骤结果" : text;
+            } else if (exitCode != 0) {
+                status = StepStatus.FAILED;
+            } else {
+                ScriptableCommand command = (ScriptableCommand) step.command();
+                status =
+                        command.handleScriptOutput(machineInfo, text)
+                                ? StepStatus.COMPLETED
+                                : StepStatus.FAILED;
+            }
+            results.add(
+                    report(
+                            listener,
+                            new StepResult(
+                                    step.stepId(), step.command().getDescription(), status, text)));
+        }
+        return results;
+    }
+
+    private StepResult report(StepListener listener, StepResult result) {
+        if (result.stepId() != null) {
+            listener.onFinish(result);
+        }
+        if (result.status() == StepStatus.FAILED) {
+            logger.warn("{}", result.errorMessage());
+        }
+        return result;
+    }
+
+    /**
+     * 编译脚本
+     *
+     * <p>每个步骤在子shell中执行，错误输出合并到标准输出；必需步骤失败时脚本以0退出，由标记行报告失败
+     */
+    private static String compile(List<Step> segment) {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < segment.size(); i++) {
+            Step step = segment.get(i);
+            script.append(String.format("echo '%s %d begin'\n", MARKER, i))
+                    .append("(\nset -e\n")
+                    .append(((ScriptableCommand) step.command()).buildScript().strip())
+                    .append("\n) 2>&1\n")
+                    .append("rc=$?\n")
+                    .append(String.format("echo \"%s %d end $rc\"\n", MARKER, i));
+            if (step.stepId() != null) {
+                script.append("if [ $rc -ne 0 ]; then exit 0; fi\n");
+            }
+        }
+        return script.append("exit 0\n").toString();
+    }
+
+    /** 按标记行拆分每个步骤的输出和退出码 */
+    private static void parse(
+            String output, Map<Integer, StringBuilder> outputs, Map<Integer, Integer> exitCodes) {
+        StringBuilder current = null;
+        for (String line : output.split("\n", -1)) {
+            if (line.startsWith(MARKER + " ")) {
+                String[] parts = line.trim().split(" ");
+                try {
+                    int index = Integer.parseInt(parts[1]);
+                    if ("begin".equals(parts[2])) {
+                        current = new StringBuilder();
+                        outputs.put(index, current);
+                    } else if ("end".equals(parts[2]) && parts.length > 3) {
+                        exitCodes.put(index, Integer.parseInt(parts[3]));
+                        current = null;
+                    }
+                    continue;
+                } catch (RuntimeException e) {
+                    // 不是完整的标记行，作为普通输出处理
+                }
+            }
+            if (current != null) {
+                current.append(line).append('\n');
+            }
+        }
+    }
+
+    /** 步骤状态监听器 */
+    public interface StepListener {
+
+        /** 步骤开始执行，同一脚本中的步骤同时开始 */
+        default void onStart(String stepId) {}
+
+        /** 步骤执行结束，状态为已完成、失败或因前面的步骤失败而跳过 */
+        default void onFinish(StepResult result) {}
+    }
+
+    /**
+     * 步骤结果
+     *
+     * @param stepId 步骤ID，可选步骤为null
+     * @param description 命令描述
+     * @param status 步骤状态
+     * @param output 步骤输出或异常信息，可以为null
+     */
+    public record StepResult(String stepId, String description, StepStatus status, String output) {
+
+        /** 失败时的错误信息，包含步骤输出的末尾部分 */
+        public String errorMessage() {
+            if (status != StepStatus.FAILED) {
+                return null;
+            }
+            if (output == null || output.isBlank()) {
+                return description + "失败";
+            }
+            String detail = output.strip();
+            if (detail.length() > MAX_ERROR_OUTPUT) {
+                detail = detail.substring(detail.length() - MAX_ERROR_OUTPUT);
+            }
+            return description + "失败: " + detail;
+        }
+    }
+
+    private record Step(String stepId, LogstashCommand command) {}
+}
@@ -7,7 +7,7 @@ import com.hinadt.miaocha.infrastructure.mapper.LogstashMachineMapper;
 import com.hinadt.miaocha.infrastructure.ssh.SshClient;
 
 /** 创建Logstash配置文件命令 - 重构支持多实例，基于logstashMachineId */
-public class CreateConfigCommand extends AbstractLogstashCommand {
+public class CreateConfigCommand extends AbstractLogstashCommand implements ScriptableCommand {
 
     private final String configContent;
 
@@ -97,6 +97,16 @@ public class CreateConfigCommand extends AbstractLogstashCommand {
         }
     }
 
+    @Override
+    public String buildScript() {
+        String configDir = getProcessDirectory() + "/config";
+        String configPath = configDir + "/logstash-" + logstashMachineId + ".conf";
+        return String.format("if [ -f \"%s\" ]; then echo exists; exit 0; fi\n", configPath)
+                + String.format("mkdir -p \"%s\"\n", configDir)
+                + writeFileScript(configPath, configContent)
+                + String.format("[ -f \"%s\" ]", configPath);
+    }
+
     @Override
     public String getDescription() {
         return "创建Logstash配置文件";
@@ -7,7 +7,7 @@ import com.hinadt.miaocha.infrastructure.mapper.LogstashMachineMapper;
 import com.hinadt.miaocha.infrastructure.ssh.SshClient;
 
 /** 创建目录命令 - 重构支持多实例，基于logstashMachineId */
-public class CreateDirectoryCommand extends AbstractLogstashCommand {
+public class CreateDirectoryCommand extends AbstractLogstashCommand implements ScriptableCommand {
 
     public CreateDirectoryCommand(
             SshClient sshClient,
@@ -74,6 +74,11 @@ public class CreateDirectoryCommand extends AbstractLogstashCommand {
         }
     }
 
+    @Override
+    public String buildScript() {
+        return String.format("mkdir -p \"%1$s\"\n[ -d \"%1$s\" ]", getProcessDirectory());
+    }
+
     @Override
     public String getDescription() {
         return "创建Logstash实例目录";
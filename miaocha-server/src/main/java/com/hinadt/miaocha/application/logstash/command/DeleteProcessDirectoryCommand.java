@@ -26,7 +26,8 @@ import com.hinadt.miaocha.infrastructure.ssh.SshClient;
  *
  * <p>如果目录不存在，则视为操作成功完成。
  */
-public class DeleteProcessDirectoryCommand extends AbstractLogstashCommand {
+public class DeleteProcessDirectoryCommand extends AbstractLogstashCommand
+        implements ScriptableCommand {
 
     public DeleteProcessDirectoryCommand(
             SshClient sshClient,
@@ -108,6 +109,11 @@ public class DeleteProcessDirectoryCommand extends AbstractLogstashCommand {
         }
     }
 
+    @Override
+    public String buildScript() {
+        return String.format("rm -rf \"%1$s\"\n[ ! -d \"%1$s\" ]", getProcessDirectory());
+    }
+
     @Override
     public String getDescription() {
         return "删除Logstash实例目录";
@@ -8,7 +8,7 @@ import com.hinadt.miaocha.infrastructure.ssh.SshClient;
 import java.io.File;
 
 /** 解压Logstash安装包命令 - 重构支持多实例，基于logstashMachineId */
-public class ExtractPackageCommand extends AbstractLogstashCommand {
+public class ExtractPackageCommand extends AbstractLogstashCommand implements ScriptableCommand {
 
     private final String localPackagePath;
 
@@ -93,6 +93,19 @@ public class ExtractPackageCommand extends AbstractLogstashCommand {
         }
     }
 
+    @Override
+    public String buildScript() {
+        String processDir = getProcessDirectory();
+        String fileName = new File(localPackagePath).getName();
+        return String.format(
+                "if [ -f \"%1$s/bin/logstash\" ]; then echo already_extracted; exit 0; fi\n"
+                        + "cd \"%1$s\"\n"
+                        + "tar -xzf \"%2$s\" --strip-components=1\n"
+                        + "[ -f \"%1$s/bin/logstash\" ]\n"
+                        + "rm -f \"%2$s\"",
+                processDir, fileName);
+    }
+
     @Override
     public String getDescription() {
         return "解压Logstash安装包";
@@ -3,6 +3,7 @@ package com.hinadt.miaocha.application.logstash.command;
 import com.hinadt.miaocha.application.logstash.path.LogstashDeployPathManager;
 import com.hinadt.miaocha.config.LogstashProperties;
 import com.hinadt.miaocha.domain.entity.LogstashMachine;
+import com.hinadt.miaocha.domain.entity.MachineInfo;
 import com.hinadt.miaocha.infrastructure.mapper.LogstashMachineMapper;
 import com.hinadt.miaocha.infrastructure.ssh.SshClient;
 import org.springframework.stereotype.Component;
@@ -156,4 +157,28 @@ public class LogstashCommandFactory {
                 logstashMachineMapper,
                 deployPathManager);
     }
+
+    /** 是否启用命令流水线 */
+    public boolean isCommandPipelining() {
+        return logstashProperties.isCommandPipelining();
+    }
+
+    /** 创建命令流水线 */
+    public CommandPipeline createPipeline() {
+        return new CommandPipeline(sshClient);
+    }
+
+    /**
+     * 执行单个命令，启用命令流水线时可编译为脚本的命令在一次SSH调用中完成
+     *
+     * @param command 命令
+     * @param machineInfo 目标机器
+     * @return 执行结果，true表示成功，false表示失败
+     */
+    public boolean execute(LogstashCommand command, MachineInfo machineInfo) {
+        if (!isCommandPipelining() || !(command instanceof ScriptableCommand)) {
+            return command.execute(machineInfo);
+        }
+        return createPipeline().add(command.getDescription(), command).execute(machineInfo) == null;
+    }
 }
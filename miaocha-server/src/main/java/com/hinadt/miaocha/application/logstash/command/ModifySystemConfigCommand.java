@@ -8,7 +8,21 @@ import com.hinadt.miaocha.infrastructure.ssh.SshClient;
 import org.springframework.util.StringUtils;
 
 /** 修改系统配置命令 - 重构支持多实例，基于logstashMachineId 支持修改JVM配置和系统配置 */
-public class ModifySystemConfigCommand extends AbstractLogstashCommand {
+public class ModifySystemConfigCommand extends AbstractLogstashCommand
+        implements ScriptableCommand {
+
+    /** 未提供系统配置时使用的默认配置 */
+    private static final String DEFAULT_LOGSTASH_YML =
+            "# Logstash系统配置\n"
+                    + "# 允许以超级用户身份运行\n"
+                    + "allow_superuser: true\n"
+                    + "\n"
+                    + "# 数据路径\n"
+                    + "path.data: data\n"
+                    + "\n"
+                    + "# 日志配置\n"
+                    + "log.level: info\n"
+                    + "path.logs: logs\n";
 
     private final String jvmOptions; // JVM配置文件内容
     private final String logstashYml; // 系统配置文件内容
@@ -119,21 +133,7 @@ public class ModifySystemConfigCommand extends AbstractLogstashCommand {
             String ymlFile = configDir + "/logstash.yml";
 
             // 使用提供的配置或默认配置
-            String actualLogstashYml = logstashYml;
-            if (!StringUtils.hasText(actualLogstashYml)) {
-                // 使用默认的基本配置
-                actualLogstashYml =
-                        "# Logstash系统配置\n"
-                                + "# 允许以超级用户身份运行\n"
-                                + "allow_superuser: true\n"
-                                + "\n"
-                                + "# 数据路径\n"
-                                + "path.data: data\n"
-                                + "\n"
-                                + "# 日志配置\n"
-                                + "log.level: info\n"
-                                + "path.logs: logs\n";
-            }
+            String actualLogstashYml = getActualLogstashYml();
 
             // 创建临时文件
             String tempFile =
@@ -171,6 +171,23 @@ public class ModifySystemConfigCommand extends AbstractLogstashCommand {
         }
     }
 
+    @Override
+    public String buildScript() {
+        String configDir = getProcessDirectory() + "/config";
+        StringBuilder script = new StringBuilder();
+        script.append(String.format("mkdir -p \"%s\"\n", configDir));
+        if (StringUtils.hasText(jvmOptions)) {
+            script.append(writeFileScript(configDir + "/jvm.options", jvmOptions));
+        }
+        script.append(writeFileScript(configDir + "/logstash.yml", getActualLogstashYml()));
+        return script.toString();
+    }
+
+    /** 使用提供的系统配置，未提供时使用默认的基本配置 */
+    private String getActualLogstashYml() {
+        return StringUtils.hasText(logstashYml) ? logstashYml : DEFAULT_LOGSTASH_YML;
+    }
+
     @Override
     public String getDescription() {
         return "修改Logstash系统配置";
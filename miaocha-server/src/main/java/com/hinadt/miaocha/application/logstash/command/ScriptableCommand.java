@@ -0,0 +1,31 @@
+package com.hinadt.miaocha.application.logstash.command;
+
+import com.hinadt.miaocha.domain.entity.MachineInfo;
+
+/**
+ * 可编译为远程脚本的Logstash命令
+ *
+ * <p>命令模式下每个命令的检查、执行、移动和验证各是一次SSH调用；流水线模式下由 {@link CommandPipeline} 把同一机器上连续的多个命令编译为一个脚本，在一个执行通道中完成
+ */
+public interface ScriptableCommand extends LogstashCommand {
+
+    /**
+     * 生成步骤脚本
+     *
+     * <p>脚本在子shell中以 {@code set -e} 执行，任一命令失败即视为步骤失败。脚本需幂等， 已完成的步骤重复执行时直接成功退出
+     *
+     * @return shell脚本片段
+     */
+    String buildScript();
+
+    /**
+     * 处理步骤脚本的输出
+     *
+     * @param machineInfo 目标机器
+     * @param output 步骤脚本的标准输出和错误输出
+     * @return 步骤是否成功
+     */
+    default boolean handleScriptOutput(MachineInfo machineInfo, String output) {
+        return true;
+    }
+}
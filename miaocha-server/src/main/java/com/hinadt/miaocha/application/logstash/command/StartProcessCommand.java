@@ -8,7 +8,10 @@ import com.hinadt.miaocha.infrastructure.mapper.LogstashMachineMapper;
 import com.hinadt.miaocha.infrastructure.ssh.SshClient;
 
 /** 启动Logstash进程命令 - 重构支持多实例，基于logstashMachineId */
-public class StartProcessCommand extends AbstractLogstashCommand {
+public class StartProcessCommand extends AbstractLogstashCommand implements ScriptableCommand {
+
+    /** 脚本输出中报告PID的行前缀 */
+    private static final String PID_PREFIX = "pid=";
 
     public StartProcessCommand(
             SshClient sshClient,
@@ -76,15 +79,7 @@ public class StartProcessCommand extends AbstractLogstashCommand {
 
             // 创建启动脚本
             String scriptPath = processDir + "/start-logstash-" + logstashMachineId + ".sh";
-            String scriptContent =
-                    String.format(
-                            "#!/bin/bash\n"
-                                    + "cd %s\n"
-                                    + "nohup ./bin/logstash -f %s "
-                                    + " --log.level info --config.reload.automatic > /dev/null 2>&1"
-                                    + " & \n"
-                                    + "echo $! > %s\n",
-                            processDir, configPath, pidFile);
+            String scriptContent = buildStartScript(processDir, configPath, pidFile);
 
             // 将脚本写入临时文件
             String tempScript =
@@ -142,6 +137,61 @@ public class StartProcessCommand extends AbstractLogstashCommand {
         }
     }
 
+    @Override
+    public String buildScript() {
+        String processDir = getProcessDirectory();
+        String configPath = LogstashPathUtils.buildConfigFilePath(processDir, logstashMachineId);
+        String pidFile = LogstashPathUtils.buildPidFilePath(processDir, logstashMachineId);
+        String logDir = LogstashPathUtils.buildLogDirPath(processDir);
+        String scriptPath = processDir + "/start-logstash-" + logstashMachineId + ".sh";
+
+        // 进程已在运行时直接报告PID
+        return String.format(
+                        "if [ -f \"%1$s\" ] && ps -p \"$(cat \"%1$s\")\" > /dev/null 2>&1; then"
+                                + " echo \"%2$s$(cat \"%1$s\")\"; exit 0; fi\n"
+                                + "mkdir -p \"%3$s\"\n"
+                                + "rm -f \"%1$s\"\n",
+                        pidFile, PID_PREFIX, logDir)
+                + writeFileScript(scriptPath, buildStartScript(processDir, configPath, pidFile))
+                + String.format(
+                        "chmod +x \"%2$s\"\n"
+                                + "\"%2$s\"\n"
+                                + "sleep 3\n"
+                                + "if [ -s \"%1$s\" ]; then echo \"%3$s$(cat \"%1$s\")\"; fi",
+                        pidFile, scriptPath, PID_PREFIX);
+    }
+
+    @Override
+    public boolean handleScriptOutput(MachineInfo machineInfo, String output) {
+        String pid =
+                output.lines()
+                        .filter(line -> line.startsWith(PID_PREFIX))
+                        .map(line -> line.substring(PID_PREFIX.length()).trim())
+                        .filter(value -> !value.isEmpty())
+                        .findFirst()
+                        .orElse(null);
+        // 与命令模式一致，PID未生成只记录警告，进程的完整验证由VerifyProcessCommand完成
+        if (pid == null) {
+            logger.warn("PID文件未生成，Logstash进程启动命令可能执行失败，实例ID: {}", logstashMachineId);
+            return true;
+        }
+        logstashMachineMapper.updateProcessPidById(logstashMachineId, pid);
+        logger.info("已创建Logstash进程，实例ID: {}, PID: {}，进一步验证将由验证命令完成", logstashMachineId, pid);
+        return true;
+    }
+
+    /** 生成启动脚本内容 */
+    private static String buildStartScript(String processDir, String configPath, String pidFile) {
+        return String.format(
+                "#!/bin/bash\n"
+                        + "cd %s\n"
+                        + "nohup ./bin/logstash -f %s "
+                        + " --log.level info --config.reload.automatic > /dev/null 2>&1"
+                        + " & \n"
+                        + "echo $! > %s\n",
+                processDir, configPath, pidFile);
+    }
+
     @Override
     public String getDescription() {
         return "启动Logstash进程";
@@ -2,14 +2,32 @@ package com.hinadt.miaocha.application.logstash.command;
 
 import com.hinadt.miaocha.application.logstash.path.LogstashDeployPathManager;
 import com.hinadt.miaocha.common.exception.SshOperationException;
+import com.hinadt.miaocha.common.util.ChecksumUtils;
 import com.hinadt.miaocha.domain.entity.MachineInfo;
 import com.hinadt.miaocha.infrastructure.mapper.LogstashMachineMapper;
 import com.hinadt.miaocha.infrastructure.ssh.SshClient;
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
-/** 上传Logstash安装包命令 - 重构支持多实例，基于logstashMachineId */
+/**
+ * 上传Logstash安装包命令 - 重构支持多实例，基于logstashMachineId
+ *
+ * <p>安装包按SHA-256缓存在机器的部署目录下，已缓存相同内容时直接硬链接到实例目录，不再上传； 上传中断后再次执行时从已上传的位置续传
+ */
 public class UploadPackageCommand extends AbstractLogstashCommand {
 
+    /** 机器上安装包缓存目录，位于部署根目录下 */
+    private static final String PACKAGE_CACHE_DIR = ".package-cache";
+
+    /** 缓存中保留的安装包版本数 */
+    private static final int MAX_CACHED_PACKAGES = 3;
+
+    /** 校验不一致时的上传次数 */
+    private static final int MAX_UPLOAD_ATTEMPTS = 2;
+
+    private static final String RESULT_OK = "ok";
+
     private final String localPackagePath;
 
     public UploadPackageCommand(
@@ -60,29 +78,96 @@ public class UploadPackageCommand extends AbstractLogstashCommand {
             String packageName = new File(localPackagePath).getName();
             String remotePackagePath = processDir + "/" + packageName;
 
-            // 上传文件
-            sshClient.uploadFile(machineInfo, localPackagePath, remotePackagePath);
+            // 安装包按内容缓存在机器上，同一版本只需上传一次，机器上的多个实例共用
+            String checksum = ChecksumUtils.sha256(Paths.get(localPackagePath));
+            String cacheDir =
+                    deployPathManager.normalizeDeployBaseDir(machineInfo) + "/" + PACKAGE_CACHE_DIR;
+            String cachedPath = cacheDir + "/" + checksum + "-" + packageName;
 
-            // 验证文件是否上传成功
-            String verifyCommand =
+            String linkCommand =
                     String.format(
-                            "if [ -f \"%s\" ]; then echo \"exists\"; else echo \"not_exists\"; fi",
-                            remotePackagePath);
-            String verifyResult = sshClient.executeCommand(machineInfo, verifyCommand);
+                            "mkdir -p \"%s\" \"%s\"\n"
+                                    + "if [ -f \"%s\" ]; then %s && echo ok; else echo miss; fi",
+                            cacheDir,
+                            processDir,
+                            cachedPath,
+                            linkScript(cachedPath, remotePackagePath));
+            if (RESULT_OK.equals(sshClient.executeCommand(machineInfo, linkCommand).trim())) {
+                logger.info("机器上已缓存相同的安装包，跳过上传，实例ID: {}, 缓存: {}", logstashMachineId, cachedPath);
+                return true;
+            }
 
-            boolean success = "exists".equals(verifyResult.trim());
-            if (success) {
-                logger.info("成功上传安装包，实例ID: {}, 路径: {}", logstashMachineId, remotePackagePath);
-            } else {
-                logger.error("上传安装包失败，实例ID: {}, 路径: {}", logstashMachineId, remotePackagePath);
+            // 先上传到临时文件，中断后再次执行时续传；校验通过后才放入缓存，校验不一致时删除临时文件重新上传
+            String partPath = cachedPath + "." + logstashMachineId + ".part";
+            long size = Files.size(Paths.get(localPackagePath));
+            for (int attempt = 1; attempt <= MAX_UPLOAD_ATTEMPTS; attempt++) {
+                sshClient.uploadFileResumable(machineInfo, localPackagePath, partPath);
+                String result =
+                        sshClient.executeCommand(
+                                machineInfo,
+                                buildCommitCommand(
+                                        cacheDir,
+                                        partPath,
+                                        cachedPath,
+                                        remotePackagePath,
+                                        checksum,
+                                        size));
+                if (RESULT_OK.equals(result.trim())) {
+                    logger.info(
+                            "成功上传安装包，实例ID: {}, 路径: {}, SHA-256: {}",
+                            logstashMachineId,
+                            remotePackagePath,
+                            checksum);
+                    return true;
+                }
+                logger.warn("安装包校验不一致，已删除临时文件，实例ID: {}, 第 {} 次上传", logstashMachineId, attempt);
             }
 
-            return success;
+            logger.error("上传安装包失败，实例ID: {}, 路径: {}", logstashMachineId, remotePackagePath);
+            return false;
         } catch (Exception e) {
             throw new SshOperationException("上传安装包失败: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 校验上传的临时文件并放入缓存
+     *
+     * <p>机器上没有 sha256sum 时只校验文件大小。放入缓存后清理多余的旧版本和过期的临时文件
+     */
+    private static String buildCommitCommand(
+            String cacheDir,
+            String partPath,
+            String cachedPath,
+            String remotePackagePath,
+            String checksum,
+            long size) {
+        return String.format(
+                "if command -v sha256sum > /dev/null 2>&1; then"
+                        + " [ \"$(sha256sum \"%2$s\" | cut -d' ' -f1)\" = \"%5$s\" ];"
+                        + " else [ \"$(wc -c < \"%2$s\" | tr -d ' ')\" = \"%6$d\" ]; fi"
+                        + " && mv -f \"%2$s\" \"%3$s\" && %4$s"
+                        + " || { rm -f \"%2$s\"; echo mismatch; exit 0; }\n"
+                        + "ls -1t \"%1$s\" | grep -v '\\.part$' | tail -n +%7$d"
+                        + " | while read -r f; do rm -f \"%1$s/$f\"; done\n"
+                        + "find \"%1$s\" -name '*.part' -mtime +1 -exec rm -f {} + 2>/dev/null\n"
+                        + "echo ok",
+                cacheDir,
+                partPath,
+                cachedPath,
+                linkScript(cachedPath, remotePackagePath),
+                checksum,
+                size,
+                MAX_CACHED_PACKAGES + 1);
+    }
+
+    /** 从缓存硬链接安装包到实例目录，不支持硬链接时复制 */
+    private static String linkScript(String cachedPath, String remotePackagePath) {
+        return String.format(
+                "{ ln -f \"%1$s\" \"%2$s\" 2>/dev/null || cp -f \"%1$s\" \"%2$s\"; }",
+                cachedPath, remotePackagePath);
+    }
+
     @Override
     public String getDescription() {
         return "上传Logstash安装包";
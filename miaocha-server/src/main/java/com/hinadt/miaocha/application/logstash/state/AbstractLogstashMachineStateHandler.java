@@ -1,7 +1,10 @@
 package com.hinadt.miaocha.application.logstash.state;
 
+import com.hinadt.miaocha.application.logstash.command.CommandPipeline;
 import com.hinadt.miaocha.application.logstash.command.LogstashCommandFactory;
 import com.hinadt.miaocha.application.logstash.enums.LogstashMachineState;
+import com.hinadt.miaocha.application.logstash.enums.LogstashMachineStep;
+import com.hinadt.miaocha.application.logstash.enums.StepStatus;
 import com.hinadt.miaocha.application.logstash.task.TaskService;
 import com.hinadt.miaocha.domain.entity.LogstashMachine;
 import com.hinadt.miaocha.domain.entity.MachineInfo;
@@ -114,4 +117,90 @@ public abstract class AbstractLogstashMachineStateHandler implements LogstashMac
         // 默认实现保持当前状态
         return getState();
     }
+
+    /**
+     * 以命令流水线初始化实例
+     *
+     * <p>清理目录和创建目录编译为一个脚本，上传安装包单独执行，解压、创建配置文件和修改系统配置编译为另一个脚本， 每个步骤的状态按脚本报告的结果更新
+     *
+     * @param logstashMachine LogstashMachine实例
+     * @param machineInfo 目标机器
+     * @param taskId 任务ID
+     * @return 操作是否成功
+     */
+    protected boolean initializeWithPipeline(
+            LogstashMachine logstashMachine, MachineInfo machineInfo, String taskId) {
+        Long logstashMachineId = logstashMachine.getId();
+        logger.info(
+                "以命令流水线初始化机器 [{}] 上的LogstashMachine实例 [{}]",
+                machineInfo.getId(),
+                logstashMachineId);
+
+        CommandPipeline pipeline =
+                commandFactory
+                        .createPipeline()
+                        // 删除进程目录不计入步骤状态，失败时继续执行
+                        .addOptional(
+                                commandFactory.deleteProcessDirectoryCommand(logstashMachineId))
+                        .add(
+                                LogstashMachineStep.CREATE_REMOTE_DIR.getId(),
+                                commandFactory.createDirectoryCommand(logstashMachineId))
+                        .add(
+                                LogstashMachineStep.UPLOAD_PACKAGE.getId(),
+                                commandFactory.uploadPackageCommand(logstashMachineId))
+                        .add(
+                                LogstashMachineStep.EXTRACT_PACKAGE.getId(),
+                                commandFactory.extractPackageCommand(logstashMachineId))
+                        .add(
+                                LogstashMachineStep.CREATE_CONFIG.getId(),
+                                commandFactory.createConfigCommand(logstashMachine))
+                        .add(
+                                LogstashMachineStep.MODIFY_CONFIG.getId(),
+                                commandFactory.modifySystemConfigCommand(
+                                        logstashMachineId,
+                                        logstashMachine.getJvmOptions(),
+                                        logstashMachine.getLogstashYml()));
+        return executePipeline(pipeline, logstashMachineId, machineInfo, taskId);
+    }
+
+    /**
+     * 执行命令流水线并更新各步骤的状态
+     *
+     * @param pipeline 命令流水线
+     * @param logstashMachineId LogstashMachine实例ID
+     * @param machineInfo 目标机器
+     * @param taskId 任务ID
+     * @return 操作是否成功
+     */
+    protected boolean executePipeline(
+            CommandPipeline pipeline,
+            Long logstashMachineId,
+            MachineInfo machineInfo,
+            String taskId) {
+        CommandPipeline.StepResult failure =
+                pipeline.execute(
+                        machineInfo,
+                        new CommandPipeline.StepListener() {
+                            @Override
+                            public void onStart(String stepId) {
+                                taskService.updateStepStatus(
+                                        taskId, logstashMachineId, stepId, StepStatus.RUNNING);
+                            }
+
+                            @Override
+                            public void onFinish(CommandPipeline.StepResult result) {
+                                taskService.updateStepStatus(
+                                        taskId,
+                                        logstashMachineId,
+                                        result.stepId(),
+                                        result.status(),
+                                        result.errorMessage());
+                            }
+                        });
+        if (failure != null) {
+            // 与逐个执行步骤时一致，失败时抛出异常由外层处理
+            throw new RuntimeException(failure.errorMessage());
+        }
+        return true;
+    }
 }
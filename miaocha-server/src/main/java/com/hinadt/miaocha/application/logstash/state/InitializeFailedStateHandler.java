@@ -35,6 +35,10 @@ public class InitializeFailedStateHandler extends AbstractLogstashMachineStateHa
         // 重置所有初始化步骤的状态
         taskService.resetStepStatuses(taskId, StepStatus.PENDING);
 
+        if (commandFactory.isCommandPipelining()) {
+            return initializeWithPipeline(logstashMachine, machineInfo, taskId);
+        }
+
         // 先删除进程目录（不计入步骤状态）
         if (!cleanupProcessDirectory(logstashMachine, machineInfo)) {
             return false;
@@ -32,6 +32,10 @@ public class InitializingStateHandler extends AbstractLogstashMachineStateHandle
 
         logger.info("初始化机器 [{}] 上的LogstashMachine实例 [{}]", machineId, logstashMachineId);
 
+        if (commandFactory.isCommandPipelining()) {
+            return initializeWithPipeline(logstashMachine, machineInfo, taskId);
+        }
+
         // 先删除进程目录（不计入步骤状态）
         if (!cleanupProcessDirectory(logstashMachine, machineInfo)) {
             return false;
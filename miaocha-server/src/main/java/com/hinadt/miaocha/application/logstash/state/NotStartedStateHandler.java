@@ -66,7 +66,7 @@ public class NotStartedStateHandler extends AbstractLogstashMachineStateHandler
         LogstashCommand startCommand = commandFactory.startProcessCommand(logstashMachineId);
 
         try {
-            boolean startSuccess = startCommand.execute(machineInfo);
+            boolean startSuccess = commandFactory.execute(startCommand, machineInfo);
             StepStatus status = startSuccess ? StepStatus.COMPLETED : StepStatus.FAILED;
             String errorMessage = startSuccess ? null : "启动Logstash进程失败";
             taskService.updateStepStatus(
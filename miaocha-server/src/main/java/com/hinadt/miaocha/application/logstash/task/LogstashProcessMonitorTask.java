@@ -8,6 +8,7 @@ import com.hinadt.miaocha.common.exception.SshException;
 import com.hinadt.miaocha.domain.entity.LogstashMachine;
 import com.hinadt.miaocha.domain.entity.LogstashProcess;
 import com.hinadt.miaocha.domain.entity.MachineInfo;
+import com.hinadt.miaocha.infrastructure.cluster.ClusterCoordinator;
 import com.hinadt.miaocha.infrastructure.email.EmailService;
 import com.hinadt.miaocha.infrastructure.email.EmailTemplateRenderer;
 import com.hinadt.miaocha.infrastructure.mapper.LogstashMachineMapper;
@@ -17,11 +18,17 @@ import com.hinadt.miaocha.infrastructure.ssh.SshClient;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -31,7 +38,8 @@ import org.springframework.util.StringUtils;
 /**
  * Logstash process monitor task. Periodically checks all running Logstash instances and updates
  * status if a process is unexpectedly dead. For processes that have gone offline, after the scan
- * completes, aggregates and sends alert emails to configured recipients.
+ * completes, aggregates and sends alert emails to configured recipients. When several nodes are
+ * deployed, machines are sharded across live nodes by {@link ClusterCoordinator}.
  */
 @Slf4j
 @Component
@@ -40,12 +48,20 @@ public class LogstashProcessMonitorTask {
     // Minimum running minutes before a process is considered for monitoring
     private static final long MIN_PROCESS_RUNTIME_MINUTES = 2;
 
+    // PIDs are interpolated into the remote check command
+    private static final Pattern PID_PATTERN = Pattern.compile("\\d+");
+
+    // Printed after all PIDs so that truncated output is not mistaken for dead processes
+    private static final String CHECK_END_MARKER = "__miaocha_check_end__";
+
     private final LogstashMachineMapper logstashMachineMapper;
     private final LogstashProcessMapper logstashProcessMapper;
     private final MachineMapper machineMapper;
     private final SshClient sshClient;
     private final EmailService emailService;
     private final EmailTemplateRenderer templateRenderer;
+    private final Executor monitorExecutor;
+    private final ClusterCoordinator clusterCoordinator;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Value("${miaocha.alerts.mail.enabled:false}")
@@ -57,13 +73,17 @@ public class LogstashProcessMonitorTask {
             MachineMapper machineMapper,
             SshClient sshClient,
             EmailService emailService,
-            EmailTemplateRenderer templateRenderer) {
+            EmailTemplateRenderer templateRenderer,
+            @Qualifier("logstashMonitorExecutor") Executor monitorExecutor,
+            ClusterCoordinator clusterCoordinator) {
         this.logstashMachineMapper = logstashMachineMapper;
         this.logstashProcessMapper = logstashProcessMapper;
         this.machineMapper = machineMapper;
         this.sshClient = sshClient;
         this.emailService = emailService;
         this.templateRenderer = templateRenderer;
+        this.monitorExecutor = monitorExecutor;
+        this.clusterCoordinator = clusterCoordinator;
     }
 
     /** Periodically check running Logstash instances every configured interval. */
@@ -72,9 +92,13 @@ public class LogstashProcessMonitorTask {
         try {
             log.debug("Start scheduled Logstash process status check...");
 
-            // Fetch all LogstashMachine entries that have a recorded PID
+            // Fetch all LogstashMachine entries that have a recorded PID. In a cluster machines
+            // are sharded across nodes, so each machine is checked by one node with one command
+            // and alerts are not sent twice
             List<LogstashMachine> processesWithPid =
-                    logstashMachineMapper.selectAllWithProcessPid();
+                    clusterCoordinator.filterOwned(
+                            logstashMachineMapper.selectAllWithProcessPid(),
+                            LogstashMachine::getMachineId);
             if (processesWithPid.isEmpty()) {
                 log.debug("No running Logstash instances found. Skipping check.");
                 return;
@@ -84,23 +108,21 @@ public class LogstashProcessMonitorTask {
             LocalDateTime checkStartTime = LocalDateTime.now();
             log.debug("Found {} instances with PID. Checking status...", processesWithPid.size());
 
-            int checkedCount = 0;
-            int skippedCount = 0;
-            // Collect dead instances for later aggregation email
-            List<DeadInstance> deadInstances = new ArrayList<>();
+            // Load all referenced process rows in one query
+            Map<Long, LogstashProcess> processes = loadProcesses(processesWithPid);
 
-            // Iterate and check
+            List<LogstashMachine> instancesToCheck = new ArrayList<>();
             for (LogstashMachine logstashMachine : processesWithPid) {
-                if (shouldCheckProcess(logstashMachine)) {
-                    DeadInstance dead = checkProcessStatus(logstashMachine);
-                    if (dead != null) {
-                        deadInstances.add(dead);
-                    }
-                    checkedCount++;
-                } else {
-                    skippedCount++;
+                if (shouldCheckProcess(
+                        logstashMachine, processes.get(logstashMachine.getLogstashProcessId()))) {
+                    instancesToCheck.add(logstashMachine);
                 }
             }
+            int skippedCount = processesWithPid.size() - instancesToCheck.size();
+
+            // Check each machine with one remote command, machines in parallel.
+            // Collect dead instances for later aggregation email
+            List<DeadInstance> deadInstances = checkByMachine(instancesToCheck, processes);
 
             // After checks, aggregate and send alert emails if needed
             if (!deadInstances.isEmpty()) {
@@ -112,7 +134,7 @@ public class LogstashProcessMonitorTask {
             log.debug(
                     "Logstash status check completed. Checked: {}, skipped (new): {}, duration: {}"
                             + " ms",
-                    checkedCount,
+                    instancesToCheck.size(),
                     skippedCount,
                     duration);
         } catch (Exception e) {
@@ -121,11 +143,26 @@ public class LogstashProcessMonitorTask {
         }
     }
 
+    /** Load the process rows referenced by the instances, keyed by process id. */
+    private Map<Long, LogstashProcess> loadProcesses(List<LogstashMachine> instances) {
+        List<Long> processIds =
+                instances.stream()
+                        .map(LogstashMachine::getLogstashProcessId)
+                        .filter(Objects::nonNull)
+                        .distinct()
+                        .toList();
+        if (processIds.isEmpty()) {
+            return Map.of();
+        }
+        return logstashProcessMapper.selectByIds(processIds).stream()
+                .collect(Collectors.toMap(LogstashProcess::getId, p -> p, (a, b) -> a));
+    }
+
     /**
      * Determine whether the instance should be checked. Only check instances in RUNNING or
      * STOP_FAILED state and that have run for at least MIN_PROCESS_RUNTIME_MINUTES.
      */
-    private boolean shouldCheckProcess(LogstashMachine logstashMachine) {
+    private boolean shouldCheckProcess(LogstashMachine logstashMachine, LogstashProcess process) {
         Long processId = logstashMachine.getLogstashProcessId();
         String pid = logstashMachine.getProcessPid();
 
@@ -134,8 +171,16 @@ public class LogstashProcessMonitorTask {
             return false;
         }
 
-        // Fetch process for updateTime
-        LogstashProcess process = logstashProcessMapper.selectById(processId);
+        // The PID is interpolated into a shell command, only numeric values are checked
+        if (!PID_PATTERN.matcher(pid.trim()).matches()) {
+            log.warn(
+                    "Instance [{}] has an invalid PID '{}'. Skipping.",
+                    logstashMachine.getId(),
+                    pid);
+            return false;
+        }
+
+        // Process row is needed for updateTime
         if (process == null) {
             log.warn("Logstash process record not found for id={}, maybe deleted.", processId);
             return false;
@@ -176,61 +221,121 @@ public class LogstashProcessMonitorTask {
         return true;
     }
 
-    /** Check a single Logstash instance. Return a DeadInstance if it is found dead. */
-    private DeadInstance checkProcessStatus(LogstashMachine logstashMachine) {
-        Long processId = logstashMachine.getLogstashProcessId();
-        Long machineId = logstashMachine.getMachineId();
-        Long logstashMachineId = logstashMachine.getId();
-        String pid = logstashMachine.getProcessPid();
-
-        // Fetch machine info
-        MachineInfo machineInfo = machineMapper.selectById(machineId);
-        if (machineInfo == null) {
-            log.warn(
-                    "Machine not found for id={}, cannot check process [{}] status.",
-                    machineId,
-                    processId);
-            return null;
+    /**
+     * Check instances grouped by machine. All PIDs on a machine are checked with a single remote
+     * command and machines are checked in parallel on the monitor executor, whose size bounds the
+     * number of concurrent SSH connections. Dead instances are handled on the calling thread.
+     */
+    private List<DeadInstance> checkByMachine(
+            List<LogstashMachine> instances, Map<Long, LogstashProcess> processes) {
+        Map<Long, List<LogstashMachine>> byMachine =
+                instances.stream()
+                        .collect(
+                                Collectors.groupingBy(
+                                        LogstashMachine::getMachineId,
+                                        LinkedHashMap::new,
+                                        Collectors.toList()));
+        if (byMachine.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, MachineInfo> machines =
+                machineMapper.selectByIds(new ArrayList<>(byMachine.keySet())).stream()
+                        .collect(Collectors.toMap(MachineInfo::getId, m -> m, (a, b) -> a));
+
+        Map<Long, CompletableFuture<Set<String>>> checks = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<LogstashMachine>> entry : byMachine.entrySet()) {
+            MachineInfo machineInfo = machines.get(entry.getKey());
+            if (machineInfo == null) {
+                log.warn(
+                        "Machine not found for id={}, cannot check {} instance(s).",
+                        entry.getKey(),
+                        entry.getValue().size());
+                continue;
+            }
+            List<String> pids =
+                    entry.getValue().stream()
+                            .map(instance -> instance.getProcessPid().trim())
+                            .distinct()
+                            .toList();
+            checks.put(
+                    entry.getKey(),
+                    CompletableFuture.supplyAsync(
+                                    () -> checkAlivePids(machineInfo, pids), monitorExecutor)
+                            .exceptionally(
+                                    e -> {
+                                        log.error(
+                                                "Error checking processes on [{}]: {}",
+                                                machineInfo.getIp(),
+                                                e.getMessage(),
+                                                e);
+                                        return null;
+                                    }));
         }
 
-        try {
-            // Check process existence via SSH
-            boolean processExists = checkProcessExistsBySsh(machineInfo, pid);
-            if (!processExists) {
-                handleDeadProcess(logstashMachineId, machineInfo, pid);
+        List<DeadInstance> deadInstances = new ArrayList<>();
+        for (Map.Entry<Long, CompletableFuture<Set<String>>> entry : checks.entrySet()) {
+            Set<String> alivePids = entry.getValue().join();
+            if (alivePids == null) {
+                // On check failure, assume still running to avoid false positives
+                continue;
+            }
+            MachineInfo machineInfo = machines.get(entry.getKey());
+            for (LogstashMachine instance : byMachine.get(entry.getKey())) {
+                String pid = instance.getProcessPid().trim();
+                if (alivePids.contains(pid)) {
+                    log.debug(
+                            "Process instance [{}] on [{}] is running. PID={}",
+                            instance.getId(),
+                            machineInfo.getIp(),
+                            pid);
+                    continue;
+                }
+                handleDeadProcess(instance.getId(), machineInfo, pid);
                 // Build a dead instance record for later email
-                return buildDeadInstance(logstashMachine, machineInfo, pid);
-            } else {
-                log.debug(
-                        "Process instance [{}] on [{}] is running. PID={}",
-                        logstashMachineId,
-                        machineInfo.getIp(),
-                        pid);
+                DeadInstance dead =
+                        buildDeadInstance(
+                                instance,
+                                processes.get(instance.getLogstashProcessId()),
+                                machineInfo,
+                                pid);
+                if (dead != null) {
+                    deadInstances.add(dead);
+                }
             }
-        } catch (Exception e) {
-            log.error(
-                    "Error checking Process instance [{}] on [{}]: {}",
-                    logstashMachineId,
-                    machineInfo.getIp(),
-                    e.getMessage(),
-                    e);
         }
-        return null;
+        return deadInstances;
     }
 
-    /** Check whether a PID exists via SSH. */
-    private boolean checkProcessExistsBySsh(MachineInfo machineInfo, String pid) {
+    /**
+     * Check which of the given PIDs exist on a machine with one remote command. Returns null when
+     * the check fails, so that the instances are treated as running.
+     */
+    private Set<String> checkAlivePids(MachineInfo machineInfo, List<String> pids) {
         try {
-            // Use ps to check PID existence
-            String command = String.format("ps -p %s -o pid= || echo \"Process not found\"", pid);
+            // Print every PID that ps finds, then an end marker to detect truncated output
+            String command =
+                    String.format(
+                            "for pid in %s; do if ps -p \"$pid\" > /dev/null 2>&1; then echo"
+                                    + " \"$pid\"; fi; done; echo %s",
+                            String.join(" ", pids), CHECK_END_MARKER);
             String result = sshClient.executeCommand(machineInfo, command);
 
-            // If contains marker, the process is not found
-            return !result.contains("Process not found") && StringUtils.hasText(result.trim());
+            Set<String> lines =
+                    result.lines()
+                            .map(String::trim)
+                            .filter(StringUtils::hasText)
+                            .collect(Collectors.toSet());
+            if (!lines.remove(CHECK_END_MARKER)) {
+                log.error("Incomplete process check output from [{}]", machineInfo.getIp());
+                return null;
+            }
+            return lines;
         } catch (SshException e) {
-            log.error("SSH check for process failed: {}", e.getMessage());
-            // On SSH failure, assume still running to avoid false positives
-            return true;
+            log.error(
+                    "SSH check for processes on [{}] failed: {}",
+                    machineInfo.getIp(),
+                    e.getMessage());
+            return null;
         }
     }
 
@@ -284,9 +389,10 @@ public class LogstashProcessMonitorTask {
 
     /** Build dead instance record for alerting. */
     private DeadInstance buildDeadInstance(
-            LogstashMachine logstashMachine, MachineInfo machineInfo, String pid) {
-        LogstashProcess process =
-                logstashProcessMapper.selectById(logstashMachine.getLogstashProcessId());
+            LogstashMachine logstashMachine,
+            LogstashProcess process,
+            MachineInfo machineInfo,
+            String pid) {
         if (process == null) {
             return null;
         }
@@ -294,6 +400,7 @@ public class LogstashProcessMonitorTask {
         di.processId = process.getId();
         di.processName = process.getName();
         di.instanceId = logstashMachine.getId();
+        di.machine = machineInfo;
         di.machineIp = machineInfo.getIp();
         di.deployPath = logstashMachine.getDeployPath();
         di.pid = pid;
@@ -354,15 +461,11 @@ public class LogstashProcessMonitorTask {
 
     private String fetchLastLogsSafely(DeadInstance di) {
         try {
-            MachineInfo machine =
-                    machineMapper.selectById(
-                            logstashMachineMapper.selectById(di.instanceId).getMachineId());
-            if (machine == null) return "Machine not found.";
             String logPath = LogstashPathUtils.buildLogFilePath(di.deployPath);
             String cmd =
                     String.format(
                             "tail -n 50 \"%s\" 2>/dev/null || echo 'No logs found.'", logPath);
-            return sshClient.executeCommand(machine, cmd);
+            return sshClient.executeCommand(di.machine, cmd);
         } catch (Exception e) {
             return "Failed to fetch logs: " + e.getMessage();
         }
@@ -406,6 +509,7 @@ public class LogstashProcessMonitorTask {
         Long processId;
         String processName;
         Long instanceId;
+        MachineInfo machine;
         String machineIp;
         String deployPath;
         String pid;
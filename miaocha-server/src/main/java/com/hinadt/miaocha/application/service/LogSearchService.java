@@ -1,14 +1,19 @@
 package com.hinadt.miaocha.application.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.hinadt.miaocha.domain.dto.SchemaInfoDTO;
 import com.hinadt.miaocha.domain.dto.cache.BatchDeleteCacheDTO;
 import com.hinadt.miaocha.domain.dto.cache.SystemCacheDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogCountResultDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogDetailResultDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogFieldDistributionResultDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogHistogramResultDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchCacheDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchCombinedDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchCombinedResultDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
 import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /** 日志检索服务接口 */
 public interface LogSearchService {
@@ -21,6 +26,34 @@ public interface LogSearchService {
      */
     LogDetailResultDTO searchDetails(LogSearchDTO dto);
 
+    /**
+     * 流式执行日志明细查询，明细行直接写入 generator，不在内存中聚合
+     *
+     * @param dto 检索请求参数
+     * @param generator JSON生成器，需位于对象上下文中，方法会在其中写入 columns 和 rows 字段
+     * @return 日志明细查询结果，仅包含总数和执行耗时
+     */
+    LogDetailResultDTO streamDetails(LogSearchDTO dto, JsonGenerator generator);
+
+    /**
+     * 渐进式检索：按时间切片从新到旧查询明细和时间分布，每个切片完成后通过SSE输出
+     *
+     * <p>依次输出 details（明细行，追加到已有行之后）和 histogram（时间桶的累计数量，按 timePoint 覆盖）事件， 全部完成后输出 summary
+     * 事件（总数、下一页游标和执行耗时）；检索失败时输出 error 事件
+     *
+     * @param dto 检索请求参数
+     * @return SSE连接
+     */
+    SseEmitter searchProgressive(LogSearchDTO dto);
+
+    /**
+     * 仅统计日志总数，配合明细查询的延迟统计模式使用
+     *
+     * @param dto 检索请求参数，与明细查询使用相同的过滤条件和时间范围
+     * @return 日志总数查询结果
+     */
+    LogCountResultDTO searchCount(LogSearchDTO dto);
+
     /**
      * 仅执行日志时间分布查询（柱状图数据）
      *
@@ -37,6 +70,22 @@ public interface LogSearchService {
      */
     LogFieldDistributionResultDTO searchFieldDistributions(LogSearchDTO dto);
 
+    /**
+     * 组合检索：一次请求并行查询明细、时间分布和字段分布，公共参数只解析和校验一次
+     *
+     * @param dto 组合检索请求参数
+     * @return 组合检索结果，未请求的部分为null
+     */
+    LogSearchCombinedResultDTO searchCombined(LogSearchCombinedDTO dto);
+
+    /**
+     * 取消当前用户在指定会话下正在执行的检索（如页面关闭时）
+     *
+     * @param searchSessionId 检索会话标识
+     * @return 被取消的检索数量
+     */
+    int cancelSearches(String searchSessionId);
+
     /**
      * 获取日志检索表结构信息
      *
@@ -0,0 +1,348 @@
+package com.hinadt.miaocha.application.service.datasource;
+
+import com.hinadt.miaocha.common.exception.BusinessException;
+import com.hinadt.miaocha.common.exception.ErrorCode;
+import com.hinadt.miaocha.domain.entity.DatasourceInfo;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 数据源并发查询限制
+ *
+ * <p>按数据源限制同时执行的检索和SQL查询数量，不再依赖线程池大小控制对 Doris 的并发。使用虚拟线程执行时每个请求都有自己的线程，
+ * 这里的许可是唯一的并发上限；获取许可超时的请求直接失败，不会在连接池上排队直到连接超时。
+ *
+ * <p>许可按 {@link QueryPriority} 分配：每个优先级有独立的等待队列，释放许可时先唤醒高优先级的请求；低优先级请求只能使用并发上限的一部分，
+ * 为交互式检索保留余量。队列已满时立即拒绝。
+ *
+ * <p>开启自适应调整时并发上限按 AIMD 方式变化：查询在 slowQueryMs 内完成时每轮（约一个上限数量的查询）加一， 查询变慢或超时说明 Doris 已经过载，上限按
+ * backoffRatio 缩小，范围在 minConcurrentQueries 和 maxConcurrentQueries 之间。
+ *
+ * @author miaocha
+ */
+@Setter
+@Getter
+@Slf4j
+@Component
+@ConfigurationProperties(prefix = "miaocha.datasource.concurrency")
+public class DatasourceConcurrencyLimiter {
+
+    /** 每个数据源同时执行的查询数上限，0 表示不限制；自适应调整时为上限的最大值 */
+    private int maxConcurrentQueries = 32;
+
+    /** 自适应调整时并发上限的最小值 */
+    private int minConcurrentQueries = 4;
+
+    /** 是否按查询耗时自适应调整并发上限 */
+    private boolean adaptive = true;
+
+    /** 查询耗时超过该值（毫秒）视为数据源过载 */
+    private long slowQueryMs = 10000;
+
+    /** 过载时并发上限的缩小比例 */
+    private double backoffRatio = 0.9;
+
+    /** 每个优先级最多排队的请求数，超出时立即拒绝 */
+    private int maxQueueSize = 100;
+
+    /** 等待许可的最长时间（毫秒） */
+    private long acquireTimeoutMs = 10000;
+
+    @Getter(AccessLevel.NONE)
+    private final ConcurrentHashMap<Long, Gate> gates = new ConcurrentHashMap<>();
+
+    /**
+     * 以交互式优先级获取数据源的查询许可
+     *
+     * @param datasourceInfo 数据源信息
+     * @return 查询许可
+     * @see #acquire(DatasourceInfo, QueryPriority)
+     */
+    public Permit acquire(DatasourceInfo datasourceInfo) {
+        return acquire(datasourceInfo, QueryPriority.INTERACTIVE);
+    }
+
+    /**
+     * 获取数据源的查询许可，查询结束后关闭许可
+     *
+     * @param datasourceInfo 数据源信息
+     * @param priority 查询优先级
+     * @return 查询许可
+     * @throws BusinessException 队列已满、等待超时或被中断时抛出 DATASOURCE_BUSY
+     */
+    public Permit acquire(DatasourceInfo datasourceInfo, QueryPriority priority) {
+        if (maxConcurrentQueries <= 0 || datasourceInfo.getId() == null) {
+            return Permit.UNLIMITED;
+        }
+        Gate gate = gates.computeIfAbsent(datasourceInfo.getId(), id -> new Gate());
+        gate.admit(priority, datasourceInfo.getName());
+        return new Permit(gate);
+    }
+
+    /**
+     * 获取数据源当前的并发上限
+     *
+     * @param datasourceId 数据源ID
+     * @return 并发上限，尚未查询过时返回最大值
+     */
+    public double currentLimit(Long datasourceId) {
+        Gate gate = gates.get(datasourceId);
+        return gate != null ? gate.snapshotLimit() : maxConcurrentQueries;
+    }
+
+    /**
+     * 获取数据源正在执行的查询数
+     *
+     * @param datasourceId 数据源ID
+     * @return 已获得许可的查询数
+     */
+    public int inFlight(Long datasourceId) {
+        Gate gate = gates.get(datasourceId);
+        return gate != null ? gate.snapshotInFlight() : 0;
+    }
+
+    /**
+     * 获取数据源正在排队等待许可的请求数
+     *
+     * @param datasourceId 数据源ID
+     * @return 所有优先级的排队请求数
+     */
+    public int queued(Long datasourceId) {
+        Gate gate = gates.get(datasourceId);
+        return gate != null ? gate.snapshotQueued() : 0;
+    }
+
+    /** 查询结束时的状态，用于调整并发上限 */
+    private enum Outcome {
+        /** 正常结束，按耗时判断是否过载 */
+        COMPLETED,
+        /** 超时，视为过载 */
+        OVERLOADED,
+        /** 被取消，不参与调整 */
+        IGNORED
+    }
+
+    /** 单个数据源的许可分配状态 */
+    private final class Gate {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final EnumMap<QueryPriority, ArrayDeque<Waiter>> queues =
+                new EnumMap<>(QueryPriority.class);
+        private double limit = maxConcurrentQueries;
+        private int inFlight;
+
+        private Gate() {
+            for (QueryPriority priority : QueryPriority.values()) {
+                queues.put(priority, new ArrayDeque<>());
+            }
+        }
+
+        private void admit(QueryPriority priority, String datasourceName) {
+            lock.lock();
+            try {
+                if (!hasWaiters(priority) && inFlight < priority.capacity(limit)) {
+                    inFlight++;
+                    return;
+                }
+                ArrayDeque<Waiter> queue = queues.get(priority);
+                if (queue.size() >= maxQueueSize) {
+                    log.warn(
+                            "数据源 {} {} 查询排队已满 {}，当前并发上限 {}",
+                            datasourceName,
+                            priority,
+                            maxQueueSize,
+                            (int) limit);
+                    throw new BusinessException(ErrorCode.DATASOURCE_BUSY);
+                }
+                Waiter waiter = new Waiter(lock.newCondition());
+                queue.addLast(waiter);
+                long remainingNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs);
+                try {
+                    while (!waiter.admitted) {
+                        if (remainingNanos <= 0) {
+                            queue.remove(waiter);
+                            log.warn(
+                                    "数据源 {} {} 查询等待 {}ms 未获得许可，当前并发上限 {}",
+                                    datasourceName,
+                                    priority,
+                                    acquireTimeoutMs,
+                                    (int) limit);
+                            throw new BusinessException(ErrorCode.DATASOURCE_BUSY);
+                        }
+                        remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+                    }
+                } catch (InterruptedException e) {
+                    if (waiter.admitted) {
+                        inFlight--;
+                        dispatch();
+                    } else {
+                        queue.remove(waiter);
+                    }
+                    Thread.currentThread().interrupt();
+                    throw new BusinessException(ErrorCode.DATASOURCE_BUSY);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release(long elapsedNanos, Outcome outcome) {
+            lock.lock();
+            try {
+                inFlight--;
+                if (adaptive) {
+                    adjust(elapsedNanos, outcome);
+                }
+                dispatch();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void adjust(long elapsedNanos, Outcome outcome) {
+            if (outcome == Outcome.IGNORED) {
+                return;
+            }
+            double max = maxConcurrentQueries;
+            double min = Math.min(minConcurrentQueries, maxConcurrentQueries);
+            if (outcome == Outcome.OVERLOADED
+                    || TimeUnit.NANOSECONDS.toMillis(elapsedNanos) > slowQueryMs) {
+                double previous = limit;
+                limit = Math.max(min, limit * backoffRatio);
+                if ((int) limit < (int) previous) {
+                    log.info("数据源查询变慢，并发上限从 {} 降为 {}", (int) previous, (int) limit);
+                }
+            } else {
+                limit = Math.min(max, limit + 1 / limit);
+            }
+        }
+
+        /** 按优先级从高到低唤醒等待者，高优先级仍有等待者时不唤醒低优先级 */
+        private void dispatch() {
+            for (QueryPriority priority : QueryPriority.values()) {
+                ArrayDeque<Waiter> queue = queues.get(priority);
+                while (!queue.isEmpty() && inFlight < priority.capacity(limit)) {
+                    Waiter waiter = queue.pollFirst();
+                    waiter.admitted = true;
+                    inFlight++;
+                    waiter.condition.signal();
+                }
+                if (!queue.isEmpty()) {
+                    return;
+                }
+            }
+        }
+
+        /** 是否有同级或更高优先级的请求在排队，有时新请求需要排在它们之后 */
+        private boolean hasWaiters(QueryPriority priority) {
+            for (QueryPriority other : QueryPriority.values()) {
+                if (other.ordinal() > priority.ordinal()) {
+                    break;
+                }
+                if (!queues.get(other).isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private double snapshotLimit() {
+            lock.lock();
+            try {
+                return limit;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int snapshotQueued() {
+            lock.lock();
+            try {
+                return queues.values().stream().mapToInt(ArrayDeque::size).sum();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int snapshotInFlight() {
+            lock.lock();
+            try {
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** 排队等待许可的请求 */
+    private static final class Waiter {
+
+        private final Condition condition;
+        private boolean admitted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * 查询许可，重复关闭只归还一次；关闭时按查询耗时和结束状态调整数据源的并发上限
+     *
+     * <p>查询耗时默认为许可的持有时长。持有期间还有其他工作（如向客户端写出明细、逐个切片输出）时，通过 {@link #recordQueryTime(long)}
+     * 记录语句实际的执行耗时，以免客户端较慢或检索时间较长时被误判为数据源过载
+     */
+    public static final class Permit implements AutoCloseable {
+
+        /** 不限制并发时使用的空许可 */
+        private static final Permit UNLIMITED = new Permit(null);
+
+        private final Gate gate;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final AtomicLong queryNanos = new AtomicLong(-1);
+        private volatile Outcome outcome = Outcome.COMPLETED;
+
+        private Permit(Gate gate) {
+            this.gate = gate;
+        }
+
+        /** 标记查询超时，关闭时缩小并发上限 */
+        public void markOverloaded() {
+            outcome = Outcome.OVERLOADED;
+        }
+
+        /** 标记查询被取消，关闭时不调整并发上限 */
+        public void markIgnored() {
+            outcome = Outcome.IGNORED;
+        }
+
+        /**
+         * 记录查询语句的执行耗时，关闭时以记录的最大值代替许可的持有时长
+         *
+         * @param elapsedNanos 语句执行耗时（纳秒）
+         */
+        public void recordQueryTime(long elapsedNanos) {
+            queryNanos.accumulateAndGet(elapsedNanos, Math::max);
+        }
+
+        @Override
+        public void close() {
+            if (gate != null && released.compareAndSet(false, true)) {
+                long recorded = queryNanos.get();
+                gate.release(recorded >= 0 ? recorded : System.nanoTime() - startNanos, outcome);
+            }
+        }
+    }
+}
@@ -59,6 +59,19 @@ public class HikariConfigProvider {
     /** 是否启用JMX监控，默认关闭 */
     private boolean enableJmxMonitoring = false;
 
+    /**
+     * 是否使用服务端预编译语句并在每个连接上缓存
+     *
+     * <p>参数化的检索SQL文本相同，复用连接上已预编译的语句可跳过 Doris FE 的SQL解析；服务端不支持预编译的语句由驱动退回客户端预编译
+     */
+    private boolean serverPreparedStatements = true;
+
+    /** 每个连接缓存的预编译语句数 */
+    private int preparedStatementCacheSize = 250;
+
+    /** 可缓存的预编译语句SQL最大长度 */
+    private int preparedStatementCacheSqlLimit = 8192;
+
     /**
      * 为指定数据源创建 HikariConfig
      *
@@ -90,6 +103,16 @@ public class HikariConfigProvider {
         config.setReadOnly(readOnly);
         config.setIsolateInternalQueries(isolateInternalQueries);
 
+        // 服务端预编译语句缓存，JDBC URL 中的同名参数优先
+        if (serverPreparedStatements) {
+            config.addDataSourceProperty("useServerPrepStmts", "true");
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty(
+                    "prepStmtCacheSize", String.valueOf(preparedStatementCacheSize));
+            config.addDataSourceProperty(
+                    "prepStmtCacheSqlLimit", String.valueOf(preparedStatementCacheSqlLimit));
+        }
+
         // 配置JMX监控
         if (enableJmxMonitoring) {
             config.setRegisterMbeans(true);
@@ -0,0 +1,86 @@
+package com.hinadt.miaocha.application.service.datasource;
+
+import java.util.Locale;
+import lombok.Getter;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * 查询优先级
+ *
+ * <p>数据源并发许可按优先级分配：高优先级的排队请求先获得许可，低优先级请求只能使用并发上限的一部分， 为交互式检索保留余量。优先级由服务端在各检索入口确定，请求头 {@value
+ * #HEADER} 只能在此基础上降低优先级，不能提升。
+ */
+@Getter
+public enum QueryPriority {
+
+    /** 用户主动发起的检索和SQL查询 */
+    INTERACTIVE(1.0),
+
+    /** 时间分布自动刷新、AI助手触发的检索等非交互请求 */
+    BACKGROUND(0.75),
+
+    /** SQL查询结果导出等批量任务 */
+    BULK(0.5);
+
+    /** 声明查询优先级的请求头 */
+    public static final String HEADER = "X-Query-Priority";
+
+    /** 可使用的并发上限比例 */
+    private final double share;
+
+    QueryPriority(double share) {
+        this.share = share;
+    }
+
+    /**
+     * 按优先级比例计算可使用的并发数，至少为1
+     *
+     * @param limit 数据源当前并发上限
+     * @return 该优先级可使用的并发数
+     */
+    public int capacity(double limit) {
+        return Math.max(1, (int) (limit * share));
+    }
+
+    /**
+     * 解析优先级名称，忽略大小写，无法识别时按交互式处理
+     *
+     * @param value 优先级名称
+     * @return 查询优先级
+     */
+    public static QueryPriority parse(String value) {
+        if (value == null || value.isBlank()) {
+            return INTERACTIVE;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return INTERACTIVE;
+        }
+    }
+
+    /**
+     * 返回两者中较低的优先级
+     *
+     * @param other 另一个优先级
+     * @return 较低的优先级
+     */
+    public QueryPriority lower(QueryPriority other) {
+        return other.ordinal() > ordinal() ? other : this;
+    }
+
+    /**
+     * 获取当前请求的查询优先级
+     *
+     * @param assigned 服务端为该检索入口确定的优先级
+     * @return 请求头声明的优先级低于服务端确定的优先级时使用请求头，否则使用服务端确定的优先级
+     */
+    public static QueryPriority current(QueryPriority assigned) {
+        if (RequestContextHolder.getRequestAttributes()
+                instanceof ServletRequestAttributes attributes) {
+            return assigned.lower(parse(attributes.getRequest().getHeader(HEADER)));
+        }
+        return assigned;
+    }
+}
@@ -2,6 +2,8 @@ package com.hinadt.miaocha.application.service.impl;
 
 import com.hinadt.miaocha.application.service.DatasourceService;
 import com.hinadt.miaocha.application.service.datasource.HikariDatasourceManager;
+import com.hinadt.miaocha.application.service.impl.module.ModuleMetadataCache;
+import com.hinadt.miaocha.application.service.impl.module.ModuleMetadataCache.ModuleMetadata;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.domain.converter.DatasourceConverter;
@@ -38,6 +40,8 @@ public class DatasourceServiceImpl implements DatasourceService {
 
     @Autowired private HikariDatasourceManager hikariDatasourceManager;
 
+    @Autowired private ModuleMetadataCache moduleMetadataCache;
+
     @Override
     @Transactional
     public DatasourceDTO createDatasource(DatasourceCreateDTO dto) {
@@ -99,6 +103,7 @@ public class DatasourceServiceImpl implements DatasourceService {
         // 数据源信息已更新，使对应的连接池失效
         log.info("数据源信息已更新，正在使连接池失效: {}", datasourceInfo.getName());
         hikariDatasourceManager.invalidateDataSourceById(id);
+        moduleMetadataCache.invalidateAll();
 
         return datasourceConverter.toDto(datasourceInfo);
     }
@@ -122,6 +127,7 @@ public class DatasourceServiceImpl implements DatasourceService {
         hikariDatasourceManager.invalidateDataSourceById(id);
 
         datasourceMapper.deleteById(id);
+        moduleMetadataCache.invalidateAll();
     }
 
     @Override
@@ -169,14 +175,13 @@ public class DatasourceServiceImpl implements DatasourceService {
             throw new BusinessException(ErrorCode.VALIDATION_ERROR, "模块名称不能为空");
         }
 
-        // 根据模块名称查询模块信息
-        ModuleInfo moduleInfo = moduleInfoMapper.selectByName(module.trim());
-        if (moduleInfo == null) {
+        // 检索时每次请求都会调用，通过模块元数据缓存获取模块和数据源信息
+        ModuleMetadata metadata = moduleMetadataCache.get(module.trim());
+        if (metadata == null) {
             throw new BusinessException(ErrorCode.MODULE_NOT_FOUND, "未找到模块: " + module);
         }
 
-        // 获取数据源信息
-        DatasourceInfo datasourceInfo = datasourceMapper.selectById(moduleInfo.getDatasourceId());
+        DatasourceInfo datasourceInfo = metadata.datasourceInfo();
         if (datasourceInfo == null) {
             throw new BusinessException(ErrorCode.DATASOURCE_NOT_FOUND, "模块关联的数据源不存在");
         }
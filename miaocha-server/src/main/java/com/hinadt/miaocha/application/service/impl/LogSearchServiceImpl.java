@@ -1,71 +1,113 @@
 package com.hinadt.miaocha.application.service.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.hinadt.miaocha.application.service.LogSearchService;
 import com.hinadt.miaocha.application.service.ModuleInfoService;
 import com.hinadt.miaocha.application.service.SystemCacheService;
 import com.hinadt.miaocha.application.service.database.DatabaseMetadataService;
 import com.hinadt.miaocha.application.service.database.DatabaseMetadataServiceFactory;
+import com.hinadt.miaocha.application.service.datasource.QueryPriority;
+import com.hinadt.miaocha.application.service.impl.logsearch.executor.CombinedSearchExecutor;
+import com.hinadt.miaocha.application.service.impl.logsearch.executor.CountSearchExecutor;
 import com.hinadt.miaocha.application.service.impl.logsearch.executor.DetailSearchExecutor;
 import com.hinadt.miaocha.application.service.impl.logsearch.executor.FieldDistributionSearchExecutor;
 import com.hinadt.miaocha.application.service.impl.logsearch.executor.HistogramSearchExecutor;
+import com.hinadt.miaocha.application.service.impl.logsearch.executor.ProgressiveSearchExecutor;
 import com.hinadt.miaocha.application.service.impl.logsearch.template.LogSearchTemplate;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchSessionRegistry;
 import com.hinadt.miaocha.application.service.impl.logsearch.validator.LogSearchValidator;
 import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.common.util.CacheKeyUtils;
+import com.hinadt.miaocha.common.util.UserContextUtil;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.dto.ApiResponse;
 import com.hinadt.miaocha.domain.dto.SchemaInfoDTO;
 import com.hinadt.miaocha.domain.dto.cache.BatchDeleteCacheDTO;
 import com.hinadt.miaocha.domain.dto.cache.SystemCacheDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogCountResultDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogDetailResultDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogHistogramResultDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchCacheDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchCombinedDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchCombinedResultDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchSummaryDTO;
 import com.hinadt.miaocha.domain.entity.DatasourceInfo;
 import com.hinadt.miaocha.domain.enums.CacheGroup;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * 日志检索服务实现类
  *
  * <p>重构后的简洁版本，职责清晰，代码优雅
  */
+@Slf4j
 @Service
 public class LogSearchServiceImpl implements LogSearchService {
 
     private final LogSearchValidator validator;
     private final LogSearchTemplate searchTemplate;
     private final DetailSearchExecutor detailExecutor;
+    private final CountSearchExecutor countExecutor;
     private final HistogramSearchExecutor histogramExecutor;
     private final FieldDistributionSearchExecutor fieldDistributionExecutor;
+    private final CombinedSearchExecutor combinedExecutor;
+    private final ProgressiveSearchExecutor progressiveExecutor;
     private final DatabaseMetadataServiceFactory metadataServiceFactory;
     private final ModuleInfoService moduleInfoService;
     private final JdbcQueryExecutor jdbcQueryExecutor;
     private final SystemCacheService systemCacheService;
+    private final SearchSessionRegistry searchSessionRegistry;
+    private final LogSearchProperties logSearchProperties;
+    private final Executor progressiveSearchExecutor;
 
     public LogSearchServiceImpl(
             LogSearchValidator validator,
             LogSearchTemplate searchTemplate,
             DetailSearchExecutor detailExecutor,
+            CountSearchExecutor countExecutor,
             HistogramSearchExecutor histogramExecutor,
             FieldDistributionSearchExecutor fieldDistributionExecutor,
+            CombinedSearchExecutor combinedExecutor,
+            ProgressiveSearchExecutor progressiveExecutor,
             DatabaseMetadataServiceFactory metadataServiceFactory,
             ModuleInfoService moduleInfoService,
             JdbcQueryExecutor jdbcQueryExecutor,
-            SystemCacheService systemCacheService) {
+            SystemCacheService systemCacheService,
+            SearchSessionRegistry searchSessionRegistry,
+            LogSearchProperties logSearchProperties,
+            @Qualifier("progressiveSearchExecutor") Executor progressiveSearchExecutor) {
         this.validator = validator;
         this.searchTemplate = searchTemplate;
         this.detailExecutor = detailExecutor;
+        this.countExecutor = countExecutor;
         this.histogramExecutor = histogramExecutor;
         this.fieldDistributionExecutor = fieldDistributionExecutor;
+        this.combinedExecutor = combinedExecutor;
+        this.progressiveExecutor = progressiveExecutor;
         this.metadataServiceFactory = metadataServiceFactory;
         this.moduleInfoService = moduleInfoService;
         this.jdbcQueryExecutor = jdbcQueryExecutor;
         this.systemCacheService = systemCacheService;
+        this.searchSessionRegistry = searchSessionRegistry;
+        this.logSearchProperties = logSearchProperties;
+        this.progressiveSearchExecutor = progressiveSearchExecutor;
     }
 
     /** 执行日志明细查询 */
@@ -81,6 +123,33 @@ public class LogSearchServiceImpl implements LogSearchService {
         return searchTemplate.execute(datasourceInfo, dto, detailExecutor);
     }
 
+    /**
+     * 流式执行日志明细查询
+     *
+     * <p>不开启事务，避免在输出明细期间一直占用元数据库连接
+     */
+    @Override
+    public LogDetailResultDTO streamDetails(LogSearchDTO dto, JsonGenerator generator) {
+        // 验证参数
+        validator.validatePaginationParams(dto);
+        validator.validateSortFields(dto);
+        DatasourceInfo datasourceInfo = validator.validateAndGetDatasource(dto.getModule());
+
+        // 执行搜索
+        return searchTemplate.execute(datasourceInfo, dto, detailExecutor.streaming(generator));
+    }
+
+    /** 仅统计日志总数 */
+    @Override
+    @Transactional
+    public LogCountResultDTO searchCount(LogSearchDTO dto) {
+        // 验证参数
+        DatasourceInfo datasourceInfo = validator.validateAndGetDatasource(dto.getModule());
+
+        // 执行搜索
+        return searchTemplate.execute(datasourceInfo, dto, countExecutor);
+    }
+
     /** 执行日志时间分布查询（柱状图数据） */
     @Override
     @Transactional
@@ -105,6 +174,82 @@ public class LogSearchServiceImpl implements LogSearchService {
         return searchTemplate.execute(datasourceInfo, dto, fieldDistributionExecutor);
     }
 
+    /** 组合检索，明细、时间分布和字段分布共享一次校验、转换和截止时间 */
+    @Override
+    @Transactional
+    public LogSearchCombinedResultDTO searchCombined(LogSearchCombinedDTO dto) {
+        // 验证参数
+        if (!Boolean.FALSE.equals(dto.getIncludeDetails())) {
+            validator.validatePaginationParams(dto);
+            validator.validateSortFields(dto);
+        }
+        DatasourceInfo datasourceInfo = validator.validateAndGetDatasource(dto.getModule());
+
+        // 执行搜索
+        return searchTemplate.execute(datasourceInfo, dto, combinedExecutor.forRequest(dto));
+    }
+
+    /**
+     * 渐进式检索
+     *
+     * <p>参数校验在请求线程中完成，校验失败时按统一错误格式返回；检索在后台线程中执行，沿用请求的登录用户和查询优先级。
+     * 连接完成、超时或客户端断开后取消正在执行的查询。不开启事务，避免在输出期间一直占用元数据库连接
+     */
+    @Override
+    public SseEmitter searchProgressive(LogSearchDTO dto) {
+        // 验证参数
+        validator.validatePaginationParams(dto);
+        validator.validateSortFields(dto);
+        DatasourceInfo datasourceInfo = validator.validateAndGetDatasource(dto.getModule());
+        QueryPriority priority = searchTemplate.resolvePriority(dto, QueryPriority.INTERACTIVE);
+
+        SseEmitter emitter =
+                new SseEmitter(
+                        TimeUnit.SECONDS.toMillis(
+                                logSearchProperties.getTimeSlicing().getSseTimeoutSeconds()));
+        SseEventSink sink = new SseEventSink(emitter);
+
+        // 执行搜索，线程占满时拒绝，不在请求线程中执行
+        try {
+            progressiveSearchExecutor.execute(
+                    new DelegatingSecurityContextRunnable(
+                            () -> runProgressive(datasourceInfo, dto, priority, sink)));
+        } catch (RejectedExecutionException e) {
+            log.warn("渐进式检索线程已占满，拒绝模块 {} 的检索", dto.getModule());
+            throw new BusinessException(ErrorCode.DATASOURCE_BUSY);
+        }
+        return emitter;
+    }
+
+    private void runProgressive(
+            DatasourceInfo datasourceInfo,
+            LogSearchDTO dto,
+            QueryPriority priority,
+            SseEventSink sink) {
+        try {
+            LogSearchSummaryDTO summary =
+                    searchTemplate.execute(
+                            datasourceInfo, dto, progressiveExecutor.forSink(sink), priority);
+            sink.send(ProgressiveSearchExecutor.EVENT_SUMMARY, summary);
+            sink.complete();
+        } catch (IOException | UncheckedIOException e) {
+            // 客户端已断开，查询已在输出失败时取消
+            log.debug("渐进式检索输出中断: {}", e.getMessage());
+            sink.complete();
+        } catch (BusinessException e) {
+            sink.fail(e.getErrorCode().getCode(), e.getMessage());
+        } catch (Exception e) {
+            log.error("渐进式检索失败: {}", e.getMessage(), e);
+            sink.fail(ErrorCode.INTERNAL_ERROR.getCode(), e.getMessage());
+        }
+    }
+
+    /** 取消当前用户在指定会话下正在执行的检索 */
+    @Override
+    public int cancelSearches(String searchSessionId) {
+        return searchSessionRegistry.cancel(UserContextUtil.getCurrentUserEmail(), searchSessionId);
+    }
+
     /** 获取表字段信息 */
     @Override
     public List<SchemaInfoDTO.ColumnInfoDTO> getTableColumns(String module) {
@@ -183,4 +328,65 @@ public class LogSearchServiceImpl implements LogSearchService {
         systemCacheService.batchDeleteCache(
                 CacheGroup.LOG_SEARCH_CONDITION, deleteCacheDTO.getCacheKeys());
     }
+
+    /** 把渐进式检索的事件写入SSE连接，连接完成、超时或出错后执行关闭回调 */
+    private static final class SseEventSink implements ProgressiveSearchExecutor.EventSink {
+
+        private static final String EVENT_ERROR = "error";
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile Runnable closeCallback;
+
+        SseEventSink(SseEmitter emitter) {
+            this.emitter = emitter;
+            emitter.onCompletion(this::close);
+            emitter.onTimeout(this::close);
+            emitter.onError(e -> close());
+        }
+
+        @Override
+        public void send(String event, Object data) throws IOException {
+            if (closed.get()) {
+                throw new IOException("SSE连接已关闭");
+            }
+            emitter.send(SseEmitter.event().name(event).data(data));
+        }
+
+        @Override
+        public void onClose(Runnable callback) {
+            closeCallback = callback;
+            if (closed.get()) {
+                callback.run();
+            }
+        }
+
+        void complete() {
+            emitter.complete();
+        }
+
+        /** 输出错误事件后结束连接，客户端已断开时直接结束 */
+        void fail(String code, String message) {
+            if (!closed.get()) {
+                try {
+                    emitter.send(
+                            SseEmitter.event()
+                                    .name(EVENT_ERROR)
+                                    .data(ApiResponse.error(code, message)));
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("渐进式检索错误事件输出失败: {}", e.getMessage());
+                }
+            }
+            emitter.complete();
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                Runnable callback = closeCallback;
+                if (callback != null) {
+                    callback.run();
+                }
+            }
+        }
+    }
 }
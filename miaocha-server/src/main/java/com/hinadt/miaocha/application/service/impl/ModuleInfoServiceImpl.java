@@ -4,7 +4,10 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hinadt.miaocha.application.service.ModuleInfoService;
 import com.hinadt.miaocha.application.service.TableValidationService;
+import com.hinadt.miaocha.application.service.impl.module.ModuleMetadataCache;
+import com.hinadt.miaocha.application.service.impl.module.ModuleMetadataCache.ModuleMetadata;
 import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
+import com.hinadt.miaocha.application.service.sql.builder.AggregationSqlBuilder;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.domain.converter.ModuleInfoConverter;
@@ -15,6 +18,7 @@ import com.hinadt.miaocha.domain.dto.module.ModuleInfoUpdateDTO;
 import com.hinadt.miaocha.domain.dto.module.ModuleInfoWithPermissionsDTO;
 import com.hinadt.miaocha.domain.dto.module.ModuleStatusUpdateDTO;
 import com.hinadt.miaocha.domain.dto.module.QueryConfigDTO;
+import com.hinadt.miaocha.domain.dto.module.QueryConfigDTO.AggregationAccelerationDTO;
 import com.hinadt.miaocha.domain.dto.permission.ModuleUsersPermissionDTO.UserPermissionInfoDTO;
 import com.hinadt.miaocha.domain.entity.DatasourceInfo;
 import com.hinadt.miaocha.domain.entity.ModuleInfo;
@@ -29,6 +33,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -40,6 +45,9 @@ import org.springframework.util.StringUtils;
 @Slf4j
 public class ModuleInfoServiceImpl implements ModuleInfoService {
 
+    /** 未配置刷新间隔时聚合加速物化视图的刷新间隔（分钟） */
+    private static final int DEFAULT_AGGREGATION_REFRESH_MINUTES = 5;
+
     private final ModuleInfoMapper moduleInfoMapper;
     private final DatasourceMapper datasourceMapper;
     private final JdbcQueryExecutor jdbcQueryExecutor;
@@ -50,6 +58,8 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
     private final ModulePermissionConverter modulePermissionConverter;
     private final TableValidationService tableValidationService;
     private final ObjectMapper objectMapper;
+    private final ModuleMetadataCache moduleMetadataCache;
+    private final AggregationSqlBuilder aggregationSqlBuilder;
 
     public ModuleInfoServiceImpl(
             ModuleInfoMapper moduleInfoMapper,
@@ -61,7 +71,9 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
             UserMapper userMapper,
             ModulePermissionConverter modulePermissionConverter,
             TableValidationService tableValidationService,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            ModuleMetadataCache moduleMetadataCache,
+            AggregationSqlBuilder aggregationSqlBuilder) {
         this.moduleInfoMapper = moduleInfoMapper;
         this.datasourceMapper = datasourceMapper;
         this.jdbcQueryExecutor = jdbcQueryExecutor;
@@ -72,6 +84,8 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
         this.modulePermissionConverter = modulePermissionConverter;
         this.tableValidationService = tableValidationService;
         this.objectMapper = objectMapper;
+        this.moduleMetadataCache = moduleMetadataCache;
+        this.aggregationSqlBuilder = aggregationSqlBuilder;
     }
 
     @Override
@@ -86,6 +100,7 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
         // 创建并保存模块
         ModuleInfo moduleInfo = moduleInfoConverter.toEntity(request);
         insertModuleOrThrow(moduleInfo);
+        moduleMetadataCache.invalidate(moduleInfo.getName());
 
         return moduleInfoConverter.toDto(moduleInfo, datasourceInfo);
     }
@@ -110,6 +125,7 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
         // 更新模块
         ModuleInfo moduleInfo = moduleInfoConverter.updateEntity(existingModule, request);
         updateModuleOrThrow(moduleInfo);
+        moduleMetadataCache.invalidate(oldModuleName, newModuleName);
 
         // 如果模块名发生变化，同步更新权限表中的模块名
         if (moduleNameChanged) {
@@ -138,6 +154,7 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
 
         // 删除模块
         deleteModuleInner(moduleInfo);
+        moduleMetadataCache.invalidate(moduleInfo.getName());
 
         // 根据参数决定是否删除Doris表
         if (Boolean.TRUE.equals(deleteDorisTable) && canDeleteDorisTable(moduleInfo)) {
@@ -200,6 +217,7 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
         // 更新模块SQL字段
         moduleInfo.setDorisSql(sql);
         updateModuleOrThrow(moduleInfo);
+        moduleMetadataCache.invalidate(moduleInfo.getName());
 
         return moduleInfoConverter.toDto(moduleInfo, datasourceInfo);
     }
@@ -213,13 +231,17 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
         validateTableReady(moduleInfo);
         validateQueryConfig(moduleInfo, queryConfig);
 
+        // 聚合加速配置变化时重建物化视图
+        DatasourceInfo datasourceInfo = getDatasourceOrThrow(moduleInfo.getDatasourceId());
+        syncAggregationView(datasourceInfo, moduleInfo, queryConfig);
+
         // 更新配置
         String queryConfigJson = serializeQueryConfig(queryConfig);
         moduleInfo.setQueryConfig(queryConfigJson);
         updateModuleOrThrow(moduleInfo);
+        moduleMetadataCache.invalidate(moduleInfo.getName());
 
         // 返回结果
-        DatasourceInfo datasourceInfo = getDatasourceOrThrow(moduleInfo.getDatasourceId());
         return moduleInfoConverter.toDto(moduleInfo, datasourceInfo);
     }
 
@@ -227,8 +249,7 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
     public String getTableNameByModule(String module) {
         validateModuleName(module);
 
-        ModuleInfo moduleInfo = getModuleByName(module);
-        String tableName = moduleInfo.getTableName();
+        String tableName = getModuleMetadataByName(module).tableName();
 
         if (!StringUtils.hasText(tableName)) {
             throw new BusinessException(ErrorCode.VALIDATION_ERROR, "模块 " + module + " 对应的表名未配置");
@@ -243,12 +264,8 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
             return null;
         }
 
-        ModuleInfo moduleInfo = moduleInfoMapper.selectByName(module);
-        if (moduleInfo == null) {
-            return null;
-        }
-
-        return parseQueryConfig(moduleInfo.getQueryConfig(), module);
+        ModuleMetadata metadata = moduleMetadataCache.get(module);
+        return metadata != null ? metadata.queryConfig() : null;
     }
 
     @Override
@@ -263,6 +280,7 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
         // 更新模块状态
         existingModule.setStatus(request.getStatus());
         updateModuleOrThrow(existingModule);
+        moduleMetadataCache.invalidate(existingModule.getName());
 
         // 重新查询获取最新数据
         ModuleInfo updatedModule = getModuleOrThrow(request.getId());
@@ -316,9 +334,24 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
 
     private void validateQueryConfig(ModuleInfo moduleInfo, QueryConfigDTO queryConfig) {
         validateExcludeFieldsNotContainTimeField(queryConfig);
+        validateAggregationAcceleration(queryConfig);
         validateConfiguredFieldsExist(moduleInfo, queryConfig);
     }
 
+    private void validateAggregationAcceleration(QueryConfigDTO queryConfig) {
+        AggregationAccelerationDTO acceleration = queryConfig.getAggregationAcceleration();
+        if (!isAccelerationEnabled(acceleration)) {
+            return;
+        }
+        if (!StringUtils.hasText(queryConfig.getTimeField())) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "开启聚合加速需要配置时间字段");
+        }
+        if (acceleration.getDimensions() != null
+                && acceleration.getDimensions().contains(queryConfig.getTimeField())) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "聚合维度字段不能包含时间字段");
+        }
+    }
+
     private void validateExcludeFieldsNotContainTimeField(QueryConfigDTO queryConfig) {
         if (queryConfig.getExcludeFields() != null
                 && !queryConfig.getExcludeFields().isEmpty()
@@ -343,12 +376,12 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
         return moduleInfo;
     }
 
-    private ModuleInfo getModuleByName(String module) {
-        ModuleInfo moduleInfo = moduleInfoMapper.selectByName(module);
-        if (moduleInfo == null) {
+    private ModuleMetadata getModuleMetadataByName(String module) {
+        ModuleMetadata metadata = moduleMetadataCache.get(module);
+        if (metadata == null) {
             throw new BusinessException(ErrorCode.MODULE_NOT_FOUND, "未找到模块: " + module);
         }
-        return moduleInfo;
+        return metadata;
     }
 
     private DatasourceInfo getDatasourceOrThrow(Long datasourceId) {
@@ -403,10 +436,66 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
         // 清空表数据
         executeSqlIgnoreError(datasourceInfo, "TRUNCATE TABLE " + tableName, "清空表数据");
 
+        // 删除聚合加速物化视图，未开启时视图不存在
+        executeSqlIgnoreError(
+                datasourceInfo, aggregationSqlBuilder.buildDropView(tableName), "删除物化视图");
+
         // 删除表
         executeSqlIgnoreError(datasourceInfo, "DROP TABLE IF EXISTS " + tableName, "删除表");
     }
 
+    /**
+     * 按新的聚合加速配置同步物化视图
+     *
+     * <p>时间字段、维度或刷新间隔变化时删除旧视图再按新配置创建，关闭加速时只删除旧视图；配置未变化时不做任何操作
+     */
+    private void syncAggregationView(
+            DatasourceInfo datasourceInfo, ModuleInfo moduleInfo, QueryConfigDTO queryConfig) {
+        QueryConfigDTO previous = parseQueryConfig(moduleInfo.getQueryConfig());
+        String previousView = previous != null ? describeAggregationView(previous) : null;
+        String currentView = describeAggregationView(queryConfig);
+        if (Objects.equals(previousView, currentView)) {
+            return;
+        }
+
+        String tableName = moduleInfo.getTableName();
+        if (previousView != null) {
+            executeSqlSafely(datasourceInfo, aggregationSqlBuilder.buildDropView(tableName));
+        }
+        if (currentView != null) {
+            AggregationAccelerationDTO acceleration = queryConfig.getAggregationAcceleration();
+            String createSql =
+                    aggregationSqlBuilder.buildCreateView(
+                            tableName,
+                            queryConfig.getTimeField(),
+                            acceleration.getDimensions() != null
+                                    ? acceleration.getDimensions()
+                                    : List.of(),
+                            acceleration.getRefreshIntervalMinutes() != null
+                                    ? acceleration.getRefreshIntervalMinutes()
+                                    : DEFAULT_AGGREGATION_REFRESH_MINUTES);
+            executeSqlSafely(datasourceInfo, createSql);
+            log.info("模块 {} 已创建聚合加速物化视图: {}", moduleInfo.getName(), createSql);
+        }
+    }
+
+    /** 描述决定物化视图结构的配置，未开启聚合加速时返回null */
+    private String describeAggregationView(QueryConfigDTO queryConfig) {
+        AggregationAccelerationDTO acceleration = queryConfig.getAggregationAcceleration();
+        if (!isAccelerationEnabled(acceleration)) {
+            return null;
+        }
+        return queryConfig.getTimeField()
+                + '|'
+                + acceleration.getDimensions()
+                + '|'
+                + acceleration.getRefreshIntervalMinutes();
+    }
+
+    private static boolean isAccelerationEnabled(AggregationAccelerationDTO acceleration) {
+        return acceleration != null && Boolean.TRUE.equals(acceleration.getEnabled());
+    }
+
     private void executeSqlIgnoreError(
             DatasourceInfo datasourceInfo, String sql, String operation) {
         try {
@@ -488,18 +577,16 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
             configuredFields.addAll(queryConfig.getExcludeFields());
         }
 
-        return configuredFields;
-    }
-
-    private String serializeQueryConfig(QueryConfigDTO queryConfig) {
-        try {
-            return objectMapper.writeValueAsString(queryConfig);
-        } catch (JsonProcessingException e) {
-            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "查询配置序列化失败: " + e.getMessage());
+        // 收集聚合维度字段
+        AggregationAccelerationDTO acceleration = queryConfig.getAggregationAcceleration();
+        if (acceleration != null && acceleration.getDimensions() != null) {
+            configuredFields.addAll(acceleration.getDimensions());
         }
+
+        return configuredFields;
     }
 
-    private QueryConfigDTO parseQueryConfig(String queryConfigJson, String module) {
+    private QueryConfigDTO parseQueryConfig(String queryConfigJson) {
         if (!StringUtils.hasText(queryConfigJson)) {
             return null;
         }
@@ -507,8 +594,16 @@ public class ModuleInfoServiceImpl implements ModuleInfoService {
         try {
             return objectMapper.readValue(queryConfigJson, QueryConfigDTO.class);
         } catch (JsonProcessingException e) {
-            log.warn("解析模块 {} 的查询配置JSON失败: {}", module, e.getMessage());
+            log.warn("解析原查询配置JSON失败: {}", e.getMessage());
             return null;
         }
     }
+
+    private String serializeQueryConfig(QueryConfigDTO queryConfig) {
+        try {
+            return objectMapper.writeValueAsString(queryConfig);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "查询配置序列化失败: " + e.getMessage());
+        }
+    }
 }
@@ -1,6 +1,10 @@
 package com.hinadt.miaocha.application.service.impl;
 
 import com.hinadt.miaocha.application.service.ModulePermissionService;
+import com.hinadt.miaocha.application.service.impl.module.ModuleMetadataCache;
+import com.hinadt.miaocha.application.service.impl.module.ModuleMetadataCache.ModuleMetadata;
+import com.hinadt.miaocha.application.service.impl.permission.PermissionSnapshotCache;
+import com.hinadt.miaocha.application.service.impl.permission.PermissionSnapshotCache.PermissionSnapshot;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.domain.converter.ModulePermissionConverter;
@@ -36,47 +40,45 @@ public class ModulePermissionServiceImpl implements ModulePermissionService {
     private final UserModulePermissionMapper userModulePermissionMapper;
     private final ModuleInfoMapper moduleInfoMapper;
     private final ModulePermissionConverter modulePermissionConverter;
+    private final PermissionSnapshotCache permissionSnapshotCache;
+    private final ModuleMetadataCache moduleMetadataCache;
 
     public ModulePermissionServiceImpl(
             UserMapper userMapper,
             DatasourceMapper datasourceMapper,
             UserModulePermissionMapper userModulePermissionMapper,
             ModuleInfoMapper moduleInfoMapper,
-            ModulePermissionConverter modulePermissionConverter) {
+            ModulePermissionConverter modulePermissionConverter,
+            PermissionSnapshotCache permissionSnapshotCache,
+            ModuleMetadataCache moduleMetadataCache) {
         this.userMapper = userMapper;
         this.datasourceMapper = datasourceMapper;
         this.userModulePermissionMapper = userModulePermissionMapper;
         this.moduleInfoMapper = moduleInfoMapper;
         this.modulePermissionConverter = modulePermissionConverter;
+        this.permissionSnapshotCache = permissionSnapshotCache;
+        this.moduleMetadataCache = moduleMetadataCache;
     }
 
     @Override
     public boolean hasModulePermission(Long userId, String module) {
-        // 先查询用户信息
-        User user = userMapper.selectById(userId);
-        if (user == null) {
-            throw new BusinessException(ErrorCode.USER_NOT_FOUND);
-        }
+        // 用户角色和模块授权从权限快照获取，用户不存在时抛出异常
+        PermissionSnapshot snapshot = permissionSnapshotCache.getSnapshot(userId);
 
         // 检查模块是否存在且启用
-        ModuleInfo moduleInfo = moduleInfoMapper.selectByName(module);
+        ModuleMetadata metadata = moduleMetadataCache.get(module);
+        ModuleInfo moduleInfo = metadata != null ? metadata.moduleInfo() : null;
         if (moduleInfo == null || moduleInfo.getStatus() == null || moduleInfo.getStatus() != 1) {
             return false; // 模块不存在或已禁用
         }
 
         // 超级管理员和管理员拥有所有模块的权限
-        String role = user.getRole();
-        if (UserRole.SUPER_ADMIN.name().equals(role) || UserRole.ADMIN.name().equals(role)) {
+        if (snapshot.isAdmin()) {
             return true;
         }
 
-        // 根据模块名称获取数据源ID
-        Long datasourceId = getDatasourceIdByModule(module);
-
         // 检查用户是否拥有此模块的权限
-        UserModulePermission permission =
-                userModulePermissionMapper.select(userId, datasourceId, module);
-        return permission != null;
+        return snapshot.hasModuleGrant(moduleInfo.getDatasourceId(), module);
     }
 
     @Override
@@ -118,6 +120,7 @@ public class ModulePermissionServiceImpl implements ModulePermissionService {
 
         // 插入数据库
         userModulePermissionMapper.insert(permission);
+        permissionSnapshotCache.invalidate(userId);
 
         // 返回创建的权限DTO
         return modulePermissionConverter.toDto(permission);
@@ -148,6 +151,7 @@ public class ModulePermissionServiceImpl implements ModulePermissionService {
 
         // 删除权限
         userModulePermissionMapper.delete(userId, datasourceId, module);
+        permissionSnapshotCache.invalidate(userId);
     }
 
     @Override
@@ -257,6 +261,7 @@ public class ModulePermissionServiceImpl implements ModulePermissionService {
 
                 // 插入数据库
                 userModulePermissionMapper.insert(permission);
+                permissionSnapshotCache.invalidate(userId);
 
                 // 添加到结果中
                 result.add(modulePermissionConverter.toDto(permission));
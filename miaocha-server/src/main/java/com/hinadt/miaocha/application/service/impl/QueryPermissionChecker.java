@@ -1,13 +1,12 @@
 package com.hinadt.miaocha.application.service.impl;
 
 import com.hinadt.miaocha.application.service.TableValidationService;
+import com.hinadt.miaocha.application.service.impl.permission.PermissionSnapshotCache;
+import com.hinadt.miaocha.application.service.impl.permission.PermissionSnapshotCache.PermissionSnapshot;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.domain.entity.User;
 import com.hinadt.miaocha.domain.enums.UserRole;
-import com.hinadt.miaocha.infrastructure.mapper.ModuleInfoMapper;
-import com.hinadt.miaocha.infrastructure.mapper.UserMapper;
-import com.hinadt.miaocha.infrastructure.mapper.UserModulePermissionMapper;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
@@ -23,19 +22,13 @@ import org.springframework.stereotype.Component;
 public class QueryPermissionChecker {
 
     private final TableValidationService tableValidationService;
-    private final UserModulePermissionMapper userModulePermissionMapper;
-    private final UserMapper userMapper;
-    private final ModuleInfoMapper moduleInfoMapper;
+    private final PermissionSnapshotCache permissionSnapshotCache;
 
     public QueryPermissionChecker(
             TableValidationService tableValidationService,
-            UserModulePermissionMapper userModulePermissionMapper,
-            UserMapper userMapper,
-            ModuleInfoMapper moduleInfoMapper) {
+            PermissionSnapshotCache permissionSnapshotCache) {
         this.tableValidationService = tableValidationService;
-        this.userModulePermissionMapper = userModulePermissionMapper;
-        this.userMapper = userMapper;
-        this.moduleInfoMapper = moduleInfoMapper;
+        this.permissionSnapshotCache = permissionSnapshotCache;
     }
 
     /**
@@ -61,10 +54,9 @@ public class QueryPermissionChecker {
             return; // 如果没有提取到表名，直接通过
         }
 
-        // 获取用户有权限访问的表名集合
-        List<String> permittedTableNames =
-                userModulePermissionMapper.selectPermittedTableNames(user.getId(), datasourceId);
-        Set<String> permittedTableSet = new HashSet<>(permittedTableNames);
+        // 从权限快照获取用户有权限访问的表名集合
+        Set<String> permittedTableSet =
+                permissionSnapshotCache.getSnapshot(user).getPermittedTables(datasourceId);
 
         // 检查SQL中的每个表名是否都在用户有权限的表名集合中
         for (String tableName : sqlTableNames) {
@@ -84,17 +76,12 @@ public class QueryPermissionChecker {
      */
     public List<String> getPermittedTables(Long userId, Long datasourceId, Connection conn)
             throws SQLException {
-        // 检查用户是否存在
-        User user = userMapper.selectById(userId);
-        if (user == null) {
-            throw new BusinessException(ErrorCode.USER_NOT_FOUND);
-        }
+        // 从权限快照获取有权限的表名，用户不存在时抛出异常
+        PermissionSnapshot snapshot = permissionSnapshotCache.getSnapshot(userId);
+        Set<String> allowedTables = snapshot.getPermittedTables(datasourceId);
 
         // 获取数据库中真实存在的表名
-        Set<String> realTables = getRealTablesFromDatabase(conn);
-
-        // 根据用户角色获取有权限的表名
-        Set<String> allowedTables = getAllowedTablesByRole(user, userId, datasourceId);
+        Set<String> realTables = getRealTables(datasourceId, conn);
 
         // 取交集：只返回既有权限又真实存在的表
         return allowedTables.stream()
@@ -104,7 +91,23 @@ public class QueryPermissionChecker {
     }
 
     /**
-     * 获取数据库中真实存在的表名
+     * 获取数据库中真实存在的表名，短时间内复用缓存的扫描结果
+     *
+     * @param datasourceId 数据源ID
+     * @param conn 数据库连接
+     * @return 真实表名集合
+     */
+    private Set<String> getRealTables(Long datasourceId, Connection conn) throws SQLException {
+        Set<String> realTables = permissionSnapshotCache.getDatabaseTables(datasourceId);
+        if (realTables == null) {
+            realTables = getRealTablesFromDatabase(conn);
+            permissionSnapshotCache.putDatabaseTables(datasourceId, realTables);
+        }
+        return realTables;
+    }
+
+    /**
+     * 扫描数据库元数据获取真实存在的表名
      *
      * @param conn 数据库连接
      * @return 真实表名集合
@@ -121,30 +124,6 @@ public class QueryPermissionChecker {
         return realTables;
     }
 
-    /**
-     * 根据用户角色获取有权限的表名
-     *
-     * @param user 用户信息
-     * @param userId 用户ID
-     * @param datasourceId 数据源ID
-     * @return 有权限的表名集合
-     */
-    private Set<String> getAllowedTablesByRole(User user, Long userId, Long datasourceId) {
-        String role = user.getRole();
-
-        if (UserRole.SUPER_ADMIN.name().equals(role) || UserRole.ADMIN.name().equals(role)) {
-            // 管理员和超级管理员：获取所有启用模块的表名
-            List<String> enabledModuleTables =
-                    moduleInfoMapper.selectEnabledModuleTableNames(datasourceId);
-            return new HashSet<>(enabledModuleTables);
-        } else {
-            // 普通用户：通过联查用户模块权限表和模块信息表获取有权限的表名（已经过滤了禁用的模块）
-            List<String> userPermittedTables =
-                    userModulePermissionMapper.selectPermittedTableNames(userId, datasourceId);
-            return new HashSet<>(userPermittedTables);
-        }
-    }
-
     /**
      * 检查是否是SELECT查询
      *
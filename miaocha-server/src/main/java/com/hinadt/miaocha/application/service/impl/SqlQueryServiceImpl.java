@@ -4,6 +4,8 @@ import com.hinadt.miaocha.application.service.SqlQueryService;
 import com.hinadt.miaocha.application.service.TableValidationService;
 import com.hinadt.miaocha.application.service.database.DatabaseMetadataService;
 import com.hinadt.miaocha.application.service.database.DatabaseMetadataServiceFactory;
+import com.hinadt.miaocha.application.service.datasource.DatasourceConcurrencyLimiter;
+import com.hinadt.miaocha.application.service.datasource.QueryPriority;
 import com.hinadt.miaocha.application.service.export.FileExporter;
 import com.hinadt.miaocha.application.service.export.FileExporterFactory;
 import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
@@ -78,6 +80,9 @@ public class SqlQueryServiceImpl implements SqlQueryService {
     @Autowired(required = false)
     @Qualifier("sqlQueryExecutor") private Executor sqlQueryExecutor;
 
+    @Autowired(required = false)
+    private DatasourceConcurrencyLimiter concurrencyLimiter;
+
     @Value("${sql.query.export.dir:/tmp/sql-exports}")
     private String exportDir;
 
@@ -93,6 +98,18 @@ public class SqlQueryServiceImpl implements SqlQueryService {
         return sqlQueryExecutor != null ? sqlQueryExecutor : ForkJoinPool.commonPool();
     }
 
+    /** 在数据源的并发许可内执行SQL，导出结果按批量任务排队；未注入并发限制时（如在测试环境中）直接执行 */
+    private SqlQueryResultDTO executeWithPermit(
+            DatasourceInfo datasourceInfo, String sql, QueryPriority priority) {
+        if (concurrencyLimiter == null) {
+            return jdbcQueryExecutor.executeQuery(datasourceInfo, sql);
+        }
+        try (DatasourceConcurrencyLimiter.Permit permit =
+                concurrencyLimiter.acquire(datasourceInfo, priority)) {
+            return jdbcQueryExecutor.executeQuery(datasourceInfo, sql);
+        }
+    }
+
     @Override
     @Transactional
     public SqlQueryResultDTO executeQuery(Long userId, SqlQueryDTO dto) {
@@ -118,6 +135,13 @@ public class SqlQueryServiceImpl implements SqlQueryService {
         // 记录SQL历史
         SqlQueryHistory history = recordSqlHistory(userId, dto);
 
+        // 导出结果的查询作为批量任务，不与交互式查询争抢数据源并发
+        QueryPriority priority =
+                QueryPriority.current(
+                        Boolean.TRUE.equals(dto.getExportResult())
+                                ? QueryPriority.BULK
+                                : QueryPriority.INTERACTIVE);
+
         // 使用线程池异步执行SQL查询
         long startTime = System.currentTimeMillis();
         SqlQueryResultDTO result;
@@ -129,8 +153,8 @@ public class SqlQueryServiceImpl implements SqlQueryService {
                     CompletableFuture.supplyAsync(
                                     () -> {
                                         logger.debug("开始执行SQL查询: {}", dto.getSql());
-                                        return jdbcQueryExecutor.executeQuery(
-                                                datasourceInfo, dto.getSql());
+                                        return executeWithPermit(
+                                                datasourceInfo, dto.getSql(), priority);
                                     },
                                     getExecutor())
                             .exceptionally(
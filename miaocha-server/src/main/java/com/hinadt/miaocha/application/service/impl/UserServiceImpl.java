@@ -3,6 +3,7 @@ package com.hinadt.miaocha.application.service.impl;
 import com.aventrix.jnanoid.jnanoid.NanoIdUtils;
 import com.hinadt.miaocha.application.service.ModulePermissionService;
 import com.hinadt.miaocha.application.service.UserService;
+import com.hinadt.miaocha.application.service.impl.permission.PermissionSnapshotCache;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.config.security.JwtUtils;
@@ -47,6 +48,7 @@ public class UserServiceImpl implements UserService {
     private final UserConverter userConverter;
     private final ModulePermissionService modulePermissionService;
     private final UserModulePermissionMapper userModulePermissionMapper;
+    private final PermissionSnapshotCache permissionSnapshotCache;
 
     public UserServiceImpl(
             UserMapper userMapper,
@@ -54,13 +56,15 @@ public class UserServiceImpl implements UserService {
             JwtUtils jwtUtils,
             UserConverter userConverter,
             ModulePermissionService modulePermissionService,
-            UserModulePermissionMapper userModulePermissionMapper) {
+            UserModulePermissionMapper userModulePermissionMapper,
+            PermissionSnapshotCache permissionSnapshotCache) {
         this.userMapper = userMapper;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtils = jwtUtils;
         this.userConverter = userConverter;
         this.modulePermissionService = modulePermissionService;
         this.userModulePermissionMapper = userModulePermissionMapper;
+        this.permissionSnapshotCache = permissionSnapshotCache;
     }
 
     @Override
@@ -301,6 +305,8 @@ public class UserServiceImpl implements UserService {
         user = userConverter.updateEntity(user, userUpdateDTO);
 
         userMapper.update(user);
+        // 角色可能已变更
+        permissionSnapshotCache.invalidate(user.getId());
         return userConverter.toDto(user);
     }
 
@@ -317,6 +323,7 @@ public class UserServiceImpl implements UserService {
         userMapper.deleteById(id);
 
         userModulePermissionMapper.deleteByUserId(id);
+        permissionSnapshotCache.invalidate(id);
     }
 
     @Override
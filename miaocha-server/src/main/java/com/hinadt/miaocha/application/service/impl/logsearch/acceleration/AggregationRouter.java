@@ -0,0 +1,268 @@
+package com.hinadt.miaocha.application.service.impl.logsearch.acceleration;
+
+import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchContext;
+import com.hinadt.miaocha.application.service.impl.logsearch.validator.QueryConfigValidationService;
+import com.hinadt.miaocha.application.service.impl.module.ModuleConfigChangedEvent;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.builder.AggregationSqlBuilder;
+import com.hinadt.miaocha.application.service.sql.builder.AggregationSqlBuilder.Split;
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
+import com.hinadt.miaocha.common.util.ExpiringCache;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import com.hinadt.miaocha.domain.dto.module.QueryConfigDTO;
+import com.hinadt.miaocha.domain.dto.module.QueryConfigDTO.AggregationAccelerationDTO;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 聚合查询路由
+ *
+ * <p>模块开启聚合加速、检索没有关键字且过滤条件只涉及维度字段时，把时间分布和总数查询改写为从按分钟预聚合的物化视图读取。
+ * 时间范围按整分钟拆分：中间已刷新的整分钟部分读物化视图，开始时间所在的不完整分钟、物化视图最后一分钟及之后的部分仍查询原表， 两部分结果相加，与直接查询原表的结果一致。
+ *
+ * <p>物化视图的状态和已刷新到的时间按模块短时缓存，物化视图未就绪、查询状态失败或可读取的时间段太短时不改写查询。 原表有迟到数据时，已刷新的分钟在下次刷新前不包含这部分数据
+ */
+@Slf4j
+@Component
+public class AggregationRouter {
+
+    private static final ViewState UNAVAILABLE = new ViewState(null);
+
+    private static final int MAX_VIEW_STATES = 1000;
+
+    private final AggregationSqlBuilder aggregationSqlBuilder;
+    private final QueryConfigValidationService queryConfigValidationService;
+    private final boolean enabled;
+    private final int minViewMinutes;
+    private final ExpiringCache<String, ViewState> viewStates;
+
+    public AggregationRouter(
+            AggregationSqlBuilder aggregationSqlBuilder,
+            QueryConfigValidationService queryConfigValidationService,
+            LogSearchProperties logSearchProperties) {
+        LogSearchProperties.Aggregation config = logSearchProperties.getAggregation();
+        this.aggregationSqlBuilder = aggregationSqlBuilder;
+        this.queryConfigValidationService = queryConfigValidationService;
+        this.enabled = config.isEnabled();
+        this.minViewMinutes = config.getMinViewMinutes();
+        this.viewStates =
+                new ExpiringCache<>(
+                        MAX_VIEW_STATES, Duration.ofSeconds(config.getStatusTtlSeconds()));
+    }
+
+    /**
+     * 改写时间分布查询
+     *
+     * @param context 搜索上下文
+     * @param timeUnit 时间颗粒度单位
+     * @param interval 时间颗粒度间隔
+     * @param windows 查询的时间窗口，只有单个窗口时改写
+     * @param distributionSql 原时间分布SQL
+     * @return 改写后的SQL，不满足条件时返回原SQL
+     */
+    public BoundSql routeDistribution(
+            SearchContext context,
+            String timeUnit,
+            int interval,
+            List<TimeWindow> windows,
+            BoundSql distributionSql) {
+        if (windows.size() != 1 || !isWholeMinutes(timeUnit)) {
+            return distributionSql;
+        }
+        Split split = split(context, windows.get(0));
+        if (split == null) {
+            return distributionSql;
+        }
+        BoundSql routedSql =
+                aggregationSqlBuilder.buildDistribution(
+                        context.getDto(),
+                        context.getTableName(),
+                        context.getTimeField(),
+                        timeUnit,
+                        interval,
+                        split);
+        log.debug("分布统计使用物化视图: {}", routedSql);
+        return routedSql;
+    }
+
+    /**
+     * 改写总数查询
+     *
+     * @param context 搜索上下文
+     * @param countSql 原总数SQL
+     * @return 改写后的SQL，不满足条件时返回原SQL
+     */
+    public BoundSql routeCount(SearchContext context, BoundSql countSql) {
+        LogSearchDTO dto = context.getDto();
+        Split split = split(context, new TimeWindow(dto.getStartTime(), dto.getEndTime()));
+        if (split == null) {
+            return countSql;
+        }
+        BoundSql routedSql =
+                aggregationSqlBuilder.buildCount(
+                        dto, context.getTableName(), context.getTimeField(), split);
+        log.debug("总数统计使用物化视图: {}", routedSql);
+        return routedSql;
+    }
+
+    /**
+     * 按物化视图已刷新到的时间拆分时间窗口
+     *
+     * @param start 开始时间（含）
+     * @param end 结束时间（不含）
+     * @param watermark 物化视图最新的分钟，该分钟可能只聚合了部分数据
+     * @param minViewMinutes 物化视图部分的最小分钟数
+     * @return 拆分结果，物化视图部分不足最小分钟数时返回null
+     */
+    public static Split split(
+            LocalDateTime start, LocalDateTime end, LocalDateTime watermark, int minViewMinutes) {
+        LocalDateTime viewStart = start.truncatedTo(ChronoUnit.MINUTES);
+        if (viewStart.isBefore(start)) {
+            viewStart = viewStart.plusMinutes(1);
+        }
+        LocalDateTime viewEnd = end.truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime sealed = watermark.truncatedTo(ChronoUnit.MINUTES);
+        if (sealed.isBefore(viewEnd)) {
+            viewEnd = sealed;
+        }
+        if (Duration.between(viewStart, viewEnd).toMinutes() < Math.max(1, minViewMinutes)) {
+            return null;
+        }
+        List<TimeWindow> tableWindows = new ArrayList<>();
+        if (start.isBefore(viewStart)) {
+            tableWindows.add(TimeWindow.of(start, viewStart));
+        }
+        if (viewEnd.isBefore(end)) {
+            tableWindows.add(TimeWindow.of(viewEnd, end));
+        }
+        return new Split(tableWindows, TimeWindow.of(viewStart, viewEnd));
+    }
+
+    /**
+     * 模块配置变更后清理该模块的物化视图状态，重建物化视图后重新检查
+     *
+     * @param event 模块配置变更事件
+     */
+    @EventListener
+    public void onModuleConfigChanged(ModuleConfigChangedEvent event) {
+        viewStates.invalidateIf(key -> event.affects(key.substring(0, key.indexOf('\n'))));
+    }
+
+    private Split split(SearchContext context, TimeWindow window) {
+        LogSearchDTO dto = context.getDto();
+        if (!enabled || (dto.getKeywords() != null && !dto.getKeywords().isEmpty())) {
+            return null;
+        }
+        AggregationAccelerationDTO acceleration = getAcceleration(dto.getModule());
+        if (acceleration == null || !Boolean.TRUE.equals(acceleration.getEnabled())) {
+            return null;
+        }
+        List<String> dimensions =
+                acceleration.getDimensions() != null ? acceleration.getDimensions() : List.of();
+        if (!AggregationSqlBuilder.isCoveredBy(dto.getWhereSqls(), dimensions)) {
+            return null;
+        }
+        LocalDateTime start = TimeWindow.parse(window.start());
+        LocalDateTime end = TimeWindow.parse(window.end());
+        if (start == null || end == null || !start.isBefore(end)) {
+            return null;
+        }
+        ViewState state = getViewState(context, dto.getModule());
+        if (state.watermark() == null) {
+            return null;
+        }
+        return split(start, end, state.watermark(), minViewMinutes);
+    }
+
+    private AggregationAccelerationDTO getAcceleration(String module) {
+        try {
+            QueryConfigDTO queryConfig =
+                    queryConfigValidationService.validateAndGetQueryConfig(module);
+            return queryConfig != null ? queryConfig.getAggregationAcceleration() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private ViewState getViewState(SearchContext context, String module) {
+        String key = module + '\n' + context.getTableName();
+        ViewState state = viewStates.get(key);
+        if (state == null) {
+            state = loadViewState(context);
+            // 请求被取消导致的查询失败不代表物化视图的状态
+            if (!context.isCancelled()) {
+                viewStates.put(key, state);
+            }
+        }
+        return state;
+    }
+
+    /** 查询物化视图是否已成功刷新以及已刷新到的时间，查询失败时视为不可用 */
+    private ViewState loadViewState(SearchContext context) {
+        Connection conn = context.getConnection();
+        String tableName = context.getTableName();
+        try {
+            String statusSql =
+                    aggregationSqlBuilder.buildViewStatusQuery(conn.getCatalog(), tableName);
+            boolean ready =
+                    query(
+                            context,
+                            statusSql,
+                            rs ->
+                                    rs.next()
+                                            && "NORMAL".equalsIgnoreCase(rs.getString(1))
+                                            && "SUCCESS".equalsIgnoreCase(rs.getString(2)));
+            if (!ready) {
+                return UNAVAILABLE;
+            }
+            String watermarkSql =
+                    aggregationSqlBuilder.buildWatermarkQuery(tableName, context.getTimeField());
+            Timestamp watermark =
+                    query(context, watermarkSql, rs -> rs.next() ? rs.getTimestamp(1) : null);
+            return new ViewState(watermark != null ? watermark.toLocalDateTime() : null);
+        } catch (SQLException e) {
+            log.debug("查询物化视图状态失败，使用原表统计: {}", e.getMessage());
+            return UNAVAILABLE;
+        }
+    }
+
+    private <T> T query(SearchContext context, String sql, ResultSetReader<T> reader)
+            throws SQLException {
+        // 状态查询的SQL不含用户输入，表函数参数须为常量，使用普通语句
+        Statement stmt = context.createStatement(context.getConnection());
+        try (stmt;
+                ResultSet rs = stmt.executeQuery(sql)) {
+            return reader.read(rs);
+        } finally {
+            context.releaseStatement(stmt);
+        }
+    }
+
+    private static boolean isWholeMinutes(String timeUnit) {
+        return "minute".equals(timeUnit) || "hour".equals(timeUnit) || "day".equals(timeUnit);
+    }
+
+    @FunctionalInterface
+    private interface ResultSetReader<T> {
+        T read(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * 物化视图状态
+     *
+     * @param watermark 物化视图最新的分钟，未就绪或没有数据时为null
+     */
+    private record ViewState(LocalDateTime watermark) {}
+}
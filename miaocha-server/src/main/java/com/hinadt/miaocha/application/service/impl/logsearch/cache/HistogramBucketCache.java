@@ -0,0 +1,236 @@
+package com.hinadt.miaocha.application.service.impl.logsearch.cache;
+
+import com.hinadt.miaocha.application.service.impl.module.ModuleConfigChangedEvent;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
+import com.hinadt.miaocha.common.util.ExpiringCache;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.dto.logsearch.LogHistogramResultDTO.LogDistributionData;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 时间分布增量缓存
+ *
+ * <p>以 模块 + 分布统计签名（分组表达式、表名和过滤条件，带占位符的SQL及其绑定参数）作为键，缓存已经结束并稳定的时间桶。刷新相对时间范围（如最近15分钟）时，
+ * 中间已缓存的完整时间桶直接复用，只统计两端的窗口：开始时间所在的不完整首桶，以及最后一个稳定桶之后的尾部窗口，再按时间拼接。
+ *
+ * <p>时间桶的网格由数据库按 UNIX 时间戳对齐生成，这里不推算数据库时区，而是以实际返回的桶时间点作为网格锚点，
+ * 按颗粒度等距推算其他网格点。毫秒级颗粒度的时间点由应用时区格式化，不参与缓存。
+ */
+@Component
+public class HistogramBucketCache {
+
+    private final boolean enabled;
+    private final Duration settleTime;
+    private final ExpiringCache<String, Entry> cache;
+
+    public HistogramBucketCache(LogSearchProperties logSearchProperties) {
+        LogSearchProperties.HistogramCache config = logSearchProperties.getHistogramCache();
+        this.enabled = config.isEnabled();
+        this.settleTime = Duration.ofSeconds(config.getSettleSeconds());
+        this.cache =
+                new ExpiringCache<>(
+                        config.getMaxSize(), Duration.ofSeconds(config.getTtlSeconds()));
+    }
+
+    /**
+     * 制定统计计划
+     *
+     * @param module 模块名称
+     * @param signature 分布统计签名，不含时间范围的分布统计SQL
+     * @param startTime 查询开始时间
+     * @param endTime 查询结束时间
+     * @param timeUnit 时间颗粒度单位
+     * @param interval 时间颗粒度间隔
+     * @return 统计计划，不适用缓存时返回null，调用方按原方式全量统计
+     */
+    public Plan plan(
+            String module,
+            BoundSql signature,
+            String startTime,
+            String endTime,
+            String timeUnit,
+            int interval) {
+        Duration bucketSize = bucketSize(timeUnit, interval);
+        LocalDateTime start = TimeWindow.parse(startTime);
+        LocalDateTime end = TimeWindow.parse(endTime);
+        if (!enabled || bucketSize == null || start == null || end == null) {
+            return null;
+        }
+        if (!start.isBefore(end)) {
+            return null;
+        }
+
+        String key = module + '\n' + signature.cacheKey();
+        Entry entry = cache.get(key);
+        if (entry != null && !entry.bucketSize().equals(bucketSize)) {
+            entry = null;
+        }
+        if (entry != null) {
+            LocalDateTime gridStart = ceilToGrid(start, entry.coveredFrom(), bucketSize);
+            LocalDateTime middleEnd =
+                    min(entry.sealedUntil(), floorToGrid(end, entry.coveredFrom(), bucketSize));
+            // 缓存需覆盖首个完整桶，且至少能提供一个桶，否则按全量统计重建
+            if (!gridStart.isBefore(entry.coveredFrom()) && gridStart.isBefore(middleEnd)) {
+                List<TimeWindow> windows = new ArrayList<>();
+                if (start.isBefore(gridStart)) {
+                    windows.add(TimeWindow.of(start, gridStart));
+                }
+                if (middleEnd.isBefore(end)) {
+                    windows.add(TimeWindow.of(middleEnd, end));
+                }
+                List<LogDistributionData> cachedBuckets =
+                        new ArrayList<>(
+                                entry.buckets().subMap(gridStart, true, middleEnd, false).values());
+                return new Plan(key, start, end, bucketSize, entry, windows, cachedBuckets);
+            }
+        }
+        return new Plan(
+                key, start, end, bucketSize, null, List.of(TimeWindow.of(start, end)), List.of());
+    }
+
+    /**
+     * 拼接查询结果与缓存的时间桶，并把新稳定的时间桶写入缓存
+     *
+     * @param plan 统计计划
+     * @param queried 按计划窗口查询得到的时间桶
+     * @param now 当前时间，结束不足稳定时间的桶不缓存
+     * @return 按时间升序的完整时间分布
+     */
+    public List<LogDistributionData> stitch(
+            Plan plan, List<LogDistributionData> queried, LocalDateTime now) {
+        NavigableMap<LocalDateTime, LogDistributionData> merged = new TreeMap<>();
+        for (LogDistributionData data : plan.cachedBuckets()) {
+            merged.put(TimeWindow.parse(data.getTimePoint()), data);
+        }
+        for (LogDistributionData data : queried) {
+            LocalDateTime bucketStart = TimeWindow.parse(data.getTimePoint());
+            if (bucketStart == null) {
+                // 时间点格式无法识别时不缓存，按时间点字符串排序拼接
+                cache.invalidate(plan.key());
+                List<LogDistributionData> result = new ArrayList<>(plan.cachedBuckets());
+                result.addAll(queried);
+                result.sort(Comparator.comparing(LogDistributionData::getTimePoint));
+                return result;
+            }
+            merged.put(bucketStart, data);
+        }
+
+        LocalDateTime anchor =
+                plan.entry() != null
+                        ? plan.entry().coveredFrom()
+                        : merged.isEmpty() ? null : merged.firstKey();
+        if (anchor != null) {
+            updateCache(plan, merged, anchor, now);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * 模块配置变更后清理该模块的缓存，例如重建Doris表后旧的统计结果不再有效
+     *
+     * @param event 模块配置变更事件
+     */
+    @EventListener
+    public void onModuleConfigChanged(ModuleConfigChangedEvent event) {
+        cache.invalidateIf(key -> event.affects(key.substring(0, key.indexOf('\n'))));
+    }
+
+    private void updateCache(
+            Plan plan,
+            NavigableMap<LocalDateTime, LogDistributionData> merged,
+            LocalDateTime anchor,
+            LocalDateTime now) {
+        Duration bucketSize = plan.bucketSize();
+        LocalDateTime coveredFrom = ceilToGrid(plan.start(), anchor, bucketSize);
+        LocalDateTime sealedUntil =
+                floorToGrid(min(plan.end(), now.minus(settleTime)), anchor, bucketSize);
+
+        // 本次结果连续覆盖 [coveredFrom, end)，其中结束超过稳定时间的桶可以缓存
+        NavigableMap<LocalDateTime, LogDistributionData> buckets = new TreeMap<>();
+        if (coveredFrom.isBefore(sealedUntil)) {
+            buckets.putAll(merged.subMap(coveredFrom, true, sealedUntil, false));
+        }
+        // 原缓存的稳定边界更靠后时（如查询的是更早的窗口），保留原缓存中后面的桶
+        Entry previous = plan.entry();
+        if (previous != null && previous.sealedUntil().isAfter(sealedUntil)) {
+            LocalDateTime from = coveredFrom.isAfter(sealedUntil) ? coveredFrom : sealedUntil;
+            buckets.putAll(previous.buckets().subMap(from, true, previous.sealedUntil(), false));
+            sealedUntil = previous.sealedUntil();
+        }
+        if (!coveredFrom.isBefore(sealedUntil)) {
+            return;
+        }
+        cache.put(plan.key(), new Entry(bucketSize, coveredFrom, sealedUntil, buckets));
+    }
+
+    /** 获取时间桶长度，毫秒级颗粒度返回null */
+    private static Duration bucketSize(String timeUnit, int interval) {
+        return switch (timeUnit) {
+            case "second" -> Duration.ofSeconds(interval);
+            case "minute" -> Duration.ofMinutes(interval);
+            case "hour" -> Duration.ofHours(interval);
+            case "day" -> Duration.ofDays(interval);
+            default -> null;
+        };
+    }
+
+    private static LocalDateTime floorToGrid(
+            LocalDateTime time, LocalDateTime anchor, Duration bucketSize) {
+        long offset = Duration.between(anchor, time).toMillis();
+        long buckets = Math.floorDiv(offset, bucketSize.toMillis());
+        return anchor.plus(bucketSize.multipliedBy(buckets));
+    }
+
+    private static LocalDateTime ceilToGrid(
+            LocalDateTime time, LocalDateTime anchor, Duration bucketSize) {
+        LocalDateTime floor = floorToGrid(time, anchor, bucketSize);
+        return floor.isBefore(time) ? floor.plus(bucketSize) : floor;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    /**
+     * 统计计划
+     *
+     * @param key 缓存键
+     * @param start 查询开始时间
+     * @param end 查询结束时间
+     * @param bucketSize 时间桶长度
+     * @param entry 使用的缓存条目，全量统计时为null
+     * @param windows 需要查询的时间窗口，为空时无需查询
+     * @param cachedBuckets 从缓存复用的时间桶
+     */
+    public record Plan(
+            String key,
+            LocalDateTime start,
+            LocalDateTime end,
+            Duration bucketSize,
+            Entry entry,
+            List<TimeWindow> windows,
+            List<LogDistributionData> cachedBuckets) {}
+
+    /**
+     * 缓存条目，[coveredFrom, sealedUntil) 内的时间桶均已稳定，不在 buckets 中的桶计数为0
+     *
+     * @param bucketSize 时间桶长度
+     * @param coveredFrom 覆盖范围开始时间，同时作为网格锚点
+     * @param sealedUntil 稳定边界
+     * @param buckets 按开始时间索引的时间桶
+     */
+    record Entry(
+            Duration bucketSize,
+            LocalDateTime coveredFrom,
+            LocalDateTime sealedUntil,
+            NavigableMap<LocalDateTime, LogDistributionData> buckets) {}
+}
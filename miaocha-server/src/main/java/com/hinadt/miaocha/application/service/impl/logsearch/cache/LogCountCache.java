@@ -0,0 +1,68 @@
+package com.hinadt.miaocha.application.service.impl.logsearch.cache;
+
+import com.hinadt.miaocha.application.service.impl.module.ModuleConfigChangedEvent;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.common.util.ExpiringCache;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import java.time.Duration;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 日志总数缓存
+ *
+ * <p>以 模块 + 带占位符的总数SQL + 绑定参数 作为签名。总数SQL由表名、过滤条件和已解析为绝对时间的时间窗口生成，
+ * 与分页、排序无关，因此翻页时可以直接复用。相对时间范围每次请求都会按当前时间重新解析，不会命中旧窗口的缓存。
+ */
+@Component
+public class LogCountCache {
+
+    private final boolean enabled;
+    private final ExpiringCache<String, Long> cache;
+
+    public LogCountCache(LogSearchProperties logSearchProperties) {
+        LogSearchProperties.CountCache config = logSearchProperties.getCountCache();
+        this.enabled = config.isEnabled();
+        this.cache =
+                new ExpiringCache<>(
+                        config.getMaxSize(), Duration.ofSeconds(config.getTtlSeconds()));
+    }
+
+    /**
+     * 获取缓存的总数
+     *
+     * @param module 模块名称
+     * @param countSql 总数查询SQL
+     * @return 总数，未命中时返回null
+     */
+    public Long get(String module, BoundSql countSql) {
+        return enabled ? cache.get(buildKey(module, countSql)) : null;
+    }
+
+    /**
+     * 缓存总数
+     *
+     * @param module 模块名称
+     * @param countSql 总数查询SQL
+     * @param totalCount 总数
+     */
+    public void put(String module, BoundSql countSql, long totalCount) {
+        if (enabled) {
+            cache.put(buildKey(module, countSql), totalCount);
+        }
+    }
+
+    /**
+     * 模块配置变更后清理该模块的缓存，例如重建Doris表后旧的统计结果不再有效
+     *
+     * @param event 模块配置变更事件
+     */
+    @EventListener
+    public void onModuleConfigChanged(ModuleConfigChangedEvent event) {
+        cache.invalidateIf(key -> event.affects(key.substring(0, key.indexOf('\n'))));
+    }
+
+    private static String buildKey(String module, BoundSql countSql) {
+        return module + '\n' + countSql.cacheKey();
+    }
+}
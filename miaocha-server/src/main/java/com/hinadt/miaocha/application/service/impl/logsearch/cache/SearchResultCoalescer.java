@@ -0,0 +1,213 @@
+package com.hinadt.miaocha.application.service.impl.logsearch.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hinadt.miaocha.application.service.impl.module.ModuleConfigChangedEvent;
+import com.hinadt.miaocha.common.exception.ErrorCode;
+import com.hinadt.miaocha.common.exception.LogQueryException;
+import com.hinadt.miaocha.common.util.ExpiringCache;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchResultDTO;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 检索请求合并
+ *
+ * <p>故障期间大量用户会同时以相同的条件和时间范围检索同一模块。以 模块 + 查询类型 + 数据源 + 检索参数（时间范围已解析为绝对时间）
+ * 作为签名，同一签名的并发请求只有第一个执行查询，其余请求等待并共享其结果；结果再缓存几秒，紧随其后的相同请求直接返回。
+ *
+ * <p>等待的请求只等到自己的查询超时时间，超时后返回查询超时错误。执行查询的请求因所在会话发起新检索而被取消时，
+ * 等待的请求重新合并，其中一个成为新的执行者，不受其他用户取消操作的影响；其他异常与执行者相同。 每个调用方拿到结果的浅拷贝，可以各自设置执行耗时，结果中的明细行等数据为共享只读数据。
+ */
+@Slf4j
+@Component
+public class SearchResultCoalescer {
+
+    /** 签名中不参与比较的检索参数 */
+    private static final List<String> IGNORED_PROPERTIES =
+            List.of("searchSessionId", "autoRefresh");
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final boolean resultCacheEnabled;
+    private final ExpiringCache<String, LogSearchResultDTO> results;
+    private final ConcurrentHashMap<String, CompletableFuture<LogSearchResultDTO>> inFlight =
+            new ConcurrentHashMap<>();
+
+    public SearchResultCoalescer(
+            ObjectMapper objectMapper, LogSearchProperties logSearchProperties) {
+        LogSearchProperties.Coalescing config = logSearchProperties.getCoalescing();
+        this.objectMapper = objectMapper;
+        this.enabled = config.isEnabled();
+        this.resultCacheEnabled = config.getResultTtlSeconds() > 0;
+        this.results =
+                new ExpiringCache<>(
+                        config.getMaxSize(), Duration.ofSeconds(config.getResultTtlSeconds()));
+    }
+
+    /**
+     * 执行检索，相同签名的并发请求共享同一次执行
+     *
+     * @param searchType 查询类型
+     * @param datasourceId 数据源ID
+     * @param dto 检索参数，时间范围需已解析为绝对时间
+     * @param timeoutSeconds 本次请求的查询超时时间（秒），0表示不限制
+     * @param search 实际执行检索的操作，参数为剩余的超时时间（秒），0表示不限制
+     * @return 检索结果的浅拷贝
+     * @throws LogQueryException 等待其他请求的结果超过超时时间时抛出 LOG_QUERY_TIMEOUT
+     */
+    public <T extends LogSearchResultDTO> T execute(
+            String searchType,
+            Long datasourceId,
+            LogSearchDTO dto,
+            int timeoutSeconds,
+            IntFunction<T> search) {
+        if (!enabled) {
+            return search.apply(timeoutSeconds);
+        }
+        String key = buildKey(searchType, datasourceId, dto);
+        long deadlineNanos =
+                timeoutSeconds > 0
+                        ? System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds)
+                        : 0;
+        return execute(key, searchType, dto.getModule(), timeoutSeconds, deadlineNanos, search);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends LogSearchResultDTO> T execute(
+            String key,
+            String searchType,
+            String module,
+            int timeoutSeconds,
+            long deadlineNanos,
+            IntFunction<T> search) {
+        LogSearchResultDTO cached = resultCacheEnabled ? results.get(key) : null;
+        if (cached != null) {
+            log.debug("检索结果缓存命中, module: {}, type: {}", module, searchType);
+            return copyOf((T) cached);
+        }
+
+        // 已超时的请求直接失败，不再成为执行者
+        int remainingSeconds = remainingSeconds(searchType, timeoutSeconds, deadlineNanos);
+        CompletableFuture<LogSearchResultDTO> flight = new CompletableFuture<>();
+        CompletableFuture<LogSearchResultDTO> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            log.debug("合并到正在执行的相同检索, module: {}, type: {}", module, searchType);
+            LogSearchResultDTO shared = await(existing, searchType, timeoutSeconds, deadlineNanos);
+            if (shared == null) {
+                // 被取消的是执行者自己的检索，等待者重新合并，其中一个成为新的执行者
+                return execute(key, searchType, module, timeoutSeconds, deadlineNanos, search);
+            }
+            return copyOf((T) shared);
+        }
+
+        T result;
+        try {
+            result = search.apply(remainingSeconds);
+        } catch (RuntimeException | Error e) {
+            // 先移除再通知，被唤醒的等待者重新合并时不会再拿到这次失败的执行
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        if (resultCacheEnabled) {
+            results.put(key, result);
+        }
+        inFlight.remove(key, flight);
+        flight.complete(result);
+        return copyOf(result);
+    }
+
+    /**
+     * 模块配置变更后清理该模块的缓存结果
+     *
+     * @param event 模块配置变更事件
+     */
+    @EventListener
+    public void onModuleConfigChanged(ModuleConfigChangedEvent event) {
+        results.invalidateIf(key -> event.affects(key.substring(0, key.indexOf('\n'))));
+    }
+
+    /** 等待执行者的结果，最多等到本次请求的截止时间；执行者的检索被取消时返回null */
+    private LogSearchResultDTO await(
+            CompletableFuture<LogSearchResultDTO> flight,
+            String searchType,
+            int timeoutSeconds,
+            long deadlineNanos) {
+        try {
+            if (timeoutSeconds <= 0) {
+                return flight.get();
+            }
+            return flight.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw timeout(searchType, timeoutSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LogQueryException(ErrorCode.LOG_QUERY_CANCELLED, searchType, "查询已被取消");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof LogQueryException queryException
+                    && queryException.getErrorCode() == ErrorCode.LOG_QUERY_CANCELLED) {
+                return null;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /** 重新成为执行者时剩余的超时时间（秒），向上取整 */
+    private static int remainingSeconds(String searchType, int timeoutSeconds, long deadlineNanos) {
+        if (timeoutSeconds <= 0) {
+            return 0;
+        }
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (remainingMillis <= 0) {
+            throw timeout(searchType, timeoutSeconds);
+        }
+        return (int) Math.min(timeoutSeconds, (remainingMillis + 999) / 1000);
+    }
+
+    private static LogQueryException timeout(String searchType, int timeoutSeconds) {
+        return new LogQueryException(
+                ErrorCode.LOG_QUERY_TIMEOUT,
+                searchType,
+                "查询超过 " + timeoutSeconds + " 秒未完成，请缩小时间范围或调整查询条件");
+    }
+
+    private String buildKey(String searchType, Long datasourceId, LogSearchDTO dto) {
+        ObjectNode signature = objectMapper.valueToTree(dto);
+        signature.remove(IGNORED_PROPERTIES);
+        return dto.getModule()
+                + '\n'
+                + searchType
+                + '\n'
+                + datasourceId
+                + '\n'
+                + dto.getClass().getName()
+                + signature;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends LogSearchResultDTO> T copyOf(T result) {
+        T copy = (T) BeanUtils.instantiateClass(result.getClass());
+        BeanUtils.copyProperties(result, copy);
+        return copy;
+    }
+}
@@ -1,13 +1,21 @@
 package com.hinadt.miaocha.application.service.impl.logsearch.executor;
 
+import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchContext;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
 import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
 import com.hinadt.miaocha.application.service.sql.processor.QueryResult;
+import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.common.exception.LogQueryException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -29,29 +37,115 @@ public abstract class BaseSearchExecutor {
     /**
      * 异步执行查询 - 统一的异步查询方法
      *
+     * @param context 搜索上下文，提供截止时间和取消控制
      * @param conn 数据库连接
-     * @param sql SQL语句
+     * @param sql 带绑定参数的SQL
      * @param errorCode 错误码
      * @param queryType 查询类型（用于日志记录）
      * @return 异步查询结果
      */
     protected CompletableFuture<QueryResult> executeQueryAsync(
-            Connection conn, String sql, ErrorCode errorCode, String queryType) {
+            SearchContext context,
+            Connection conn,
+            BoundSql sql,
+            ErrorCode errorCode,
+            String queryType) {
+        // 其他异常不在这里处理，让CompletableFuture传播出去
         return CompletableFuture.supplyAsync(
-                () -> {
-                    try {
-                        return jdbcQueryExecutor.executeStructuredQuery(conn, sql);
-                    } catch (SQLException e) {
-                        log.error("{} SQL执行失败: {}", queryType, e.getMessage(), e);
-                        throw new LogQueryException(
-                                errorCode,
-                                queryType,
-                                sql,
-                                queryType + "执行失败: " + e.getMessage(),
-                                e);
-                    }
-                    // 其他异常不在这里处理，让CompletableFuture传播出去
-                },
-                logQueryExecutor);
+                () -> executeQuery(context, conn, sql, errorCode, queryType), logQueryExecutor);
+    }
+
+    /**
+     * 同步执行查询，SQL异常统一转换为LogQueryException
+     *
+     * @param context 搜索上下文，提供截止时间和取消控制
+     * @param conn 数据库连接
+     * @param sql 带绑定参数的SQL
+     * @param errorCode 错误码
+     * @param queryType 查询类型（用于日志记录）
+     * @return 查询结果
+     */
+    protected QueryResult executeQuery(
+            SearchContext context,
+            Connection conn,
+            BoundSql sql,
+            ErrorCode errorCode,
+            String queryType) {
+        try (Statement stmt = context.createStatement(conn, sql)) {
+            long startNanos = System.nanoTime();
+            try {
+                return jdbcQueryExecutor.executeStructuredQuery(stmt, sql);
+            } finally {
+                context.recordQueryTime(System.nanoTime() - startNanos);
+                context.releaseStatement(stmt);
+            }
+        } catch (SQLException e) {
+            throw toLogQueryException(context, e, sql, errorCode, queryType);
+        }
+    }
+
+    /**
+     * 在请求截止时间内等待异步查询结果
+     *
+     * <p>超过截止时间时取消本次请求的所有查询；查询抛出的业务异常原样抛出
+     *
+     * @param context 搜索上下文
+     * @param future 异步查询
+     * @param queryType 查询类型（用于日志记录）
+     * @return 查询结果
+     */
+    protected <T> T awaitResult(
+            SearchContext context, CompletableFuture<T> future, String queryType) {
+        try {
+            long remainingMillis = context.getRemainingMillis();
+            if (remainingMillis == Long.MAX_VALUE) {
+                return future.get();
+            }
+            return future.get(Math.max(remainingMillis, 0), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            context.cancel();
+            log.warn("{} 超过 {} 秒未完成，已取消", queryType, context.getTimeoutSeconds());
+            throw new LogQueryException(
+                    ErrorCode.LOG_QUERY_TIMEOUT,
+                    queryType,
+                    "查询超过 " + context.getTimeoutSeconds() + " 秒未完成，请缩小时间范围或调整查询条件");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BusinessException businessException) {
+                throw businessException;
+            }
+            // 其他异常让外层处理，转为BusinessException
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            context.cancel();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** 记录SQL执行失败日志并转换为LogQueryException，区分超时和被取消的情况，异常中的SQL已写回参数 */
+    protected LogQueryException toLogQueryException(
+            SearchContext context,
+            SQLException e,
+            BoundSql boundSql,
+            ErrorCode errorCode,
+            String queryType) {
+        String sql = boundSql.inline();
+        if (context.isCancelled()) {
+            log.info("{} 已取消: {}", queryType, e.getMessage());
+            return new LogQueryException(
+                    ErrorCode.LOG_QUERY_CANCELLED, queryType, sql, "查询已被取消", e);
+        }
+        if (e instanceof SQLTimeoutException) {
+            log.warn("{} 超过 {} 秒未完成: {}", queryType, context.getTimeoutSeconds(), e.getMessage());
+            return new LogQueryException(
+                    ErrorCode.LOG_QUERY_TIMEOUT,
+                    queryType,
+                    sql,
+                    "查询超过 " + context.getTimeoutSeconds() + " 秒未完成，请缩小时间范围或调整查询条件",
+                    e);
+        }
+        log.error("{} SQL执行失败: {}", queryType, e.getMessage(), e);
+        return new LogQueryException(
+                errorCode, queryType, sql, queryType + "执行失败: " + e.getMessage(), e);
     }
 }
@@ -0,0 +1,158 @@
+package com.hinadt.miaocha.application.service.impl.logsearch.executor;
+
+import com.hinadt.miaocha.application.service.impl.logsearch.template.LogSearchTemplate.SearchExecutor;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchContext;
+import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
+import com.hinadt.miaocha.application.service.sql.converter.LogSearchDTOConverter;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.dto.logsearch.LogFieldDistributionResultDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogHistogramResultDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchCombinedDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchCombinedResultDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchResultDTO;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * 组合检索执行器
+ *
+ * <p>在同一个搜索上下文中并行执行明细、时间分布和字段分布检索：时间范围、DTO转换和模块配置只处理一次， 时间分布和字段分布通过 {@link
+ * SearchContext#fork(LogSearchDTO)} 使用独立连接，与明细共享截止时间和取消状态。
+ * 任一部分失败时取消其余部分，等待其结束后再抛出异常，保证连接归还时没有仍在执行的查询。
+ */
+@Component
+@Slf4j
+public class CombinedSearchExecutor extends BaseSearchExecutor {
+
+    /** 失败后等待其余部分响应取消的最长时间（秒） */
+    private static final int CANCEL_WAIT_SECONDS = 5;
+
+    private final DetailSearchExecutor detailExecutor;
+    private final HistogramSearchExecutor histogramExecutor;
+    private final FieldDistributionSearchExecutor fieldDistributionExecutor;
+    private final LogSearchDTOConverter dtoConverter;
+
+    public CombinedSearchExecutor(
+            JdbcQueryExecutor jdbcQueryExecutor,
+            DetailSearchExecutor detailExecutor,
+            HistogramSearchExecutor histogramExecutor,
+            FieldDistributionSearchExecutor fieldDistributionExecutor,
+            LogSearchDTOConverter dtoConverter,
+            @Qualifier("logSearchPartExecutor") Executor logSearchPartExecutor) {
+        super(jdbcQueryExecutor, logSearchPartExecutor);
+        this.detailExecutor = detailExecutor;
+        this.histogramExecutor = histogramExecutor;
+        this.fieldDistributionExecutor = fieldDistributionExecutor;
+        this.dtoConverter = dtoConverter;
+    }
+
+    /**
+     * 创建指定组合检索请求的执行器
+     *
+     * @param request 组合检索请求，用于确定需要查询的部分和字段分布的字段列表
+     * @return 搜索执行器
+     */
+    public SearchExecutor<LogSearchCombinedResultDTO> forRequest(LogSearchCombinedDTO request) {
+        return new SearchExecutor<>() {
+            @Override
+            public LogSearchCombinedResultDTO execute(SearchContext context) {
+                return CombinedSearchExecutor.this.execute(request, context);
+            }
+
+            @Override
+            public String getSearchType() {
+                return "combined";
+            }
+
+            @Override
+            public int getMaxConnections(LogSearchProperties properties) {
+                return properties.getMaxConnectionsPerCombinedRequest();
+            }
+        };
+    }
+
+    private LogSearchCombinedResultDTO execute(
+            LogSearchCombinedDTO request, SearchContext context) {
+        LogSearchCombinedResultDTO result = new LogSearchCombinedResultDTO();
+        List<CompletableFuture<?>> parts = new ArrayList<>();
+
+        try {
+            // 1. 时间分布和字段分布在子上下文中异步执行
+            CompletableFuture<LogHistogramResultDTO> histogramFuture = null;
+            if (!Boolean.FALSE.equals(request.getIncludeHistogram())) {
+                histogramFuture = submit(histogramExecutor, context.fork(context.getDto()));
+                parts.add(histogramFuture);
+            }
+            CompletableFuture<LogFieldDistributionResultDTO> distributionFuture = null;
+            if (request.includesFieldDistributions()) {
+                distributionFuture =
+                        submit(fieldDistributionExecutor, context.fork(toDistributionDto(request)));
+                parts.add(distributionFuture);
+            }
+
+            // 2. 明细在当前线程使用主连接执行
+            if (!Boolean.FALSE.equals(request.getIncludeDetails())) {
+                result.setDetails(timed(detailExecutor, context));
+            }
+
+            // 3. 在请求截止时间内等待其余部分
+            if (histogramFuture != null) {
+                result.setHistogram(awaitResult(context, histogramFuture, "HistogramSearch"));
+            }
+            if (distributionFuture != null) {
+                result.setFieldDistributions(
+                        awaitResult(context, distributionFuture, "FieldDistributionSearch"));
+            }
+            return result;
+        } catch (RuntimeException e) {
+            context.cancel();
+            awaitCancelled(parts);
+            throw e;
+        }
+    }
+
+    /** 字段分布使用 distributionFields 作为字段列表，其余条件与组合请求一致 */
+    private LogSearchDTO toDistributionDto(LogSearchCombinedDTO request) {
+        LogSearchDTO distributionDto = new LogSearchDTO();
+        BeanUtils.copyProperties(request, distributionDto);
+        distributionDto.setFields(request.getDistributionFields());
+        return dtoConverter.convert(distributionDto);
+    }
+
+    private <T extends LogSearchResultDTO> CompletableFuture<T> submit(
+            SearchExecutor<T> executor, SearchContext context) {
+        return CompletableFuture.supplyAsync(() -> timed(executor, context), logQueryExecutor);
+    }
+
+    private static <T extends LogSearchResultDTO> T timed(
+            SearchExecutor<T> executor, SearchContext context) {
+        long startTime = System.currentTimeMillis();
+        T result = executor.execute(context);
+        result.setExecutionTimeMs(System.currentTimeMillis() - startTime);
+        return result;
+    }
+
+    /** 等待已取消的部分结束，忽略其异常，避免上下文关闭归还连接时查询仍在执行 */
+    private void awaitCancelled(List<CompletableFuture<?>> parts) {
+        try {
+            CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+                    .get(CANCEL_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            log.debug("组合检索的其余部分已结束: {}", e.getMessage());
+        } catch (TimeoutException e) {
+            log.warn("组合检索的其余部分在 {} 秒内未响应取消", CANCEL_WAIT_SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
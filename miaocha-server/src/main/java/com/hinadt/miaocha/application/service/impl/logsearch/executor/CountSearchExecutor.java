@@ -0,0 +1,87 @@
+package com.hinadt.miaocha.application.service.impl.logsearch.executor;
+
+import com.hinadt.miaocha.application.service.impl.logsearch.acceleration.AggregationRouter;
+import com.hinadt.miaocha.application.service.impl.logsearch.cache.LogCountCache;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.LogSearchTemplate.SearchExecutor;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchContext;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
+import com.hinadt.miaocha.application.service.sql.builder.LogSqlBuilder;
+import com.hinadt.miaocha.application.service.sql.processor.QueryResult;
+import com.hinadt.miaocha.application.service.sql.processor.ResultProcessor;
+import com.hinadt.miaocha.common.exception.ErrorCode;
+import com.hinadt.miaocha.common.exception.LogQueryException;
+import com.hinadt.miaocha.domain.dto.logsearch.LogCountResultDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import java.util.concurrent.Executor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * 总数搜索执行器
+ *
+ * <p>单独统计日志总数，配合明细查询的延迟统计模式使用，结果写入总数缓存供后续翻页复用。 开启聚合加速的模块由 {@link AggregationRouter}
+ * 改写为读取按分钟预聚合的物化视图，缓存仍以原总数SQL为键
+ */
+@Component
+@Slf4j
+public class CountSearchExecutor extends BaseSearchExecutor
+        implements SearchExecutor<LogCountResultDTO> {
+
+    private final LogSqlBuilder logSqlBuilder;
+    private final ResultProcessor resultProcessor;
+    private final LogCountCache logCountCache;
+    private final AggregationRouter aggregationRouter;
+
+    public CountSearchExecutor(
+            JdbcQueryExecutor jdbcQueryExecutor,
+            LogSqlBuilder logSqlBuilder,
+            ResultProcessor resultProcessor,
+            LogCountCache logCountCache,
+            AggregationRouter aggregationRouter,
+            @Qualifier("logQueryExecutor") Executor logQueryExecutor) {
+        super(jdbcQueryExecutor, logQueryExecutor);
+        this.logSqlBuilder = logSqlBuilder;
+        this.resultProcessor = resultProcessor;
+        this.logCountCache = logCountCache;
+        this.aggregationRouter = aggregationRouter;
+    }
+
+    @Override
+    public String getSearchType() {
+        return "count";
+    }
+
+    @Override
+    public LogCountResultDTO execute(SearchContext context) throws LogQueryException {
+        LogSearchDTO dto = context.getDto();
+        BoundSql countSql =
+                logSqlBuilder.buildCountQuery(dto, context.getTableName(), context.getTimeField());
+
+        log.debug("总数SQL: {}", countSql);
+
+        LogCountResultDTO result = new LogCountResultDTO();
+        Long cachedCount = logCountCache.get(dto.getModule(), countSql);
+        if (cachedCount != null) {
+            result.setTotalCount(cachedCount);
+            result.setCached(true);
+            return result;
+        }
+
+        // 单条查询无需并行，直接在主连接上执行
+        QueryResult countQueryResult =
+                executeQuery(
+                        context,
+                        context.getConnection(),
+                        aggregationRouter.routeCount(context, countSql),
+                        ErrorCode.LOG_COUNT_QUERY_FAILED,
+                        "CountQuery");
+        long totalCount = resultProcessor.processTotalCountResult(countQueryResult);
+        logCountCache.put(dto.getModule(), countSql, totalCount);
+
+        result.setTotalCount(totalCount);
+        result.setCached(false);
+        return result;
+    }
+}
@@ -1,17 +1,35 @@
 package com.hinadt.miaocha.application.service.impl.logsearch.executor;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.hinadt.miaocha.application.service.impl.logsearch.acceleration.AggregationRouter;
+import com.hinadt.miaocha.application.service.impl.logsearch.cache.LogCountCache;
 import com.hinadt.miaocha.application.service.impl.logsearch.template.LogSearchTemplate.SearchExecutor;
 import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchContext;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
 import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
 import com.hinadt.miaocha.application.service.sql.builder.LogSqlBuilder;
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
+import com.hinadt.miaocha.application.service.sql.processor.ColumnarRows;
+import com.hinadt.miaocha.application.service.sql.processor.ProgressiveTimeSlicer;
 import com.hinadt.miaocha.application.service.sql.processor.QueryResult;
 import com.hinadt.miaocha.application.service.sql.processor.ResultProcessor;
+import com.hinadt.miaocha.application.service.sql.processor.StreamingRowWriter;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.common.exception.LogQueryException;
+import com.hinadt.miaocha.config.LogSearchProperties;
 import com.hinadt.miaocha.domain.dto.logsearch.LogDetailResultDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.Connection;
-import java.util.concurrent.*;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
@@ -19,7 +37,8 @@ import org.springframework.stereotype.Component;
 /**
  * 详情搜索执行器
  *
- * <p>专门处理日志详情查询逻辑，支持并行查询优化
+ * <p>专门处理日志详情查询逻辑，支持并行查询优化。按时间倒序查询时通过 {@link ProgressiveTimeSlicer}
+ * 从最近的时间切片开始查询，查满一页即停止；流式输出仍查询整个时间范围
  */
 @Component
 @Slf4j
@@ -28,15 +47,29 @@ public class DetailSearchExecutor extends BaseSearchExecutor
 
     private final LogSqlBuilder logSqlBuilder;
     private final ResultProcessor resultProcessor;
+    private final LogSearchProperties logSearchProperties;
+    private final LogCountCache logCountCache;
+    private final AggregationRouter aggregationRouter;
 
     public DetailSearchExecutor(
             JdbcQueryExecutor jdbcQueryExecutor,
             LogSqlBuilder logSqlBuilder,
             ResultProcessor resultProcessor,
+            LogSearchProperties logSearchProperties,
+            LogCountCache logCountCache,
+            AggregationRouter aggregationRouter,
             @Qualifier("logQueryExecutor") Executor logQueryExecutor) {
         super(jdbcQueryExecutor, logQueryExecutor);
         this.logSqlBuilder = logSqlBuilder;
         this.resultProcessor = resultProcessor;
+        this.logSearchProperties = logSearchProperties;
+        this.logCountCache = logCountCache;
+        this.aggregationRouter = aggregationRouter;
+    }
+
+    @Override
+    public String getSearchType() {
+        return "details";
     }
 
     @Override
@@ -50,32 +83,270 @@ public class DetailSearchExecutor extends BaseSearchExecutor
         LogDetailResultDTO result = new LogDetailResultDTO();
 
         // 构建SQL
-        String detailSql = logSqlBuilder.buildDetailQuery(dto, tableName, timeField);
-        String countSql = logSqlBuilder.buildCountQuery(dto, tableName, timeField);
+        BoundSql detailSql = logSqlBuilder.buildDetailQuery(dto, tableName, timeField);
+        BoundSql countSql = logSqlBuilder.buildCountQuery(dto, tableName, timeField);
 
         log.debug("详细日志SQL: {}", detailSql);
         log.debug("总数SQL: {}", countSql);
 
-        // 并行执行两个查询
+        // 总数命中缓存或延迟统计时只执行明细查询
+        Long cachedCount = logCountCache.get(dto.getModule(), countSql);
+        boolean countDeferred = cachedCount == null && Boolean.TRUE.equals(dto.getDeferCount());
+        // 改写总数查询需要在主连接上检查物化视图状态，须在明细查询开始前完成
+        BoundSql executedCountSql =
+                cachedCount == null && !countDeferred
+                        ? aggregationRouter.routeCount(context, countSql)
+                        : countSql;
+
+        // 按时间倒序的首页或游标页从最近的时间切片开始查询，查满一页即停止
+        ProgressiveTimeSlicer slicer =
+                ProgressiveTimeSlicer.create(
+                        logSqlBuilder.resolveDetailSliceRange(dto, timeField),
+                        logSearchProperties.getTimeSlicing());
+
+        // 并行执行两个查询，总数查询使用独立连接，避免在同一连接上被串行化
         CompletableFuture<QueryResult> detailFuture =
-                executeQueryAsync(
-                        conn, detailSql, ErrorCode.LOG_DETAIL_QUERY_FAILED, "DetailQuery");
+                slicer != null
+                        ? CompletableFuture.supplyAsync(
+                                () -> executeSlices(context, conn, slicer, detailSql),
+                                logQueryExecutor)
+                        : executeQueryAsync(
+                                context,
+                                conn,
+                                detailSql,
+                                ErrorCode.LOG_DETAIL_QUERY_FAILED,
+                                "DetailQuery");
         CompletableFuture<QueryResult> countFuture =
-                executeQueryAsync(conn, countSql, ErrorCode.LOG_COUNT_QUERY_FAILED, "CountQuery");
+                cachedCount == null && !countDeferred
+                        ? executeQueryAsync(
+                                context,
+                                context.leaseConnection(),
+                                executedCountSql,
+                                ErrorCode.LOG_COUNT_QUERY_FAILED,
+                                "CountQuery")
+                        : null;
 
-        try {
-            // 等待两个查询完成，设置超时时间
-            QueryResult detailQueryResult = detailFuture.get();
-            QueryResult countQueryResult = countFuture.get();
+        // 在请求截止时间内等待查询完成
+        QueryResult detailQueryResult = awaitResult(context, detailFuture, "DetailQuery");
+        resultProcessor.processDetailResult(detailQueryResult, result);
+        result.setNextCursor(logSqlBuilder.buildNextCursor(dto, timeField, result.getRows()));
 
-            resultProcessor.processDetailResult(detailQueryResult, result);
+        if (countFuture != null) {
+            QueryResult countQueryResult = awaitResult(context, countFuture, "CountQuery");
             long totalCount = resultProcessor.processTotalCountResult(countQueryResult);
+            logCountCache.put(dto.getModule(), countSql, totalCount);
             result.setTotalCount(totalCount);
+        } else {
+            result.setTotalCount(cachedCount);
+        }
+        result.setCountDeferred(countDeferred);
+
+        return result;
+    }
+
+    /**
+     * 按时间切片依次执行明细查询，查满一页即停止
+     *
+     * <p>切片从新到旧排列，每片按剩余行数限制返回条数，依次拼接的结果与整个范围的查询结果相同
+     *
+     * @param context 搜索上下文
+     * @param conn 数据库连接
+     * @param slicer 时间切片
+     * @param detailSql 整个范围的明细SQL，没有可查询的切片时执行
+     * @return 明细查询结果
+     */
+    private QueryResult executeSlices(
+            SearchContext context,
+            Connection conn,
+            ProgressiveTimeSlicer slicer,
+            BoundSql detailSql) {
+        LogSearchDTO dto = context.getDto();
+        int pageSize = dto.getPageSize();
+        List<QueryResult> results = new ArrayList<>();
+        int rowsFound = 0;
+        TimeWindow slice;
+        while (rowsFound < pageSize && (slice = slicer.next(rowsFound, pageSize)) != null) {
+            BoundSql sliceSql =
+                    logSqlBuilder.buildDetailQueryForSlice(
+                            dto,
+                            context.getTableName(),
+                            context.getTimeField(),
+                            slice,
+                            pageSize - rowsFound);
+            QueryResult result =
+                    executeQuery(
+                            context,
+                            conn,
+                            sliceSql,
+                            ErrorCode.LOG_DETAIL_QUERY_FAILED,
+                            "DetailQuery");
+            results.add(result);
+            rowsFound += result.getRowCount();
+        }
+        if (results.isEmpty()) {
+            return executeQuery(
+                    context, conn, detailSql, ErrorCode.LOG_DETAIL_QUERY_FAILED, "DetailQuery");
+        }
+        log.debug("明细查询执行了 {} 个时间切片，共 {} 行", slicer.getSlices(), rowsFound);
+        return mergeSlices(results);
+    }
+
+    /**
+     * 按切片顺序拼接明细行，只有一个切片有数据时直接返回该切片的结果
+     *
+     * <p>列式结果按列追加到第一个切片中，保持列式存储，不转换为逐行Map
+     */
+    private static QueryResult mergeSlices(List<QueryResult> results) {
+        List<QueryResult> withData = results.stream().filter(QueryResult::hasData).toList();
+        if (withData.isEmpty()) {
+            return results.get(results.size() - 1);
+        }
+        if (withData.size() == 1) {
+            return withData.get(0);
+        }
+        if (withData.stream().allMatch(QueryResult::isColumnar)) {
+            ColumnarRows merged = (ColumnarRows) withData.get(0).getRows();
+            for (QueryResult result : withData.subList(1, withData.size())) {
+                merged.appendAll((ColumnarRows) result.getRows());
+            }
+            return QueryResult.columnar(merged);
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (QueryResult result : withData) {
+            rows.addAll(result.getRows());
+        }
+        QueryResult merged = new QueryResult();
+        merged.setColumns(withData.get(0).getColumns());
+        merged.setRows(rows);
+        return merged;
+    }
+
+    /**
+     * 创建流式明细查询执行器，与普通明细查询属于同一查询类型
+     *
+     * @param generator JSON生成器，需位于对象上下文中
+     * @return 搜索执行器
+     * @see #streamDetails(SearchContext, JsonGenerator)
+     */
+    public SearchExecutor<LogDetailResultDTO> streaming(JsonGenerator generator) {
+        return new SearchExecutor<>() {
+            @Override
+            public LogDetailResultDTO execute(SearchContext context) {
+                return streamDetails(context, generator);
+            }
+
+            @Override
+            public String getSearchType() {
+                return DetailSearchExecutor.this.getSearchType();
+            }
 
+            @Override
+            public boolean isShareable() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 流式执行明细查询
+     *
+     * <p>在 generator 当前所在的JSON对象中写入 columns 和 rows 字段，行数据边从 ResultSet 读取边写出，
+     * 不在内存中保留。流式结果集会独占主连接，总数查询在租用的独立连接上与明细输出并行执行； 未能租用独立连接时总数查询在明细读取完毕后执行。
+     *
+     * <p>明细SQL执行成功前不会向 generator 写入任何内容，调用方可以据此在出错时返回普通的错误响应。
+     * 写出失败（通常是客户端断开连接）时会立即取消本次请求的所有查询，避免关闭结果集时继续读完剩余数据。
+     *
+     * @param context 搜索上下文
+     * @param generator JSON生成器，需位于对象上下文中
+     * @return 明细结果，仅包含总数（rows 为空），总数规则与普通明细查询相同
+     */
+    public LogDetailResultDTO streamDetails(SearchContext context, JsonGenerator generator) {
+        LogSearchDTO dto = context.getDto();
+        String tableName = context.getTableName();
+        Connection conn = context.getConnection();
+        String timeField = context.getTimeField();
+        LogSearchProperties.Streaming streaming = logSearchProperties.getStreaming();
+
+        BoundSql detailSql = logSqlBuilder.buildDetailQuery(dto, tableName, timeField);
+        BoundSql countSql = logSqlBuilder.buildCountQuery(dto, tableName, timeField);
+
+        log.debug("流式详细日志SQL: {}", detailSql);
+        log.debug("总数SQL: {}", countSql);
+
+        Long cachedCount = logCountCache.get(dto.getModule(), countSql);
+        boolean countDeferred = cachedCount == null && Boolean.TRUE.equals(dto.getDeferCount());
+        boolean runCount = cachedCount == null && !countDeferred;
+        BoundSql executedCountSql =
+                runCount ? aggregationRouter.routeCount(context, countSql) : countSql;
+
+        Connection countConn = runCount ? context.leaseConnection() : conn;
+        CompletableFuture<QueryResult> countFuture =
+                runCount && countConn != conn
+                        ? executeQueryAsync(
+                                context,
+                                countConn,
+                                executedCountSql,
+                                ErrorCode.LOG_COUNT_QUERY_FAILED,
+                                "CountQuery")
+                        : null;
+
+        try (Statement stmt = context.createForwardOnlyStatement(conn, detailSql)) {
+            stmt.setFetchSize(streaming.getStatementFetchSize());
+            long startNanos = System.nanoTime();
+            try (ResultSet rs = JdbcQueryExecutor.openResultSet(stmt, detailSql)) {
+                // 只计入开始返回结果之前的时间，写出明细的耗时取决于客户端
+                context.recordQueryTime(System.nanoTime() - startNanos);
+                writeStreamingRows(context, rs, generator, streaming.getFlushRows());
+            } finally {
+                context.releaseStatement(stmt);
+            }
+        } catch (SQLException e) {
+            throw toLogQueryException(
+                    context, e, detailSql, ErrorCode.LOG_DETAIL_QUERY_FAILED, "DetailQuery");
+        }
+
+        LogDetailResultDTO result = new LogDetailResultDTO();
+        result.setCountDeferred(countDeferred);
+        if (!runCount) {
+            result.setTotalCount(cachedCount);
             return result;
-        } catch (ExecutionException | InterruptedException e) {
-            // 其他异常（超时、中断等）让外层处理，转为BusinessException
-            throw new RuntimeException(e);
+        }
+
+        QueryResult countQueryResult =
+                countFuture != null
+                        ? awaitResult(context, countFuture, "CountQuery")
+                        : executeQuery(
+                                context,
+                                conn,
+                                executedCountSql,
+                                ErrorCode.LOG_COUNT_QUERY_FAILED,
+                                "CountQuery");
+        long totalCount = resultProcessor.processTotalCountResult(countQueryResult);
+        logCountCache.put(dto.getModule(), countSql, totalCount);
+        result.setTotalCount(totalCount);
+        return result;
+    }
+
+    /** 写出列名和明细行，写出失败时取消本次请求的所有查询 */
+    private void writeStreamingRows(
+            SearchContext context, ResultSet rs, JsonGenerator generator, int flushRows)
+            throws SQLException {
+        try {
+            StreamingRowWriter rowWriter = StreamingRowWriter.create(rs.getMetaData());
+            generator.writeArrayFieldStart("columns");
+            for (String column : rowWriter.getColumns()) {
+                generator.writeString(column);
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("rows");
+            long rowCount = rowWriter.writeRows(rs, generator, flushRows);
+            generator.writeEndArray();
+            log.debug("流式输出明细 {} 行", rowCount);
+        } catch (IOException e) {
+            log.info("明细流式输出中断，取消查询: {}", e.getMessage());
+            context.cancel();
+            throw new UncheckedIOException("明细流式输出失败: " + e.getMessage(), e);
         }
     }
 }
@@ -2,10 +2,12 @@ package com.hinadt.miaocha.application.service.impl.logsearch.executor;
 
 import com.hinadt.miaocha.application.service.impl.logsearch.template.LogSearchTemplate.SearchExecutor;
 import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchContext;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
 import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
 import com.hinadt.miaocha.application.service.sql.builder.LogSqlBuilder;
 import com.hinadt.miaocha.application.service.sql.processor.QueryResult;
 import com.hinadt.miaocha.application.service.sql.processor.ResultProcessor;
+import com.hinadt.miaocha.application.service.sql.sampling.FieldSampling;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.common.exception.LogQueryException;
 import com.hinadt.miaocha.domain.dto.logsearch.LogFieldDistributionResultDTO;
@@ -13,7 +15,8 @@ import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTODecorator;
 import java.sql.Connection;
 import java.util.List;
-import java.util.concurrent.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
@@ -41,6 +44,11 @@ public class FieldDistributionSearchExecutor extends BaseSearchExecutor
         this.resultProcessor = resultProcessor;
     }
 
+    @Override
+    public String getSearchType() {
+        return "field-distributions";
+    }
+
     @Override
     public LogFieldDistributionResultDTO execute(SearchContext context) throws LogQueryException {
 
@@ -54,33 +62,33 @@ public class FieldDistributionSearchExecutor extends BaseSearchExecutor
         LogSearchDTODecorator decorator = (LogSearchDTODecorator) dto;
         List<String> originalFields = decorator.getOriginalFields(); // 用于结果处理
 
-        // 2. 构建字段分布查询SQL - 让SQL Builder自己处理字段转换
-        String fieldDistributionSql =
+        // 2. 构建字段分布查询SQL - 让SQL Builder自己处理字段转换，采样方式按模块配置
+        FieldSampling sampling = logSqlBuilder.resolveFieldSampling(dto.getModule());
+        result.setSampleSize(sampling.sampleSize());
+        result.setSamplingStrategy(sampling.strategy().name());
+        BoundSql fieldDistributionSql =
                 logSqlBuilder.buildFieldDistributionSql(
-                        dto, tableName, null, null, 5); // 传null，让Builder自己处理
+                        dto, tableName, null, null, 5, sampling); // 传null，让Builder自己处理
 
         log.debug("字段分布SQL: {}", fieldDistributionSql);
 
         // 3. 异步执行查询
         CompletableFuture<QueryResult> fieldDistributionFuture =
                 executeQueryAsync(
+                        context,
                         conn,
                         fieldDistributionSql,
                         ErrorCode.LOG_FIELD_DISTRIBUTION_QUERY_FAILED,
                         "FieldDistributionQuery");
 
-        try {
-            // 等待查询完成
-            QueryResult fieldDistributionResult = fieldDistributionFuture.get();
+        // 在请求截止时间内等待查询完成
+        QueryResult fieldDistributionResult =
+                awaitResult(context, fieldDistributionFuture, "FieldDistributionQuery");
 
-            // 4. 处理字段分布结果
-            resultProcessor.processFieldDistributionResult(
-                    fieldDistributionResult, result, originalFields);
+        // 4. 处理字段分布结果
+        resultProcessor.processFieldDistributionResult(
+                fieldDistributionResult, result, originalFields);
 
-            return result;
-        } catch (ExecutionException | InterruptedException e) {
-            // 其他异常（超时、中断等）让外层处理，转为BusinessException
-            throw new RuntimeException(e);
-        }
+        return result;
     }
 }
@@ -1,9 +1,13 @@
 package com.hinadt.miaocha.application.service.impl.logsearch.executor;
 
+import com.hinadt.miaocha.application.service.impl.logsearch.acceleration.AggregationRouter;
+import com.hinadt.miaocha.application.service.impl.logsearch.cache.HistogramBucketCache;
 import com.hinadt.miaocha.application.service.impl.logsearch.template.LogSearchTemplate.SearchExecutor;
 import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchContext;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
 import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
 import com.hinadt.miaocha.application.service.sql.builder.LogSqlBuilder;
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
 import com.hinadt.miaocha.application.service.sql.processor.QueryResult;
 import com.hinadt.miaocha.application.service.sql.processor.ResultProcessor;
 import com.hinadt.miaocha.application.service.sql.processor.TimeGranularityCalculator;
@@ -13,7 +17,10 @@ import com.hinadt.miaocha.common.exception.LogQueryException;
 import com.hinadt.miaocha.domain.dto.logsearch.LogHistogramResultDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
 import java.sql.Connection;
-import java.util.concurrent.*;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
@@ -21,7 +28,8 @@ import org.springframework.stereotype.Component;
 /**
  * 直方图搜索执行器
  *
- * <p>专门处理时间分布查询逻辑，支持并行查询优化
+ * <p>专门处理时间分布查询逻辑，支持并行查询优化。已经稳定的时间桶由增量缓存提供，刷新时只统计未缓存的首尾窗口； 需要统计整个时间范围时，开启聚合加速的模块由 {@link
+ * AggregationRouter} 改写为读取按分钟预聚合的物化视图
  */
 @Component
 @Slf4j
@@ -31,17 +39,28 @@ public class HistogramSearchExecutor extends BaseSearchExecutor
     private final LogSqlBuilder logSqlBuilder;
     private final ResultProcessor resultProcessor;
     private final TimeRangeProcessor timeRangeProcessor;
+    private final HistogramBucketCache histogramBucketCache;
+    private final AggregationRouter aggregationRouter;
 
     public HistogramSearchExecutor(
             JdbcQueryExecutor jdbcQueryExecutor,
             LogSqlBuilder logSqlBuilder,
             ResultProcessor resultProcessor,
             TimeRangeProcessor timeRangeProcessor,
+            HistogramBucketCache histogramBucketCache,
+            AggregationRouter aggregationRouter,
             @Qualifier("logQueryExecutor") Executor logQueryExecutor) {
         super(jdbcQueryExecutor, logQueryExecutor);
         this.logSqlBuilder = logSqlBuilder;
         this.resultProcessor = resultProcessor;
         this.timeRangeProcessor = timeRangeProcessor;
+        this.histogramBucketCache = histogramBucketCache;
+        this.aggregationRouter = aggregationRouter;
+    }
+
+    @Override
+    public String getSearchType() {
+        return "histogram";
     }
 
     @Override
@@ -57,40 +76,66 @@ public class HistogramSearchExecutor extends BaseSearchExecutor
         TimeGranularityCalculator.TimeGranularityResult granularityResult =
                 timeRangeProcessor.calculateOptimalTimeGranularity(dto, dto.getTargetBuckets());
 
-        // 2. 构建分布统计查询SQL
-        String distributionSql =
-                logSqlBuilder.buildDistributionSqlWithInterval(
-                        dto,
-                        tableName,
-                        granularityResult.getTimeUnit(),
-                        granularityResult.getInterval());
-
-        log.debug(
-                "分布统计SQL: {}, 颗粒度详情: {}",
-                distributionSql,
-                granularityResult.getDetailedDescription());
-
-        // 3. 异步执行查询
-        CompletableFuture<QueryResult> distributionFuture =
-                executeQueryAsync(
-                        conn,
-                        distributionSql,
-                        ErrorCode.LOG_HISTOGRAM_QUERY_FAILED,
-                        "HistogramQuery");
-
-        try {
-            // 等待查询完成
-            QueryResult distributionQueryResult = distributionFuture.get();
+        // 2. 已缓存稳定时间桶时只统计未缓存的首尾窗口
+        String timeUnit = granularityResult.getTimeUnit();
+        int interval = granularityResult.getInterval();
+        HistogramBucketCache.Plan plan =
+                histogramBucketCache.plan(
+                        dto.getModule(),
+                        logSqlBuilder.buildDistributionSignature(
+                                dto, tableName, timeUnit, interval),
+                        dto.getStartTime(),
+                        dto.getEndTime(),
+                        timeUnit,
+                        interval);
+        if (plan != null && plan.windows().isEmpty()) {
+            result.setDistributionData(
+                    histogramBucketCache.stitch(plan, List.of(), LocalDateTime.now()));
+        } else {
+            // 3. 构建分布统计查询SQL并异步执行，统计整个时间范围时尝试从物化视图读取
+            List<TimeWindow> windows =
+                    plan != null
+                            ? plan.windows()
+                            : List.of(new TimeWindow(dto.getStartTime(), dto.getEndTime()));
+            BoundSql distributionSql =
+                    plan != null
+                            ? logSqlBuilder.buildDistributionSqlForWindows(
+                                    dto, tableName, timeUnit, interval, plan.windows())
+                            : logSqlBuilder.buildDistributionSqlWithInterval(
+                                    dto, tableName, timeUnit, interval);
+            distributionSql =
+                    aggregationRouter.routeDistribution(
+                            context, timeUnit, interval, windows, distributionSql);
+
+            log.debug(
+                    "分布统计SQL: {}, 颗粒度详情: {}, 复用缓存桶: {}",
+                    distributionSql,
+                    granularityResult.getDetailedDescription(),
+                    plan != null ? plan.cachedBuckets().size() : 0);
+
+            CompletableFuture<QueryResult> distributionFuture =
+                    executeQueryAsync(
+                            context,
+                            conn,
+                            distributionSql,
+                            ErrorCode.LOG_HISTOGRAM_QUERY_FAILED,
+                            "HistogramQuery");
+
+            // 在请求截止时间内等待查询完成
+            QueryResult distributionQueryResult =
+                    awaitResult(context, distributionFuture, "HistogramQuery");
             resultProcessor.processDistributionResult(distributionQueryResult, result);
+            if (plan != null) {
+                result.setDistributionData(
+                        histogramBucketCache.stitch(
+                                plan, result.getDistributionData(), LocalDateTime.now()));
+            }
+        }
 
-            // 4. 设置时间颗粒度信息
-            setGranularityInfo(result, granularityResult);
+        // 4. 设置时间颗粒度信息
+        setGranularityInfo(result, granularityResult);
 
-            return result;
-        } catch (ExecutionException | InterruptedException e) {
-            // 其他异常（超时、中断等）让外层处理，转为BusinessException
-            throw new RuntimeException(e);
-        }
+        return result;
     }
 
     /** 设置时间颗粒度相关信息 */
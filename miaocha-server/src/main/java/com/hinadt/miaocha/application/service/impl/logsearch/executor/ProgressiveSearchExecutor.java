@@ -0,0 +1,261 @@
+package com.hinadt.miaocha.application.service.impl.logsearch.executor;
+
+import com.hinadt.miaocha.application.service.impl.logsearch.cache.LogCountCache;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.LogSearchTemplate.SearchExecutor;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchContext;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
+import com.hinadt.miaocha.application.service.sql.builder.LogSqlBuilder;
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
+import com.hinadt.miaocha.application.service.sql.processor.ProgressiveTimeSlicer;
+import com.hinadt.miaocha.application.service.sql.processor.QueryResult;
+import com.hinadt.miaocha.application.service.sql.processor.ResultProcessor;
+import com.hinadt.miaocha.application.service.sql.processor.TimeGranularityCalculator;
+import com.hinadt.miaocha.application.service.sql.processor.TimeRangeProcessor;
+import com.hinadt.miaocha.common.exception.ErrorCode;
+import com.hinadt.miaocha.common.exception.LogQueryException;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.dto.logsearch.LogDetailResultDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogHistogramResultDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogHistogramResultDTO.LogDistributionData;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchSummaryDTO;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * 渐进式检索执行器
+ *
+ * <p>把时间范围按 {@link ProgressiveTimeSlicer} 从新到旧切片，每个切片完成后立即输出该切片的明细行和时间分布，
+ * 大范围检索也能很快看到最近的数据。明细按时间倒序时随切片查询，查满一页后后续切片只统计时间分布； 其他排序方式在第一个切片之前查询整个范围的明细。
+ *
+ * <p>时间桶可能跨越切片边界，histogram 事件中的桶数量为截至当前切片的累计值，客户端按 timePoint 覆盖即可。 所有切片完成后输出 summary
+ * 事件，总数为各时间桶数量之和，同时写入总数缓存供后续翻页使用
+ */
+@Component
+@Slf4j
+public class ProgressiveSearchExecutor extends BaseSearchExecutor {
+
+    /** 明细行事件 */
+    public static final String EVENT_DETAILS = "details";
+
+    /** 时间分布事件 */
+    public static final String EVENT_HISTOGRAM = "histogram";
+
+    /** 汇总事件 */
+    public static final String EVENT_SUMMARY = "summary";
+
+    private final LogSqlBuilder logSqlBuilder;
+    private final ResultProcessor resultProcessor;
+    private final TimeRangeProcessor timeRangeProcessor;
+    private final LogSearchProperties logSearchProperties;
+    private final LogCountCache logCountCache;
+
+    public ProgressiveSearchExecutor(
+            JdbcQueryExecutor jdbcQueryExecutor,
+            LogSqlBuilder logSqlBuilder,
+            ResultProcessor resultProcessor,
+            TimeRangeProcessor timeRangeProcessor,
+            LogSearchProperties logSearchProperties,
+            LogCountCache logCountCache,
+            @Qualifier("logQueryExecutor") Executor logQueryExecutor) {
+        super(jdbcQueryExecutor, logQueryExecutor);
+        this.logSqlBuilder = logSqlBuilder;
+        this.resultProcessor = resultProcessor;
+        this.timeRangeProcessor = timeRangeProcessor;
+        this.logSearchProperties = logSearchProperties;
+        this.logCountCache = logCountCache;
+    }
+
+    /**
+     * 创建输出到指定事件接收方的搜索执行器
+     *
+     * @param sink 事件接收方
+     * @return 搜索执行器，结果不在并发检索之间共享
+     */
+    public SearchExecutor<LogSearchSummaryDTO> forSink(EventSink sink) {
+        return new SearchExecutor<>() {
+            @Override
+            public LogSearchSummaryDTO execute(SearchContext context) {
+                return ProgressiveSearchExecutor.this.execute(context, sink);
+            }
+
+            @Override
+            public String getSearchType() {
+                return "progressive";
+            }
+
+            @Override
+            public boolean isShareable() {
+                return false;
+            }
+        };
+    }
+
+    private LogSearchSummaryDTO execute(SearchContext context, EventSink sink)
+            throws LogQueryException {
+        LogSearchDTO dto = context.getDto();
+        String tableName = context.getTableName();
+        String timeField = context.getTimeField();
+        Connection conn = context.getConnection();
+        // 客户端断开后立即取消正在执行的查询，不必等到下一次输出失败
+        sink.onClose(context::cancel);
+
+        TimeGranularityCalculator.TimeGranularityResult granularity =
+                timeRangeProcessor.calculateOptimalTimeGranularity(dto, dto.getTargetBuckets());
+        String timeUnit = granularity.getTimeUnit();
+        int interval = granularity.getInterval();
+
+        TimeWindow range = new TimeWindow(dto.getStartTime(), dto.getEndTime());
+        ProgressiveTimeSlicer slicer =
+                ProgressiveTimeSlicer.create(range, logSearchProperties.getTimeSlicing());
+        boolean slicedDetails = logSqlBuilder.resolveDetailSliceRange(dto, timeField) != null;
+        int pageSize = dto.getPageSize();
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        if (!slicedDetails) {
+            BoundSql detailSql = logSqlBuilder.buildDetailQuery(dto, tableName, timeField);
+            QueryResult detailResult =
+                    executeQuery(
+                            context,
+                            conn,
+                            detailSql,
+                            ErrorCode.LOG_DETAIL_QUERY_FAILED,
+                            "DetailQuery");
+            emitDetails(context, sink, detailResult, rows, true);
+        }
+
+        // 时间点格式固定，按字符串排序即按时间排序
+        Map<String, Long> buckets = new TreeMap<>();
+        int slices = 0;
+        TimeWindow slice = slicer != null ? slicer.next(0, pageSize) : range;
+        while (slice != null) {
+            slices++;
+            if (slicedDetails && rows.size() < pageSize) {
+                BoundSql detailSql =
+                        logSqlBuilder.buildDetailQueryForSlice(
+                                dto, tableName, timeField, slice, pageSize - rows.size());
+                QueryResult detailResult =
+                        executeQuery(
+                                context,
+                                conn,
+                                detailSql,
+                                ErrorCode.LOG_DETAIL_QUERY_FAILED,
+                                "DetailQuery");
+                emitDetails(context, sink, detailResult, rows, slices == 1);
+            }
+
+            BoundSql distributionSql =
+                    logSqlBuilder.buildDistributionSqlForWindows(
+                            dto, tableName, timeUnit, interval, List.of(slice));
+            QueryResult distributionResult =
+                    executeQuery(
+                            context,
+                            conn,
+                            distributionSql,
+                            ErrorCode.LOG_HISTOGRAM_QUERY_FAILED,
+                            "HistogramQuery");
+            emitHistogram(context, sink, distributionResult, buckets, timeUnit, interval);
+
+            slice = slicer != null ? slicer.next(rows.size(), pageSize) : null;
+        }
+
+        long totalCount = buckets.values().stream().mapToLong(Long::longValue).sum();
+        logCountCache.put(
+                dto.getModule(),
+                logSqlBuilder.buildCountQuery(dto, tableName, timeField),
+                totalCount);
+        log.debug("渐进式检索执行了 {} 个时间切片，明细 {} 行，总数 {}", slices, rows.size(), totalCount);
+
+        LogSearchSummaryDTO summary = new LogSearchSummaryDTO();
+        summary.setTotalCount(totalCount);
+        summary.setRowCount(rows.size());
+        summary.setNextCursor(logSqlBuilder.buildNextCursor(dto, timeField, rows));
+        summary.setSlices(slices);
+        summary.setTimeUnit(timeUnit);
+        summary.setTimeInterval(interval);
+        return summary;
+    }
+
+    /** 输出一个切片的明细行并记录到本页已输出的行中，没有数据的切片只在首次输出列名 */
+    private void emitDetails(
+            SearchContext context,
+            EventSink sink,
+            QueryResult detailResult,
+            List<Map<String, Object>> rows,
+            boolean first) {
+        if (!first && !detailResult.hasData()) {
+            return;
+        }
+        LogDetailResultDTO details = new LogDetailResultDTO();
+        resultProcessor.processDetailResult(detailResult, details);
+        if (details.getRows() != null) {
+            rows.addAll(details.getRows());
+        }
+        send(context, sink, EVENT_DETAILS, details);
+    }
+
+    /** 把一个切片的时间分布累加到已统计的桶中，输出本切片涉及的桶的累计数量 */
+    private void emitHistogram(
+            SearchContext context,
+            EventSink sink,
+            QueryResult distributionResult,
+            Map<String, Long> buckets,
+            String timeUnit,
+            int interval) {
+        LogHistogramResultDTO histogram = new LogHistogramResultDTO();
+        resultProcessor.processDistributionResult(distributionResult, histogram);
+        for (LogDistributionData data : histogram.getDistributionData()) {
+            if (data.getTimePoint() == null) {
+                continue;
+            }
+            long count = data.getCount() != null ? data.getCount() : 0L;
+            data.setCount(buckets.merge(data.getTimePoint(), count, Long::sum));
+        }
+        histogram.setTimeUnit(timeUnit);
+        histogram.setTimeInterval(interval);
+        histogram.setActualBuckets(buckets.size());
+        send(context, sink, EVENT_HISTOGRAM, histogram);
+    }
+
+    /** 输出事件，失败时（通常是客户端断开连接）取消本次请求的所有查询 */
+    private void send(SearchContext context, EventSink sink, String event, Object data) {
+        try {
+            sink.send(event, data);
+        } catch (IOException e) {
+            log.info("渐进式检索输出中断，取消查询: {}", e.getMessage());
+            context.cancel();
+            throw new UncheckedIOException("渐进式检索输出失败: " + e.getMessage(), e);
+        }
+    }
+
+    /** 渐进式检索的事件接收方 */
+    @FunctionalInterface
+    public interface EventSink {
+
+        /**
+         * 输出一个事件
+         *
+         * @param event 事件名
+         * @param data 事件数据
+         * @throws IOException 如果输出失败
+         */
+        void send(String event, Object data) throws IOException;
+
+        /**
+         * 注册接收方关闭（如客户端断开连接）时的回调，已关闭时立即执行
+         *
+         * @param callback 回调
+         */
+        default void onClose(Runnable callback) {}
+    }
+}
@@ -0,0 +1,60 @@
+package com.hinadt.miaocha.application.service.impl.logsearch.template;
+
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+
+/**
+ * AI助手检索登记表
+ *
+ * <p>AI助手只把检索条件推送给前端，实际检索由前端发起。助手推送条件时按 用户 + 检索条件 登记，
+ * 前端在有效期内按相同条件发起的检索由服务端识别为非交互请求，按后台优先级执行，不依赖前端声明。
+ */
+@Component
+public class AssistantSearchRegistry {
+
+    /** 登记的有效期，覆盖前端收到动作后发起检索及翻页的时间 */
+    private static final long TTL_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final Map<List<Object>, Long> expiresAt = new ConcurrentHashMap<>();
+
+    /**
+     * 登记AI助手推送给前端的检索条件
+     *
+     * @param user 用户标识
+     * @param dto 检索条件
+     */
+    public void register(String user, LogSearchDTO dto) {
+        long now = System.nanoTime();
+        expiresAt.values().removeIf(expiry -> expiry - now < 0);
+        expiresAt.put(buildKey(user, dto), now + TTL_NANOS);
+    }
+
+    /**
+     * 判断检索是否由AI助手触发
+     *
+     * @param user 用户标识
+     * @param dto 检索条件，时间范围需尚未解析
+     * @return 有效期内登记过相同条件时返回true
+     */
+    public boolean contains(String user, LogSearchDTO dto) {
+        Long expiry = expiresAt.get(buildKey(user, dto));
+        return expiry != null && expiry - System.nanoTime() > 0;
+    }
+
+    /** 分页、字段和分组参数不影响判断，同一组条件的翻页和分布查询都视为助手检索 */
+    private static List<Object> buildKey(String user, LogSearchDTO dto) {
+        return Arrays.asList(
+                user,
+                dto.getModule(),
+                dto.getKeywords(),
+                dto.getWhereSqls(),
+                dto.getStartTime(),
+                dto.getEndTime(),
+                dto.getTimeRange());
+    }
+}
@@ -1,6 +1,9 @@
 package com.hinadt.miaocha.application.service.impl.logsearch.template;
 
 import com.hinadt.miaocha.application.service.ModuleInfoService;
+import com.hinadt.miaocha.application.service.datasource.DatasourceConcurrencyLimiter;
+import com.hinadt.miaocha.application.service.datasource.QueryPriority;
+import com.hinadt.miaocha.application.service.impl.logsearch.cache.SearchResultCoalescer;
 import com.hinadt.miaocha.application.service.impl.logsearch.validator.QueryConfigValidationService;
 import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
 import com.hinadt.miaocha.application.service.sql.converter.LogSearchDTOConverter;
@@ -8,6 +11,8 @@ import com.hinadt.miaocha.application.service.sql.processor.TimeRangeProcessor;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.common.exception.LogQueryException;
+import com.hinadt.miaocha.common.util.UserContextUtil;
+import com.hinadt.miaocha.config.LogSearchProperties;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchResultDTO;
 import com.hinadt.miaocha.domain.entity.DatasourceInfo;
@@ -30,30 +35,114 @@ public class LogSearchTemplate {
     private final ModuleInfoService moduleInfoService;
     private final LogSearchDTOConverter dtoConverter;
     private final QueryConfigValidationService queryConfigValidationService;
+    private final LogSearchProperties logSearchProperties;
+    private final SearchSessionRegistry searchSessionRegistry;
+    private final SearchResultCoalescer searchResultCoalescer;
+    private final DatasourceConcurrencyLimiter concurrencyLimiter;
+    private final AssistantSearchRegistry assistantSearchRegistry;
 
     public LogSearchTemplate(
             JdbcQueryExecutor jdbcQueryExecutor,
             TimeRangeProcessor timeRangeProcessor,
             ModuleInfoService moduleInfoService,
             LogSearchDTOConverter dtoConverter,
-            QueryConfigValidationService queryConfigValidationService) {
+            QueryConfigValidationService queryConfigValidationService,
+            LogSearchProperties logSearchProperties,
+            SearchSessionRegistry searchSessionRegistry,
+            SearchResultCoalescer searchResultCoalescer,
+            DatasourceConcurrencyLimiter concurrencyLimiter,
+            AssistantSearchRegistry assistantSearchRegistry) {
         this.jdbcQueryExecutor = jdbcQueryExecutor;
         this.timeRangeProcessor = timeRangeProcessor;
         this.moduleInfoService = moduleInfoService;
         this.dtoConverter = dtoConverter;
         this.queryConfigValidationService = queryConfigValidationService;
+        this.logSearchProperties = logSearchProperties;
+        this.searchSessionRegistry = searchSessionRegistry;
+        this.searchResultCoalescer = searchResultCoalescer;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.assistantSearchRegistry = assistantSearchRegistry;
     }
 
-    /** 执行搜索的模板方法 */
+    /**
+     * 执行搜索的模板方法
+     *
+     * <p>时间范围解析为绝对时间后，可共享结果的检索交给 {@link SearchResultCoalescer}，相同的并发检索只执行一次
+     */
     public <T extends LogSearchResultDTO> T execute(
             DatasourceInfo datasourceInfo, LogSearchDTO dto, SearchExecutor<T> executor) {
+        return execute(
+                datasourceInfo, dto, executor, resolvePriority(dto, QueryPriority.INTERACTIVE));
+    }
+
+    /**
+     * 确定检索的查询优先级，需在请求线程中、解析时间范围之前调用
+     *
+     * <p>AI助手和页面自动刷新触发的检索按后台优先级执行，请求头只能进一步降低优先级
+     *
+     * @param dto 检索请求参数
+     * @param assigned 检索入口确定的优先级
+     * @return 查询优先级
+     */
+    public QueryPriority resolvePriority(LogSearchDTO dto, QueryPriority assigned) {
+        if (Boolean.TRUE.equals(dto.getAutoRefresh())
+                || assistantSearchRegistry.contains(UserContextUtil.getCurrentUserEmail(), dto)) {
+            assigned = assigned.lower(QueryPriority.BACKGROUND);
+        }
+        return QueryPriority.current(assigned);
+    }
+
+    /**
+     * 按指定的查询优先级执行搜索，用于不在请求线程中执行的检索
+     *
+     * @param datasourceInfo 数据源
+     * @param dto 检索请求参数
+     * @param executor 搜索执行器
+     * @param priority 查询优先级，通常在请求线程中通过 {@link #resolvePriority} 获取
+     * @return 检索结果
+     */
+    public <T extends LogSearchResultDTO> T execute(
+            DatasourceInfo datasourceInfo,
+            LogSearchDTO dto,
+            SearchExecutor<T> executor,
+            QueryPriority priority) {
 
         long startTime = System.currentTimeMillis();
 
-        try {
-            // 1. 处理时间范围
-            timeRangeProcessor.processTimeRange(dto);
+        // 1. 处理时间范围
+        timeRangeProcessor.processTimeRange(dto);
+        int timeoutSeconds = getTimeoutSeconds(dto.getModule());
+
+        T result =
+                executor.isShareable()
+                        ? searchResultCoalescer.execute(
+                                executor.getSearchType(),
+                                datasourceInfo.getId(),
+                                dto,
+                                timeoutSeconds,
+                                remainingSeconds ->
+                                        search(
+                                                datasourceInfo,
+                                                dto,
+                                                executor,
+                                                priority,
+                                                remainingSeconds))
+                        : search(datasourceInfo, dto, executor, priority, timeoutSeconds);
+
+        // 5. 设置执行时间
+        long endTime = System.currentTimeMillis();
+        result.setExecutionTimeMs(endTime - startTime);
 
+        return result;
+    }
+
+    private <T extends LogSearchResultDTO> T search(
+            DatasourceInfo datasourceInfo,
+            LogSearchDTO dto,
+            SearchExecutor<T> executor,
+            QueryPriority priority,
+            int timeoutSeconds) {
+        try {
             // 2. 转换DTO
             LogSearchDTO convertedDto = dtoConverter.convert(dto);
 
@@ -61,16 +150,51 @@ public class LogSearchTemplate {
             String tableName = moduleInfoService.getTableNameByModule(dto.getModule());
             String timeField = getTimeField(dto.getModule());
 
-            // 4. 执行具体的搜索逻辑
-            try (Connection conn = jdbcQueryExecutor.getConnection(datasourceInfo)) {
-                SearchContext context = new SearchContext(conn, convertedDto, tableName, timeField);
-                T result = executor.execute(context);
+            // 4. 执行具体的搜索逻辑，并行子查询按需租用独立连接，整个请求按优先级占用数据源的一个并发许可
+            try (DatasourceConcurrencyLimiter.Permit permit =
+                    concurrencyLimiter.acquire(datasourceInfo, priority)) {
+                try (Connection conn = jdbcQueryExecutor.getConnection(datasourceInfo);
+                        SearchContext context =
+                                new SearchContext(
+                                        conn,
+                                        convertedDto,
+                                        tableName,
+                                        timeField,
+                                        () -> jdbcQueryExecutor.getConnection(datasourceInfo),
+                                        executor.getMaxConnections(logSearchProperties),
+                                        timeoutSeconds,
+                                        logSearchProperties.isParameterizedQueries())) {
 
-                // 5. 设置执行时间
-                long endTime = System.currentTimeMillis();
-                result.setExecutionTimeMs(endTime - startTime);
-
-                return result;
+                    // 客户端指定检索会话时，同一用户同一会话的新检索会取消未完成的同类旧检索
+                    String sessionKey = sessionKey(dto, executor.getSearchType());
+                    if (sessionKey != null) {
+                        searchSessionRegistry.register(sessionKey, context);
+                    }
+                    try {
+                        return executor.execute(context);
+                    } catch (LogQueryException e) {
+                        // 超时说明数据源过载，取消的查询耗时不代表数据源状态
+                        if (e.getErrorCode() == ErrorCode.LOG_QUERY_TIMEOUT) {
+                            permit.markOverloaded();
+                        } else if (e.getErrorCode() == ErrorCode.LOG_QUERY_CANCELLED) {
+                            permit.markIgnored();
+                        }
+                        throw e;
+                    } finally {
+                        if (sessionKey != null) {
+                            searchSessionRegistry.unregister(sessionKey, context);
+                        }
+                        // 按语句的执行耗时调整并发上限，不计入向客户端输出结果的时间
+                        long queryNanos = context.getSlowestQueryNanos();
+                        if (queryNanos >= 0) {
+                            permit.recordQueryTime(queryNanos);
+                        }
+                    }
+                } catch (SQLException e) {
+                    // 无法获得连接不代表查询变慢，不参与调整
+                    permit.markIgnored();
+                    throw e;
+                }
             }
 
         } catch (SQLException e) {
@@ -84,10 +208,52 @@ public class LogSearchTemplate {
         return queryConfigValidationService.getTimeField(module);
     }
 
+    /** 获取查询超时时间：模块配置优先，其次按当前用户角色，最后使用默认值 */
+    private int getTimeoutSeconds(String module) {
+        return logSearchProperties
+                .getQueryTimeout()
+                .resolveSeconds(
+                        queryConfigValidationService.getQueryTimeoutSeconds(module),
+                        UserContextUtil.getCurrentUserRole());
+    }
+
+    /**
+     * 构建检索会话的登记键
+     *
+     * <p>只有客户端显式指定 searchSessionId 时才登记。未指定时不能按模块等推断会话，否则同一用户的多个标签页或AI助手在同一模块上的检索会互相取消
+     *
+     * @param dto 检索请求参数
+     * @param searchType 查询类型
+     * @return 登记键，未指定会话时返回null
+     */
+    private static String sessionKey(LogSearchDTO dto, String searchType) {
+        String session = dto.getSearchSessionId();
+        if (session == null || session.isBlank()) {
+            return null;
+        }
+        return SearchSessionRegistry.buildKey(
+                UserContextUtil.getCurrentUserEmail(), session, searchType);
+    }
+
     /** 搜索执行器接口 */
     public interface SearchExecutor<T extends LogSearchResultDTO> {
 
         /** 执行具体的搜索逻辑 */
         T execute(SearchContext context) throws LogQueryException;
+
+        /** 查询类型，同一会话内同类型的新检索会取消旧检索 */
+        default String getSearchType() {
+            return getClass().getSimpleName();
+        }
+
+        /** 单个请求最多使用的数据库连接数（含主连接） */
+        default int getMaxConnections(LogSearchProperties properties) {
+            return properties.getMaxConnectionsPerRequest();
+        }
+
+        /** 结果是否可以在相同的并发检索之间共享，边查询边输出的执行器返回false */
+        default boolean isShareable() {
+            return true;
+        }
     }
 }
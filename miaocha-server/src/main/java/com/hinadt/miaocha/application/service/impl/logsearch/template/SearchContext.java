@@ -1,27 +1,367 @@
 package com.hinadt.miaocha.application.service.impl.logsearch.template;
 
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
+import com.hinadt.miaocha.common.exception.BusinessException;
+import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * 搜索执行上下文
  *
  * <p>包含执行搜索所需的所有上下文信息
+ *
+ * <p>同一连接上的查询会被驱动串行执行，需要并行的子查询应通过 {@link #leaseConnection()}
+ * 从连接池租用独立连接。每个请求租用的连接数受上限控制，超出上限时退回共享主连接；租用的连接在上下文关闭时统一归还。
+ *
+ * <p>上下文同时负责请求级的截止时间和取消：通过 {@link #createStatement(Connection)} 创建的语句会按剩余时间设置 queryTimeout，并在
+ * {@link #cancel()} 时被取消（MySQL驱动会向Doris发送 KILL QUERY）。
+ *
+ * <p>同一请求内需要并行执行多个检索时，通过 {@link #fork(LogSearchDTO)} 创建子上下文，子上下文共享根上下文的截止时间、 取消状态和连接上限。
+ *
+ * <p>启用参数化查询时，{@link #createStatement(Connection, BoundSql)} 以带占位符的SQL创建预编译语句并绑定参数，
+ * 未启用时创建普通语句，执行参数写回后的SQL；两种语句都需通过 {@link JdbcQueryExecutor#openResultSet} 执行。
  */
+@Slf4j
 @Getter
-public class SearchContext {
+public class SearchContext implements AutoCloseable {
 
     private final Connection connection;
     private final LogSearchDTO dto;
     private final String tableName;
     private final String timeField;
 
+    /** 子查询连接工厂，为空时不租用额外连接 */
+    private final ConnectionFactory connectionFactory;
+
+    /** 单个请求最多使用的连接数（含主连接） */
+    private final int maxConnections;
+
+    /** 查询超时时间（秒），0 表示不限制 */
+    private final int timeoutSeconds;
+
+    /** 是否以参数化的预编译语句执行查询 */
+    private final boolean parameterized;
+
+    /** 截止时间（System.nanoTime），timeoutSeconds 为 0 时无意义 */
+    @Getter(AccessLevel.NONE)
+    private final long deadlineNanos;
+
+    /** 根上下文，子上下文的取消、语句登记和连接租用都委托给根上下文 */
+    @Getter(AccessLevel.NONE)
+    private final SearchContext root;
+
+    /** 是否已被取消 */
+    @Getter(AccessLevel.NONE)
+    private volatile boolean cancelled;
+
+    /** 已租用的子查询连接 */
+    @Getter(AccessLevel.NONE)
+    private final List<Connection> leasedConnections = new ArrayList<>();
+
+    /** 正在执行的语句，取消时逐个 cancel */
+    @Getter(AccessLevel.NONE)
+    private final Set<Statement> runningStatements = ConcurrentHashMap.newKeySet();
+
+    /** 耗时最长的语句执行时间（纳秒），尚未执行语句时为 -1 */
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong slowestQueryNanos = new AtomicLong(-1);
+
     public SearchContext(
             Connection connection, LogSearchDTO dto, String tableName, String timeField) {
+        this(connection, dto, tableName, timeField, null, 1, 0);
+    }
+
+    public SearchContext(
+            Connection connection,
+            LogSearchDTO dto,
+            String tableName,
+            String timeField,
+            ConnectionFactory connectionFactory,
+            int maxConnections,
+            int timeoutSeconds) {
+        this(
+                connection,
+                dto,
+                tableName,
+                timeField,
+                connectionFactory,
+                maxConnections,
+                timeoutSeconds,
+                false);
+    }
+
+    public SearchContext(
+            Connection connection,
+            LogSearchDTO dto,
+            String tableName,
+            String timeField,
+            ConnectionFactory connectionFactory,
+            int maxConnections,
+            int timeoutSeconds,
+            boolean parameterized) {
         this.connection = connection;
         this.dto = dto;
         this.tableName = tableName;
         this.timeField = timeField;
+        this.connectionFactory = connectionFactory;
+        this.maxConnections = Math.max(1, maxConnections);
+        this.timeoutSeconds = Math.max(0, timeoutSeconds);
+        this.parameterized = parameterized;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(this.timeoutSeconds);
+        this.root = this;
+    }
+
+    private SearchContext(SearchContext root, Connection connection, LogSearchDTO dto) {
+        this.connection = connection;
+        this.dto = dto;
+        this.tableName = root.tableName;
+        this.timeField = root.timeField;
+        this.connectionFactory = root.connectionFactory;
+        this.maxConnections = root.maxConnections;
+        this.timeoutSeconds = root.timeoutSeconds;
+        this.parameterized = root.parameterized;
+        this.deadlineNanos = root.deadlineNanos;
+        this.root = root;
+    }
+
+    /**
+     * 创建子上下文，用于在同一请求内并行执行另一个检索
+     *
+     * <p>子上下文使用新租用的连接作为主连接（达到连接上限时共享根上下文的主连接），与根上下文共享截止时间、 取消状态和连接上限。子上下文无需关闭，租用的连接由根上下文统一归还
+     *
+     * @param dto 子检索使用的查询参数
+     * @return 子上下文
+     */
+    public SearchContext fork(LogSearchDTO dto) {
+        return new SearchContext(root, root.leaseConnection(), dto);
+    }
+
+    /**
+     * 为并行子查询租用一个独立连接
+     *
+     * <p>未配置连接工厂或已达到单请求连接上限时返回共享主连接，此时子查询会在主连接上串行执行
+     *
+     * @return 数据库连接，调用方不要关闭
+     */
+    public synchronized Connection leaseConnection() {
+        if (root != this) {
+            return root.leaseConnection();
+        }
+        if (connectionFactory == null || leasedConnections.size() + 1 >= maxConnections) {
+            return connection;
+        }
+        try {
+            Connection leased = connectionFactory.getConnection();
+            leasedConnections.add(leased);
+            return leased;
+        } catch (SQLException e) {
+            throw new BusinessException(
+                    ErrorCode.DATASOURCE_CONNECTION_FAILED, "获取数据库连接失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取距截止时间的剩余毫秒数
+     *
+     * @return 剩余毫秒数，未设置超时时返回 Long.MAX_VALUE
+     */
+    public long getRemainingMillis() {
+        if (timeoutSeconds == 0) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * 在指定连接上创建受本次请求截止时间和取消控制的语句
+     *
+     * <p>语句关闭前需调用 {@link #releaseStatement(Statement)} 解除登记
+     *
+     * @param conn 数据库连接
+     * @return 语句
+     * @throws SQLException 如果请求已取消、已超时或创建语句失败
+     */
+    public Statement createStatement(Connection conn) throws SQLException {
+        return register(conn.createStatement());
+    }
+
+    /**
+     * 在指定连接上创建只读、仅向前的语句，用于流式读取结果集
+     *
+     * @param conn 数据库连接
+     * @return 语句
+     * @throws SQLException 如果请求已取消、已超时或创建语句失败
+     * @see #createStatement(Connection)
+     */
+    public Statement createForwardOnlyStatement(Connection conn) throws SQLException {
+        return register(
+                conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY));
+    }
+
+    /**
+     * 创建执行指定SQL的语句，启用参数化查询时为已绑定参数的预编译语句
+     *
+     * @param conn 数据库连接
+     * @param sql 构建器生成的带绑定参数的SQL
+     * @return 语句，需通过 {@link JdbcQueryExecutor#openResultSet(Statement, BoundSql)} 执行
+     * @throws SQLException 如果请求已取消、已超时或创建语句失败
+     * @see #createStatement(Connection)
+     */
+    public Statement createStatement(Connection conn, BoundSql sql) throws SQLException {
+        if (!parameterized) {
+            return createStatement(conn);
+        }
+        return register(bind(conn.prepareStatement(sql.sql()), sql));
+    }
+
+    /**
+     * 创建执行指定SQL的只读、仅向前的语句，用于流式读取结果集
+     *
+     * @param conn 数据库连接
+     * @param sql 构建器生成的带绑定参数的SQL
+     * @return 语句，需通过 {@link JdbcQueryExecutor#openResultSet(Statement, BoundSql)} 执行
+     * @throws SQLException 如果请求已取消、已超时或创建语句失败
+     * @see #createStatement(Connection, BoundSql)
+     */
+    public Statement createForwardOnlyStatement(Connection conn, BoundSql sql) throws SQLException {
+        if (!parameterized) {
+            return createForwardOnlyStatement(conn);
+        }
+        return register(
+                bind(
+                        conn.prepareStatement(
+                                sql.sql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY),
+                        sql));
+    }
+
+    /**
+     * 解除语句登记，语句执行结束后调用
+     *
+     * @param statement 语句
+     */
+    public void releaseStatement(Statement statement) {
+        root.runningStatements.remove(statement);
+    }
+
+    /**
+     * 取消本次请求所有正在执行的语句
+     *
+     * <p>可以从任意线程调用，重复调用无副作用
+     */
+    public void cancel() {
+        if (root != this) {
+            root.cancel();
+            return;
+        }
+        cancelled = true;
+        for (Statement statement : runningStatements) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                log.debug("取消查询语句失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 记录一条语句在数据源上的执行耗时，不含向客户端写出结果的时间
+     *
+     * @param elapsedNanos 执行耗时（纳秒）
+     */
+    public void recordQueryTime(long elapsedNanos) {
+        root.slowestQueryNanos.accumulateAndGet(elapsedNanos, Math::max);
+    }
+
+    /**
+     * 获取本次请求中耗时最长的语句执行时间
+     *
+     * @return 执行耗时（纳秒），尚未执行语句时返回 -1
+     */
+    public long getSlowestQueryNanos() {
+        return root.slowestQueryNanos.get();
+    }
+
+    /**
+     * 是否已被取消
+     *
+     * @return 本次请求是否已被取消
+     */
+    public boolean isCancelled() {
+        return root.cancelled;
+    }
+
+    /** 归还租用的子查询连接，主连接由创建方负责关闭；子上下文关闭无副作用 */
+    @Override
+    public synchronized void close() {
+        if (root != this) {
+            return;
+        }
+        runningStatements.clear();
+        for (Connection leased : leasedConnections) {
+            try {
+                leased.close();
+            } catch (SQLException e) {
+                log.warn("归还子查询连接失败: {}", e.getMessage());
+            }
+        }
+        leasedConnections.clear();
+    }
+
+    private static PreparedStatement bind(PreparedStatement statement, BoundSql sql)
+            throws SQLException {
+        try {
+            sql.bind(statement);
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+        return statement;
+    }
+
+    /** 先登记语句再检查取消标记，与 {@link #cancel()} 并发时语句要么被取消，要么在这里被拒绝 */
+    private Statement register(Statement statement) throws SQLException {
+        try {
+            if (timeoutSeconds > 0) {
+                long remainingMillis = getRemainingMillis();
+                if (remainingMillis <= 0) {
+                    throw new SQLTimeoutException("查询超过 " + timeoutSeconds + " 秒未完成");
+                }
+                statement.setQueryTimeout(
+                        (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(remainingMillis + 999)));
+            }
+            root.runningStatements.add(statement);
+            if (root.cancelled) {
+                root.runningStatements.remove(statement);
+                throw new SQLException("查询已取消");
+            }
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+        return statement;
+    }
+
+    /** 子查询连接工厂 */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+
+        /** 从连接池获取一个新连接 */
+        Connection getConnection() throws SQLException;
     }
 }
@@ -0,0 +1,83 @@
+package com.hinadt.miaocha.application.service.impl.logsearch.template;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 检索会话登记表
+ *
+ * <p>按 用户 + 会话 + 查询类型 登记正在执行的检索。同一键下的新检索会取消尚未完成的旧检索， 避免用户修改条件或重复点击后旧查询继续占用Doris资源；也支持按用户和会话主动取消。
+ */
+@Slf4j
+@Component
+public class SearchSessionRegistry {
+
+    private static final String SEPARATOR = "|";
+
+    private final Map<String, SearchContext> activeSearches = new ConcurrentHashMap<>();
+
+    /**
+     * 构建登记键
+     *
+     * @param user 用户标识
+     * @param session 会话标识
+     * @param searchType 查询类型
+     * @return 登记键
+     */
+    public static String buildKey(String user, String session, String searchType) {
+        return sessionPrefix(user, session) + searchType;
+    }
+
+    /**
+     * 登记检索，同一键下未完成的旧检索会被取消
+     *
+     * @param key 登记键
+     * @param context 检索上下文
+     */
+    public void register(String key, SearchContext context) {
+        SearchContext previous = activeSearches.put(key, context);
+        if (previous != null && previous != context) {
+            log.info("检索被同一会话的新请求取代，取消旧查询: {}", key);
+            previous.cancel();
+        }
+    }
+
+    /**
+     * 解除登记，仅当登记的仍是该上下文时才移除
+     *
+     * @param key 登记键
+     * @param context 检索上下文
+     */
+    public void unregister(String key, SearchContext context) {
+        activeSearches.remove(key, context);
+    }
+
+    /**
+     * 取消指定用户会话下所有正在执行的检索
+     *
+     * @param user 用户标识
+     * @param session 会话标识
+     * @return 被取消的检索数量
+     */
+    public int cancel(String user, String session) {
+        String prefix = sessionPrefix(user, session);
+        int cancelled = 0;
+        for (Map.Entry<String, SearchContext> entry : activeSearches.entrySet()) {
+            if (entry.getKey().startsWith(prefix)
+                    && activeSearches.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().cancel();
+                cancelled++;
+            }
+        }
+        if (cancelled > 0) {
+            log.info("主动取消检索 {} 个: {}", cancelled, prefix);
+        }
+        return cancelled;
+    }
+
+    private static String sessionPrefix(String user, String session) {
+        return user + SEPARATOR + session + SEPARATOR;
+    }
+}
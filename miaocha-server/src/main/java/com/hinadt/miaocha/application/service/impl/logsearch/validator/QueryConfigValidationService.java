@@ -54,6 +54,29 @@ public class QueryConfigValidationService {
         return timeField;
     }
 
+    /**
+     * 获取模块配置的查询超时时间
+     *
+     * @param module 模块名
+     * @return 超时时间（秒），未配置时返回null
+     * @throws BusinessException 如果模块未配置查询信息
+     */
+    public Integer getQueryTimeoutSeconds(String module) {
+        return validateAndGetQueryConfig(module).getQueryTimeoutSeconds();
+    }
+
+    /**
+     * 获取模块配置的并列排序字段
+     *
+     * @param module 模块名
+     * @return 并列排序字段名，未配置时返回null
+     * @throws BusinessException 如果模块未配置查询信息
+     */
+    public String getTiebreakerField(String module) {
+        String tiebreakerField = validateAndGetQueryConfig(module).getTiebreakerField();
+        return tiebreakerField == null || tiebreakerField.isBlank() ? null : tiebreakerField;
+    }
+
     /**
      * 获取字段的搜索方法
      *
@@ -0,0 +1,24 @@
+package com.hinadt.miaocha.application.service.impl.module;
+
+import java.util.List;
+
+/**
+ * 模块配置变更事件
+ *
+ * <p>模块的表结构、查询配置、状态或关联数据源修改后发布，按模块缓存检索结果的组件据此清理对应条目
+ *
+ * @param modules 变更的模块名称，为null时表示所有模块
+ * @param version 变更后的模块元数据缓存版本号
+ */
+public record ModuleConfigChangedEvent(List<String> modules, long version) {
+
+    /**
+     * 是否影响指定模块
+     *
+     * @param module 模块名称
+     * @return 是否影响
+     */
+    public boolean affects(String module) {
+        return modules == null || modules.contains(module);
+    }
+}
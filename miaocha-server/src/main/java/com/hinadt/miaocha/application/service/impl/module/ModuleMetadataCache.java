@@ -0,0 +1,194 @@
+package com.hinadt.miaocha.application.service.impl.module;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hinadt.miaocha.common.util.ExpiringCache;
+import com.hinadt.miaocha.common.util.TransactionUtils;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.dto.module.QueryConfigDTO;
+import com.hinadt.miaocha.domain.entity.DatasourceInfo;
+import com.hinadt.miaocha.domain.entity.ModuleInfo;
+import com.hinadt.miaocha.infrastructure.mapper.DatasourceMapper;
+import com.hinadt.miaocha.infrastructure.mapper.ModuleInfoMapper;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * 模块元数据缓存
+ *
+ * <p>一次检索会在校验、模板、关键字条件等多处按模块名读取表名、数据源和查询配置，缓存后只在首次访问时查询 MySQL 并解析查询配置JSON。
+ *
+ * <p>模块或数据源修改时调用 {@link #invalidate(String...)} 或 {@link #invalidateAll()}：立即移除缓存，
+ * 在事务中调用时提交后再移除一次，避免提交前被并发读取重新加载旧数据；随后发布 {@link ModuleConfigChangedEvent}。
+ * 每次失效都会递增版本号，加载开始后发生过失效的结果不会写入缓存。
+ */
+@Slf4j
+@Component
+public class ModuleMetadataCache {
+
+    private final ModuleInfoMapper moduleInfoMapper;
+    private final DatasourceMapper datasourceMapper;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final boolean enabled;
+    private final ExpiringCache<String, ModuleMetadata> cache;
+
+    /** 缓存版本号，每次失效递增 */
+    private final AtomicLong version = new AtomicLong();
+
+    public ModuleMetadataCache(
+            ModuleInfoMapper moduleInfoMapper,
+            DatasourceMapper datasourceMapper,
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher,
+            LogSearchProperties logSearchProperties) {
+        this.moduleInfoMapper = moduleInfoMapper;
+        this.datasourceMapper = datasourceMapper;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        LogSearchProperties.ModuleCache config = logSearchProperties.getModuleCache();
+        this.enabled = config.isEnabled();
+        this.cache =
+                new ExpiringCache<>(
+                        config.getMaxSize(), Duration.ofSeconds(config.getTtlSeconds()));
+    }
+
+    /**
+     * 获取模块元数据，未命中时从数据库加载
+     *
+     * <p>返回的查询配置和数据源为共享实例，调用方不要修改
+     *
+     * @param module 模块名称
+     * @return 模块元数据，模块不存在时返回null
+     */
+    public ModuleMetadata get(String module) {
+        if (!StringUtils.hasText(module)) {
+            return null;
+        }
+        if (!enabled) {
+            return load(module, version.get());
+        }
+        ModuleMetadata metadata = cache.get(module);
+        if (metadata != null) {
+            return metadata;
+        }
+        long loadVersion = version.get();
+        metadata = load(module, loadVersion);
+        // 加载期间发生过失效时不写入，避免覆盖为旧数据
+        synchronized (this) {
+            if (metadata != null && version.get() == loadVersion) {
+                cache.put(module, metadata);
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * 当前缓存版本号
+     *
+     * @return 版本号，每次失效递增
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 使指定模块的缓存失效
+     *
+     * @param modules 模块名称，修改模块名时需同时传入新旧名称
+     */
+    public void invalidate(String... modules) {
+        String[] names = Arrays.stream(modules).filter(Objects::nonNull).toArray(String[]::new);
+        onChange(() -> evict(names), names);
+    }
+
+    /** 使所有模块的缓存失效，用于数据源修改等影响多个模块的变更 */
+    public void invalidateAll() {
+        onChange(this::evictAll);
+    }
+
+    private void onChange(Runnable eviction, String... modules) {
+        eviction.run();
+        TransactionUtils.afterCommit(
+                () -> {
+                    eviction.run();
+                    publish(modules);
+                });
+    }
+
+    private synchronized void evict(String... modules) {
+        version.incrementAndGet();
+        for (String module : modules) {
+            cache.invalidate(module);
+        }
+    }
+
+    private synchronized void evictAll() {
+        version.incrementAndGet();
+        cache.clear();
+    }
+
+    private void publish(String... modules) {
+        long currentVersion = version.get();
+        log.debug("模块元数据已失效, modules: {}, version: {}", modules, currentVersion);
+        eventPublisher.publishEvent(
+                new ModuleConfigChangedEvent(
+                        modules.length == 0 ? null : Arrays.asList(modules), currentVersion));
+    }
+
+    private ModuleMetadata load(String module, long loadVersion) {
+        ModuleInfo moduleInfo = moduleInfoMapper.selectByName(module);
+        if (moduleInfo == null) {
+            return null;
+        }
+        DatasourceInfo datasourceInfo =
+                moduleInfo.getDatasourceId() != null
+                        ? datasourceMapper.selectById(moduleInfo.getDatasourceId())
+                        : null;
+        return new ModuleMetadata(
+                loadVersion,
+                moduleInfo,
+                datasourceInfo,
+                parseQueryConfig(moduleInfo.getQueryConfig(), module));
+    }
+
+    private QueryConfigDTO parseQueryConfig(String queryConfigJson, String module) {
+        if (!StringUtils.hasText(queryConfigJson)) {
+            return null;
+        }
+
+        try {
+            return objectMapper.readValue(queryConfigJson, QueryConfigDTO.class);
+        } catch (JsonProcessingException e) {
+            log.warn("解析模块 {} 的查询配置JSON失败: {}", module, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 模块元数据
+     *
+     * @param version 加载时的缓存版本号
+     * @param moduleInfo 模块信息
+     * @param datasourceInfo 模块关联的数据源，不存在时为null
+     * @param queryConfig 解析后的查询配置，未配置或解析失败时为null
+     */
+    public record ModuleMetadata(
+            long version,
+            ModuleInfo moduleInfo,
+            DatasourceInfo datasourceInfo,
+            QueryConfigDTO queryConfig) {
+
+        /** 模块对应的Doris表名 */
+        public String tableName() {
+            return moduleInfo.getTableName();
+        }
+    }
+}
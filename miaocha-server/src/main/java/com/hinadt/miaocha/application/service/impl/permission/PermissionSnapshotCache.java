@@ -0,0 +1,246 @@
+package com.hinadt.miaocha.application.service.impl.permission;
+
+import com.hinadt.miaocha.application.service.impl.module.ModuleConfigChangedEvent;
+import com.hinadt.miaocha.common.exception.BusinessException;
+import com.hinadt.miaocha.common.exception.ErrorCode;
+import com.hinadt.miaocha.common.util.ExpiringCache;
+import com.hinadt.miaocha.common.util.TransactionUtils;
+import com.hinadt.miaocha.domain.entity.User;
+import com.hinadt.miaocha.domain.enums.UserRole;
+import com.hinadt.miaocha.infrastructure.mapper.ModuleInfoMapper;
+import com.hinadt.miaocha.infrastructure.mapper.UserMapper;
+import com.hinadt.miaocha.infrastructure.mapper.UserModulePermissionMapper;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户权限快照缓存
+ *
+ * <p>按用户缓存角色、已授权模块和各数据源下有权限的表名，权限判断只需查询内存。快照中的模块授权和表名在首次使用时加载。
+ *
+ * <p>授权、撤销权限以及修改、删除用户后调用 {@link #invalidate(Long)}；模块配置变更（改名、启停、删除、重建表） 影响所有用户的可访问表，收到 {@link
+ * ModuleConfigChangedEvent} 后清空全部快照。加载开始后发生过失效的快照不会写入缓存。
+ *
+ * <p>同时缓存各数据源中真实存在的表名，SQL编辑器列出表时无需每次扫描数据库元数据。
+ */
+@Component
+public class PermissionSnapshotCache {
+
+    /** 不限定数据源时表名缓存使用的键 */
+    private static final long ALL_DATASOURCES = -1L;
+
+    private final UserMapper userMapper;
+    private final UserModulePermissionMapper userModulePermissionMapper;
+    private final ModuleInfoMapper moduleInfoMapper;
+
+    private final ExpiringCache<Long, PermissionSnapshot> snapshots;
+    private final ExpiringCache<Long, Set<String>> databaseTables;
+
+    /** 缓存版本号，每次失效递增 */
+    private final AtomicLong version = new AtomicLong();
+
+    public PermissionSnapshotCache(
+            UserMapper userMapper,
+            UserModulePermissionMapper userModulePermissionMapper,
+            ModuleInfoMapper moduleInfoMapper,
+            @Value("${miaocha.permission-cache.ttl-seconds:600}") int ttlSeconds,
+            @Value("${miaocha.permission-cache.max-size:5000}") int maxSize,
+            @Value("${miaocha.permission-cache.table-list-ttl-seconds:60}")
+                    int tableListTtlSeconds) {
+        this.userMapper = userMapper;
+        this.userModulePermissionMapper = userModulePermissionMapper;
+        this.moduleInfoMapper = moduleInfoMapper;
+        this.snapshots = new ExpiringCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+        this.databaseTables = new ExpiringCache<>(maxSize, Duration.ofSeconds(tableListTtlSeconds));
+    }
+
+    /**
+     * 获取用户权限快照，未命中时查询用户信息
+     *
+     * @param userId 用户ID
+     * @return 权限快照
+     * @throws BusinessException 如果用户不存在
+     */
+    public PermissionSnapshot getSnapshot(Long userId) {
+        PermissionSnapshot snapshot = snapshots.get(userId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        long loadVersion = version.get();
+        User user = userMapper.selectById(userId);
+        if (user == null) {
+            throw new BusinessException(ErrorCode.USER_NOT_FOUND);
+        }
+        return cacheIfCurrent(new PermissionSnapshot(userId, user.getRole()), loadVersion);
+    }
+
+    /**
+     * 获取用户权限快照，未命中时使用调用方已查询到的用户信息创建，不再查询用户
+     *
+     * @param user 用户信息
+     * @return 权限快照
+     */
+    public PermissionSnapshot getSnapshot(User user) {
+        PermissionSnapshot snapshot = snapshots.get(user.getId());
+        if (snapshot != null) {
+            return snapshot;
+        }
+        return cacheIfCurrent(new PermissionSnapshot(user.getId(), user.getRole()), version.get());
+    }
+
+    /**
+     * 获取缓存的数据源真实表名
+     *
+     * @param datasourceId 数据源ID
+     * @return 表名集合，未命中时返回null
+     */
+    public Set<String> getDatabaseTables(Long datasourceId) {
+        return databaseTables.get(datasourceId);
+    }
+
+    /**
+     * 缓存数据源真实表名
+     *
+     * @param datasourceId 数据源ID
+     * @param tables 表名集合
+     */
+    public void putDatabaseTables(Long datasourceId, Set<String> tables) {
+        databaseTables.put(datasourceId, Set.copyOf(tables));
+    }
+
+    /**
+     * 使指定用户的权限快照失效，在事务中调用时提交后再失效一次
+     *
+     * @param userId 用户ID
+     */
+    public void invalidate(Long userId) {
+        evict(userId);
+        TransactionUtils.afterCommit(() -> evict(userId));
+    }
+
+    /** 使所有用户的权限快照失效 */
+    public void invalidateAll() {
+        evictAll();
+        TransactionUtils.afterCommit(this::evictAll);
+    }
+
+    /**
+     * 模块配置变更后清空所有快照和表名缓存
+     *
+     * @param event 模块配置变更事件
+     */
+    @EventListener
+    public void onModuleConfigChanged(ModuleConfigChangedEvent event) {
+        evictAll();
+        databaseTables.clear();
+    }
+
+    private synchronized PermissionSnapshot cacheIfCurrent(
+            PermissionSnapshot snapshot, long loadVersion) {
+        if (version.get() == loadVersion) {
+            snapshots.put(snapshot.getUserId(), snapshot);
+        }
+        return snapshot;
+    }
+
+    private synchronized void evict(Long userId) {
+        version.incrementAndGet();
+        snapshots.invalidate(userId);
+    }
+
+    private synchronized void evictAll() {
+        version.incrementAndGet();
+        snapshots.clear();
+    }
+
+    private static String grantKey(Long datasourceId, String module) {
+        return datasourceId + ":" + module;
+    }
+
+    private static Set<String> toSet(List<String> values) {
+        return values.stream().filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /** 用户权限快照 */
+    public final class PermissionSnapshot {
+
+        private final Long userId;
+        private final String role;
+
+        /** 已授权模块，键为 数据源ID:模块名，首次使用时加载 */
+        private volatile Set<String> moduleGrants;
+
+        /** 各数据源下有权限访问的表名，首次使用时加载 */
+        private final Map<Long, Set<String>> permittedTables = new ConcurrentHashMap<>();
+
+        private PermissionSnapshot(Long userId, String role) {
+            this.userId = userId;
+            this.role = role;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        /**
+         * 是否为管理员或超级管理员
+         *
+         * @return 是否拥有所有模块的权限
+         */
+        public boolean isAdmin() {
+            return UserRole.SUPER_ADMIN.name().equals(role) || UserRole.ADMIN.name().equals(role);
+        }
+
+        /**
+         * 是否被单独授予了模块权限，不考虑角色和模块状态
+         *
+         * @param datasourceId 模块所属数据源ID
+         * @param module 模块名称
+         * @return 是否已授权
+         */
+        public boolean hasModuleGrant(Long datasourceId, String module) {
+            Set<String> grants = moduleGrants;
+            if (grants == null) {
+                grants =
+                        userModulePermissionMapper.selectByUser(userId).stream()
+                                .map(p -> grantKey(p.getDatasourceId(), p.getModule()))
+                                .collect(Collectors.toUnmodifiableSet());
+                moduleGrants = grants;
+            }
+            return grants.contains(grantKey(datasourceId, module));
+        }
+
+        /**
+         * 获取有权限访问的表名：管理员为所有启用模块的表，普通用户为已授权且启用的模块的表
+         *
+         * @param datasourceId 数据源ID
+         * @return 表名集合
+         */
+        public Set<String> getPermittedTables(Long datasourceId) {
+            // 数据源ID为null时表示所有数据源，ConcurrentHashMap 不支持null键
+            long key = datasourceId != null ? datasourceId : ALL_DATASOURCES;
+            return permittedTables.computeIfAbsent(
+                    key,
+                    k ->
+                            toSet(
+                                    isAdmin()
+                                            ? moduleInfoMapper.selectEnabledModuleTableNames(
+                                                    datasourceId)
+                                            : userModulePermissionMapper.selectPermittedTableNames(
+                                                    userId, datasourceId)));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.hinadt.miaocha.application.service.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 带绑定参数的SQL
+ *
+ * <p>日志检索SQL的构建器把关键字、时间等取值写成 ? 占位符，取值按占位符顺序放在参数列表中，执行时作为预编译语句的参数绑定，
+ * 不经过字符串拼接和转义。同一查询形态的SQL文本相同，配合连接上的服务端预编译语句缓存可以跳过重复解析。
+ *
+ * <p>字符串字面量、反引号和双引号中的问号不是占位符。日志、错误信息以及未启用参数化查询时使用 {@link #inline()} 得到把参数转义后写回的SQL。
+ *
+ * @param sql 带 ? 占位符的SQL
+ * @param params 按占位符顺序排列的参数值
+ */
+public record BoundSql(String sql, List<String> params) {
+
+    /** 空SQL片段 */
+    public static final BoundSql EMPTY = new BoundSql("", List.of());
+
+    private static final char SEPARATOR = '\u0001';
+
+    public BoundSql {
+        params = List.copyOf(params);
+    }
+
+    /**
+     * 创建不带参数的SQL片段
+     *
+     * @param sql SQL文本，不能包含占位符
+     * @return SQL片段，sql为null时返回空片段
+     */
+    public static BoundSql of(String sql) {
+        return sql != null ? new BoundSql(sql, List.of()) : EMPTY;
+    }
+
+    /**
+     * 创建单个参数的占位符
+     *
+     * @param value 参数值
+     * @return ? 占位符及其参数
+     */
+    public static BoundSql value(String value) {
+        return new BoundSql("?", List.of(String.valueOf(value)));
+    }
+
+    /**
+     * 按模板拼接SQL片段，参数按 %s 出现的顺序合并
+     *
+     * @param template 只包含顺序 %s 的模板
+     * @param args SQL片段或不含占位符的SQL文本
+     * @return 拼接后的SQL片段
+     */
+    public static BoundSql format(String template, Object... args) {
+        Object[] texts = new Object[args.length];
+        List<String> params = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof BoundSql part) {
+                texts[i] = part.sql();
+                params.addAll(part.params());
+            } else {
+                texts[i] = args[i];
+            }
+        }
+        return new BoundSql(String.format(template, texts), params);
+    }
+
+    /**
+     * 用分隔符连接多个SQL片段
+     *
+     * @param delimiter 分隔符
+     * @param parts SQL片段
+     * @return 连接后的SQL片段
+     */
+    public static BoundSql join(String delimiter, List<BoundSql> parts) {
+        StringBuilder text = new StringBuilder();
+        List<String> params = new ArrayList<>();
+        for (BoundSql part : parts) {
+            if (!text.isEmpty()) {
+                text.append(delimiter);
+            }
+            text.append(part.sql());
+            params.addAll(part.params());
+        }
+        return new BoundSql(text.toString(), params);
+    }
+
+    /**
+     * 判断SQL文本中是否有引号之外的问号
+     *
+     * @param sql SQL文本
+     * @return 是否包含占位符
+     */
+    public static boolean containsPlaceholder(String sql) {
+        return sql != null && nextPlaceholder(sql, 0) >= 0;
+    }
+
+    /** SQL文本是否为空白 */
+    public boolean isBlank() {
+        return StringUtils.isBlank(sql);
+    }
+
+    /** 在末尾追加不含占位符的SQL文本 */
+    public BoundSql append(String text) {
+        return new BoundSql(sql + text, params);
+    }
+
+    /** 在末尾追加SQL片段 */
+    public BoundSql append(BoundSql other) {
+        List<String> merged = new ArrayList<>(params);
+        merged.addAll(other.params());
+        return new BoundSql(sql + other.sql(), merged);
+    }
+
+    /** 在前后添加不含占位符的SQL文本 */
+    public BoundSql wrap(String prefix, String suffix) {
+        return new BoundSql(prefix + sql + suffix, params);
+    }
+
+    /**
+     * 按顺序绑定参数
+     *
+     * @param statement 由 {@link #sql()} 创建的预编译语句
+     * @throws SQLException 如果绑定失败
+     */
+    public void bind(PreparedStatement statement) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            statement.setString(i + 1, params.get(i));
+        }
+    }
+
+    /**
+     * 把参数转义为字符串字面量写回占位符位置
+     *
+     * @return 不带占位符的SQL
+     * @throws IllegalStateException 如果占位符少于参数个数
+     */
+    public String inline() {
+        if (params.isEmpty()) {
+            return sql;
+        }
+        StringBuilder text = new StringBuilder(sql.length() + params.size() * 16);
+        int from = 0;
+        for (String param : params) {
+            int index = nextPlaceholder(sql, from);
+            if (index < 0) {
+                throw new IllegalStateException("SQL中的占位符少于参数个数: " + sql);
+            }
+            text.append(sql, from, index).append(quote(param));
+            from = index + 1;
+        }
+        return text.append(sql, from, sql.length()).toString();
+    }
+
+    /**
+     * 缓存键，由带占位符的SQL和参数值组成
+     *
+     * @return 缓存键
+     */
+    public String cacheKey() {
+        StringBuilder key = new StringBuilder(sql);
+        for (String param : params) {
+            key.append(SEPARATOR).append(param);
+        }
+        return key.toString();
+    }
+
+    /** 构建带转义的字符串字面量 */
+    private static String quote(String value) {
+        return "'" + value.replace("\\", "\\\\").replace("'", "''") + "'";
+    }
+
+    /** 返回引号之外的下一个问号的位置，没有时返回-1 */
+    private static int nextPlaceholder(String sql, int from) {
+        int i = from;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                return i;
+            }
+            i = c == '\'' || c == '"' || c == '`' ? quotedEnd(sql, i) : i + 1;
+        }
+        return -1;
+    }
+
+    /** 返回结束引号之后的位置，支持反斜杠转义和两个引号的转义，未闭合时返回SQL长度 */
+    private static int quotedEnd(String sql, int start) {
+        char quote = sql.charAt(start);
+        int i = start + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return sql.length();
+    }
+}
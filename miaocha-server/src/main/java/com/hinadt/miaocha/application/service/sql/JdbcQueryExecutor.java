@@ -1,6 +1,7 @@
 package com.hinadt.miaocha.application.service.sql;
 
 import com.hinadt.miaocha.application.service.datasource.HikariDatasourceManager;
+import com.hinadt.miaocha.application.service.sql.processor.ColumnarRows;
 import com.hinadt.miaocha.application.service.sql.processor.QueryResult;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
@@ -87,42 +88,46 @@ public class JdbcQueryExecutor {
     /**
      * 执行结构化查询并返回结构化结果
      *
+     * <p>结果以列式存储，列名只解析一次，数值和时间列使用基本类型数组，避免为每一行构建Map
+     *
      * @param conn 数据库连接
      * @param sql SQL语句
      * @return 结构化查询结果
      * @throws SQLException 如果SQL执行出错
      */
     public QueryResult executeStructuredQuery(Connection conn, String sql) throws SQLException {
-        QueryResult result = new QueryResult();
-        List<Map<String, Object>> rows = new ArrayList<>();
-        List<String> columns = new ArrayList<>();
-
-        try (Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
-
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-
-            // 获取列名
-            for (int i = 1; i <= columnCount; i++) {
-                columns.add(metaData.getColumnLabel(i));
-            }
+        try (Statement stmt = conn.createStatement()) {
+            return executeStructuredQuery(stmt, BoundSql.of(sql));
+        }
+    }
 
-            // 获取行数据
-            while (rs.next()) {
-                Map<String, Object> row = new LinkedHashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = metaData.getColumnLabel(i);
-                    Object value = rs.getObject(i);
-                    row.put(columnName, value);
-                }
-                rows.add(row);
-            }
+    /**
+     * 在调用方提供的语句上执行结构化查询（供需要控制超时、取消的场景使用）
+     *
+     * @param stmt 语句，由调用方负责关闭
+     * @param sql 带绑定参数的SQL
+     * @return 结构化查询结果
+     * @throws SQLException 如果SQL执行出错
+     */
+    public QueryResult executeStructuredQuery(Statement stmt, BoundSql sql) throws SQLException {
+        try (ResultSet rs = openResultSet(stmt, sql)) {
+            return QueryResult.columnar(ColumnarRows.read(rs));
         }
+    }
 
-        result.setColumns(columns);
-        result.setRows(rows);
-        return result;
+    /**
+     * 执行查询并返回结果集，预编译语句已包含SQL和绑定参数，直接执行；普通语句执行参数写回后的SQL
+     *
+     * @param stmt 普通语句或已绑定参数的预编译语句
+     * @param sql 带绑定参数的SQL，仅用于普通语句
+     * @return 结果集
+     * @throws SQLException 如果SQL执行出错
+     */
+    public static ResultSet openResultSet(Statement stmt, BoundSql sql) throws SQLException {
+        if (stmt instanceof PreparedStatement preparedStatement) {
+            return preparedStatement.executeQuery();
+        }
+        return stmt.executeQuery(sql.inline());
     }
 
     private void processResultSet(ResultSet rs, SqlQueryResultDTO result) throws SQLException {
@@ -0,0 +1,270 @@
+package com.hinadt.miaocha.application.service.sql.builder;
+
+import static com.hinadt.miaocha.application.service.sql.expression.SqlFragment.*;
+
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+/**
+ * 聚合加速SQL构建器
+ *
+ * <p>负责按分钟预聚合日志条数的异步物化视图的DDL，以及把时间分布、总数查询改写为"原表首尾窗口 + 物化视图中间窗口"的SQL。
+ * 物化视图的时间列与原表时间字段同名，取值为截断到分钟的时间，维度字段与原表同名，因此过滤条件可以原样作用于物化视图
+ */
+@Component
+public class AggregationSqlBuilder {
+
+    /** 物化视图中日志条数的列名 */
+    public static final String COUNT_COLUMN = "log_count";
+
+    /** 物化视图名后缀 */
+    private static final String VIEW_SUFFIX = "_agg_1m";
+
+    /** 改写后查询的子查询别名 */
+    private static final String ALIAS = "accelerated";
+
+    /** 条件中的标识符、字符串字面量以及维度之外的字段访问符号 */
+    private static final Pattern TOKEN_PATTERN =
+            Pattern.compile(
+                    "`([^`]+)`|'(?:[^'\\\\]|\\\\.|'')*'|\"(?:[^\"\\\\]|\\\\.)*\""
+                            + "|([A-Za-z_][A-Za-z0-9_]*)(\\s*\\()?"
+                            + "|([\\[\\]]|(?<=[A-Za-z0-9_`])\\.(?=[A-Za-z_`]))");
+
+    /** 可以出现在维度条件中的SQL关键字 */
+    private static final Set<String> KEYWORDS =
+            Set.of(
+                    "and", "or", "not", "in", "is", "null", "like", "between", "true", "false",
+                    "regexp", "rlike", "case", "when", "then", "else", "end");
+
+    private final KeywordConditionBuilder keywordConditionBuilder;
+    private final WhereConditionBuilder whereConditionBuilder;
+
+    public AggregationSqlBuilder(
+            KeywordConditionBuilder keywordConditionBuilder,
+            WhereConditionBuilder whereConditionBuilder) {
+        this.keywordConditionBuilder = keywordConditionBuilder;
+        this.whereConditionBuilder = whereConditionBuilder;
+    }
+
+    /**
+     * 获取表对应的物化视图名
+     *
+     * @param tableName 原表名，可以带数据库前缀
+     * @return 物化视图名
+     */
+    public static String viewName(String tableName) {
+        return tableName + VIEW_SUFFIX;
+    }
+
+    /**
+     * 构建按分钟预聚合日志条数的异步物化视图DDL
+     *
+     * <p>物化视图按天分区，原表分区有变化时只刷新对应分区
+     *
+     * @param tableName 原表名
+     * @param timeField 时间字段
+     * @param dimensions 维度字段
+     * @param refreshIntervalMinutes 刷新间隔（分钟）
+     * @return 建视图语句
+     */
+    public String buildCreateView(
+            String tableName,
+            String timeField,
+            List<String> dimensions,
+            int refreshIntervalMinutes) {
+        String minute = String.format("date_trunc(%s, 'minute')", timeField);
+        List<String> selectColumns = new ArrayList<>();
+        selectColumns.add(minute + " AS " + timeField);
+        selectColumns.addAll(dimensions);
+        selectColumns.add("COUNT(*) AS " + COUNT_COLUMN);
+        List<String> groupColumns = new ArrayList<>();
+        groupColumns.add(minute);
+        groupColumns.addAll(dimensions);
+
+        return String.format(
+                "CREATE MATERIALIZED VIEW IF NOT EXISTS %s"
+                        + " BUILD IMMEDIATE REFRESH AUTO ON SCHEDULE EVERY %d MINUTE"
+                        + " PARTITION BY (date_trunc(%s, 'day'))"
+                        + " DISTRIBUTED BY RANDOM BUCKETS AUTO"
+                        + " AS SELECT %s FROM %s GROUP BY %s",
+                viewName(tableName),
+                refreshIntervalMinutes,
+                timeField,
+                String.join(", ", selectColumns),
+                tableName,
+                String.join(", ", groupColumns));
+    }
+
+    /** 构建删除物化视图的DDL */
+    public String buildDropView(String tableName) {
+        return "DROP MATERIALIZED VIEW IF EXISTS " + viewName(tableName);
+    }
+
+    /**
+     * 构建查询物化视图状态的SQL，返回 State 和 RefreshState 两列
+     *
+     * @param database 数据库名
+     * @param tableName 原表名
+     * @return 状态查询SQL
+     */
+    public String buildViewStatusQuery(String database, String tableName) {
+        String view = viewName(tableName);
+        String name = view.substring(view.lastIndexOf('.') + 1);
+        return String.format(
+                "SELECT State, RefreshState FROM mv_infos('database' = '%s') WHERE Name = '%s'",
+                database, name);
+    }
+
+    /**
+     * 构建查询物化视图已刷新到的时间的SQL
+     *
+     * <p>最后一分钟可能只聚合了部分数据，调用方只使用该分钟之前的数据
+     */
+    public String buildWatermarkQuery(String tableName, String timeField) {
+        return String.format(
+                "SELECT MAX(%s) AS %s FROM %s", timeField, TIME_ALIAS, viewName(tableName));
+    }
+
+    /**
+     * 构建加速后的时间分布SQL，结果列与普通时间分布SQL相同
+     *
+     * @param dto 日志搜索DTO
+     * @param tableName 原表名
+     * @param timeField 时间字段
+     * @param timeUnit 时间颗粒度单位，间隔需为整分钟
+     * @param intervalValue 时间颗粒度间隔
+     * @param split 时间范围的拆分
+     * @return 时间分布SQL
+     */
+    public BoundSql buildDistribution(
+            LogSearchDTO dto,
+            String tableName,
+            String timeField,
+            String timeUnit,
+            int intervalValue,
+            Split split) {
+        String bucket = customTimeBucket(timeField, timeUnit, intervalValue);
+        List<BoundSql> parts = new ArrayList<>();
+        if (!split.tableWindows().isEmpty()) {
+            parts.add(
+                    BoundSql.of(selectTimeDistribution(bucket) + from(tableName))
+                            .append(where(dto, timeWindows(timeField, split.tableWindows())))
+                            .append(groupBy(bucket)));
+        }
+        parts.add(
+                BoundSql.of(
+                                String.format(
+                                                "SELECT %s AS %s, SUM(%s) AS %s",
+                                                bucket, TIME_ALIAS, COUNT_COLUMN, COUNT_ALIAS)
+                                        + from(viewName(tableName)))
+                        .append(where(dto, timeWindows(timeField, List.of(split.viewWindow()))))
+                        .append(groupBy(bucket)));
+
+        return BoundSql.of(
+                        String.format(
+                                        "SELECT %s, SUM(`%s`) AS %s",
+                                        TIME_ALIAS, COUNT_ALIAS, COUNT_ALIAS)
+                                + from("("))
+                .append(BoundSql.join(" UNION ALL ", parts))
+                .append(") AS " + ALIAS + groupBy(TIME_ALIAS) + orderBy(TIME_ALIAS, "ASC"));
+    }
+
+    /**
+     * 构建加速后的总数SQL，结果列与普通总数SQL相同
+     *
+     * @param dto 日志搜索DTO
+     * @param tableName 原表名
+     * @param timeField 时间字段
+     * @param split 时间范围的拆分
+     * @return 总数SQL
+     */
+    public BoundSql buildCount(LogSearchDTO dto, String tableName, String timeField, Split split) {
+        List<BoundSql> parts = new ArrayList<>();
+        if (!split.tableWindows().isEmpty()) {
+            parts.add(
+                    BoundSql.of(selectCount() + from(tableName))
+                            .append(where(dto, timeWindows(timeField, split.tableWindows()))));
+        }
+        parts.add(
+                BoundSql.of(
+                                String.format("SELECT SUM(%s) AS %s", COUNT_COLUMN, TOTAL_ALIAS)
+                                        + from(viewName(tableName)))
+                        .append(where(dto, timeWindows(timeField, List.of(split.viewWindow())))));
+
+        return selectWithSubquery(
+                String.format("COALESCE(SUM(%s), 0) AS %s", TOTAL_ALIAS, TOTAL_ALIAS),
+                BoundSql.join(" UNION ALL ", parts),
+                ALIAS);
+    }
+
+    /**
+     * 判断过滤条件是否只引用了给定的列
+     *
+     * <p>物化视图的时间列已截断到分钟，引用时间字段的条件不能作用于物化视图，调用方只传入维度字段
+     *
+     * <p>反引号包裹的标识符和普通标识符都按列名检查，函数名、SQL关键字和字符串字面量除外； 出现下标或点访问（Variant子字段、带表名的列）时视为不满足
+     *
+     * @param whereSqls 过滤条件
+     * @param columns 物化视图中的列
+     * @return 是否可以在物化视图上执行
+     */
+    public static boolean isCoveredBy(List<String> whereSqls, Collection<String> columns) {
+        if (whereSqls == null || whereSqls.isEmpty()) {
+            return true;
+        }
+        Set<String> allowed =
+                columns.stream()
+                        .map(column -> column.toLowerCase(Locale.ROOT))
+                        .collect(Collectors.toSet());
+        for (String condition : whereSqls) {
+            if (condition == null) {
+                continue;
+            }
+            Matcher matcher = TOKEN_PATTERN.matcher(condition);
+            while (matcher.find()) {
+                if (matcher.group(4) != null) {
+                    return false;
+                }
+                String identifier = matcher.group(1);
+                if (identifier == null) {
+                    String word = matcher.group(2);
+                    if (word == null
+                            || matcher.group(3) != null
+                            || KEYWORDS.contains(word.toLowerCase(Locale.ROOT))) {
+                        continue;
+                    }
+                    identifier = word;
+                }
+                if (!allowed.contains(identifier.toLowerCase(Locale.ROOT))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private BoundSql where(LogSearchDTO dto, BoundSql timeCondition) {
+        return buildWhereClause(
+                timeCondition,
+                keywordConditionBuilder.buildKeywords(dto),
+                whereConditionBuilder.buildWhereConditions(dto));
+    }
+
+    /**
+     * 时间范围的拆分
+     *
+     * @param tableWindows 查询原表的窗口，左闭右开，可以为空
+     * @param viewWindow 查询物化视图的窗口，左闭右开，边界为整分钟
+     */
+    public record Split(List<TimeWindow> tableWindows, TimeWindow viewWindow) {}
+}
@@ -0,0 +1,92 @@
+package com.hinadt.miaocha.application.service.sql.builder;
+
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.common.util.ExpiringCache;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.dto.module.QueryConfigDTO.KeywordFieldConfigDTO;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 已编译查询条件缓存
+ *
+ * <p>缓存SQL构建中与时间范围、分页无关且计算代价较高的部分：关键字表达式解析生成的条件、字段和WHERE条件的 variant
+ * 转换结果。仪表盘刷新、翻页以及同一次检索中的明细、总数、分布等多条SQL使用相同的过滤条件， 命中缓存后不再重复分词和逐字符扫描，只需拼接时间范围和分页。
+ *
+ * <p>关键字条件的键包含模块关键字字段配置（字段名和检索方法），模块配置修改后自然使用新的键，无需主动失效。
+ */
+@Component
+public class CompiledConditionCache {
+
+    private static final char SEPARATOR = '\u0001';
+
+    private final boolean enabled;
+    private final ExpiringCache<String, BoundSql> keywordConditions;
+    private final ExpiringCache<String, List<String>> conversions;
+
+    public CompiledConditionCache(LogSearchProperties logSearchProperties) {
+        LogSearchProperties.ConditionCache config = logSearchProperties.getConditionCache();
+        Duration ttl = Duration.ofSeconds(config.getTtlSeconds());
+        this.enabled = config.isEnabled();
+        this.keywordConditions = new ExpiringCache<>(config.getMaxSize(), ttl);
+        this.conversions = new ExpiringCache<>(config.getMaxSize(), ttl);
+    }
+
+    /**
+     * 获取关键字条件，未命中时编译并缓存
+     *
+     * @param keywordFields 模块配置的关键字字段（转换前）
+     * @param keywords 关键字列表
+     * @param compiler 关键字条件编译函数
+     * @return 关键字条件
+     */
+    public BoundSql getKeywordCondition(
+            List<KeywordFieldConfigDTO> keywordFields,
+            List<String> keywords,
+            Supplier<BoundSql> compiler) {
+        if (!enabled) {
+            return compiler.get();
+        }
+        StringBuilder key = new StringBuilder();
+        for (KeywordFieldConfigDTO field : keywordFields) {
+            key.append(field.getFieldName())
+                    .append(':')
+                    .append(field.getSearchMethod())
+                    .append(SEPARATOR);
+        }
+        key.append('\n');
+        appendAll(key, keywords);
+        return keywordConditions.computeIfAbsent(key.toString(), k -> compiler.get());
+    }
+
+    /**
+     * 获取字段列表或WHERE条件列表的转换结果，未命中时转换并缓存
+     *
+     * @param kind 转换类型，区分字段列表和WHERE条件
+     * @param values 转换前的列表
+     * @param converter 转换函数
+     * @return 转换后的列表，不可修改
+     */
+    public List<String> getConverted(
+            String kind, List<String> values, UnaryOperator<List<String>> converter) {
+        if (!enabled || values == null || values.isEmpty()) {
+            return converter.apply(values);
+        }
+        StringBuilder key = new StringBuilder(kind).append('\n');
+        appendAll(key, values);
+        return conversions.computeIfAbsent(
+                key.toString(),
+                k -> Collections.unmodifiableList(new ArrayList<>(converter.apply(values))));
+    }
+
+    private static void appendAll(StringBuilder key, List<String> values) {
+        for (String value : values) {
+            key.append(value).append(SEPARATOR);
+        }
+    }
+}
@@ -2,11 +2,18 @@ package com.hinadt.miaocha.application.service.sql.builder;
 
 import static com.hinadt.miaocha.application.service.sql.expression.SqlFragment.*;
 
+import com.hinadt.miaocha.application.service.sql.BoundSql;
 import com.hinadt.miaocha.application.service.sql.expression.SqlFragment;
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
+import com.hinadt.miaocha.common.exception.BusinessException;
+import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTODecorator;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 
 /**
@@ -28,22 +35,188 @@ public class DetailSqlBuilder {
     }
 
     /** 构建日志详情查询SQL */
-    public String buildDetailQuery(LogSearchDTO dto, String tableName, String timeField) {
-        String timeCondition = timeRange(timeField, dto);
-        String keywordConditions = keywordConditionBuilder.buildKeywords(dto);
-        String whereConditions = whereConditionBuilder.buildWhereConditions(dto);
+    public BoundSql buildDetailQuery(LogSearchDTO dto, String tableName, String timeField) {
+        return buildDetailQuery(dto, tableName, timeField, null);
+    }
+
+    /**
+     * 构建日志详情查询SQL
+     *
+     * <p>请求带有分页游标时，用范围条件从上一页最后一行之后继续读取，代替 OFFSET 分页，深翻页与首页开销相同
+     *
+     * @param dto 查询DTO
+     * @param tableName 表名
+     * @param timeField 时间字段名
+     * @param tiebreakerField 并列排序字段名，未配置时为null
+     * @return 详情查询SQL
+     */
+    public BoundSql buildDetailQuery(
+            LogSearchDTO dto, String tableName, String timeField, String tiebreakerField) {
+        return buildDetailQuery(
+                dto,
+                tableName,
+                timeField,
+                tiebreakerField,
+                timeRange(timeField, dto),
+                dto.getPageSize());
+    }
+
+    /**
+     * 构建只查询一个时间切片的日志详情SQL
+     *
+     * <p>排序、游标条件与 {@link #buildDetailQuery(LogSearchDTO, String, String, String)} 相同，
+     * 时间条件替换为切片范围，只在 {@link #resolveSliceRange} 返回非空时使用
+     *
+     * @param dto 查询DTO
+     * @param tableName 表名
+     * @param timeField 时间字段名
+     * @param tiebreakerField 并列排序字段名，未配置时为null
+     * @param slice 时间切片，左闭右开
+     * @param limit 本切片最多返回的行数
+     * @return 详情查询SQL
+     */
+    public BoundSql buildDetailQueryForSlice(
+            LogSearchDTO dto,
+            String tableName,
+            String timeField,
+            String tiebreakerField,
+            TimeWindow slice,
+            int limit) {
+        return buildDetailQuery(
+                dto,
+                tableName,
+                timeField,
+                tiebreakerField,
+                timeWindows(timeField, List.of(slice)),
+                limit);
+    }
+
+    /**
+     * 获取可以按时间切片查询的时间范围
+     *
+     * <p>只按时间倒序、没有 OFFSET 时，切片依次查询的结果拼接后与整个范围的查询结果相同；带游标时范围的结束时间收紧到游标位置
+     *
+     * @param dto 查询DTO
+     * @param timeField 时间字段名
+     * @param tiebreakerField 并列排序字段名，未配置时为null
+     * @return 时间范围，左闭右开，不能切片时返回null
+     */
+    public TimeWindow resolveSliceRange(
+            LogSearchDTO dto, String timeField, String tiebreakerField) {
+        if (!"DESC".equals(searchAfterDirection(dto, timeField))) {
+            return null;
+        }
+        if (StringUtils.isBlank(dto.getSearchAfter())) {
+            return dto.getOffset() == 0
+                    ? new TimeWindow(dto.getStartTime(), dto.getEndTime())
+                    : null;
+        }
+        SearchAfterCursor cursor = resolveCursor(dto, timeField, tiebreakerField);
+        if (!cursor.hasTiebreaker()) {
+            return null;
+        }
+        String cursorEnd = SearchAfterCursor.exclusiveUpperBound(cursor.time());
+        String end =
+                cursorEnd != null && cursorEnd.compareTo(dto.getEndTime()) < 0
+                        ? cursorEnd
+                        : dto.getEndTime();
+        return new TimeWindow(dto.getStartTime(), end);
+    }
+
+    private BoundSql buildDetailQuery(
+            LogSearchDTO dto,
+            String tableName,
+            String timeField,
+            String tiebreakerField,
+            BoundSql timeCondition,
+            int pageSize) {
+        BoundSql keywordConditions = keywordConditionBuilder.buildKeywords(dto);
+        BoundSql whereConditions = whereConditionBuilder.buildWhereConditions(dto);
 
         // 为字段添加AS别名（如果需要）
         String selectClause = buildSelectFieldsWithAlias(dto);
 
         // 构建排序子句
-        String orderClause = buildOrderClause(dto, timeField);
+        String orderClause = buildOrderClause(dto, timeField, tiebreakerField);
+
+        int offset = dto.getOffset();
+        if (StringUtils.isNotBlank(dto.getSearchAfter())) {
+            SearchAfterCursor cursor = resolveCursor(dto, timeField, tiebreakerField);
+            timeCondition =
+                    timeCondition
+                            .append(" AND ")
+                            .append(
+                                    searchAfter(
+                                            timeField,
+                                            cursor.direction(),
+                                            cursor.time(),
+                                            cursor.hasTiebreaker() ? tiebreakerField : null,
+                                            cursor.tiebreakerValue()));
+            offset = cursor.hasTiebreaker() ? 0 : cursor.skip();
+        }
+
+        return BoundSql.of(selectClause + from(tableName))
+                .append(buildWhereClause(timeCondition, keywordConditions, whereConditions))
+                .append(orderClause + limit(pageSize, offset));
+    }
+
+    /**
+     * 根据本页明细生成下一页游标
+     *
+     * @param dto 查询DTO
+     * @param timeField 时间字段名
+     * @param tiebreakerField 并列排序字段名，未配置时为null
+     * @param rows 本页明细行
+     * @return 编码后的游标，排序不支持游标分页、本页未取满或结果不包含定位字段时返回null
+     */
+    public String buildNextCursor(
+            LogSearchDTO dto,
+            String timeField,
+            String tiebreakerField,
+            List<Map<String, Object>> rows) {
+        String direction = searchAfterDirection(dto, timeField);
+        if (direction == null) {
+            return null;
+        }
+        SearchAfterCursor previous =
+                StringUtils.isNotBlank(dto.getSearchAfter())
+                        ? SearchAfterCursor.decode(dto.getSearchAfter())
+                        : null;
+        SearchAfterCursor next =
+                SearchAfterCursor.next(
+                        rows, dto.getPageSize(), timeField, direction, tiebreakerField, previous);
+        return next != null ? next.encode() : null;
+    }
 
-        return selectClause
-                + from(tableName)
-                + buildWhereClause(timeCondition, keywordConditions, whereConditions)
-                + orderClause
-                + limit(dto.getPageSize(), dto.getOffset());
+    /** 解析并校验请求中的游标，游标须与当前排序方向和并列排序字段一致 */
+    private SearchAfterCursor resolveCursor(
+            LogSearchDTO dto, String timeField, String tiebreakerField) {
+        String direction = searchAfterDirection(dto, timeField);
+        if (direction == null) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "游标分页仅支持按时间字段排序");
+        }
+        SearchAfterCursor cursor = SearchAfterCursor.decode(dto.getSearchAfter());
+        if (!direction.equals(cursor.direction())
+                || !Objects.equals(tiebreakerField, cursor.tiebreakerField())) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "分页游标与当前排序条件不一致，请从第一页重新查询");
+        }
+        return cursor;
+    }
+
+    /**
+     * 获取游标分页使用的时间排序方向
+     *
+     * @return 未指定排序或只按时间字段排序时返回排序方向，其他排序不支持游标分页，返回null
+     */
+    private static String searchAfterDirection(LogSearchDTO dto, String timeField) {
+        List<LogSearchDTO.SortField> sortFields = dto.getSortFields();
+        if (sortFields == null || sortFields.isEmpty()) {
+            return "DESC";
+        }
+        if (sortFields.size() == 1 && timeField.equals(sortFields.get(0).getFieldName())) {
+            return sortFields.get(0).getDirection();
+        }
+        return null;
     }
 
     /** 构建带AS别名的SELECT字段列表 */
@@ -99,27 +272,27 @@ public class DetailSqlBuilder {
     }
 
     /** 构建总数查询SQL */
-    public String buildCountQuery(LogSearchDTO dto, String tableName, String timeField) {
-        String timeCondition = timeRange(timeField, dto);
-        String keywordConditions = keywordConditionBuilder.buildKeywords(dto);
-        String whereConditions = whereConditionBuilder.buildWhereConditions(dto);
-
-        return selectCount()
-                + from(tableName)
-                + buildWhereClause(timeCondition, keywordConditions, whereConditions);
+    public BoundSql buildCountQuery(LogSearchDTO dto, String tableName, String timeField) {
+        BoundSql timeCondition = timeRange(timeField, dto);
+        BoundSql keywordConditions = keywordConditionBuilder.buildKeywords(dto);
+        BoundSql whereConditions = whereConditionBuilder.buildWhereConditions(dto);
+
+        return BoundSql.of(selectCount() + from(tableName))
+                .append(buildWhereClause(timeCondition, keywordConditions, whereConditions));
     }
 
     /**
      * 构建排序子句
      *
      * <p>逻辑说明： 1. 如果用户指定了排序字段，优先使用用户指定的排序 2. 如果用户指定的排序中包含时间字段，以用户指定的为准 3.
-     * 如果用户没有指定排序，或指定的排序中不包含时间字段，则追加默认的时间字段倒序排序
+     * 如果用户没有指定排序，或指定的排序中不包含时间字段，则追加默认的时间字段倒序排序 4. 只按时间字段排序且配置了并列排序字段时， 追加同方向的并列字段排序，保证时间相同的行顺序稳定
      *
      * @param dto 查询DTO
      * @param timeField 时间字段名
+     * @param tiebreakerField 并列排序字段名，未配置时为null
      * @return ORDER BY子句
      */
-    private String buildOrderClause(LogSearchDTO dto, String timeField) {
+    private String buildOrderClause(LogSearchDTO dto, String timeField, String tiebreakerField) {
         List<SqlFragment.OrderField> orderFields = new ArrayList<>();
 
         // 1. 添加用户指定的排序字段
@@ -145,7 +318,13 @@ public class DetailSqlBuilder {
             orderFields.add(new SqlFragment.OrderField(timeField, "DESC"));
         }
 
-        // 4. 构建ORDER BY子句
+        // 4. 追加并列排序字段
+        String direction = searchAfterDirection(dto, timeField);
+        if (tiebreakerField != null && direction != null) {
+            orderFields.add(new SqlFragment.OrderField(tiebreakerField, direction));
+        }
+
+        // 5. 构建ORDER BY子句
         return orderByMultiple(orderFields);
     }
 }
@@ -2,7 +2,10 @@ package com.hinadt.miaocha.application.service.sql.builder;
 
 import static com.hinadt.miaocha.application.service.sql.expression.SqlFragment.*;
 
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import java.util.List;
 import org.springframework.stereotype.Component;
 
 /**
@@ -24,22 +27,61 @@ public class DistributionSqlBuilder {
     }
 
     /** 构建自定义间隔时间分布SQL */
-    public String buildCustomIntervalDistribution(
+    public BoundSql buildCustomIntervalDistribution(
             LogSearchDTO dto,
             String tableName,
             String timeField,
             String timeUnit,
             int intervalValue) {
+        return buildDistribution(
+                dto, tableName, timeField, timeUnit, intervalValue, timeRange(timeField, dto));
+    }
+
+    /**
+     * 构建只统计指定时间窗口的自定义间隔时间分布SQL
+     *
+     * <p>用于增量统计，分组方式与 {@link #buildCustomIntervalDistribution} 相同，时间条件替换为给定窗口
+     */
+    public BoundSql buildCustomIntervalDistribution(
+            LogSearchDTO dto,
+            String tableName,
+            String timeField,
+            String timeUnit,
+            int intervalValue,
+            List<TimeWindow> windows) {
+        BoundSql timeCondition = timeWindows(timeField, windows);
+        return buildDistribution(dto, tableName, timeField, timeUnit, intervalValue, timeCondition);
+    }
+
+    /**
+     * 构建时间分布统计的签名
+     *
+     * <p>由分组表达式、表名和除时间范围外的所有过滤条件组成，相同签名的统计在同一时间桶上的结果相同
+     */
+    public BoundSql buildDistributionSignature(
+            LogSearchDTO dto,
+            String tableName,
+            String timeField,
+            String timeUnit,
+            int intervalValue) {
+        return buildDistribution(
+                dto, tableName, timeField, timeUnit, intervalValue, BoundSql.EMPTY);
+    }
+
+    private BoundSql buildDistribution(
+            LogSearchDTO dto,
+            String tableName,
+            String timeField,
+            String timeUnit,
+            int intervalValue,
+            BoundSql timeCondition) {
 
         String customBucketExpr = customTimeBucket(timeField, timeUnit, intervalValue);
-        String timeCondition = timeRange(timeField, dto);
-        String keywordConditions = keywordConditionBuilder.buildKeywords(dto);
-        String whereConditions = whereConditionBuilder.buildWhereConditions(dto);
-
-        return selectTimeDistribution(customBucketExpr)
-                + from(tableName)
-                + buildWhereClause(timeCondition, keywordConditions, whereConditions)
-                + groupBy(customBucketExpr)
-                + orderBy(TIME_ALIAS, "ASC");
+        BoundSql keywordConditions = keywordConditionBuilder.buildKeywords(dto);
+        BoundSql whereConditions = whereConditionBuilder.buildWhereConditions(dto);
+
+        return BoundSql.of(selectTimeDistribution(customBucketExpr) + from(tableName))
+                .append(buildWhereClause(timeCondition, keywordConditions, whereConditions))
+                .append(groupBy(customBucketExpr) + orderBy(TIME_ALIAS, "ASC"));
     }
 }
@@ -2,9 +2,17 @@ package com.hinadt.miaocha.application.service.sql.builder;
 
 import static com.hinadt.miaocha.application.service.sql.expression.SqlFragment.*;
 
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.sampling.FieldSampling;
+import com.hinadt.miaocha.application.service.sql.sampling.SampleQuery;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTODecorator;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.springframework.stereotype.Component;
 
 /**
@@ -15,9 +23,13 @@ import org.springframework.stereotype.Component;
 @Component
 public class FieldDistributionSqlBuilder {
 
-    /** 字段分布统计的采样大小常量 */
+    /** 字段分布统计的默认采样大小 */
     public static final int SAMPLE_SIZE = 1000;
 
+    /** 普通列或 variant 子字段（如 message['level']），分组1为所属的列名 */
+    private static final Pattern COLUMN_REFERENCE =
+            Pattern.compile("^([A-Za-z_][A-Za-z0-9_]*)(\\[.*])?$");
+
     private final KeywordConditionBuilder keywordConditionBuilder;
     private final WhereConditionBuilder whereConditionBuilder;
 
@@ -29,17 +41,34 @@ public class FieldDistributionSqlBuilder {
     }
 
     /**
-     * 构建字段分布TOP N查询SQL
+     * 构建字段分布TOP N查询SQL，使用默认采样参数（最新1000条）
      *
-     * <p>使用两层查询优化性能： - 内层：先筛选出前1000条数据 - 外层：对这1000条数据使用Doris的TOPN函数进行统计
+     * @see #buildFieldDistribution(LogSearchDTO, String, String, List, List, int, FieldSampling)
      */
-    public String buildFieldDistribution(
+    public BoundSql buildFieldDistribution(
             LogSearchDTO dto,
             String tableName,
             String timeField,
             List<String> fields,
             List<String> originalFields,
             int topN) {
+        return buildFieldDistribution(
+                dto, tableName, timeField, fields, originalFields, topN, FieldSampling.DEFAULT);
+    }
+
+    /**
+     * 构建字段分布TOP N查询SQL
+     *
+     * <p>使用两层查询优化性能： - 内层：按采样策略抽取样本，只读取统计字段所在的列 - 外层：对样本使用Doris的TOPN函数进行统计
+     */
+    public BoundSql buildFieldDistribution(
+            LogSearchDTO dto,
+            String tableName,
+            String timeField,
+            List<String> fields,
+            List<String> originalFields,
+            int topN,
+            FieldSampling sampling) {
 
         // 如果是装饰器，使用转换后的字段进行TOPN，使用原始字段作为AS别名
         if (dto instanceof LogSearchDTODecorator decorator) {
@@ -49,14 +78,15 @@ public class FieldDistributionSqlBuilder {
 
             String selectColumns =
                     buildTopnColumnsWithTotal(convertedFields, originalFieldNames, topN);
-            String innerQuery = buildInnerQuery(dto, tableName, timeField);
+            BoundSql innerQuery =
+                    buildInnerQuery(dto, tableName, timeField, convertedFields, sampling);
 
             return selectWithSubquery(selectColumns, innerQuery, "sub_query");
         }
 
         // 普通DTO的处理逻辑保持不变
         String selectColumns = buildTopnColumnsWithTotal(fields, originalFields, topN);
-        String innerQuery = buildInnerQuery(dto, tableName, timeField);
+        BoundSql innerQuery = buildInnerQuery(dto, tableName, timeField, fields, sampling);
 
         return selectWithSubquery(selectColumns, innerQuery, "sub_query");
     }
@@ -86,15 +116,43 @@ public class FieldDistributionSqlBuilder {
     }
 
     /** 构建内层查询（采样查询） */
-    private String buildInnerQuery(LogSearchDTO dto, String tableName, String timeField) {
-        String timeCondition = timeRange(timeField, dto);
-        String keywordConditions = keywordConditionBuilder.buildKeywords(dto);
-        String whereConditions = whereConditionBuilder.buildWhereConditions(dto);
-
-        return selectFields(null)
-                + from(tableName)
-                + buildWhereClause(timeCondition, keywordConditions, whereConditions)
-                + orderBy(timeField, "DESC")
-                + limit(SAMPLE_SIZE, 0);
+    private BoundSql buildInnerQuery(
+            LogSearchDTO dto,
+            String tableName,
+            String timeField,
+            List<String> fields,
+            FieldSampling sampling) {
+        SampleQuery query =
+                new SampleQuery(
+                        selectFields(projectColumns(fields)),
+                        tableName,
+                        timeField,
+                        dto.getStartTime(),
+                        dto.getEndTime(),
+                        keywordConditionBuilder.buildKeywords(dto),
+                        whereConditionBuilder.buildWhereConditions(dto),
+                        sampling);
+        return sampling.strategy().buildSampleQuery(query);
+    }
+
+    /**
+     * 计算采样查询需要读取的列，variant 子字段读取其所属的列
+     *
+     * @param fields 统计字段（转换后）
+     * @return 去重后的列名，存在无法识别的字段表达式时返回null，即读取全部列
+     */
+    private List<String> projectColumns(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+        Set<String> columns = new LinkedHashSet<>();
+        for (String field : fields) {
+            Matcher matcher = COLUMN_REFERENCE.matcher(field.trim());
+            if (!matcher.matches()) {
+                return null;
+            }
+            columns.add(matcher.group(1));
+        }
+        return new ArrayList<>(columns);
     }
 }
@@ -1,6 +1,7 @@
 package com.hinadt.miaocha.application.service.sql.builder;
 
 import com.hinadt.miaocha.application.service.impl.logsearch.validator.QueryConfigValidationService;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
 import com.hinadt.miaocha.application.service.sql.converter.VariantFieldConverter;
 import com.hinadt.miaocha.application.service.sql.expression.FieldExpressionParser;
 import com.hinadt.miaocha.application.service.sql.expression.SqlFragment;
@@ -21,6 +22,8 @@ import org.springframework.stereotype.Component;
  * 关键字条件构建器 - 重构版本
  *
  * <p>职责清晰： - 使用 FieldExpressionParser 进行表达式分析 - 使用 SqlFragment 统一括号规范 - 根据分析结果构建 SQL 条件
+ *
+ * <p>关键字作为绑定参数，不写入SQL文本
  */
 @Component
 public class KeywordConditionBuilder {
@@ -28,17 +31,34 @@ public class KeywordConditionBuilder {
     @Autowired private QueryConfigValidationService queryConfigValidationService;
     @Autowired private VariantFieldConverter variantFieldConverter;
 
-    /** 构建关键字查询条件 */
-    public String buildKeywords(LogSearchDTO logSearchDTO) {
+    /** 已编译条件缓存，未注入时每次重新解析 */
+    @Autowired(required = false)
+    private CompiledConditionCache compiledConditionCache;
+
+    /** 构建关键字查询条件，相同关键字字段配置和关键字的条件直接复用缓存 */
+    public BoundSql buildKeywords(LogSearchDTO logSearchDTO) {
         if (CollectionUtils.isEmpty(logSearchDTO.getKeywords())) {
-            return "";
+            return BoundSql.EMPTY;
         }
 
-        List<KeywordFieldConfigDTO> keywordFields =
-                getKeywordFieldsWithVariantConversion(logSearchDTO.getModule());
-        if (CollectionUtils.isEmpty(keywordFields)) {
-            return "";
+        List<KeywordFieldConfigDTO> configuredFields = getKeywordFields(logSearchDTO.getModule());
+        if (CollectionUtils.isEmpty(configuredFields)) {
+            return BoundSql.EMPTY;
         }
+        if (compiledConditionCache == null) {
+            return compileKeywords(logSearchDTO, configuredFields);
+        }
+        return compiledConditionCache.getKeywordCondition(
+                configuredFields,
+                logSearchDTO.getKeywords(),
+                () -> compileKeywords(logSearchDTO, configuredFields));
+    }
+
+    /** 解析关键字表达式，生成关键字查询条件 */
+    private BoundSql compileKeywords(
+            LogSearchDTO logSearchDTO, List<KeywordFieldConfigDTO> configuredFields) {
+        List<KeywordFieldConfigDTO> keywordFields =
+                configuredFields.stream().map(this::convertVariantField).toList();
 
         // 检查是否包含负向条件
         boolean hasNegativeTerms =
@@ -53,27 +73,27 @@ public class KeywordConditionBuilder {
     }
 
     /** 构建复杂关键字查询（包含负向条件） */
-    private String buildComplexKeywords(
+    private BoundSql buildComplexKeywords(
             LogSearchDTO logSearchDTO, List<KeywordFieldConfigDTO> keywordFields) {
         FieldExpressionParser.ExpressionSeparationResult separationResult =
                 FieldExpressionParser.separateKeywordExpressions(logSearchDTO.getKeywords());
 
-        List<String> conditions = new ArrayList<>();
+        List<BoundSql> conditions = new ArrayList<>();
 
         // 处理正向条件
         if (separationResult.hasPositiveExpressions()) {
-            String positiveCondition =
+            BoundSql positiveCondition =
                     buildPositiveConditions(keywordFields, separationResult.positiveExpressions());
-            if (StringUtils.isNotBlank(positiveCondition)) {
+            if (!positiveCondition.isBlank()) {
                 conditions.add(positiveCondition);
             }
         }
 
         // 处理负向条件
         if (separationResult.hasNegativeExpressions()) {
-            String negativeCondition =
+            BoundSql negativeCondition =
                     buildNegativeConditions(keywordFields, separationResult.negativeExpressions());
-            if (StringUtils.isNotBlank(negativeCondition)) {
+            if (!negativeCondition.isBlank()) {
                 conditions.add(negativeCondition);
             }
         }
@@ -82,17 +102,17 @@ public class KeywordConditionBuilder {
     }
 
     /** 构建简单关键字查询（不包含负向条件） */
-    private String buildSimpleKeywords(
+    private BoundSql buildSimpleKeywords(
             LogSearchDTO dto, List<KeywordFieldConfigDTO> keywordFields) {
-        List<String> keywordConditions = new ArrayList<>();
+        List<BoundSql> keywordConditions = new ArrayList<>();
 
         for (String keyword : dto.getKeywords()) {
             if (StringUtils.isBlank(keyword)) {
                 continue;
             }
 
-            String keywordCondition = buildSingleKeywordCondition(keywordFields, keyword.trim());
-            if (StringUtils.isNotBlank(keywordCondition)) {
+            BoundSql keywordCondition = buildSingleKeywordCondition(keywordFields, keyword.trim());
+            if (!keywordCondition.isBlank()) {
                 keywordConditions.add(keywordCondition);
             }
         }
@@ -101,18 +121,18 @@ public class KeywordConditionBuilder {
     }
 
     /** 构建单个关键字的多字段条件 */
-    private String buildSingleKeywordCondition(
+    private BoundSql buildSingleKeywordCondition(
             List<KeywordFieldConfigDTO> keywordFields, String keyword) {
-        List<String> fieldConditions = new ArrayList<>();
+        List<BoundSql> fieldConditions = new ArrayList<>();
 
         for (KeywordFieldConfigDTO fieldConfig : keywordFields) {
             String fieldName = fieldConfig.getFieldName();
             String searchMethodName = fieldConfig.getSearchMethod();
 
             SearchMethod searchMethod = SearchMethod.fromString(searchMethodName);
-            String parsedCondition = searchMethod.parseExpression(fieldName, keyword);
+            BoundSql parsedCondition = searchMethod.parseExpression(fieldName, keyword);
 
-            if (StringUtils.isNotBlank(parsedCondition)) {
+            if (!parsedCondition.isBlank()) {
                 fieldConditions.add(parsedCondition);
             }
         }
@@ -121,28 +141,28 @@ public class KeywordConditionBuilder {
     }
 
     /** 构建正向条件 */
-    private String buildPositiveConditions(
+    private BoundSql buildPositiveConditions(
             List<KeywordFieldConfigDTO> keywordFields, List<String> positiveExpressions) {
         if (positiveExpressions.isEmpty()) {
-            return "";
+            return BoundSql.EMPTY;
         }
 
         String combinedExpression = combineExpressions(positiveExpressions);
 
-        List<String> fieldConditions =
+        List<BoundSql> fieldConditions =
                 keywordFields.stream()
                         .map(field -> buildFieldExpressionCondition(field, combinedExpression))
-                        .filter(StringUtils::isNotBlank)
+                        .filter(condition -> !condition.isBlank())
                         .toList();
 
         return SqlFragment.formatMultiFieldOr(fieldConditions);
     }
 
     /** 构建负向条件 */
-    private String buildNegativeConditions(
+    private BoundSql buildNegativeConditions(
             List<KeywordFieldConfigDTO> keywordFields, List<String> negativeExpressions) {
         if (negativeExpressions.isEmpty()) {
-            return "";
+            return BoundSql.EMPTY;
         }
 
         // 提取所有负向条件中的关键词
@@ -153,15 +173,15 @@ public class KeywordConditionBuilder {
         }
 
         if (negativeTerms.isEmpty()) {
-            return "";
+            return BoundSql.EMPTY;
         }
 
         // 为每个负向关键词构建所有字段的条件
-        List<String> allFieldConditions = new ArrayList<>();
+        List<BoundSql> allFieldConditions = new ArrayList<>();
         for (String term : negativeTerms) {
             for (KeywordFieldConfigDTO field : keywordFields) {
-                String condition = buildTermCondition(field, term);
-                if (StringUtils.isNotBlank(condition)) {
+                BoundSql condition = buildTermCondition(field, term);
+                if (!condition.isBlank()) {
                     allFieldConditions.add(condition);
                 }
             }
@@ -171,7 +191,7 @@ public class KeywordConditionBuilder {
     }
 
     /** 为单个字段构建表达式条件 */
-    private String buildFieldExpressionCondition(KeywordFieldConfigDTO field, String expression) {
+    private BoundSql buildFieldExpressionCondition(KeywordFieldConfigDTO field, String expression) {
         String fieldName = field.getFieldName();
         String searchMethodName = field.getSearchMethod();
 
@@ -180,12 +200,12 @@ public class KeywordConditionBuilder {
     }
 
     /** 为字段和关键词构建单个条件 */
-    private String buildTermCondition(KeywordFieldConfigDTO field, String term) {
+    private BoundSql buildTermCondition(KeywordFieldConfigDTO field, String term) {
         String fieldName = field.getFieldName();
         String searchMethodName = field.getSearchMethod();
 
         SearchMethod searchMethod = SearchMethod.fromString(searchMethodName);
-        return searchMethod.buildSingleCondition(fieldName, escapeSpecialCharacters(term));
+        return searchMethod.buildSingleCondition(fieldName, term);
     }
 
     /** 组合多个表达式 */
@@ -207,22 +227,11 @@ public class KeywordConditionBuilder {
                 .collect(Collectors.joining(" AND "));
     }
 
-    /** 转义特殊字符防止SQL注入 */
-    private String escapeSpecialCharacters(String input) {
-        if (input == null) return "";
-        return input.replace("'", "''").replace("\\", "\\\\");
-    }
-
-    /** 获取模块配置的关键字字段，并处理 variant 转换 */
-    private List<KeywordFieldConfigDTO> getKeywordFieldsWithVariantConversion(String module) {
+    /** 获取模块配置的关键字字段 */
+    private List<KeywordFieldConfigDTO> getKeywordFields(String module) {
         var queryConfig = queryConfigValidationService.validateAndGetQueryConfig(module);
         List<KeywordFieldConfigDTO> keywordFields = queryConfig.getKeywordFields();
-
-        if (keywordFields == null || keywordFields.isEmpty()) {
-            return List.of();
-        }
-
-        return keywordFields.stream().map(this::convertVariantField).toList();
+        return keywordFields != null ? keywordFields : List.of();
     }
 
     /** 转换单个字段配置中的 variant 字段 */
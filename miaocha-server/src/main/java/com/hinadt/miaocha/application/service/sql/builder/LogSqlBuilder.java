@@ -1,14 +1,21 @@
 package com.hinadt.miaocha.application.service.sql.builder;
 
 import com.hinadt.miaocha.application.service.impl.logsearch.validator.QueryConfigValidationService;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
+import com.hinadt.miaocha.application.service.sql.sampling.FieldSampling;
+import com.hinadt.miaocha.application.service.sql.sampling.SamplingStrategy;
+import com.hinadt.miaocha.config.LogSearchProperties;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import com.hinadt.miaocha.domain.dto.module.QueryConfigDTO;
 import java.util.List;
+import java.util.Map;
 import org.springframework.stereotype.Component;
 
 /**
  * 日志SQL构建器门面
  *
- * <p>统一的SQL构建入口，委托给专门的构建器执行具体任务
+ * <p>统一的SQL构建入口，委托给专门的构建器执行具体任务。检索条件中的取值以绑定参数的形式返回
  */
 @Component
 public class LogSqlBuilder {
@@ -18,48 +25,152 @@ public class LogSqlBuilder {
     private final FieldDistributionSqlBuilder fieldDistributionSqlBuilder;
     private final KeywordConditionBuilder keywordConditionBuilder;
     private final QueryConfigValidationService queryConfigValidationService;
+    private final LogSearchProperties logSearchProperties;
 
     public LogSqlBuilder(
             DistributionSqlBuilder distributionSqlBuilder,
             DetailSqlBuilder detailSqlBuilder,
             FieldDistributionSqlBuilder fieldDistributionSqlBuilder,
             KeywordConditionBuilder keywordConditionBuilder,
-            QueryConfigValidationService queryConfigValidationService) {
+            QueryConfigValidationService queryConfigValidationService,
+            LogSearchProperties logSearchProperties) {
         this.distributionSqlBuilder = distributionSqlBuilder;
         this.detailSqlBuilder = detailSqlBuilder;
         this.fieldDistributionSqlBuilder = fieldDistributionSqlBuilder;
         this.keywordConditionBuilder = keywordConditionBuilder;
         this.queryConfigValidationService = queryConfigValidationService;
+        this.logSearchProperties = logSearchProperties;
     }
 
     /** 构建支持自定义间隔的日志分布统计SQL */
-    public String buildDistributionSqlWithInterval(
+    public BoundSql buildDistributionSqlWithInterval(
             LogSearchDTO dto, String tableName, String timeUnit, int intervalValue) {
         String timeField = getTimeField(dto.getModule());
         return distributionSqlBuilder.buildCustomIntervalDistribution(
                 dto, tableName, timeField, timeUnit, intervalValue);
     }
 
+    /** 构建只统计指定时间窗口的日志分布统计SQL */
+    public BoundSql buildDistributionSqlForWindows(
+            LogSearchDTO dto,
+            String tableName,
+            String timeUnit,
+            int intervalValue,
+            List<TimeWindow> windows) {
+        String timeField = getTimeField(dto.getModule());
+        return distributionSqlBuilder.buildCustomIntervalDistribution(
+                dto, tableName, timeField, timeUnit, intervalValue, windows);
+    }
+
+    /** 构建日志分布统计的签名（不含时间范围），用于缓存 */
+    public BoundSql buildDistributionSignature(
+            LogSearchDTO dto, String tableName, String timeUnit, int intervalValue) {
+        String timeField = getTimeField(dto.getModule());
+        return distributionSqlBuilder.buildDistributionSignature(
+                dto, tableName, timeField, timeUnit, intervalValue);
+    }
+
     /** 构建详细日志查询SQL（带时间字段参数） */
-    public String buildDetailQuery(LogSearchDTO dto, String tableName, String timeField) {
-        return detailSqlBuilder.buildDetailQuery(dto, tableName, timeField);
+    public BoundSql buildDetailQuery(LogSearchDTO dto, String tableName, String timeField) {
+        String tiebreakerField = getTiebreakerField(dto.getModule());
+        return detailSqlBuilder.buildDetailQuery(dto, tableName, timeField, tiebreakerField);
+    }
+
+    /** 构建只查询一个时间切片的详细日志SQL */
+    public BoundSql buildDetailQueryForSlice(
+            LogSearchDTO dto, String tableName, String timeField, TimeWindow slice, int limit) {
+        String tiebreakerField = getTiebreakerField(dto.getModule());
+        return detailSqlBuilder.buildDetailQueryForSlice(
+                dto, tableName, timeField, tiebreakerField, slice, limit);
+    }
+
+    /** 获取详细日志可以按时间切片查询的时间范围，排序或分页方式不支持切片时返回null */
+    public TimeWindow resolveDetailSliceRange(LogSearchDTO dto, String timeField) {
+        String tiebreakerField = getTiebreakerField(dto.getModule());
+        return detailSqlBuilder.resolveSliceRange(dto, timeField, tiebreakerField);
+    }
+
+    /** 根据本页明细生成下一页游标，不支持游标分页时返回null */
+    public String buildNextCursor(
+            LogSearchDTO dto, String timeField, List<Map<String, Object>> rows) {
+        String tiebreakerField = getTiebreakerField(dto.getModule());
+        return detailSqlBuilder.buildNextCursor(dto, timeField, tiebreakerField, rows);
     }
 
     /** 构建总数查询SQL */
-    public String buildCountQuery(LogSearchDTO dto, String tableName, String timeField) {
+    public BoundSql buildCountQuery(LogSearchDTO dto, String tableName, String timeField) {
         return detailSqlBuilder.buildCountQuery(dto, tableName, timeField);
     }
 
-    /** 构建字段分布TOP N查询SQL */
-    public String buildFieldDistributionSql(
+    /** 构建字段分布TOP N查询SQL，使用模块配置的采样参数 */
+    public BoundSql buildFieldDistributionSql(
             LogSearchDTO dto,
             String tableName,
             List<String> fields,
             List<String> originalFields,
             int topN) {
+        FieldSampling sampling = resolveFieldSampling(dto.getModule());
+        return buildFieldDistributionSql(dto, tableName, fields, originalFields, topN, sampling);
+    }
+
+    /** 构建字段分布TOP N查询SQL */
+    public BoundSql buildFieldDistributionSql(
+            LogSearchDTO dto,
+            String tableName,
+            List<String> fields,
+            List<String> originalFields,
+            int topN,
+            FieldSampling sampling) {
         String timeField = getTimeField(dto.getModule());
         return fieldDistributionSqlBuilder.buildFieldDistribution(
-                dto, tableName, timeField, fields, originalFields, topN);
+                dto, tableName, timeField, fields, originalFields, topN, sampling);
+    }
+
+    /**
+     * 获取字段分布的采样参数：模块查询配置优先，其次使用全局配置
+     *
+     * @param module 模块名
+     * @return 采样参数
+     */
+    public FieldSampling resolveFieldSampling(String module) {
+        LogSearchProperties.FieldSampling defaults = logSearchProperties.getFieldSampling();
+        SamplingStrategy strategy = SamplingStrategy.of(defaults.getStrategy());
+        int sampleSize = defaults.getSampleSize();
+
+        QueryConfigDTO queryConfig = getQueryConfig(module);
+        if (queryConfig != null) {
+            SamplingStrategy moduleStrategy =
+                    SamplingStrategy.of(queryConfig.getFieldSampleStrategy());
+            if (moduleStrategy != null) {
+                strategy = moduleStrategy;
+            }
+            if (queryConfig.getFieldSampleSize() != null) {
+                sampleSize = queryConfig.getFieldSampleSize();
+            }
+        }
+        return new FieldSampling(
+                strategy != null ? strategy : SamplingStrategy.LATEST,
+                sampleSize,
+                defaults.getStrata(),
+                defaults.getTableSamplePercent());
+    }
+
+    /** 获取模块查询配置，未配置时返回null */
+    private QueryConfigDTO getQueryConfig(String module) {
+        try {
+            return queryConfigValidationService.validateAndGetQueryConfig(module);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /** 从配置中获取并列排序字段，未配置时返回null */
+    private String getTiebreakerField(String module) {
+        try {
+            return queryConfigValidationService.getTiebreakerField(module);
+        } catch (Exception e) {
+            return null;
+        }
     }
 
     /** 从配置中获取时间字段，如果未配置则使用默认值 */
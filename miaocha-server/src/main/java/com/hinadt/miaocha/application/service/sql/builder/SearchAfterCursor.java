@@ -0,0 +1,155 @@
+package com.hinadt.miaocha.application.service.sql.builder;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
+import com.hinadt.miaocha.common.exception.BusinessException;
+import com.hinadt.miaocha.common.exception.ErrorCode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 明细查询游标（search-after）
+ *
+ * <p>记录上一页最后一行的时间值和排序方向，下一页通过范围条件从该位置继续读取，代替 OFFSET 分页。
+ * 模块配置了并列排序字段时同时记录该字段的值，时间相同的行按并列字段继续排序；未配置时记录与最后一行时间相同的行数， 下一页用包含边界的时间条件加上这部分行数的 OFFSET 跳过已返回的行。
+ *
+ * <p>游标对客户端不透明，编码为 URL 安全的 Base64 JSON。
+ *
+ * @param time 上一页最后一行的时间值
+ * @param direction 时间排序方向（ASC/DESC）
+ * @param tiebreakerField 并列排序字段名，未配置时为null
+ * @param tiebreakerValue 上一页最后一行的并列排序字段值
+ * @param skip 无并列排序字段时，需要跳过的与 time 相同的行数
+ */
+public record SearchAfterCursor(
+        @JsonProperty("t") String time,
+        @JsonProperty("d") String direction,
+        @JsonProperty("f") String tiebreakerField,
+        @JsonProperty("k") String tiebreakerValue,
+        @JsonProperty("s") int skip) {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /** 是否使用并列排序字段定位 */
+    public boolean hasTiebreaker() {
+        return tiebreakerField != null && tiebreakerValue != null;
+    }
+
+    /**
+     * 编码为不透明的游标字符串
+     *
+     * @return 游标字符串
+     */
+    public String encode() {
+        try {
+            byte[] json = OBJECT_MAPPER.writeValueAsBytes(this);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (Exception e) {
+            throw new IllegalStateException("游标编码失败", e);
+        }
+    }
+
+    /**
+     * 解析客户端传入的游标
+     *
+     * @param cursor 游标字符串
+     * @return 游标
+     * @throws BusinessException 游标格式不正确
+     */
+    public static SearchAfterCursor decode(String cursor) {
+        SearchAfterCursor decoded;
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(cursor);
+            decoded = OBJECT_MAPPER.readValue(json, SearchAfterCursor.class);
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "分页游标格式不正确");
+        }
+        if (decoded.time() == null
+                || decoded.skip() < 0
+                || !("ASC".equals(decoded.direction()) || "DESC".equals(decoded.direction()))) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "分页游标格式不正确");
+        }
+        return decoded;
+    }
+
+    /**
+     * 根据本页结果生成下一页游标
+     *
+     * @param rows 本页明细行
+     * @param pageSize 分页大小
+     * @param timeField 时间字段名
+     * @param direction 时间排序方向
+     * @param tiebreakerField 并列排序字段名，未配置时为null
+     * @param previous 本页使用的游标，首页为null
+     * @return 下一页游标，本页未取满或无法定位最后一行时返回null
+     */
+    public static SearchAfterCursor next(
+            List<Map<String, Object>> rows,
+            int pageSize,
+            String timeField,
+            String direction,
+            String tiebreakerField,
+            SearchAfterCursor previous) {
+        if (rows == null || rows.isEmpty() || rows.size() < pageSize) {
+            return null;
+        }
+        Map<String, Object> lastRow = rows.get(rows.size() - 1);
+        String lastTime = formatValue(lastRow.get(timeField));
+        if (lastTime == null) {
+            return null;
+        }
+
+        if (tiebreakerField != null) {
+            String lastTiebreaker = formatValue(lastRow.get(tiebreakerField));
+            // 并列字段为空时无法用范围条件定位，交由客户端回退到偏移分页
+            if (lastTiebreaker == null) {
+                return null;
+            }
+            return new SearchAfterCursor(lastTime, direction, tiebreakerField, lastTiebreaker, 0);
+        }
+
+        int ties = 0;
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            if (!lastTime.equals(formatValue(rows.get(i).get(timeField)))) {
+                break;
+            }
+            ties++;
+        }
+        // 整页时间都相同时，上一页已跳过的同时间行仍需继续跳过
+        if (ties == rows.size() && previous != null && lastTime.equals(previous.time())) {
+            ties += previous.skip();
+        }
+        return new SearchAfterCursor(lastTime, direction, null, null, ties);
+    }
+
+    /**
+     * 计算刚好晚于游标时间的时间点，用作只查询游标之前数据时的开区间上界
+     *
+     * @param time 游标时间
+     * @return 游标时间加1毫秒，精确到毫秒；无法解析时返回null
+     */
+    public static String exclusiveUpperBound(String time) {
+        LocalDateTime parsed = TimeWindow.parse(time);
+        return parsed != null ? TimeWindow.format(parsed.plus(1, ChronoUnit.MILLIS)) : null;
+    }
+
+    /** 将结果值格式化为可用于SQL比较的字符串 */
+    static String formatValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return TimeWindow.formatExact(dateTime);
+        }
+        if (value instanceof Timestamp timestamp) {
+            return TimeWindow.formatExact(timestamp.toLocalDateTime());
+        }
+        return Objects.toString(value);
+    }
+}
@@ -1,5 +1,6 @@
 package com.hinadt.miaocha.application.service.sql.builder;
 
+import com.hinadt.miaocha.application.service.sql.BoundSql;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
@@ -21,6 +22,7 @@ import org.springframework.stereotype.Component;
  *   <li>为多条件添加外层括号
  *   <li>配合DTO转换器，支持Variant字段的点语法转换
  *   <li>基础SQL注入防护
+ *   <li>拒绝引号之外的问号，避免与关键字、时间的绑定参数占位符混淆
  * </ul>
  */
 @Component
@@ -36,12 +38,12 @@ public class WhereConditionBuilder {
      * 构建用户自定义WHERE条件
      *
      * @param dto 日志搜索DTO（其中的whereSqls可能已经被DTO转换器转换过）
-     * @return WHERE条件字符串，如果没有条件则返回空字符串
+     * @return WHERE条件，不带参数，如果没有条件则返回空片段
      * @throws BusinessException 如果检测到潜在的SQL注入攻击
      */
-    public String buildWhereConditions(LogSearchDTO dto) {
+    public BoundSql buildWhereConditions(LogSearchDTO dto) {
         if (dto.getWhereSqls() == null || dto.getWhereSqls().isEmpty()) {
-            return "";
+            return BoundSql.EMPTY;
         }
 
         List<String> validConditions =
@@ -53,9 +55,9 @@ public class WhereConditionBuilder {
                         .toList();
 
         if (validConditions.isEmpty()) {
-            return "";
+            return BoundSql.EMPTY;
         }
-        return String.join(" AND ", validConditions);
+        return BoundSql.of(String.join(" AND ", validConditions));
     }
 
     /**
@@ -84,6 +86,12 @@ public class WhereConditionBuilder {
                     ErrorCode.VALIDATION_ERROR, "WHERE条件包含可疑的引号模式，可能存在SQL注入风险: " + condition);
         }
 
+        // 问号会被当作绑定参数的占位符
+        if (BoundSql.containsPlaceholder(trimmedCondition)) {
+            throw new BusinessException(
+                    ErrorCode.VALIDATION_ERROR, "WHERE条件不能包含字符串之外的问号: " + condition);
+        }
+
         // 基础长度限制
         if (trimmedCondition.length() > 10000) {
             throw new BusinessException(
@@ -1,5 +1,6 @@
 package com.hinadt.miaocha.application.service.sql.converter;
 
+import com.hinadt.miaocha.application.service.sql.builder.CompiledConditionCache;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTODecorator;
 import java.util.ArrayList;
@@ -18,12 +19,23 @@ public class LogSearchDTOConverter {
     private final VariantFieldConverter variantFieldConverter;
     private final NumericOperatorConverter numericOperatorConverter;
 
-    @Autowired
+    /** 转换结果缓存，为空时每次重新转换 */
+    private final CompiledConditionCache compiledConditionCache;
+
     public LogSearchDTOConverter(
             VariantFieldConverter variantFieldConverter,
             NumericOperatorConverter numericOperatorConverter) {
+        this(variantFieldConverter, numericOperatorConverter, null);
+    }
+
+    @Autowired
+    public LogSearchDTOConverter(
+            VariantFieldConverter variantFieldConverter,
+            NumericOperatorConverter numericOperatorConverter,
+            CompiledConditionCache compiledConditionCache) {
         this.variantFieldConverter = variantFieldConverter;
         this.numericOperatorConverter = numericOperatorConverter;
+        this.compiledConditionCache = compiledConditionCache;
     }
 
     /**
@@ -37,9 +49,20 @@ public class LogSearchDTOConverter {
             return null;
         }
 
-        // 转换各个字段
-        List<String> convertedFields = convertSelectFields(original.getFields());
-        List<String> convertedWhereSqls = convertWhereClauses(original.getWhereSqls());
+        // 转换各个字段，相同的字段列表和WHERE条件复用已缓存的转换结果
+        List<String> convertedFields;
+        List<String> convertedWhereSqls;
+        if (compiledConditionCache != null) {
+            convertedFields =
+                    compiledConditionCache.getConverted(
+                            "fields", original.getFields(), this::convertSelectFields);
+            convertedWhereSqls =
+                    compiledConditionCache.getConverted(
+                            "where", original.getWhereSqls(), this::convertWhereClauses);
+        } else {
+            convertedFields = convertSelectFields(original.getFields());
+            convertedWhereSqls = convertWhereClauses(original.getWhereSqls());
+        }
 
         // 始终创建装饰器，提供统一的接口给下游使用
         return new LogSearchDTODecorator(original, convertedFields, convertedWhereSqls);
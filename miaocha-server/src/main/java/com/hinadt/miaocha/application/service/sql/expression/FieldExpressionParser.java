@@ -1,5 +1,6 @@
 package com.hinadt.miaocha.application.service.sql.expression;
 
+import com.hinadt.miaocha.application.service.sql.BoundSql;
 import com.hinadt.miaocha.application.service.sql.search.SearchMethod;
 import java.util.ArrayList;
 import java.util.List;
@@ -42,11 +43,11 @@ public class FieldExpressionParser {
      * 解析关键字表达式为SQL条件
      *
      * @param expression 输入表达式
-     * @return SQL条件字符串
+     * @return SQL条件，关键字作为绑定参数
      */
-    public String parseKeywordExpression(String expression) {
+    public BoundSql parseKeywordExpression(String expression) {
         if (expression == null || expression.trim().isEmpty()) {
-            return "";
+            return BoundSql.EMPTY;
         }
 
         // 词法分析：将字符串分解为Token序列
@@ -55,53 +56,53 @@ public class FieldExpressionParser {
         this.currentTokenIndex = 0;
 
         // 语法分析：递归下降解析
-        String result = parseOrExpression();
-        return result != null ? result : "";
+        BoundSql result = parseOrExpression();
+        return result != null ? result : BoundSql.EMPTY;
     }
 
     /** 解析OR表达式（最低优先级） 语法：AND_EXPR ('||' AND_EXPR)* */
-    private String parseOrExpression() {
-        String left = parseAndExpression();
+    private BoundSql parseOrExpression() {
+        BoundSql left = parseAndExpression();
         if (left == null) {
             return null;
         }
 
         while (currentToken().type() == ExpressionToken.TokenType.OR) {
             consumeToken(); // 消费 ||
-            String right = parseAndExpression();
+            BoundSql right = parseAndExpression();
             if (right == null) {
                 return left; // 忽略右侧无效表达式
             }
-            left = left + " OR " + right;
+            left = left.append(" OR ").append(right);
         }
 
         return left;
     }
 
     /** 解析AND表达式 语法：NOT_EXPR ('&&' NOT_EXPR)* */
-    private String parseAndExpression() {
-        String left = parseNotExpression();
+    private BoundSql parseAndExpression() {
+        BoundSql left = parseNotExpression();
         if (left == null) {
             return null;
         }
 
         while (currentToken().type() == ExpressionToken.TokenType.AND) {
             consumeToken(); // 消费 &&
-            String right = parseNotExpression();
+            BoundSql right = parseNotExpression();
             if (right == null) {
                 return left; // 忽略右侧无效表达式
             }
-            left = left + " AND " + right;
+            left = left.append(" AND ").append(right);
         }
 
         return left;
     }
 
     /** 解析NOT表达式（最高优先级，除了括号） 语法：'-' PRIMARY_EXPR | PRIMARY_EXPR */
-    private String parseNotExpression() {
+    private BoundSql parseNotExpression() {
         if (currentToken().type() == ExpressionToken.TokenType.NOT) {
             consumeToken(); // 消费 -
-            String operand = parsePrimaryExpression();
+            BoundSql operand = parsePrimaryExpression();
             if (operand == null) {
                 return null; // NOT后面没有有效操作数
             }
@@ -114,23 +115,24 @@ public class FieldExpressionParser {
     }
 
     /** 构建NOT表达式，智能处理不同类型的操作数 */
-    private String buildNotExpression(String operand) {
-        if (operand == null || operand.trim().isEmpty()) {
+    private BoundSql buildNotExpression(BoundSql operand) {
+        if (operand == null || operand.isBlank()) {
             return null;
         }
 
         // 如果操作数已经有括号，直接在前面加NOT
-        if (operand.startsWith("( ") && operand.endsWith(" )")) {
-            return "NOT " + operand;
+        String sql = operand.sql();
+        if (sql.startsWith("( ") && sql.endsWith(" )")) {
+            return operand.wrap("NOT ", "");
         }
 
         // 对于复杂表达式，用括号包围然后加NOT
-        if (FieldExpressionParser.containsLogicalOperators(operand)) {
-            return "NOT (" + operand + ")";
+        if (FieldExpressionParser.containsLogicalOperators(sql)) {
+            return operand.wrap("NOT (", ")");
         }
 
         // 简单表达式直接加NOT
-        return "NOT " + operand;
+        return operand.wrap("NOT ", "");
     }
 
     /** 检查OR表达式是否所有项都是负向的 */
@@ -308,18 +310,18 @@ public class FieldExpressionParser {
     }
 
     /** 解析基本表达式 语法：'(' OR_EXPR ')' | TERM */
-    private String parsePrimaryExpression() {
+    private BoundSql parsePrimaryExpression() {
         ExpressionToken token = currentToken();
 
         return switch (token.type()) {
             case LEFT_PAREN -> {
                 consumeToken(); // 消费 (
-                String inner = parseOrExpression();
+                BoundSql inner = parseOrExpression();
 
                 // 期望右括号
                 if (currentToken().type() == ExpressionToken.TokenType.RIGHT_PAREN) {
                     consumeToken(); // 消费 )
-                    yield inner != null ? "( " + inner + " )" : null;
+                    yield inner != null ? inner.wrap("( ", " )") : null;
                 } else {
                     // 缺少右括号，但尽量返回已解析的内容
                     yield inner;
@@ -333,21 +335,13 @@ public class FieldExpressionParser {
         };
     }
 
-    /** 为单个词项构建SQL条件 */
-    private String buildSqlCondition(String term) {
+    /** 为单个词项构建SQL条件，词项作为绑定参数 */
+    private BoundSql buildSqlCondition(String term) {
         if (term == null || term.trim().isEmpty()) {
             return null;
         }
 
-        String trimmedTerm = term.trim();
-        String escapedTerm = escapeSpecialCharacters(trimmedTerm);
-        return searchMethod.buildSingleCondition(fieldName, escapedTerm);
-    }
-
-    /** 转义特殊字符防止SQL注入 */
-    private String escapeSpecialCharacters(String input) {
-        if (input == null) return "";
-        return input.replace("'", "''").replace("\\", "\\\\");
+        return searchMethod.buildSingleCondition(fieldName, term.trim());
     }
 
     /** 获取当前Token */
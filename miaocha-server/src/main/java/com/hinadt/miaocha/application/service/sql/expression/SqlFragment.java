@@ -1,9 +1,14 @@
 package com.hinadt.miaocha.application.service.sql.expression;
 
+import com.hinadt.miaocha.application.service.sql.BoundSql;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
 import java.util.ArrayList;
 import java.util.List;
-import org.apache.commons.lang3.StringUtils;
 
 /**
  * SQL片段工具类
@@ -21,11 +26,34 @@ public class SqlFragment {
     /** 总数字段别名常量 */
     public static final String TOTAL_ALIAS = "total";
 
-    /** 构建时间范围条件 */
-    public static String timeRange(String timeField, LogSearchDTO dto) {
-        return String.format(
-                "%s >= '%s' AND %s < '%s'",
-                timeField, dto.getStartTime(), timeField, dto.getEndTime());
+    /** 构建时间范围条件，时间值作为绑定参数 */
+    public static BoundSql timeRange(String timeField, LogSearchDTO dto) {
+        return timeWindows(
+                timeField, List.of(new TimeWindow(dto.getStartTime(), dto.getEndTime())));
+    }
+
+    /**
+     * 构建多个时间窗口的条件，窗口之间为 OR 关系
+     *
+     * @param timeField 时间字段名
+     * @param windows 时间窗口列表，左闭右开
+     * @return 时间条件，时间值作为绑定参数
+     */
+    public static BoundSql timeWindows(String timeField, List<TimeWindow> windows) {
+        List<BoundSql> conditions = new ArrayList<>();
+        for (TimeWindow window : windows) {
+            conditions.add(
+                    BoundSql.format(
+                            "%s >= %s AND %s < %s",
+                            timeField,
+                            BoundSql.value(window.start()),
+                            timeField,
+                            BoundSql.value(window.end())));
+        }
+        if (conditions.size() == 1) {
+            return conditions.get(0);
+        }
+        return BoundSql.join(") OR (", conditions).wrap("((", "))");
     }
 
     /** 构建SELECT字段列表 */
@@ -72,6 +100,42 @@ public class SqlFragment {
         return String.format(" LIMIT %d OFFSET %d", pageSize, offset);
     }
 
+    /**
+     * 构建游标分页的范围条件，从上一页最后一行之后继续读取
+     *
+     * <p>有并列排序字段时：(time &lt; T OR (time = T AND key &lt; K))，升序时比较符相反； 无并列排序字段时：time &lt;= T，需配合
+     * OFFSET 跳过与 T 相同的已返回行。T 和 K 作为绑定参数
+     *
+     * @param timeField 时间字段名
+     * @param direction 时间排序方向（ASC/DESC）
+     * @param time 上一页最后一行的时间值
+     * @param tiebreakerField 并列排序字段名，为null时只按时间定位
+     * @param tiebreakerValue 上一页最后一行的并列排序字段值
+     * @return 范围条件
+     */
+    public static BoundSql searchAfter(
+            String timeField,
+            String direction,
+            String time,
+            String tiebreakerField,
+            String tiebreakerValue) {
+        String operator = "ASC".equals(direction) ? ">" : "<";
+        BoundSql timeValue = BoundSql.value(time);
+        if (tiebreakerField == null) {
+            return BoundSql.format("%s %s= %s", timeField, operator, timeValue);
+        }
+        return BoundSql.format(
+                "(%s %s %s OR (%s = %s AND %s %s %s))",
+                timeField,
+                operator,
+                timeValue,
+                timeField,
+                timeValue,
+                tiebreakerField,
+                operator,
+                BoundSql.value(tiebreakerValue));
+    }
+
     /** 构建GROUP BY子句 */
     public static String groupBy(String expression) {
         return " GROUP BY " + expression;
@@ -112,6 +176,11 @@ public class SqlFragment {
         return String.format("SELECT %s FROM (%s) AS %s", columns, subQuery, alias);
     }
 
+    /** 构建带参数子查询的SELECT子句 */
+    public static BoundSql selectWithSubquery(String columns, BoundSql subQuery, String alias) {
+        return subQuery.wrap(String.format("SELECT %s FROM (", columns), ") AS " + alias);
+    }
+
     /**
      * 智能构建WHERE条件 - 解决AND重复问题
      *
@@ -120,63 +189,113 @@ public class SqlFragment {
      * @param whereConditions 用户WHERE条件
      * @return 完整的WHERE子句
      */
-    public static String buildWhereClause(
-            String timeCondition, String keywordConditions, String whereConditions) {
-        List<String> conditions = new ArrayList<>();
+    public static BoundSql buildWhereClause(
+            BoundSql timeCondition, BoundSql keywordConditions, BoundSql whereConditions) {
+        List<BoundSql> conditions = new ArrayList<>();
 
         // 添加时间条件（必须存在）
-        if (StringUtils.isNotBlank(timeCondition)) {
+        if (timeCondition != null && !timeCondition.isBlank()) {
             conditions.add(timeCondition);
         }
 
         // 添加关键字条件
-        if (StringUtils.isNotBlank(keywordConditions)) {
+        if (keywordConditions != null && !keywordConditions.isBlank()) {
             conditions.add(keywordConditions);
         }
 
         // 添加用户WHERE条件
-        if (StringUtils.isNotBlank(whereConditions)) {
+        if (whereConditions != null && !whereConditions.isBlank()) {
             conditions.add(whereConditions);
         }
 
         if (conditions.isEmpty()) {
-            return "";
+            return BoundSql.EMPTY;
         }
 
-        return " WHERE " + String.join(" AND ", conditions);
+        return BoundSql.join(" AND ", conditions).wrap(" WHERE ", "");
     }
 
     /** 排序字段封装类 */
     public record OrderField(String fieldName, String direction) {}
 
+    /**
+     * 时间窗口封装类，左闭右开
+     *
+     * <p>同时提供检索时间的解析和格式化：时间格式为 yyyy-MM-dd HH:mm:ss，小数秒可选；写入SQL的时间精确到毫秒
+     */
+    public record TimeWindow(String start, String end) {
+
+        private static final DateTimeFormatter PARSER =
+                new DateTimeFormatterBuilder()
+                        .appendPattern("yyyy-MM-dd HH:mm:ss")
+                        .optionalStart()
+                        .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+                        .optionalEnd()
+                        .toFormatter();
+
+        private static final DateTimeFormatter SQL_FORMATTER =
+                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+        /** 由起止时间创建窗口，时间精确到毫秒 */
+        public static TimeWindow of(LocalDateTime start, LocalDateTime end) {
+            return new TimeWindow(format(start), format(end));
+        }
+
+        /**
+         * 解析检索时间
+         *
+         * @param time yyyy-MM-dd HH:mm:ss[.小数秒]
+         * @return 时间，为null或无法解析时返回null
+         */
+        public static LocalDateTime parse(String time) {
+            if (time == null) {
+                return null;
+            }
+            try {
+                return LocalDateTime.parse(time.trim(), PARSER);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+
+        /** 格式化为精确到毫秒的SQL时间 */
+        public static String format(LocalDateTime time) {
+            return time.format(SQL_FORMATTER);
+        }
+
+        /** 按原精度格式化，小数秒为0时省略 */
+        public static String formatExact(LocalDateTime time) {
+            return time.format(PARSER);
+        }
+    }
+
     // ==================== 统一括号规范 ====================
 
     /** 统一的字段条件格式化 规范：(fieldName OPERATOR 'value') 避免双重括号：如果已经有括号就不再加括号 */
-    public static String formatFieldCondition(String condition) {
-        if (StringUtils.isBlank(condition)) {
-            return "";
+    public static BoundSql formatFieldCondition(BoundSql condition) {
+        if (condition == null || condition.isBlank()) {
+            return BoundSql.EMPTY;
         }
 
         // 如果条件已经有完整的括号包围，就不再添加
-        String trimmed = condition.trim();
+        String trimmed = condition.sql().trim();
         if (trimmed.startsWith("(") && trimmed.endsWith(")")) {
-            return trimmed;
+            return new BoundSql(trimmed, condition.params());
         }
 
-        return "(" + condition + ")";
+        return condition.wrap("(", ")");
     }
 
     /** 统一的多字段OR连接格式化 规范：((field1 condition) OR (field2 condition)) 或 (field condition) 当只有一个字段时 */
-    public static String formatMultiFieldOr(List<String> fieldConditions) {
+    public static BoundSql formatMultiFieldOr(List<BoundSql> fieldConditions) {
         if (fieldConditions == null || fieldConditions.isEmpty()) {
-            return "";
+            return BoundSql.EMPTY;
         }
 
-        List<String> validConditions =
-                fieldConditions.stream().filter(StringUtils::isNotBlank).toList();
+        List<BoundSql> validConditions = validConditions(fieldConditions);
 
         if (validConditions.isEmpty()) {
-            return "";
+            return BoundSql.EMPTY;
         }
 
         if (validConditions.size() == 1) {
@@ -185,59 +304,48 @@ public class SqlFragment {
         }
 
         // 多字段时，每个字段加括号，然后整体再加括号
-        List<String> formattedConditions =
+        List<BoundSql> formattedConditions =
                 validConditions.stream().map(SqlFragment::formatFieldCondition).toList();
 
-        return """
-            (%s)
-            """
-                .formatted(String.join(" OR ", formattedConditions))
-                .trim();
+        return BoundSql.join(" OR ", formattedConditions).wrap("(", ")");
     }
 
     /** 统一的多关键字AND连接格式化 规范：((keyword1 condition) AND (keyword2 condition)) */
-    public static String formatMultiKeywordAnd(List<String> keywordConditions) {
+    public static BoundSql formatMultiKeywordAnd(List<BoundSql> keywordConditions) {
         if (keywordConditions == null || keywordConditions.isEmpty()) {
-            return "";
+            return BoundSql.EMPTY;
         }
 
-        List<String> validConditions =
-                keywordConditions.stream().filter(StringUtils::isNotBlank).toList();
+        List<BoundSql> validConditions = validConditions(keywordConditions);
 
         if (validConditions.isEmpty()) {
-            return "";
+            return BoundSql.EMPTY;
         }
 
         if (validConditions.size() == 1) {
             return validConditions.get(0);
         }
 
-        return """
-            (%s)
-            """
-                .formatted(String.join(" AND ", validConditions))
-                .trim();
+        return BoundSql.join(" AND ", validConditions).wrap("(", ")");
     }
 
     /** 统一的NOT条件格式化 规范：NOT (condition1 OR condition2 OR ...) */
-    public static String formatNotCondition(List<String> conditions) {
+    public static BoundSql formatNotCondition(List<BoundSql> conditions) {
         if (conditions == null || conditions.isEmpty()) {
-            return "";
+            return BoundSql.EMPTY;
         }
 
-        List<String> validConditions = conditions.stream().filter(StringUtils::isNotBlank).toList();
+        List<BoundSql> validConditions = validConditions(conditions);
 
         if (validConditions.isEmpty()) {
-            return "";
+            return BoundSql.EMPTY;
         }
 
-        String combinedCondition =
-                validConditions.size() == 1
-                        ? validConditions.get(0)
-                        : String.join(" OR ", validConditions);
+        return BoundSql.join(" OR ", validConditions).wrap("NOT (", ")");
+    }
 
-        return """
-            NOT (%s)
-            """.formatted(combinedCondition).trim();
+    /** 过滤空白条件 */
+    private static List<BoundSql> validConditions(List<BoundSql> conditions) {
+        return conditions.stream().filter(c -> c != null && !c.isBlank()).toList();
     }
 }
@@ -0,0 +1,557 @@
+package com.hinadt.miaocha.application.service.sql.processor;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * 列式查询结果集
+ *
+ * <p>列名只在读取元数据时解析一次，数据按列存储：整数列、浮点列和时间列使用基本类型数组，其余列使用对象数组。
+ *
+ * <p>对外以只读的 {@code List<Map<String, Object>>} 视图呈现，行对象按需创建且不复制数据，避免为每一行构建 LinkedHashMap；JSON 序列化时由
+ * {@link JsonWriter} 直接按列写出，输出与逐行 Map 序列化保持一致。
+ */
+@JsonSerialize(using = ColumnarRows.JsonWriter.class)
+public final class ColumnarRows extends AbstractList<Map<String, Object>> implements RandomAccess {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** 列名（与 ResultSet 列顺序一致） */
+    private final String[] labels;
+
+    /** 列名到列下标的映射，重名列以最后一列为准（与 LinkedHashMap.put 语义一致） */
+    private final Map<String, Integer> labelIndex;
+
+    /** 行视图中实际暴露的列下标，按列名首次出现顺序排列 */
+    private final int[] entryColumns;
+
+    /** 与 entryColumns 对应的预编码列名，序列化时复用 */
+    private final SerializedString[] entryNames;
+
+    private final ColumnVector[] vectors;
+
+    private int size;
+
+    private ColumnarRows(String[] labels, ColumnVector[] vectors) {
+        this.labels = labels;
+        this.vectors = vectors;
+
+        Map<String, Integer> index = new LinkedHashMap<>(labels.length * 2);
+        for (int i = 0; i < labels.length; i++) {
+            index.put(labels[i], i);
+        }
+        this.labelIndex = new HashMap<>(index);
+        this.entryColumns = new int[index.size()];
+        this.entryNames = new SerializedString[index.size()];
+        int e = 0;
+        for (Map.Entry<String, Integer> entry : index.entrySet()) {
+            entryColumns[e] = entry.getValue();
+            entryNames[e] = new SerializedString(entry.getKey());
+            e++;
+        }
+    }
+
+    /**
+     * 根据结果集元数据创建空的列式结果，列名和列类型只解析一次
+     *
+     * @param metaData 结果集元数据
+     * @return 空的列式结果
+     * @throws SQLException 如果读取元数据出错
+     */
+    public static ColumnarRows create(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] labels = new String[columnCount];
+        ColumnVector[] vectors = new ColumnVector[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+            vectors[i] = ColumnKind.of(metaData, i + 1).newVector();
+        }
+        return new ColumnarRows(labels, vectors);
+    }
+
+    /**
+     * 读取结果集中的全部数据
+     *
+     * @param rs 结果集
+     * @return 列式结果
+     * @throws SQLException 如果读取数据出错
+     */
+    public static ColumnarRows read(ResultSet rs) throws SQLException {
+        ColumnarRows rows = create(rs.getMetaData());
+        while (rs.next()) {
+            rows.appendRow(rs);
+        }
+        return rows;
+    }
+
+    /**
+     * 追加结果集当前行
+     *
+     * @param rs 已定位到目标行的结果集
+     * @throws SQLException 如果读取数据出错
+     */
+    public void appendRow(ResultSet rs) throws SQLException {
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i].append(rs, i + 1, size);
+        }
+        size++;
+    }
+
+    /**
+     * 追加另一个列结构相同的结果集的全部行，按列整体复制，不创建行对象
+     *
+     * @param other 列名和列类型与当前结果一致的列式结果，通常来自同一查询的另一个切片
+     * @throws IllegalArgumentException 如果列名或列类型不一致
+     */
+    public void appendAll(ColumnarRows other) {
+        if (!Arrays.equals(labels, other.labels)) {
+            throw new IllegalArgumentException(
+                    "列名不一致: " + getColumns() + " vs " + other.getColumns());
+        }
+        for (int i = 0; i < vectors.length; i++) {
+            if (vectors[i].getClass() != other.vectors[i].getClass()) {
+                throw new IllegalArgumentException("列类型不一致: " + labels[i]);
+            }
+        }
+        if (other.size == 0) {
+            return;
+        }
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i].appendAll(other.vectors[i], other.size, size);
+        }
+        size += other.size;
+        modCount++;
+    }
+
+    /** 获取列名列表 */
+    public List<String> getColumns() {
+        return List.of(labels);
+    }
+
+    /** 是否包含指定列 */
+    public boolean containsColumn(String column) {
+        return labelIndex.containsKey(column);
+    }
+
+    /**
+     * 按行号和列名读取单元格值，不创建行对象
+     *
+     * @param rowIndex 行号
+     * @param column 列名
+     * @return 单元格值，列不存在时返回null
+     */
+    public Object getValue(int rowIndex, String column) {
+        checkIndex(rowIndex);
+        Integer columnIndex = labelIndex.get(column);
+        return columnIndex != null ? vectors[columnIndex].get(rowIndex) : null;
+    }
+
+    @Override
+    public Map<String, Object> get(int index) {
+        checkIndex(index);
+        return new RowView(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /** 单行只读视图，直接引用列数据 */
+    private final class RowView extends AbstractMap<String, Object> {
+
+        private final int row;
+
+        private RowView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer columnIndex = labelIndex.get(key);
+            return columnIndex != null ? vectors[columnIndex].get(row) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return labelIndex.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return entryColumns.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < entryColumns.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int columnIndex = entryColumns[next];
+                            String label = entryNames[next++].getValue();
+                            return new SimpleImmutableEntry<>(label, vectors[columnIndex].get(row));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return entryColumns.length;
+                }
+            };
+        }
+    }
+
+    // ============================================================================
+    // 列存储
+    // ============================================================================
+
+    /** 列存储类型，根据 JDBC 元数据决定 */
+    enum ColumnKind {
+        INT,
+        LONG,
+        DOUBLE,
+        DATETIME,
+        OBJECT;
+
+        /**
+         * 根据列类型选择存储方式，装箱类型与驱动 getObject 的返回保持一致： 无符号INT由驱动返回Long；无符号BIGINT可能超出long范围，保留驱动返回的对象；
+         * 只有驱动映射为 LocalDateTime 的时间列才按基本类型存储
+         */
+        static ColumnKind of(ResultSetMetaData metaData, int column) throws SQLException {
+            return switch (metaData.getColumnType(column)) {
+                case Types.TINYINT, Types.SMALLINT -> INT;
+                case Types.INTEGER -> metaData.isSigned(column) ? INT : LONG;
+                case Types.BIGINT -> metaData.isSigned(column) ? LONG : OBJECT;
+                case Types.DOUBLE -> DOUBLE;
+                case Types.TIMESTAMP ->
+                        LocalDateTime.class.getName().equals(metaData.getColumnClassName(column))
+                                ? DATETIME
+                                : OBJECT;
+                default -> OBJECT;
+            };
+        }
+
+        ColumnVector newVector() {
+            return switch (this) {
+                case INT -> new IntVector();
+                case LONG -> new LongVector();
+                case DOUBLE -> new DoubleVector();
+                case DATETIME -> new DateTimeVector();
+                case OBJECT -> new ObjectVector();
+            };
+        }
+    }
+
+    /** 单列数据 */
+    private abstract static class ColumnVector {
+
+        /** 空值标记 */
+        protected final BitSet nulls = new BitSet();
+
+        protected int capacity = INITIAL_CAPACITY;
+
+        abstract void append(ResultSet rs, int column, int row) throws SQLException;
+
+        abstract Object get(int row);
+
+        /** 从指定行开始追加同类型列的前 count 行，count 大于0 */
+        abstract void appendAll(ColumnVector source, int count, int row);
+
+        abstract void write(int row, JsonGenerator gen, SerializerProvider provider)
+                throws IOException;
+
+        /** 确保可以写入指定行，返回新的容量（未扩容时返回-1） */
+        protected int grow(int row) {
+            if (row < capacity) {
+                return -1;
+            }
+            capacity = Math.max(capacity << 1, row + 1);
+            return capacity;
+        }
+
+        /** 复制来源列前 count 行的空值标记到从 row 开始的位置 */
+        protected void appendNulls(ColumnVector source, int count, int row) {
+            for (int i = source.nulls.nextSetBit(0);
+                    i >= 0 && i < count;
+                    i = source.nulls.nextSetBit(i + 1)) {
+                nulls.set(row + i);
+            }
+        }
+    }
+
+    private static final class IntVector extends ColumnVector {
+
+        private int[] values = new int[INITIAL_CAPACITY];
+
+        @Override
+        void append(ResultSet rs, int column, int row) throws SQLException {
+            int newCapacity = grow(row);
+            if (newCapacity > 0) {
+                values = Arrays.copyOf(values, newCapacity);
+            }
+            values[row] = rs.getInt(column);
+            if (rs.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        void appendAll(ColumnVector source, int count, int row) {
+            int newCapacity = grow(row + count - 1);
+            if (newCapacity > 0) {
+                values = Arrays.copyOf(values, newCapacity);
+            }
+            System.arraycopy(((IntVector) source).values, 0, values, row, count);
+            appendNulls(source, count, row);
+        }
+
+        @Override
+        void write(int row, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (nulls.get(row)) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(values[row]);
+            }
+        }
+    }
+
+    private static final class LongVector extends ColumnVector {
+
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        @Override
+        void append(ResultSet rs, int column, int row) throws SQLException {
+            int newCapacity = grow(row);
+            if (newCapacity > 0) {
+                values = Arrays.copyOf(values, newCapacity);
+            }
+            values[row] = rs.getLong(column);
+            if (rs.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        void appendAll(ColumnVector source, int count, int row) {
+            int newCapacity = grow(row + count - 1);
+            if (newCapacity > 0) {
+                values = Arrays.copyOf(values, newCapacity);
+            }
+            System.arraycopy(((LongVector) source).values, 0, values, row, count);
+            appendNulls(source, count, row);
+        }
+
+        @Override
+        void write(int row, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (nulls.get(row)) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(values[row]);
+            }
+        }
+    }
+
+    private static final class DoubleVector extends ColumnVector {
+
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        @Override
+        void append(ResultSet rs, int column, int row) throws SQLException {
+            int newCapacity = grow(row);
+            if (newCapacity > 0) {
+                values = Arrays.copyOf(values, newCapacity);
+            }
+            values[row] = rs.getDouble(column);
+            if (rs.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        void appendAll(ColumnVector source, int count, int row) {
+            int newCapacity = grow(row + count - 1);
+            if (newCapacity > 0) {
+                values = Arrays.copyOf(values, newCapacity);
+            }
+            System.arraycopy(((DoubleVector) source).values, 0, values, row, count);
+            appendNulls(source, count, row);
+        }
+
+        @Override
+        void write(int row, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (nulls.get(row)) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(values[row]);
+            }
+        }
+    }
+
+    /** 时间列，按 UTC 偏移存储为秒和纳秒两个基本类型数组，读取时还原为 LocalDateTime */
+    private static final class DateTimeVector extends ColumnVector {
+
+        private long[] seconds = new long[INITIAL_CAPACITY];
+        private int[] nanos = new int[INITIAL_CAPACITY];
+
+        @Override
+        void append(ResultSet rs, int column, int row) throws SQLException {
+            int newCapacity = grow(row);
+            if (newCapacity > 0) {
+                seconds = Arrays.copyOf(seconds, newCapacity);
+                nanos = Arrays.copyOf(nanos, newCapacity);
+            }
+            LocalDateTime value = rs.getObject(column, LocalDateTime.class);
+            if (value == null) {
+                nulls.set(row);
+                return;
+            }
+            seconds[row] = value.toEpochSecond(ZoneOffset.UTC);
+            nanos[row] = value.getNano();
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row)
+                    ? null
+                    : LocalDateTime.ofEpochSecond(seconds[row], nanos[row], ZoneOffset.UTC);
+        }
+
+        @Override
+        void appendAll(ColumnVector source, int count, int row) {
+            int newCapacity = grow(row + count - 1);
+            if (newCapacity > 0) {
+                seconds = Arrays.copyOf(seconds, newCapacity);
+                nanos = Arrays.copyOf(nanos, newCapacity);
+            }
+            DateTimeVector other = (DateTimeVector) source;
+            System.arraycopy(other.seconds, 0, seconds, row, count);
+            System.arraycopy(other.nanos, 0, nanos, row, count);
+            appendNulls(source, count, row);
+        }
+
+        @Override
+        void write(int row, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            // 时间格式由全局ObjectMapper配置决定，交给默认序列化器处理
+            provider.defaultSerializeValue(get(row), gen);
+        }
+    }
+
+    private static final class ObjectVector extends ColumnVector {
+
+        private Object[] values = new Object[INITIAL_CAPACITY];
+
+        @Override
+        void append(ResultSet rs, int column, int row) throws SQLException {
+            int newCapacity = grow(row);
+            if (newCapacity > 0) {
+                values = Arrays.copyOf(values, newCapacity);
+            }
+            values[row] = rs.getObject(column);
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void appendAll(ColumnVector source, int count, int row) {
+            int newCapacity = grow(row + count - 1);
+            if (newCapacity > 0) {
+                values = Arrays.copyOf(values, newCapacity);
+            }
+            System.arraycopy(((ObjectVector) source).values, 0, values, row, count);
+            appendNulls(source, count, row);
+        }
+
+        @Override
+        void write(int row, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            provider.defaultSerializeValue(values[row], gen);
+        }
+    }
+
+    // ============================================================================
+    // JSON 序列化
+    // ============================================================================
+
+    /** 直接按列写出 JSON，不构建中间行对象 */
+    public static final class JsonWriter extends StdSerializer<ColumnarRows> {
+
+        public JsonWriter() {
+            super(ColumnarRows.class);
+        }
+
+        @Override
+        public void serialize(ColumnarRows rows, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartArray(rows, rows.size);
+            for (int row = 0; row < rows.size; row++) {
+                gen.writeStartObject();
+                for (int e = 0; e < rows.entryColumns.length; e++) {
+                    gen.writeFieldName(rows.entryNames[e]);
+                    rows.vectors[rows.entryColumns[e]].write(row, gen, provider);
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
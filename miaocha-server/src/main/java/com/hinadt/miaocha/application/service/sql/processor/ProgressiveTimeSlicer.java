@@ -0,0 +1,109 @@
+package com.hinadt.miaocha.application.service.sql.processor;
+
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 明细查询的时间切片
+ *
+ * <p>按时间倒序的明细查询首页通常只需要最近几分钟的数据，把整个时间范围交给 Doris 会扫描远多于一页的数据。
+ * 切片从结束时间开始向前划分，每片的宽度按倍数增长；前面的切片已经查到部分数据时，按已查到的数据密度估算剩余行数需要的宽度，
+ * 取两者中较大的值。最后一片（或剩余范围不足一片时）直接覆盖到开始时间，过滤条件很稀疏时退化为查询剩余的整个范围。
+ *
+ * <p>实例有状态，每次查询创建一个，不可在线程间共享
+ */
+public final class ProgressiveTimeSlicer {
+
+    /** 按数据密度估算宽度时的余量，避免估算偏小时多查一片 */
+    private static final double DENSITY_MARGIN = 1.5;
+
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final int growthFactor;
+    private final int maxSlices;
+
+    private LocalDateTime upper;
+    private Duration nextWidth;
+    private int slices;
+
+    private ProgressiveTimeSlicer(
+            LocalDateTime start,
+            LocalDateTime end,
+            Duration initialSlice,
+            int growthFactor,
+            int maxSlices) {
+        this.start = start;
+        this.end = end;
+        this.growthFactor = growthFactor;
+        this.maxSlices = maxSlices;
+        this.upper = end;
+        this.nextWidth = initialSlice;
+    }
+
+    /**
+     * 创建时间切片
+     *
+     * @param range 需要切分的时间范围，左闭右开
+     * @param config 切片配置
+     * @return 时间切片，配置关闭、时间无法解析或范围不足最小切分范围时返回null
+     */
+    public static ProgressiveTimeSlicer create(
+            TimeWindow range, LogSearchProperties.TimeSlicing config) {
+        if (range == null || !config.isEnabled() || config.getMaxSlices() < 2) {
+            return null;
+        }
+        LocalDateTime start = TimeWindow.parse(range.start());
+        LocalDateTime end = TimeWindow.parse(range.end());
+        if (start == null || end == null || !start.isBefore(end)) {
+            return null;
+        }
+        if (Duration.between(start, end).getSeconds() < config.getMinRangeSeconds()) {
+            return null;
+        }
+        return new ProgressiveTimeSlicer(
+                start,
+                end,
+                Duration.ofSeconds(Math.max(1, config.getInitialSliceSeconds())),
+                Math.max(2, config.getGrowthFactor()),
+                config.getMaxSlices());
+    }
+
+    /**
+     * 获取下一个时间切片
+     *
+     * @param rowsFound 之前的切片已查到的行数
+     * @param rowsNeeded 总共需要的行数
+     * @return 下一个切片，左闭右开，时间范围已全部切完时返回null
+     */
+    public TimeWindow next(int rowsFound, int rowsNeeded) {
+        if (!upper.isAfter(start)) {
+            return null;
+        }
+        Duration width = nextWidth;
+        Duration covered = Duration.between(upper, end);
+        if (rowsFound > 0 && rowsFound < rowsNeeded && !covered.isZero()) {
+            double ratio = (double) (rowsNeeded - rowsFound) / rowsFound * DENSITY_MARGIN;
+            Duration estimated = Duration.ofMillis((long) (covered.toMillis() * ratio));
+            if (estimated.compareTo(width) > 0) {
+                width = estimated;
+            }
+        }
+
+        LocalDateTime lower = upper.minus(width);
+        // 最后一片或剩余范围不足下一片宽度时一次查到开始时间
+        if (++slices >= maxSlices || !lower.minus(width).isAfter(start)) {
+            lower = start;
+        }
+        TimeWindow slice = TimeWindow.of(lower, upper);
+        upper = lower;
+        nextWidth = width.multipliedBy(growthFactor);
+        return slice;
+    }
+
+    /** 已划分的切片数 */
+    public int getSlices() {
+        return slices;
+    }
+}
@@ -8,6 +8,9 @@ import lombok.Data;
  * 结构化查询结果
  *
  * <p>替代Map&lt;String, Object&gt;，提供类型安全的查询结果访问
+ *
+ * <p>由 {@link #columnar(ColumnarRows)} 创建的结果以列式存储数据，rows 为只读的行视图， 可通过 {@link #getValue(int,
+ * String)} 直接按列读取而不创建行对象
  */
 @Data
 public class QueryResult {
@@ -21,6 +24,24 @@ public class QueryResult {
     /** 总行数（用于分页） */
     private Long totalCount;
 
+    /**
+     * 创建列式查询结果
+     *
+     * @param columnarRows 列式结果集
+     * @return 查询结果
+     */
+    public static QueryResult columnar(ColumnarRows columnarRows) {
+        QueryResult result = new QueryResult();
+        result.setColumns(columnarRows.getColumns());
+        result.setRows(columnarRows);
+        return result;
+    }
+
+    /** 是否为列式结果 */
+    public boolean isColumnar() {
+        return rows instanceof ColumnarRows;
+    }
+
     /** 是否有数据 */
     public boolean hasData() {
         return rows != null && !rows.isEmpty();
@@ -35,4 +56,32 @@ public class QueryResult {
     public int getRowCount() {
         return rows != null ? rows.size() : 0;
     }
+
+    /**
+     * 判断指定行是否包含某列
+     *
+     * @param rowIndex 行号
+     * @param column 列名
+     * @return 是否包含该列
+     */
+    public boolean hasColumn(int rowIndex, String column) {
+        if (rows instanceof ColumnarRows columnarRows) {
+            return columnarRows.containsColumn(column);
+        }
+        return rows.get(rowIndex).containsKey(column);
+    }
+
+    /**
+     * 读取指定行指定列的值，列式结果直接按列读取，不创建行对象
+     *
+     * @param rowIndex 行号
+     * @param column 列名
+     * @return 列值，不存在时返回null
+     */
+    public Object getValue(int rowIndex, String column) {
+        if (rows instanceof ColumnarRows columnarRows) {
+            return columnarRows.getValue(rowIndex, column);
+        }
+        return rows.get(rowIndex).get(column);
+    }
 }
@@ -44,16 +44,17 @@ public class ResultProcessor {
 
         if (queryResult.hasData()) {
             // 直接使用数据库返回的顺序，因为SQL已经按TIME_ALIAS升序排序
-            for (Map<String, Object> row : queryResult.getRows()) {
+            // 按行号读取列值，列式结果不会为每个桶创建行对象
+            for (int i = 0; i < queryResult.getRowCount(); i++) {
                 LogHistogramResultDTO.LogDistributionData data =
                         new LogHistogramResultDTO.LogDistributionData();
 
-                if (row.containsKey(TIME_ALIAS)) {
-                    String timePoint = formatTimePoint(row.get(TIME_ALIAS));
+                if (queryResult.hasColumn(i, TIME_ALIAS)) {
+                    String timePoint = formatTimePoint(queryResult.getValue(i, TIME_ALIAS));
                     data.setTimePoint(timePoint);
                 }
 
-                data.setCount(getCountValue(row));
+                data.setCount(getCountValue(queryResult, i));
                 distributionData.add(data);
             }
         }
@@ -64,6 +65,8 @@ public class ResultProcessor {
     /**
      * 处理详细日志查询结果
      *
+     * <p>列式结果直接作为行列表透传，由其自带的序列化器按列写出JSON，不做逐行复制
+     *
      * @param queryResult 结构化查询结果
      * @param result 日志明细结果DTO，用于填充列名和数据行
      */
@@ -83,13 +86,10 @@ public class ResultProcessor {
     public long processTotalCountResult(QueryResult queryResult) {
         long totalCount = 0L;
 
-        if (queryResult != null && queryResult.hasData()) {
-            Map<String, Object> firstRow = queryResult.getFirstRow();
-            if (firstRow.containsKey(TOTAL_ALIAS)) {
-                Object totalObj = firstRow.get(TOTAL_ALIAS);
-                if (totalObj instanceof Number) {
-                    totalCount = ((Number) totalObj).longValue();
-                }
+        if (queryResult != null && queryResult.hasData() && queryResult.hasColumn(0, TOTAL_ALIAS)) {
+            Object totalObj = queryResult.getValue(0, TOTAL_ALIAS);
+            if (totalObj instanceof Number) {
+                totalCount = ((Number) totalObj).longValue();
             }
         }
 
@@ -186,14 +186,15 @@ public class ResultProcessor {
     }
 
     /**
-     * 从行数据中获取count字段值
+     * 从指定行中获取count字段值
      *
-     * @param row 行数据
+     * @param queryResult 结构化查询结果
+     * @param rowIndex 行号
      * @return count值
      */
-    private long getCountValue(Map<String, Object> row) {
-        if (row.containsKey(COUNT_ALIAS)) {
-            Object countObj = row.get(COUNT_ALIAS);
+    private long getCountValue(QueryResult queryResult, int rowIndex) {
+        if (queryResult.hasColumn(rowIndex, COUNT_ALIAS)) {
+            Object countObj = queryResult.getValue(rowIndex, COUNT_ALIAS);
             if (countObj instanceof Number) {
                 return ((Number) countObj).longValue();
             }
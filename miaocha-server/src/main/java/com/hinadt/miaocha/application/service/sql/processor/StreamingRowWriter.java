@@ -0,0 +1,154 @@
+package com.hinadt.miaocha.application.service.sql.processor;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 结果集流式写出器
+ *
+ * <p>逐行读取 ResultSet 并直接写入 JsonGenerator，内存中不保留任何行数据。列类型判断与 {@link ColumnarRows} 保持一致，输出的 JSON
+ * 与非流式明细查询的 rows 相同。
+ */
+public final class StreamingRowWriter {
+
+    private final List<String> columns;
+
+    /** 实际写出的列下标，重名列以最后一列为准 */
+    private final int[] entryColumns;
+
+    private final SerializedString[] entryNames;
+
+    private final ColumnarRows.ColumnKind[] kinds;
+
+    private StreamingRowWriter(
+            List<String> columns,
+            int[] entryColumns,
+            SerializedString[] entryNames,
+            ColumnarRows.ColumnKind[] kinds) {
+        this.columns = columns;
+        this.entryColumns = entryColumns;
+        this.entryNames = entryNames;
+        this.kinds = kinds;
+    }
+
+    /**
+     * 根据结果集元数据创建写出器，列名和列类型只解析一次
+     *
+     * @param metaData 结果集元数据
+     * @return 写出器
+     * @throws SQLException 如果读取元数据出错
+     */
+    public static StreamingRowWriter create(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] labels = new String[columnCount];
+        ColumnarRows.ColumnKind[] kinds = new ColumnarRows.ColumnKind[columnCount];
+        Map<String, Integer> index = new LinkedHashMap<>(columnCount * 2);
+        for (int i = 0; i < columnCount; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+            kinds[i] = ColumnarRows.ColumnKind.of(metaData, i + 1);
+            index.put(labels[i], i);
+        }
+
+        int[] entryColumns = new int[index.size()];
+        SerializedString[] entryNames = new SerializedString[index.size()];
+        int e = 0;
+        for (Map.Entry<String, Integer> entry : index.entrySet()) {
+            entryColumns[e] = entry.getValue();
+            entryNames[e] = new SerializedString(entry.getKey());
+            e++;
+        }
+        return new StreamingRowWriter(List.of(labels), entryColumns, entryNames, kinds);
+    }
+
+    /** 获取列名列表 */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * 逐行写出结果集，每行写为一个JSON对象
+     *
+     * <p>首行写出后立即刷新，之后每 flushRows 行刷新一次，使客户端尽早收到数据。时间和其他类型的值通过关闭了 FLUSH_AFTER_WRITE_VALUE 的
+     * ObjectWriter 序列化，不会在每个值之后刷新输出流
+     *
+     * @param rs 结果集
+     * @param generator JSON生成器，需位于数组上下文中，codec 为 ObjectMapper
+     * @param flushRows 刷新间隔行数，小于等于0时只在首行刷新
+     * @return 写出的行数
+     * @throws SQLException 如果读取数据出错
+     * @throws IOException 如果写出失败（如客户端断开连接）
+     */
+    public long writeRows(ResultSet rs, JsonGenerator generator, int flushRows)
+            throws SQLException, IOException {
+        ObjectWriter valueWriter = valueWriter(generator);
+        long rowCount = 0;
+        while (rs.next()) {
+            writeRow(rs, generator, valueWriter);
+            rowCount++;
+            if (rowCount == 1 || (flushRows > 0 && rowCount % flushRows == 0)) {
+                generator.flush();
+            }
+        }
+        return rowCount;
+    }
+
+    /** 由生成器的 ObjectMapper 创建不在每个值之后刷新的写出器，序列化配置与全局一致 */
+    private static ObjectWriter valueWriter(JsonGenerator generator) {
+        if (!(generator.getCodec() instanceof ObjectMapper objectMapper)) {
+            throw new IllegalArgumentException("JsonGenerator 需由 ObjectMapper 创建");
+        }
+        return objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /** 写出单行：数值列直接写基本类型，时间和其他类型交给ObjectWriter按全局配置序列化 */
+    private void writeRow(ResultSet rs, JsonGenerator generator, ObjectWriter valueWriter)
+            throws SQLException, IOException {
+        generator.writeStartObject();
+        for (int e = 0; e < entryColumns.length; e++) {
+            int column = entryColumns[e] + 1;
+            generator.writeFieldName(entryNames[e]);
+            switch (kinds[entryColumns[e]]) {
+                case INT -> {
+                    int value = rs.getInt(column);
+                    if (rs.wasNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                }
+                case LONG -> {
+                    long value = rs.getLong(column);
+                    if (rs.wasNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                }
+                case DOUBLE -> {
+                    double value = rs.getDouble(column);
+                    if (rs.wasNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                }
+                case DATETIME ->
+                        valueWriter.writeValue(
+                                generator, rs.getObject(column, LocalDateTime.class));
+                default -> valueWriter.writeValue(generator, rs.getObject(column));
+            }
+        }
+        generator.writeEndObject();
+    }
+}
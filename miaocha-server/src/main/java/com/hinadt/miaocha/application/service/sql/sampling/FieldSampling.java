@@ -0,0 +1,17 @@
+package com.hinadt.miaocha.application.service.sql.sampling;
+
+/**
+ * 字段分布采样参数
+ *
+ * @param strategy 采样策略
+ * @param sampleSize 采样条数
+ * @param strata 分层采样的时间分层数
+ * @param tableSamplePercent TABLESAMPLE 采样的数据比例（百分比）
+ */
+public record FieldSampling(
+        SamplingStrategy strategy, int sampleSize, int strata, int tableSamplePercent) {
+
+    /** 默认采样参数：最新1000条 */
+    public static final FieldSampling DEFAULT =
+            new FieldSampling(SamplingStrategy.LATEST, 1000, 10, 10);
+}
@@ -0,0 +1,25 @@
+package com.hinadt.miaocha.application.service.sql.sampling;
+
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+
+/**
+ * 采样查询的构建参数
+ *
+ * @param selectClause 采样查询的SELECT子句，只包含统计需要的列
+ * @param tableName 表名
+ * @param timeField 时间字段名
+ * @param startTime 开始时间
+ * @param endTime 结束时间
+ * @param keywordConditions 关键字条件，可为空片段
+ * @param whereConditions 用户WHERE条件，可为空片段
+ * @param sampling 采样参数
+ */
+public record SampleQuery(
+        String selectClause,
+        String tableName,
+        String timeField,
+        String startTime,
+        String endTime,
+        BoundSql keywordConditions,
+        BoundSql whereConditions,
+        FieldSampling sampling) {}
@@ -0,0 +1,137 @@
+package com.hinadt.miaocha.application.service.sql.sampling;
+
+import static com.hinadt.miaocha.application.service.sql.expression.SqlFragment.*;
+
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
+import com.hinadt.miaocha.common.exception.BusinessException;
+import com.hinadt.miaocha.common.exception.ErrorCode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 字段分布采样策略
+ *
+ * <p>定义字段分布统计的采样方式及其采样SQL，采样结果作为TOPN统计的子查询
+ */
+public enum SamplingStrategy {
+
+    /** 时间范围内最新的N条，偏向时间范围的末尾，但只需读取最新的数据 */
+    LATEST {
+        @Override
+        public BoundSql buildSampleQuery(SampleQuery query) {
+            return latest(query, query.startTime(), query.endTime(), sampleSize(query));
+        }
+    },
+
+    /** 在整个时间范围内随机抽取N条，结果有代表性，但需要扫描范围内全部数据的采样列 */
+    UNIFORM {
+        @Override
+        public BoundSql buildSampleQuery(SampleQuery query) {
+            return BoundSql.of(query.selectClause() + from(query.tableName()))
+                    .append(where(query, query.startTime(), query.endTime()))
+                    .append(" ORDER BY RAND()" + limit(sampleSize(query), 0));
+        }
+    },
+
+    /**
+     * 把时间范围等分为若干层，每层取最新的 N/层数 条，与时间分布柱状图的分桶思路一致
+     *
+     * <p>每层都是带时间条件的 TopN 查询，可以按分区裁剪，时间范围无法解析时退化为 LATEST
+     */
+    STRATIFIED {
+        @Override
+        public BoundSql buildSampleQuery(SampleQuery query) {
+            LocalDateTime start = TimeWindow.parse(query.startTime());
+            LocalDateTime end = TimeWindow.parse(query.endTime());
+            int sampleSize = sampleSize(query);
+            int strata = Math.min(query.sampling().strata(), sampleSize);
+            if (start == null || end == null || strata <= 1 || !start.isBefore(end)) {
+                return LATEST.buildSampleQuery(query);
+            }
+            Duration step = Duration.between(start, end).dividedBy(strata);
+            if (step.isZero()) {
+                return LATEST.buildSampleQuery(query);
+            }
+
+            List<BoundSql> parts = new ArrayList<>(strata);
+            String sliceStart = query.startTime();
+            for (int i = 0; i < strata; i++) {
+                String sliceEnd =
+                        i == strata - 1
+                                ? query.endTime()
+                                : TimeWindow.format(start.plus(step.multipliedBy(i + 1L)));
+                int sliceSize = sampleSize / strata + (i < sampleSize % strata ? 1 : 0);
+                parts.add(latest(query, sliceStart, sliceEnd, sliceSize).wrap("(", ")"));
+                sliceStart = sliceEnd;
+            }
+            return BoundSql.join(" UNION ALL ", parts);
+        }
+    },
+
+    /**
+     * 使用 Doris TABLESAMPLE 按比例抽取数据分片后再过滤，读取的数据量最少
+     *
+     * <p>按分片采样，分片内数据按时间聚集时结果可能偏向部分时间段，过滤条件很严格时可能采不满N条
+     */
+    TABLESAMPLE {
+        @Override
+        public BoundSql buildSampleQuery(SampleQuery query) {
+            int percent = Math.max(1, Math.min(100, query.sampling().tableSamplePercent()));
+            return BoundSql.of(
+                            query.selectClause()
+                                    + from(query.tableName())
+                                    + " TABLESAMPLE("
+                                    + percent
+                                    + " PERCENT)")
+                    .append(where(query, query.startTime(), query.endTime()))
+                    .append(limit(sampleSize(query), 0));
+        }
+    };
+
+    /**
+     * 构建采样查询SQL
+     *
+     * @param query 采样查询参数
+     * @return 采样查询SQL，作为字段分布统计的子查询
+     */
+    public abstract BoundSql buildSampleQuery(SampleQuery query);
+
+    /**
+     * 根据名称获取采样策略，忽略大小写
+     *
+     * @param name 策略名称
+     * @return 采样策略，名称为空时返回null
+     * @throws BusinessException 如果策略不存在
+     */
+    public static SamplingStrategy of(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        for (SamplingStrategy strategy : values()) {
+            if (strategy.name().equalsIgnoreCase(name.trim())) {
+                return strategy;
+            }
+        }
+        throw new BusinessException(ErrorCode.VALIDATION_ERROR, "不支持的字段分布采样策略: " + name);
+    }
+
+    private static BoundSql latest(
+            SampleQuery query, String startTime, String endTime, int sampleSize) {
+        return BoundSql.of(query.selectClause() + from(query.tableName()))
+                .append(where(query, startTime, endTime))
+                .append(orderBy(query.timeField(), "DESC") + limit(sampleSize, 0));
+    }
+
+    private static BoundSql where(SampleQuery query, String startTime, String endTime) {
+        BoundSql timeCondition =
+                timeWindows(query.timeField(), List.of(new TimeWindow(startTime, endTime)));
+        return buildWhereClause(timeCondition, query.keywordConditions(), query.whereConditions());
+    }
+
+    private static int sampleSize(SampleQuery query) {
+        return Math.max(1, query.sampling().sampleSize());
+    }
+}
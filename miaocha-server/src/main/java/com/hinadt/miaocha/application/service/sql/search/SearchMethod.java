@@ -1,42 +1,44 @@
 package com.hinadt.miaocha.application.service.sql.search;
 
+import com.hinadt.miaocha.application.service.sql.BoundSql;
 import com.hinadt.miaocha.application.service.sql.expression.FieldExpressionParser;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
+import java.util.List;
 import lombok.Getter;
 
 /**
  * 搜索方法枚举
  *
- * <p>定义所有支持的搜索方法及其SQL生成逻辑，支持复杂表达式解析
+ * <p>定义所有支持的搜索方法及其SQL生成逻辑，支持复杂表达式解析。关键字作为绑定参数，不写入SQL文本
  */
 @Getter
 public enum SearchMethod implements SearchMethodHandler {
     LIKE("LIKE") {
         @Override
-        public String buildSingleCondition(String fieldName, String keyword) {
-            return fieldName + " LIKE '%" + keyword + "%'";
+        public BoundSql buildSingleCondition(String fieldName, String keyword) {
+            return new BoundSql(fieldName + " LIKE ?", List.of("%" + keyword + "%"));
         }
     },
 
     MATCH_PHRASE("MATCH_PHRASE") {
         @Override
-        public String buildSingleCondition(String fieldName, String keyword) {
-            return fieldName + " MATCH_PHRASE '" + keyword + "'";
+        public BoundSql buildSingleCondition(String fieldName, String keyword) {
+            return new BoundSql(fieldName + " MATCH_PHRASE ?", List.of(keyword));
         }
     },
 
     MATCH_ANY("MATCH_ANY") {
         @Override
-        public String buildSingleCondition(String fieldName, String keyword) {
-            return fieldName + " MATCH_ANY '" + keyword + "'";
+        public BoundSql buildSingleCondition(String fieldName, String keyword) {
+            return new BoundSql(fieldName + " MATCH_ANY ?", List.of(keyword));
         }
     },
 
     MATCH_ALL("MATCH_ALL") {
         @Override
-        public String buildSingleCondition(String fieldName, String keyword) {
-            return fieldName + " MATCH_ALL '" + keyword + "'";
+        public BoundSql buildSingleCondition(String fieldName, String keyword) {
+            return new BoundSql(fieldName + " MATCH_ALL ?", List.of(keyword));
         }
     };
 
@@ -52,9 +54,9 @@ public enum SearchMethod implements SearchMethodHandler {
     }
 
     @Override
-    public String parseExpression(String fieldName, String expression) {
+    public BoundSql parseExpression(String fieldName, String expression) {
         if (expression == null || expression.trim().isEmpty()) {
-            return "";
+            return BoundSql.EMPTY;
         }
 
         FieldExpressionParser parser = new FieldExpressionParser(fieldName, this);
@@ -65,20 +67,20 @@ public enum SearchMethod implements SearchMethodHandler {
      * 生成单个字段条件的SQL
      *
      * @param fieldName 字段名
-     * @param keyword 已转义的关键字
-     * @return SQL条件字符串
+     * @param keyword 关键字，作为绑定参数
+     * @return SQL条件
      */
-    public abstract String buildSingleCondition(String fieldName, String keyword);
+    public abstract BoundSql buildSingleCondition(String fieldName, String keyword);
 
     /**
      * 生成单个字段的NOT条件SQL
      *
      * @param fieldName 字段名
-     * @param keyword 已转义的关键字
-     * @return NOT SQL条件字符串
+     * @param keyword 关键字，作为绑定参数
+     * @return NOT SQL条件
      */
-    public String buildNotCondition(String fieldName, String keyword) {
-        return "NOT " + buildSingleCondition(fieldName, keyword);
+    public BoundSql buildNotCondition(String fieldName, String keyword) {
+        return buildSingleCondition(fieldName, keyword).wrap("NOT ", "");
     }
 
     /** 根据搜索方法名称获取对应的枚举 */
@@ -1,5 +1,7 @@
 package com.hinadt.miaocha.application.service.sql.search;
 
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+
 /** 搜索方法处理器接口 */
 public interface SearchMethodHandler {
 
@@ -8,9 +10,9 @@ public interface SearchMethodHandler {
      *
      * @param fieldName 字段名
      * @param expression 搜索表达式
-     * @return SQL条件字符串
+     * @return SQL条件，关键字作为绑定参数
      */
-    String parseExpression(String fieldName, String expression);
+    BoundSql parseExpression(String fieldName, String expression);
 
     /**
      * 判断是否支持指定的搜索方法
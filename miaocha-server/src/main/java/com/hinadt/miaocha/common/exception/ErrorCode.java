@@ -17,6 +17,7 @@ public enum ErrorCode {
     DATASOURCE_CONNECTION_FAILED("2003", "数据源连接失败"),
     DATASOURCE_TYPE_NOT_SUPPORTED("2004", "不支持的数据源类型"),
     DATASOURCE_IN_USE("2005", "数据源正在被模块使用，无法删除"),
+    DATASOURCE_BUSY("2006", "数据源查询繁忙，请稍后重试"),
 
     // 用户相关错误码
     USER_NOT_FOUND("3001", "用户不存在"),
@@ -88,6 +89,8 @@ public enum ErrorCode {
     LOG_COUNT_QUERY_FAILED("9102", "日志总数查询失败"),
     LOG_HISTOGRAM_QUERY_FAILED("9103", "日志时间分布查询失败"),
     LOG_FIELD_DISTRIBUTION_QUERY_FAILED("9104", "日志字段分布查询失败"),
+    LOG_QUERY_TIMEOUT("9105", "日志查询超时"),
+    LOG_QUERY_CANCELLED("9106", "日志查询已取消"),
 
     // 表结构校验相关错误码
     TABLE_MESSAGE_FIELD_MISSING("7015", "表结构中缺少必需的message字段，无法进行关键字搜索"),
@@ -33,7 +33,12 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(BusinessException.class)
     public ResponseEntity<ApiResponse<Void>> handleBusinessException(BusinessException e) {
         ApiResponse<Void> response = ApiResponse.error(e.getErrorCode().getCode(), e.getMessage());
-        return createResponseEntityWithUtf8(response, HttpStatus.BAD_REQUEST);
+        // 查询繁忙是临时状态，返回 503 以便客户端稍后重试
+        HttpStatus status =
+                e.getErrorCode() == ErrorCode.DATASOURCE_BUSY
+                        ? HttpStatus.SERVICE_UNAVAILABLE
+                        : HttpStatus.BAD_REQUEST;
+        return createResponseEntityWithUtf8(response, status);
     }
 
     /** 关键字语法异常处理 */
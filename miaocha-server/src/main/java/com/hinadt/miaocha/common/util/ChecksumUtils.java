@@ -0,0 +1,63 @@
+package com.hinadt.miaocha.common.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 文件校验和工具类
+ *
+ * <p>计算结果按文件路径缓存，文件大小或修改时间变化后重新计算，避免每次分发安装包都重新读取整个文件
+ */
+public class ChecksumUtils {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final Map<Path, CachedChecksum> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 计算文件的SHA-256
+     *
+     * @param file 本地文件
+     * @return 小写十六进制的SHA-256
+     * @throws IOException 如果读取文件失败
+     */
+    public static String sha256(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        long size = Files.size(key);
+        long lastModified = Files.getLastModifiedTime(key).toMillis();
+        CachedChecksum cached = CACHE.get(key);
+        if (cached != null && cached.size() == size && cached.lastModified() == lastModified) {
+            return cached.checksum();
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("不支持SHA-256算法", e);
+        }
+        try (InputStream in = Files.newInputStream(key)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, len);
+            }
+        }
+        String checksum = HexFormat.of().formatHex(digest.digest());
+        CACHE.put(key, new CachedChecksum(size, lastModified, checksum));
+        return checksum;
+    }
+
+    private record CachedChecksum(long size, long lastModified, String checksum) {}
+
+    private ChecksumUtils() {
+        // 工具类，禁止实例化
+    }
+}
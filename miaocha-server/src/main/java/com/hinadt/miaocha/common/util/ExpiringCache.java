@@ -0,0 +1,144 @@
+package com.hinadt.miaocha.common.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 带过期时间的本地LRU缓存
+ *
+ * <p>条目写入后经过 ttl 过期，容量超过 maxSize 时淘汰最久未访问的条目。所有操作在同一把锁内完成， 适用于条目数量不大、读多写少的场景。过期条目在访问或写入时惰性清理。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class ExpiringCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    /**
+     * 创建缓存
+     *
+     * @param maxSize 最大条目数
+     * @param ttl 条目存活时间
+     */
+    public ExpiringCache(int maxSize, Duration ttl) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = ttl.toNanos();
+        this.entries =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                        return size() > ExpiringCache.this.maxSize;
+                    }
+                };
+    }
+
+    /**
+     * 获取未过期的缓存值
+     *
+     * @param key 键
+     * @return 缓存值，不存在或已过期时返回null
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param key 键
+     * @param value 值，为null时移除该键
+     */
+    public synchronized void put(K key, V value) {
+        if (value == null) {
+            entries.remove(key);
+            return;
+        }
+        long now = System.nanoTime();
+        entries.put(key, new Entry<>(value, now + ttlNanos));
+        if (entries.size() == maxSize) {
+            purgeExpired(now);
+        }
+    }
+
+    /**
+     * 获取缓存值，不存在时通过 loader 加载并写入
+     *
+     * <p>加载在锁外执行，同一键并发未命中时可能重复加载
+     *
+     * @param key 键
+     * @param loader 加载函数，返回null时不缓存
+     * @return 缓存值或加载结果
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        value = loader.apply(key);
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * 移除指定键
+     *
+     * @param key 键
+     */
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * 移除满足条件的所有键
+     *
+     * @param predicate 键过滤条件
+     */
+    public synchronized void invalidateIf(Predicate<? super K> predicate) {
+        entries.keySet().removeIf(predicate);
+    }
+
+    /** 清空缓存 */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 当前条目数（可能包含尚未清理的过期条目）
+     *
+     * @return 条目数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void purgeExpired(long now) {
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private record Entry<V>(V value, long expireAtNanos) {
+
+        boolean isExpired(long now) {
+            return now - expireAtNanos >= 0;
+        }
+    }
+}
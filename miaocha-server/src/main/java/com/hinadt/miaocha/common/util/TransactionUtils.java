@@ -0,0 +1,31 @@
+package com.hinadt.miaocha.common.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/** 事务工具类 */
+public final class TransactionUtils {
+
+    private TransactionUtils() {}
+
+    /**
+     * 在当前事务提交后执行操作，没有活动事务时立即执行
+     *
+     * <p>用于缓存失效、事件通知等不应早于数据提交的操作，事务回滚时不执行
+     *
+     * @param action 操作
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+                });
+    }
+}
@@ -0,0 +1,282 @@
+package com.hinadt.miaocha.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** 日志检索配置属性 */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "miaocha.log-search")
+public class LogSearchProperties {
+
+    /**
+     * 单个检索请求最多使用的数据库连接数（含主连接）
+     *
+     * <p>明细和总数等子查询各自租用连接并行执行，达到上限后退回主连接串行执行；设为1时所有子查询共享主连接
+     */
+    private int maxConnectionsPerRequest = 2;
+
+    /**
+     * 组合检索请求最多使用的数据库连接数（含主连接）
+     *
+     * <p>组合检索并行执行明细、时间分布和字段分布，每部分各自占用一个连接，明细的总数子查询也可能租用连接
+     */
+    private int maxConnectionsPerCombinedRequest = 4;
+
+    /**
+     * 是否以参数化的预编译语句执行检索SQL
+     *
+     * <p>构建器生成的SQL中关键字和时间等取值都是占位符，启用时作为绑定参数传输，同一查询形态的SQL文本相同，
+     * 可复用连接上缓存的服务端预编译语句；关闭时参数转义后写回SQL，以普通语句执行
+     */
+    private boolean parameterizedQueries = true;
+
+    /** 明细流式输出配置 */
+    private Streaming streaming = new Streaming();
+
+    /** 查询超时配置 */
+    private QueryTimeout queryTimeout = new QueryTimeout();
+
+    /** 总数缓存配置 */
+    private CountCache countCache = new CountCache();
+
+    /** 时间分布增量缓存配置 */
+    private HistogramCache histogramCache = new HistogramCache();
+
+    /** 字段分布采样配置 */
+    private FieldSampling fieldSampling = new FieldSampling();
+
+    /** 已编译查询条件缓存配置 */
+    private ConditionCache conditionCache = new ConditionCache();
+
+    /** 模块元数据缓存配置 */
+    private ModuleCache moduleCache = new ModuleCache();
+
+    /** 相同检索合并配置 */
+    private Coalescing coalescing = new Coalescing();
+
+    /** 聚合查询加速配置 */
+    private Aggregation aggregation = new Aggregation();
+
+    /** 明细查询时间切片配置 */
+    private TimeSlicing timeSlicing = new TimeSlicing();
+
+    /** 明细流式输出配置 */
+    @Data
+    public static class Streaming {
+
+        /**
+         * 明细查询的 JDBC fetchSize
+         *
+         * <p>0 表示使用驱动的逐行流式读取（Integer.MIN_VALUE）；大于0时按批读取，需要在 JDBC URL 中开启 useCursorFetch
+         */
+        private int fetchSize = 0;
+
+        /** 每输出多少行刷新一次响应 */
+        private int flushRows = 500;
+
+        /**
+         * 获取实际传给 Statement 的 fetchSize
+         *
+         * @return fetchSize
+         */
+        public int getStatementFetchSize() {
+            return fetchSize > 0 ? fetchSize : Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * 查询超时配置
+     *
+     * <p>优先级：模块查询配置中的 queryTimeoutSeconds &gt; 角色配置 &gt; 默认值
+     */
+    @Data
+    public static class QueryTimeout {
+
+        /** 默认超时时间（秒） */
+        private int defaultSeconds = 60;
+
+        /** 按角色配置的超时时间（秒），key 为角色名，如 USER、ADMIN、SUPER_ADMIN */
+        private Map<String, Integer> roles = new HashMap<>();
+
+        /**
+         * 解析超时时间
+         *
+         * @param moduleSeconds 模块配置的超时时间，可为空
+         * @param role 当前用户角色，可为空
+         * @return 超时时间（秒）
+         */
+        public int resolveSeconds(Integer moduleSeconds, String role) {
+            if (moduleSeconds != null && moduleSeconds > 0) {
+                return moduleSeconds;
+            }
+            Integer roleSeconds = role != null ? roles.get(role) : null;
+            if (roleSeconds != null && roleSeconds > 0) {
+                return roleSeconds;
+            }
+            return defaultSeconds;
+        }
+    }
+
+    /**
+     * 总数缓存配置
+     *
+     * <p>翻页时只有偏移量变化，相同模块、过滤条件和绝对时间窗口的总数直接复用缓存
+     */
+    @Data
+    public static class CountCache {
+
+        /** 是否启用 */
+        private boolean enabled = true;
+
+        /** 缓存有效期（秒），时间窗口覆盖当前时刻时数据仍在写入，不宜过长 */
+        private int ttlSeconds = 60;
+
+        /** 最大缓存条目数 */
+        private int maxSize = 2000;
+    }
+
+    /**
+     * 时间分布增量缓存配置
+     *
+     * <p>按 模块 + 过滤条件 + 时间颗粒度 缓存已经结束的时间桶，刷新相对时间范围时只查询首尾未缓存的部分
+     */
+    @Data
+    public static class HistogramCache {
+
+        /** 是否启用 */
+        private boolean enabled = true;
+
+        /** 缓存有效期（秒），超过后重新全量统计 */
+        private int ttlSeconds = 600;
+
+        /** 最大缓存条目数 */
+        private int maxSize = 500;
+
+        /** 时间桶结束后经过多少秒才视为稳定并缓存，用于容忍日志写入延迟 */
+        private int settleSeconds = 30;
+    }
+
+    /**
+     * 字段分布采样配置
+     *
+     * <p>模块查询配置中的 fieldSampleStrategy、fieldSampleSize 优先于这里的默认值
+     */
+    @Data
+    public static class FieldSampling {
+
+        /** 默认采样策略：LATEST、UNIFORM、STRATIFIED、TABLESAMPLE */
+        private String strategy = "LATEST";
+
+        /** 默认采样条数 */
+        private int sampleSize = 1000;
+
+        /** STRATIFIED 策略的时间分层数 */
+        private int strata = 10;
+
+        /** TABLESAMPLE 策略抽取的数据比例（百分比） */
+        private int tableSamplePercent = 10;
+    }
+
+    /**
+     * 已编译查询条件缓存配置
+     *
+     * <p>缓存关键字条件和 variant 字段转换结果，相同过滤条件的检索跳过表达式解析
+     */
+    @Data
+    public static class ConditionCache {
+
+        /** 是否启用 */
+        private boolean enabled = true;
+
+        /** 缓存有效期（秒） */
+        private int ttlSeconds = 1800;
+
+        /** 最大缓存条目数 */
+        private int maxSize = 5000;
+    }
+
+    /**
+     * 模块元数据缓存配置
+     *
+     * <p>缓存模块的表名、数据源和解析后的查询配置，本实例修改模块或数据源时立即失效； 有效期用于兜底其他实例的修改
+     */
+    @Data
+    public static class ModuleCache {
+
+        /** 是否启用 */
+        private boolean enabled = true;
+
+        /** 缓存有效期（秒），多实例部署时其他实例的修改最迟在该时间后生效 */
+        private int ttlSeconds = 300;
+
+        /** 最大缓存条目数 */
+        private int maxSize = 1000;
+    }
+
+    /**
+     * 相同检索合并配置
+     *
+     * <p>模块、查询类型、检索条件和绝对时间范围都相同的并发请求只执行一次查询，结果在短时间内复用
+     */
+    @Data
+    public static class Coalescing {
+
+        /** 是否启用 */
+        private boolean enabled = true;
+
+        /** 结果复用时间（秒），0 表示只合并并发请求、不缓存结果 */
+        private int resultTtlSeconds = 5;
+
+        /** 最大缓存结果数 */
+        private int maxSize = 200;
+    }
+
+    /**
+     * 聚合查询加速配置
+     *
+     * <p>模块开启聚合加速后，时间分布和总数查询中已被按分钟预聚合的物化视图覆盖的时间段从物化视图读取， 首尾不足一分钟和物化视图尚未刷新的部分仍查询原表
+     */
+    @Data
+    public static class Aggregation {
+
+        /** 是否启用，关闭后所有查询都只访问原表 */
+        private boolean enabled = true;
+
+        /** 物化视图状态和已刷新时间的缓存时间（秒） */
+        private int statusTtlSeconds = 30;
+
+        /** 可由物化视图提供的时间段不足该分钟数时不改写查询 */
+        private int minViewMinutes = 60;
+    }
+
+    /**
+     * 明细查询时间切片配置
+     *
+     * <p>按时间倒序查询明细时，从结束时间开始按逐步增大的时间切片依次查询，查满一页即停止，不必让 Doris 扫描整个时间范围。 渐进式检索使用相同的切片，每个切片完成后即输出结果
+     */
+    @Data
+    public static class TimeSlicing {
+
+        /** 是否启用 */
+        private boolean enabled = true;
+
+        /** 时间范围不足该秒数时直接查询整个范围 */
+        private int minRangeSeconds = 3600;
+
+        /** 首个切片的宽度（秒） */
+        private int initialSliceSeconds = 300;
+
+        /** 后续切片宽度的增长倍数 */
+        private int growthFactor = 4;
+
+        /** 最多切片数，最后一片覆盖剩余的整个范围 */
+        private int maxSlices = 5;
+
+        /** 渐进式检索SSE连接的超时时间（秒） */
+        private long sseTimeoutSeconds = 600;
+    }
+}
@@ -16,6 +16,9 @@ public class LogstashProperties {
     /** Logstash 远程部署目录 */
     private String deployDir;
 
+    /** 是否启用命令流水线，启用后同一机器上连续的命令编译为一个脚本执行 */
+    private boolean commandPipelining = true;
+
     /**
      * 获取部署基础目录 兼容性方法，实际返回的是deployDir
      *
@@ -4,6 +4,7 @@ import com.hinadt.miaocha.config.security.CustomAccessDeniedHandler;
 import com.hinadt.miaocha.config.security.CustomAuthenticationEntryPoint;
 import com.hinadt.miaocha.config.security.JwtAuthenticationFilter;
 import com.hinadt.miaocha.config.security.JwtUtils;
+import com.hinadt.miaocha.config.security.VerifiedTokenCache;
 import java.util.Arrays;
 import java.util.List;
 import org.springframework.context.annotation.Bean;
@@ -27,9 +28,11 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 public class SecurityConfig {
 
     private final JwtUtils jwtUtils;
+    private final VerifiedTokenCache verifiedTokenCache;
 
-    public SecurityConfig(JwtUtils jwtUtils) {
+    public SecurityConfig(JwtUtils jwtUtils, VerifiedTokenCache verifiedTokenCache) {
         this.jwtUtils = jwtUtils;
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
     @Bean
@@ -151,7 +154,7 @@ public class SecurityConfig {
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtUtils);
+        return new JwtAuthenticationFilter(jwtUtils, verifiedTokenCache);
     }
 
     @Bean
@@ -3,24 +3,57 @@ package com.hinadt.miaocha.config;
 import com.hinadt.miaocha.config.task.MdcTaskDecorator;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadPoolExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-/** 线程池统一配置类 包含所有应用使用的线程池配置： */
+/**
+ * 线程池统一配置类 包含所有应用使用的线程池配置
+ *
+ * <p>开启 spring.threads.virtual.enabled 且运行在 JDK 21 及以上时，Tomcat 请求线程和下列执行器都改为每个任务一个虚拟线程：
+ * 检索和SQL查询几乎都阻塞在 Doris I/O 上，不再受线程数限制，也不会因队列占满由调用线程（Tomcat 请求线程）执行。 对 Doris 的并发改由
+ * DatasourceConcurrencyLimiter 按数据源限制，Logstash 任务保留原最大线程数作为并发上限。 低于 JDK 21 时该开关不生效，继续使用平台线程池。
+ */
+@Slf4j
 @Configuration
 @EnableAsync
 public class ThreadPoolConfig {
 
+    /** Logstash任务最大并发数 */
+    private static final int LOGSTASH_TASK_CONCURRENCY = 10;
+
+    /** 关闭时等待虚拟线程任务结束的时间（毫秒） */
+    private static final long VIRTUAL_TASK_TERMINATION_MILLIS = 30000;
+
+    private final boolean virtualThreads;
+
+    public ThreadPoolConfig(Environment environment) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        if (virtualThreads) {
+            log.info("查询和Logstash任务执行器使用虚拟线程");
+        } else if (environment.getProperty(
+                "spring.threads.virtual.enabled", Boolean.class, false)) {
+            log.warn("当前 JDK {} 不支持虚拟线程，继续使用平台线程池", Runtime.version().feature());
+        }
+    }
+
     /** Logstash任务执行器 用于异步执行部署、启动、停止Logstash等长时间运行的任务 */
     @Bean(name = "logstashTaskExecutor")
     public Executor logstashTaskExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("logstash-task-", LOGSTASH_TASK_CONCURRENCY);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         // 核心线程数
         executor.setCorePoolSize(8);
         // 最大线程数
-        executor.setMaxPoolSize(10);
+        executor.setMaxPoolSize(LOGSTASH_TASK_CONCURRENCY);
         // 队列容量
         executor.setQueueCapacity(25);
         // 线程名前缀
@@ -39,6 +72,10 @@ public class ThreadPoolConfig {
     /** 检索SQL查询 */
     @Bean("sqlQueryExecutor")
     public Executor sqlQueryExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor(
+                    "sql-query-", SimpleAsyncTaskExecutor.UNBOUNDED_CONCURRENCY);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         // 核心线程数
         executor.setCorePoolSize(8);
@@ -64,6 +101,10 @@ public class ThreadPoolConfig {
     /** 日志查询执行器 - 专门用于日志搜索的并行查询优化 */
     @Bean("logQueryExecutor")
     public Executor logQueryExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor(
+                    "log-query-", SimpleAsyncTaskExecutor.UNBOUNDED_CONCURRENCY);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         // 核心线程数：CPU核心数
         executor.setCorePoolSize(Runtime.getRuntime().availableProcessors());
@@ -85,4 +126,113 @@ public class ThreadPoolConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * 组合检索子任务执行器 - 用于组合检索中并行执行明细、时间分布、字段分布等检索
+     *
+     * <p>子任务会阻塞等待 logQueryExecutor 中的查询完成，使用独立线程池避免占满查询线程池导致互相等待
+     */
+    @Bean("logSearchPartExecutor")
+    public Executor logSearchPartExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor(
+                    "log-search-part-", SimpleAsyncTaskExecutor.UNBOUNDED_CONCURRENCY);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        // 核心线程数：CPU核心数
+        executor.setCorePoolSize(Runtime.getRuntime().availableProcessors());
+        // 最大线程数：CPU核心数 * 2
+        executor.setMaxPoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        // 队列容量
+        executor.setQueueCapacity(200);
+        // 线程名前缀
+        executor.setThreadNamePrefix("log-search-part-");
+        // 拒绝策略：由调用线程处理
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // 等待所有任务结束后再关闭线程池
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        // 等待时间
+        executor.setAwaitTerminationSeconds(30);
+        // 设置任务装饰器，确保 MDC 上下文传播
+        executor.setTaskDecorator(new MdcTaskDecorator());
+        // 初始化线程池
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 渐进式检索执行器 - 用于在后台执行通过 SSE 推送结果的渐进式检索
+     *
+     * <p>每个任务持续到整个检索结束，不能由调用线程执行，否则请求线程要等检索全部完成才返回 SSE 连接；线程占满时直接拒绝，由检索入口返回繁忙错误
+     */
+    @Bean("progressiveSearchExecutor")
+    public Executor progressiveSearchExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor(
+                    "progressive-search-", SimpleAsyncTaskExecutor.UNBOUNDED_CONCURRENCY);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        // 核心线程数：CPU核心数
+        executor.setCorePoolSize(Runtime.getRuntime().availableProcessors());
+        // 最大线程数：CPU核心数 * 4，线程大部分时间在等待查询结果和推送事件
+        executor.setMaxPoolSize(Runtime.getRuntime().availableProcessors() * 4);
+        // 不排队：排队中的检索在客户端看来没有任何响应
+        executor.setQueueCapacity(0);
+        // 线程名前缀
+        executor.setThreadNamePrefix("progressive-search-");
+        // 拒绝策略：抛出异常
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        // 等待所有任务结束后再关闭线程池
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        // 等待时间
+        executor.setAwaitTerminationSeconds(30);
+        // 设置任务装饰器，确保 MDC 上下文传播
+        executor.setTaskDecorator(new MdcTaskDecorator());
+        // 初始化线程池
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Logstash进程监控执行器 - 用于并行检查各机器上的Logstash进程是否存活
+     *
+     * <p>每台机器一个任务，线程数即同时检查的机器数上限；队列不设上限，一轮检查的机器全部排队，不由调度线程执行
+     */
+    @Bean("logstashMonitorExecutor")
+    public Executor logstashMonitorExecutor(
+            @Value("${logstash.monitor.parallelism:16}") int parallelism) {
+        int concurrency = Math.max(1, parallelism);
+        if (virtualThreads) {
+            return virtualThreadExecutor("logstash-monitor-", concurrency);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        // 核心线程数与最大线程数相同，队列不设上限
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        // 空闲线程在两轮检查之间回收
+        executor.setAllowCoreThreadTimeOut(true);
+        // 线程名前缀
+        executor.setThreadNamePrefix("logstash-monitor-");
+        // 设置任务装饰器，确保 MDC 上下文传播
+        executor.setTaskDecorator(new MdcTaskDecorator());
+        // 初始化线程池
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的执行器
+     *
+     * @param threadNamePrefix 线程名前缀
+     * @param concurrencyLimit 并发上限，超出时提交任务的线程等待，UNBOUNDED_CONCURRENCY 表示不限制
+     * @return 执行器，应用关闭时等待已提交的任务结束
+     */
+    private static Executor virtualThreadExecutor(String threadNamePrefix, int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        executor.setTaskTerminationTimeout(VIRTUAL_TASK_TERMINATION_MILLIS);
+        executor.setTaskDecorator(new MdcTaskDecorator());
+        return executor;
+    }
 }
@@ -1,6 +1,7 @@
 package com.hinadt.miaocha.config.security;
 
 import com.hinadt.miaocha.domain.dto.user.UserDTO;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,9 +23,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     public static final String JWT_EXCEPTION_ATTRIBUTE = "jwtException";
 
     private final JwtUtils jwtUtils;
+    private final VerifiedTokenCache verifiedTokenCache;
 
-    public JwtAuthenticationFilter(JwtUtils jwtUtils) {
+    public JwtAuthenticationFilter(JwtUtils jwtUtils, VerifiedTokenCache verifiedTokenCache) {
         this.jwtUtils = jwtUtils;
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
     @Override
@@ -48,16 +51,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String jwt = parseJwt(request);
         if (jwt != null) {
             try {
-                jwtUtils.validateToken(jwt);
-
-                // 从JWT token构造UserDTO对象
-                UserDTO user = new UserDTO();
-                user.setUid(jwtUtils.getUidFromToken(jwt));
-                user.setId(jwtUtils.getUserIdFromToken(jwt));
-                user.setNickname(jwtUtils.getNicknameFromToken(jwt));
-                user.setEmail(jwtUtils.getEmailFromToken(jwt));
-                user.setRole(jwtUtils.getRoleFromToken(jwt));
-                user.setStatus(jwtUtils.getStatusFromToken(jwt));
+                UserDTO user = resolveUser(jwt);
 
                 if (user.getStatus() == 1) {
                     List<SimpleGrantedAuthority> authorities =
@@ -86,6 +80,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * 从JWT token构造UserDTO对象，最近验证过的token直接从缓存获取，否则校验签名并只解析一次
+     *
+     * @param jwt JWT token
+     * @return 用户信息
+     */
+    private UserDTO resolveUser(String jwt) {
+        UserDTO user = verifiedTokenCache.get(jwt);
+        if (user != null) {
+            return user;
+        }
+        Claims claims = jwtUtils.parseClaims(jwt);
+        user = jwtUtils.getUserFromClaims(claims);
+        verifiedTokenCache.put(jwt, user, claims.getExpiration());
+        return user;
+    }
+
     private String parseJwt(HttpServletRequest request) {
         // 1) Authorization: Bearer xxx
         String headerAuth = request.getHeader("Authorization");
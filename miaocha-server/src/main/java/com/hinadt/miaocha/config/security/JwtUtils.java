@@ -1,8 +1,10 @@
 package com.hinadt.miaocha.config.security;
 
+import com.hinadt.miaocha.domain.dto.user.UserDTO;
 import com.hinadt.miaocha.domain.entity.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
@@ -28,6 +30,9 @@ public class JwtUtils {
     @Value("${jwt.refresh-expiration:86400000}")
     private int refreshTokenExpirationMs;
 
+    private volatile SecretKey signingKey;
+    private volatile JwtParser parser;
+
     /**
      * 生成JWT token
      *
@@ -71,13 +76,7 @@ public class JwtUtils {
      */
     public long getExpirationFromToken(String token) {
         try {
-            Claims claims =
-                    Jwts.parser()
-                            .verifyWith(getSigningKey())
-                            .build()
-                            .parseSignedClaims(token)
-                            .getPayload();
-            return claims.getExpiration().getTime();
+            return parseClaims(token).getExpiration().getTime();
         } catch (Exception e) {
             log.error("Error while getting expiration from token: {}", e.getMessage());
             return 0;
@@ -109,6 +108,35 @@ public class JwtUtils {
         return jwtBuilder.compact();
     }
 
+    /**
+     * 校验签名和过期时间并解析token，只解析一次即可读取所有用户信息
+     *
+     * @param token JWT token
+     * @return token声明
+     * @throws io.jsonwebtoken.JwtException 如果token无效或已过期
+     */
+    public Claims parseClaims(String token) {
+        return getParser().parseSignedClaims(token).getPayload();
+    }
+
+    /**
+     * 从已解析的token声明中构造用户信息
+     *
+     * @param claims token声明
+     * @return 用户信息
+     * @throws RuntimeException 如果缺少必需字段
+     */
+    public UserDTO getUserFromClaims(Claims claims) {
+        UserDTO user = new UserDTO();
+        user.setUid(uid(claims));
+        user.setId(userId(claims));
+        user.setNickname(nickname(claims));
+        user.setEmail(email(claims));
+        user.setRole(role(claims));
+        user.setStatus(status(claims));
+        return user;
+    }
+
     /**
      * 从token中获取uid
      *
@@ -116,18 +144,7 @@ public class JwtUtils {
      * @return 用户ID
      */
     public String getUidFromToken(String token) {
-        Claims claims =
-                Jwts.parser()
-                        .verifyWith(getSigningKey())
-                        .build()
-                        .parseSignedClaims(token)
-                        .getPayload();
-        Object userId = claims.get(User.Fields.uid);
-        if (userId == null) {
-            throw new RuntimeException("JWT token中缺少userId字段");
-        }
-
-        return String.valueOf(userId);
+        return uid(parseClaims(token));
     }
 
     /**
@@ -138,17 +155,7 @@ public class JwtUtils {
      * @throws RuntimeException 如果token中没有userId
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims =
-                Jwts.parser()
-                        .verifyWith(getSigningKey())
-                        .build()
-                        .parseSignedClaims(token)
-                        .getPayload();
-        Object userId = claims.get(User.Fields.id);
-        if (userId == null) {
-            throw new RuntimeException("JWT token中缺少userId字段");
-        }
-        return Long.valueOf(userId.toString());
+        return userId(parseClaims(token));
     }
 
     /**
@@ -159,17 +166,7 @@ public class JwtUtils {
      * @throws RuntimeException 如果token中没有email
      */
     public String getEmailFromToken(String token) {
-        Claims claims =
-                Jwts.parser()
-                        .verifyWith(getSigningKey())
-                        .build()
-                        .parseSignedClaims(token)
-                        .getPayload();
-        String email = (String) claims.get(User.Fields.email);
-        if (email == null) {
-            throw new RuntimeException("JWT token中缺少email字段");
-        }
-        return email;
+        return email(parseClaims(token));
     }
 
     /**
@@ -179,13 +176,7 @@ public class JwtUtils {
      * @return 用户昵称，可能为null（nickname不是必需字段）
      */
     public String getNicknameFromToken(String token) {
-        Claims claims =
-                Jwts.parser()
-                        .verifyWith(getSigningKey())
-                        .build()
-                        .parseSignedClaims(token)
-                        .getPayload();
-        return (String) claims.get(User.Fields.nickname);
+        return nickname(parseClaims(token));
     }
 
     /**
@@ -196,17 +187,7 @@ public class JwtUtils {
      * @throws RuntimeException 如果token中没有role
      */
     public String getRoleFromToken(String token) {
-        Claims claims =
-                Jwts.parser()
-                        .verifyWith(getSigningKey())
-                        .build()
-                        .parseSignedClaims(token)
-                        .getPayload();
-        String role = (String) claims.get(User.Fields.role);
-        if (role == null) {
-            throw new RuntimeException("JWT token中缺少role字段");
-        }
-        return role;
+        return role(parseClaims(token));
     }
 
     /**
@@ -217,17 +198,7 @@ public class JwtUtils {
      * @throws RuntimeException 如果token中没有status
      */
     public Integer getStatusFromToken(String token) {
-        Claims claims =
-                Jwts.parser()
-                        .verifyWith(getSigningKey())
-                        .build()
-                        .parseSignedClaims(token)
-                        .getPayload();
-        Integer status = (Integer) claims.get(User.Fields.status);
-        if (status == null) {
-            throw new RuntimeException("JWT token中缺少status字段");
-        }
-        return status;
+        return status(parseClaims(token));
     }
 
     /**
@@ -237,13 +208,7 @@ public class JwtUtils {
      * @return 登录方式
      */
     public String getLoginTypeFromToken(String token) {
-        Claims claims =
-                Jwts.parser()
-                        .verifyWith(getSigningKey())
-                        .build()
-                        .parseSignedClaims(token)
-                        .getPayload();
-        String loginType = (String) claims.get("loginType");
+        String loginType = (String) parseClaims(token).get("loginType");
         return loginType != null ? loginType : "system"; // 默认为系统登录
     }
 
@@ -253,7 +218,7 @@ public class JwtUtils {
      * @param token JWT token
      */
     public void validateToken(String token) {
-        Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(token);
+        parseClaims(token);
     }
 
     /**
@@ -275,7 +240,66 @@ public class JwtUtils {
         return claims;
     }
 
+    private static String uid(Claims claims) {
+        Object uid = claims.get(User.Fields.uid);
+        if (uid == null) {
+            throw new RuntimeException("JWT token中缺少userId字段");
+        }
+        return String.valueOf(uid);
+    }
+
+    private static Long userId(Claims claims) {
+        Object userId = claims.get(User.Fields.id);
+        if (userId == null) {
+            throw new RuntimeException("JWT token中缺少userId字段");
+        }
+        return Long.valueOf(userId.toString());
+    }
+
+    private static String email(Claims claims) {
+        String email = (String) claims.get(User.Fields.email);
+        if (email == null) {
+            throw new RuntimeException("JWT token中缺少email字段");
+        }
+        return email;
+    }
+
+    private static String nickname(Claims claims) {
+        return (String) claims.get(User.Fields.nickname);
+    }
+
+    private static String role(Claims claims) {
+        String role = (String) claims.get(User.Fields.role);
+        if (role == null) {
+            throw new RuntimeException("JWT token中缺少role字段");
+        }
+        return role;
+    }
+
+    private static Integer status(Claims claims) {
+        Integer status = (Integer) claims.get(User.Fields.status);
+        if (status == null) {
+            throw new RuntimeException("JWT token中缺少status字段");
+        }
+        return status;
+    }
+
+    /** 签名密钥和解析器只依赖配置的密钥，首次使用时创建后复用 */
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        SecretKey key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+            signingKey = key;
+        }
+        return key;
+    }
+
+    private JwtParser getParser() {
+        JwtParser jwtParser = parser;
+        if (jwtParser == null) {
+            jwtParser = Jwts.parser().verifyWith(getSigningKey()).build();
+            parser = jwtParser;
+        }
+        return jwtParser;
     }
 }
@@ -0,0 +1,105 @@
+package com.hinadt.miaocha.config.security;
+
+import com.hinadt.miaocha.common.util.ExpiringCache;
+import com.hinadt.miaocha.domain.dto.user.UserDTO;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 已验证token缓存
+ *
+ * <p>认证过滤器在每个接口请求上执行，检索和SSE接口会在短时间内重复携带同一个token。缓存token摘要到用户信息的映射，
+ * 命中时跳过签名校验和解析。token中的用户信息在签发后不可变，缓存条目不会超过token本身的过期时间。
+ *
+ * <p>只缓存校验通过的token，键为token的SHA-256摘要，内存中不保留原始token。
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final boolean enabled;
+    private final ExpiringCache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(
+            @Value("${jwt.verified-cache.enabled:true}") boolean enabled,
+            @Value("${jwt.verified-cache.ttl-seconds:300}") int ttlSeconds,
+            @Value("${jwt.verified-cache.max-size:10000}") int maxSize) {
+        this.enabled = enabled;
+        this.cache = new ExpiringCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+
+    /**
+     * 获取已验证token对应的用户信息
+     *
+     * @param token JWT token
+     * @return 用户信息副本，未命中或token已过期时返回null
+     */
+    public UserDTO get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        String key = hash(token);
+        VerifiedToken verified = cache.get(key);
+        if (verified == null) {
+            return null;
+        }
+        if (verified.expiresAt() <= System.currentTimeMillis()) {
+            cache.invalidate(key);
+            return null;
+        }
+        return copy(verified.user());
+    }
+
+    /**
+     * 缓存校验通过的token
+     *
+     * @param token JWT token
+     * @param user 从token解析出的用户信息
+     * @param expiration token过期时间，为null时不缓存
+     */
+    public void put(String token, UserDTO user, Date expiration) {
+        if (!enabled || expiration == null) {
+            return;
+        }
+        cache.put(hash(token), new VerifiedToken(copy(user), expiration.getTime()));
+    }
+
+    /** 清空缓存 */
+    public void clear() {
+        cache.clear();
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    }
+
+    /** 过滤器会把用户信息放入安全上下文，每次返回副本避免请求之间共享可变对象 */
+    private static UserDTO copy(UserDTO source) {
+        UserDTO user = new UserDTO();
+        user.setUid(source.getUid());
+        user.setId(source.getId());
+        user.setNickname(source.getNickname());
+        user.setEmail(source.getEmail());
+        user.setRole(source.getRole());
+        user.setStatus(source.getStatus());
+        return user;
+    }
+
+    /**
+     * 已验证的token
+     *
+     * @param user 用户信息
+     * @param expiresAt token过期时间戳（毫秒）
+     */
+    private record VerifiedToken(UserDTO user, long expiresAt) {}
+}
@@ -0,0 +1,18 @@
+package com.hinadt.miaocha.domain.dto.logsearch;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/** 日志总数查询结果DTO */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Schema(description = "日志总数查询结果对象")
+public class LogCountResultDTO extends LogSearchResultDTO {
+
+    @Schema(description = "日志总数")
+    private Long totalCount;
+
+    @Schema(description = "是否命中总数缓存")
+    private Boolean cached;
+}
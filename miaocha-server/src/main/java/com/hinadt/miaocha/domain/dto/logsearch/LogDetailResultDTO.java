@@ -18,6 +18,12 @@ public class LogDetailResultDTO extends LogSearchResultDTO {
     @Schema(description = "日志数据明细列表")
     private List<Map<String, Object>> rows;
 
-    @Schema(description = "日志总数")
+    @Schema(description = "日志总数，延迟统计时为空")
     private Long totalCount;
+
+    @Schema(description = "总数是否延迟统计，为true时需调用总数查询接口获取总数")
+    private Boolean countDeferred;
+
+    @Schema(description = "下一页游标，作为下次请求的 searchAfter 传入；已无更多数据或当前排序不支持游标分页时为空")
+    private String nextCursor;
 }
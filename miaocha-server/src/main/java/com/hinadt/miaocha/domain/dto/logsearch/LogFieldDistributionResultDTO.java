@@ -18,6 +18,12 @@ public class LogFieldDistributionResultDTO extends LogSearchResultDTO {
     @Schema(description = "采样配置：为了提升查询性能，统计基于最新的N条数据", example = "1000")
     private Integer sampleSize = FieldDistributionSqlBuilder.SAMPLE_SIZE;
 
+    @Schema(
+            description = "采样策略：LATEST、UNIFORM、STRATIFIED、TABLESAMPLE",
+            example = "LATEST",
+            allowableValues = {"LATEST", "UNIFORM", "STRATIFIED", "TABLESAMPLE"})
+    private String samplingStrategy;
+
     @Schema(description = "实际采样条数：实际参与统计的数据条数", example = "1000")
     private Long actualSampleCount;
 
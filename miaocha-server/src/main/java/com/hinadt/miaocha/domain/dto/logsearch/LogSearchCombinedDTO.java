@@ -0,0 +1,34 @@
+package com.hinadt.miaocha.domain.dto.logsearch;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 组合检索请求DTO
+ *
+ * <p>一次请求同时查询明细、时间分布和字段分布，公共的过滤条件和时间范围只解析和校验一次。fields 仍表示明细查询的字段列表， 字段分布的字段列表由 distributionFields
+ * 单独指定
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Schema(description = "组合检索请求对象")
+public class LogSearchCombinedDTO extends LogSearchDTO {
+
+    @Schema(description = "是否查询明细", example = "true", defaultValue = "true")
+    private Boolean includeDetails = true;
+
+    @Schema(description = "是否查询时间分布", example = "true", defaultValue = "true")
+    private Boolean includeHistogram = true;
+
+    @Schema(description = "需要查询TOP5分布的字段列表，为空则不查询字段分布", example = "['level', 'service_name']")
+    @Size(max = 50, message = "字段分布的字段数量不能超过50个")
+    private List<String> distributionFields;
+
+    /** 是否查询字段分布 */
+    public boolean includesFieldDistributions() {
+        return distributionFields != null && !distributionFields.isEmpty();
+    }
+}
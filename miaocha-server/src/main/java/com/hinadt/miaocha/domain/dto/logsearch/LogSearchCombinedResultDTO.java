@@ -0,0 +1,21 @@
+package com.hinadt.miaocha.domain.dto.logsearch;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/** 组合检索结果DTO，未请求的部分为null */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Schema(description = "组合检索结果对象")
+public class LogSearchCombinedResultDTO extends LogSearchResultDTO {
+
+    @Schema(description = "日志明细查询结果，未请求时为null")
+    private LogDetailResultDTO details;
+
+    @Schema(description = "日志时间分布查询结果，未请求时为null")
+    private LogHistogramResultDTO histogram;
+
+    @Schema(description = "字段分布查询结果，未请求时为null")
+    private LogFieldDistributionResultDTO fieldDistributions;
+}
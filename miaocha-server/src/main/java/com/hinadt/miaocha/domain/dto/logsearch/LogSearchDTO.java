@@ -87,6 +87,24 @@ public class LogSearchDTO {
     @Schema(description = "排序字段列表，支持多个字段排序")
     private List<SortField> sortFields;
 
+    @Schema(
+            description = "检索会话标识（如浏览器标签页ID），同一用户同一会话的新查询会取消尚未完成的同类旧查询，为空时不取消其他查询",
+            example = "tab-1f3a9c")
+    @Size(max = 64, message = "检索会话标识长度不能超过64个字符")
+    private String searchSessionId;
+
+    @Schema(description = "是否延迟统计总数，为true且总数未命中缓存时明细查询不统计总数，由客户端另行调用总数查询接口获取", example = "false")
+    private Boolean deferCount;
+
+    @Schema(
+            description = "分页游标，取自上一页结果的 nextCursor，传入时忽略 offset，从上一页最后一行之后继续查询。仅支持按时间字段排序",
+            example = "eyJ0IjoiMjAyMy0wNi0wMSAxMDo1OTo1OC4xMjMiLCJkIjoiREVTQyJ9")
+    @Size(max = 2048, message = "分页游标长度不能超过2048个字符")
+    private String searchAfter;
+
+    @Schema(description = "是否由页面自动刷新发起，为true时按后台优先级执行，不占用交互式检索的并发余量", example = "false")
+    private Boolean autoRefresh;
+
     @Getter
     @Setter
     @Schema(description = "排序字段配置")
@@ -142,6 +142,46 @@ public class LogSearchDTODecorator extends LogSearchDTO {
         delegate.setSortFields(sortFields);
     }
 
+    @Override
+    public String getSearchSessionId() {
+        return delegate.getSearchSessionId();
+    }
+
+    @Override
+    public void setSearchSessionId(String searchSessionId) {
+        delegate.setSearchSessionId(searchSessionId);
+    }
+
+    @Override
+    public Boolean getDeferCount() {
+        return delegate.getDeferCount();
+    }
+
+    @Override
+    public void setDeferCount(Boolean deferCount) {
+        delegate.setDeferCount(deferCount);
+    }
+
+    @Override
+    public String getSearchAfter() {
+        return delegate.getSearchAfter();
+    }
+
+    @Override
+    public void setSearchAfter(String searchAfter) {
+        delegate.setSearchAfter(searchAfter);
+    }
+
+    @Override
+    public Boolean getAutoRefresh() {
+        return delegate.getAutoRefresh();
+    }
+
+    @Override
+    public void setAutoRefresh(Boolean autoRefresh) {
+        delegate.setAutoRefresh(autoRefresh);
+    }
+
     /**
      * 获取原始DTO
      *
@@ -0,0 +1,30 @@
+package com.hinadt.miaocha.domain.dto.logsearch;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/** 渐进式检索结束时的汇总结果DTO */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Schema(description = "渐进式检索汇总结果对象")
+public class LogSearchSummaryDTO extends LogSearchResultDTO {
+
+    @Schema(description = "日志总数，等于各时间桶数量之和", example = "12345")
+    private Long totalCount;
+
+    @Schema(description = "明细行数", example = "50")
+    private Integer rowCount;
+
+    @Schema(description = "下一页游标，作为下次请求的 searchAfter 传入；已无更多数据或当前排序不支持游标分页时为空")
+    private String nextCursor;
+
+    @Schema(description = "执行的时间切片数", example = "5")
+    private Integer slices;
+
+    @Schema(description = "时间分布的时间单位，与时间分布查询相同", example = "minute")
+    private String timeUnit;
+
+    @Schema(description = "时间分布的时间间隔，与时间分布查询相同", example = "5")
+    private Integer timeInterval;
+}
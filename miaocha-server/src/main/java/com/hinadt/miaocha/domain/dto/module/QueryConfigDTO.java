@@ -1,8 +1,11 @@
 package com.hinadt.miaocha.domain.dto.module;
 
+import com.hinadt.miaocha.domain.validator.ValidSortField;
 import com.hinadt.miaocha.domain.validator.ValidTimeField;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
@@ -55,6 +58,40 @@ public class QueryConfigDTO {
                     String>
             excludeFields;
 
+    @Min(value = 1, message = "查询超时时间不能小于1秒")
+    @Max(value = 3600, message = "查询超时时间不能超过3600秒")
+    @Schema(description = "日志查询超时时间（秒），为空时使用全局或角色配置", example = "60", nullable = true)
+    private Integer queryTimeoutSeconds;
+
+    @Size(max = 128, message = "并列排序字段名长度不能超过128个字符")
+    @ValidSortField
+    @Schema(
+            description = "并列排序字段名，时间相同的日志按该字段排序，用于游标分页精确定位，应为非空且在同一时间内唯一的字段",
+            example = "log_offset",
+            nullable = true,
+            maxLength = 128)
+    private String tiebreakerField;
+
+    @Pattern(
+            regexp = "^(LATEST|UNIFORM|STRATIFIED|TABLESAMPLE)$",
+            message = "字段分布采样策略必须是: LATEST, UNIFORM, STRATIFIED, TABLESAMPLE 中的一种")
+    @Schema(
+            description =
+                    "字段分布采样策略：LATEST(最新N条)、UNIFORM(时间范围内随机N条)、STRATIFIED(按时间分层各取最新若干条)、TABLESAMPLE(Doris按比例抽样)，为空时使用全局配置",
+            example = "STRATIFIED",
+            allowableValues = {"LATEST", "UNIFORM", "STRATIFIED", "TABLESAMPLE"},
+            nullable = true)
+    private String fieldSampleStrategy;
+
+    @Min(value = 100, message = "字段分布采样条数不能小于100")
+    @Max(value = 100000, message = "字段分布采样条数不能超过100000")
+    @Schema(description = "字段分布采样条数，为空时使用全局配置", example = "1000", nullable = true)
+    private Integer fieldSampleSize;
+
+    @Valid
+    @Schema(description = "聚合查询加速配置，开启后按分钟预聚合日志条数，加速时间分布和总数统计", nullable = true)
+    private AggregationAccelerationDTO aggregationAcceleration;
+
     /** 关键词字段配置DTO 定义单个字段的关键词检索配置 */
     @Data
     @Schema(
@@ -91,4 +128,36 @@ public class QueryConfigDTO {
                 implementation = String.class)
         private String searchMethod;
     }
+
+    /** 聚合查询加速配置DTO 定义按分钟预聚合的物化视图 */
+    @Data
+    @Schema(
+            description = "聚合查询加速配置，按分钟和维度字段预聚合日志条数，过滤条件只涉及维度字段时时间分布和总数从物化视图读取",
+            example =
+                    """
+            {
+              "enabled": true,
+              "dimensions": ["level", "service"],
+              "refreshIntervalMinutes": 5
+            }
+            """)
+    public static class AggregationAccelerationDTO {
+
+        @Schema(description = "是否开启聚合查询加速", example = "true", nullable = true)
+        private Boolean enabled;
+
+        @Size(max = 8, message = "聚合维度字段不能超过8个")
+        @Schema(description = "聚合维度字段，需为低基数的普通列", nullable = true)
+        private List<
+                        @NotBlank(message = "维度字段名不能为空")
+                        @Size(max = 128, message = "维度字段名长度不能超过128个字符")
+                        @Pattern(regexp = "^[a-zA-Z_][a-zA-Z0-9_]*$", message = "维度字段名格式不正确")
+                        String>
+                dimensions;
+
+        @Min(value = 1, message = "物化视图刷新间隔不能小于1分钟")
+        @Max(value = 1440, message = "物化视图刷新间隔不能超过1440分钟")
+        @Schema(description = "物化视图刷新间隔（分钟），为空时为5分钟", example = "5", nullable = true)
+        private Integer refreshIntervalMinutes;
+    }
 }
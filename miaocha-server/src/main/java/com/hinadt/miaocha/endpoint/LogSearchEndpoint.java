@@ -1,6 +1,10 @@
 package com.hinadt.miaocha.endpoint;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hinadt.miaocha.application.service.LogSearchService;
+import com.hinadt.miaocha.common.exception.ErrorCode;
+import com.hinadt.miaocha.common.util.LogIdContext;
 import com.hinadt.miaocha.domain.dto.ApiResponse;
 import com.hinadt.miaocha.domain.dto.SchemaInfoDTO;
 import com.hinadt.miaocha.domain.dto.cache.BatchDeleteCacheDTO;
@@ -9,9 +13,14 @@ import com.hinadt.miaocha.domain.dto.logsearch.*;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /** 日志检索接口控制器 */
 @RestController
@@ -20,9 +29,11 @@ import org.springframework.web.bind.annotation.*;
 public class LogSearchEndpoint {
 
     private final LogSearchService logSearchService;
+    private final ObjectMapper objectMapper;
 
-    public LogSearchEndpoint(LogSearchService logSearchService) {
+    public LogSearchEndpoint(LogSearchService logSearchService, ObjectMapper objectMapper) {
         this.logSearchService = logSearchService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -40,6 +51,100 @@ public class LogSearchEndpoint {
         return ApiResponse.success(result);
     }
 
+    /**
+     * 流式执行日志明细查询
+     *
+     * <p>明细行边查询边写出，服务端不在内存中聚合整页结果，适合大页导出。data 中依次输出 columns、rows、 totalCount、countDeferred 和
+     * executionTimeMs，字段含义与 /search/details 相同，但不包含 nextCursor， 且字段顺序固定。总数延迟统计且未命中缓存时 totalCount 为
+     * null。明细开始输出前发生的异常按统一错误格式返回； 开始输出后发生的异常只能中断响应，客户端会收到不完整的JSON。
+     *
+     * @param dto 日志检索请求参数
+     * @param response HTTP响应
+     * @throws IOException 如果写出响应失败
+     */
+    @PostMapping("/search/details/stream")
+    @Operation(summary = "流式执行日志明细查询", description = "明细行边查询边输出，适合大页查询；字段与明细查询相同但不包含nextCursor")
+    public void streamDetails(
+            @Parameter(description = "日志检索请求", required = true) @Valid @RequestBody
+                    LogSearchDTO dto,
+            HttpServletResponse response)
+            throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        // 出错时不关闭 generator，缓冲区中未刷新的内容直接丢弃，由全局异常处理返回错误响应
+        JsonGenerator generator =
+                objectMapper.getFactory().createGenerator(response.getOutputStream());
+        generator.writeStartObject();
+        generator.writeStringField("code", ErrorCode.SUCCESS.getCode());
+        generator.writeStringField("message", ErrorCode.SUCCESS.getMessage());
+        generator.writeStringField("logId", LogIdContext.getLogId());
+        generator.writeObjectFieldStart("data");
+
+        LogDetailResultDTO result = logSearchService.streamDetails(dto, generator);
+
+        // 总数延迟统计且未命中缓存时为空
+        if (result.getTotalCount() != null) {
+            generator.writeNumberField("totalCount", result.getTotalCount());
+        } else {
+            generator.writeNullField("totalCount");
+        }
+        generator.writeBooleanField(
+                "countDeferred", Boolean.TRUE.equals(result.getCountDeferred()));
+        generator.writeNumberField("executionTimeMs", result.getExecutionTimeMs());
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    /**
+     * 渐进式检索
+     *
+     * <p>按时间切片从新到旧查询明细和时间分布，每个切片完成后通过SSE输出：details 事件中的明细行追加到已有行之后， histogram 事件中的时间桶为累计数量，按
+     * timePoint 覆盖；全部完成后输出 summary 事件，包含总数、下一页游标和执行耗时。 参数校验失败时按统一错误格式返回，检索开始后的异常通过 error 事件返回。
+     *
+     * @param dto 日志检索请求参数
+     * @return SSE数据流
+     */
+    @PostMapping(value = "/search/progressive", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "渐进式检索", description = "按时间切片从新到旧查询明细和时间分布，每个切片完成后即通过SSE输出，最后输出包含总数的汇总事件")
+    public SseEmitter searchProgressive(
+            @Parameter(description = "日志检索请求", required = true) @Valid @RequestBody
+                    LogSearchDTO dto) {
+        return logSearchService.searchProgressive(dto);
+    }
+
+    /**
+     * 仅统计日志总数
+     *
+     * @param dto 日志检索请求参数
+     * @return 日志总数查询结果
+     */
+    @PostMapping("/search/count")
+    @Operation(
+            summary = "执行日志总数查询",
+            description = "仅统计日志总数，配合明细查询的 deferCount 使用，过滤条件和时间范围需与明细查询一致")
+    public ApiResponse<LogCountResultDTO> searchCount(
+            @Parameter(description = "日志检索请求", required = true) @Valid @RequestBody
+                    LogSearchDTO dto) {
+        LogCountResultDTO result = logSearchService.searchCount(dto);
+        return ApiResponse.success(result);
+    }
+
+    /**
+     * 取消正在执行的日志检索
+     *
+     * @param searchSessionId 检索会话标识，与检索请求中的 searchSessionId 一致
+     * @return 被取消的检索数量
+     */
+    @PostMapping("/search/cancel")
+    @Operation(summary = "取消日志检索", description = "取消当前用户在指定会话下尚未完成的检索，如页面关闭或用户放弃查询时调用")
+    public ApiResponse<Integer> cancelSearches(
+            @Parameter(description = "检索会话标识", required = true) @RequestParam("searchSessionId")
+                    String searchSessionId) {
+        return ApiResponse.success(logSearchService.cancelSearches(searchSessionId));
+    }
+
     /**
      * 仅执行日志时间分布查询（柱状图数据）
      *
@@ -72,6 +177,26 @@ public class LogSearchEndpoint {
         return ApiResponse.success(result);
     }
 
+    /**
+     * 组合检索：一次请求并行查询明细、时间分布和字段分布
+     *
+     * <p>代替分别调用 /search/details、/search/histogram 和 /search/field-distributions，
+     * 时间范围、过滤条件和模块配置只处理一次，三部分共享同一截止时间，任一部分失败时其余部分一并取消
+     *
+     * @param dto 组合检索请求参数
+     * @return 组合检索结果
+     */
+    @PostMapping("/search/combined")
+    @Operation(
+            summary = "执行组合检索",
+            description = "一次请求并行查询明细、时间分布和字段分布，字段分布的字段列表由distributionFields指定，为空时不查询")
+    public ApiResponse<LogSearchCombinedResultDTO> searchCombined(
+            @Parameter(description = "组合检索请求", required = true) @Valid @RequestBody
+                    LogSearchCombinedDTO dto) {
+        LogSearchCombinedResultDTO result = logSearchService.searchCombined(dto);
+        return ApiResponse.success(result);
+    }
+
     /**
      * 获取日志表的字段列表
      *
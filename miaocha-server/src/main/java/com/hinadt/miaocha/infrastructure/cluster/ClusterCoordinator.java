@@ -0,0 +1,283 @@
+package com.hinadt.miaocha.infrastructure.cluster;
+
+import com.hinadt.miaocha.infrastructure.NodeIdProvider;
+import com.hinadt.miaocha.infrastructure.mapper.ClusterLeaseMapper;
+import com.hinadt.miaocha.infrastructure.mapper.ClusterNodeMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 集群协调服务
+ *
+ * <p>多个节点部署在负载均衡之后时，定时任务在每个节点上都会执行。本服务基于MySQL表协调各节点：
+ *
+ * <ul>
+ *   <li>节点在独立线程上定期写入心跳，心跳超时的节点视为下线
+ *   <li>只需一个节点执行的任务通过 {@link #isLeader(String)} 竞争租约，持有者在心跳时续期，下线后租约过期由其他节点接管
+ *   <li>可分摊的任务通过 {@link #isOwner(Object)} 按一致性哈希把对象分配给存活节点，节点加入或离开时只有少量对象重新分配
+ * </ul>
+ *
+ * <p>本节点超过心跳超时时间未能刷新成员列表时，其他节点已将其视为下线，此时本节点不再认领任何分片和租约，避免重复执行。
+ */
+@Component
+public class ClusterCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCoordinator.class);
+
+    private final ClusterNodeMapper nodeMapper;
+    private final ClusterLeaseMapper leaseMapper;
+    private final NodeIdProvider nodeIdProvider;
+    private final boolean enabled;
+    private final long heartbeatIntervalMillis;
+    private final int nodeTtlSeconds;
+    private final int leaseTtlSeconds;
+    private final int virtualNodes;
+    private final Set<String> heldLeases = ConcurrentHashMap.newKeySet();
+    private final String host = resolveHost();
+
+    private ScheduledExecutorService heartbeatExecutor;
+    private volatile Membership membership = Membership.EMPTY;
+
+    public ClusterCoordinator(
+            ClusterNodeMapper nodeMapper,
+            ClusterLeaseMapper leaseMapper,
+            NodeIdProvider nodeIdProvider,
+            @Value("${miaocha.cluster.enabled:true}") boolean enabled,
+            @Value("${miaocha.cluster.heartbeat-interval-ms:10000}") long heartbeatIntervalMillis,
+            @Value("${miaocha.cluster.node-ttl-seconds:30}") int nodeTtlSeconds,
+            @Value("${miaocha.cluster.lease-ttl-seconds:30}") int leaseTtlSeconds,
+            @Value("${miaocha.cluster.virtual-nodes:128}") int virtualNodes) {
+        this.nodeMapper = nodeMapper;
+        this.leaseMapper = leaseMapper;
+        this.nodeIdProvider = nodeIdProvider;
+        this.enabled = enabled;
+        this.heartbeatIntervalMillis = Math.max(1000, heartbeatIntervalMillis);
+        this.nodeTtlSeconds = Math.max(1, nodeTtlSeconds);
+        this.leaseTtlSeconds = Math.max(1, leaseTtlSeconds);
+        this.virtualNodes = Math.max(1, virtualNodes);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            logger.info("集群协调未启用，定时任务按单节点执行");
+            return;
+        }
+        // 心跳不使用Spring调度线程，避免被耗时的定时任务阻塞而误判下线
+        heartbeatExecutor =
+                Executors.newSingleThreadScheduledExecutor(
+                        r -> {
+                            Thread thread = new Thread(r);
+                            thread.setName("cluster-heartbeat");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        heartbeatExecutor.scheduleWithFixedDelay(
+                this::heartbeat, 0, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+        logger.info(
+                "集群协调已启动，nodeId={}, heartbeatIntervalMs={}, nodeTtlSeconds={}",
+                nodeIdProvider.getNodeId(),
+                heartbeatIntervalMillis,
+                nodeTtlSeconds);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (heartbeatExecutor == null) {
+            return;
+        }
+        heartbeatExecutor.shutdownNow();
+        // 主动释放租约并退出集群，其他节点在下次心跳时即可接管
+        String nodeId = nodeIdProvider.getNodeId();
+        try {
+            for (String leaseName : heldLeases) {
+                leaseMapper.release(leaseName, nodeId);
+            }
+            nodeMapper.deleteById(nodeId);
+        } catch (Exception e) {
+            logger.warn("退出集群失败: {}", e.getMessage());
+        }
+        heldLeases.clear();
+        membership = Membership.EMPTY;
+    }
+
+    /** 刷新本节点心跳和存活节点列表，并续期本节点持有的租约 */
+    public void heartbeat() {
+        String nodeId = nodeIdProvider.getNodeId();
+        try {
+            nodeMapper.upsertHeartbeat(nodeId, host);
+            List<String> nodeIds = new ArrayList<>(nodeMapper.selectAliveNodeIds(nodeTtlSeconds));
+            if (!nodeIds.contains(nodeId)) {
+                nodeIds.add(nodeId);
+            }
+            Membership previous = membership;
+            Membership current = new Membership(nodeIds, virtualNodes, System.currentTimeMillis());
+            membership = current;
+            if (!current.nodeIds.equals(previous.nodeIds)) {
+                logger.info("集群节点变化: {} -> {}", previous.nodeIds, current.nodeIds);
+            }
+
+            for (String leaseName : heldLeases) {
+                renewLease(leaseName, nodeId);
+            }
+            nodeMapper.deleteExpired(nodeTtlSeconds * 10);
+        } catch (Exception e) {
+            logger.warn("集群心跳失败，nodeId={}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * 判断本节点是否持有指定任务的主节点租约，未持有且租约空闲时尝试获取
+     *
+     * @param leaseName 租约名称，通常为任务名
+     * @return 本节点是否为该任务的主节点
+     */
+    public boolean isLeader(String leaseName) {
+        if (!enabled) {
+            return true;
+        }
+        if (!isMembershipFresh()) {
+            return false;
+        }
+        return renewLease(leaseName, nodeIdProvider.getNodeId());
+    }
+
+    /**
+     * 判断对象是否分配给本节点
+     *
+     * @param key 分片键，如实例ID
+     * @return 是否由本节点处理
+     */
+    public boolean isOwner(Object key) {
+        if (!enabled) {
+            return true;
+        }
+        if (!isMembershipFresh()) {
+            return false;
+        }
+        return nodeIdProvider.getNodeId().equals(membership.ownerOf(key));
+    }
+
+    /**
+     * 过滤出分配给本节点的对象
+     *
+     * @param items 全部对象
+     * @param keyExtractor 分片键提取函数
+     * @return 分配给本节点的对象
+     */
+    public <T> List<T> filterOwned(Collection<T> items, Function<T, ?> keyExtractor) {
+        if (!enabled) {
+            return new ArrayList<>(items);
+        }
+        if (!isMembershipFresh()) {
+            logger.warn("集群成员信息已过期，本节点暂不处理分片任务");
+            return new ArrayList<>();
+        }
+        Membership current = membership;
+        String nodeId = nodeIdProvider.getNodeId();
+        List<T> owned = new ArrayList<>();
+        for (T item : items) {
+            if (nodeId.equals(current.ownerOf(keyExtractor.apply(item)))) {
+                owned.add(item);
+            }
+        }
+        return owned;
+    }
+
+    /** 当前存活节点ID */
+    public List<String> getLiveNodeIds() {
+        return membership.nodeIds;
+    }
+
+    private boolean renewLease(String leaseName, String nodeId) {
+        try {
+            leaseMapper.tryAcquire(leaseName, nodeId, leaseTtlSeconds);
+            boolean leader = nodeId.equals(leaseMapper.selectOwner(leaseName));
+            boolean changed = leader ? heldLeases.add(leaseName) : heldLeases.remove(leaseName);
+            if (changed) {
+                logger.info("租约 {} {}，nodeId={}", leaseName, leader ? "已获取" : "已失去", nodeId);
+            }
+            return leader;
+        } catch (Exception e) {
+            logger.warn("获取租约 {} 失败: {}", leaseName, e.getMessage());
+            heldLeases.remove(leaseName);
+            return false;
+        }
+    }
+
+    private boolean isMembershipFresh() {
+        long age = System.currentTimeMillis() - membership.refreshedAtMillis;
+        return age < TimeUnit.SECONDS.toMillis(nodeTtlSeconds);
+    }
+
+    private static String resolveHost() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    /** 存活节点快照及其一致性哈希环 */
+    private static final class Membership {
+
+        static final Membership EMPTY = new Membership(List.of(), 1, 0);
+
+        final List<String> nodeIds;
+        final long refreshedAtMillis;
+        private final TreeMap<Long, String> ring = new TreeMap<>();
+
+        Membership(List<String> nodeIds, int virtualNodes, long refreshedAtMillis) {
+            this.nodeIds = nodeIds.stream().sorted().distinct().toList();
+            this.refreshedAtMillis = refreshedAtMillis;
+            for (String nodeId : this.nodeIds) {
+                for (int i = 0; i < virtualNodes; i++) {
+                    ring.put(hash(nodeId + "#" + i), nodeId);
+                }
+            }
+        }
+
+        String ownerOf(Object key) {
+            if (ring.isEmpty()) {
+                return null;
+            }
+            Map.Entry<Long, String> entry = ring.ceilingEntry(hash(Objects.toString(key)));
+            return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+        }
+
+        private static long hash(String value) {
+            try {
+                byte[] digest =
+                        MessageDigest.getInstance("MD5")
+                                .digest(value.getBytes(StandardCharsets.UTF_8));
+                long h = 0;
+                for (int i = 0; i < 8; i++) {
+                    h = (h << 8) | (digest[i] & 0xFF);
+                }
+                return h;
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
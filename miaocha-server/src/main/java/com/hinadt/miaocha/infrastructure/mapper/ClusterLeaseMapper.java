@@ -0,0 +1,39 @@
+package com.hinadt.miaocha.infrastructure.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/** 集群租约Mapper接口 */
+@Mapper
+public interface ClusterLeaseMapper {
+
+    /**
+     * 尝试获取或续期租约，租约未过期且属于其他节点时不做修改
+     *
+     * @param leaseName 租约名称
+     * @param nodeId 节点ID
+     * @param ttlSeconds 租约有效期（秒）
+     * @return 影响行数
+     */
+    int tryAcquire(
+            @Param("leaseName") String leaseName,
+            @Param("nodeId") String nodeId,
+            @Param("ttlSeconds") int ttlSeconds);
+
+    /**
+     * 查询租约当前的有效持有者
+     *
+     * @param leaseName 租约名称
+     * @return 持有者节点ID，租约不存在或已过期时返回null
+     */
+    String selectOwner(@Param("leaseName") String leaseName);
+
+    /**
+     * 释放节点持有的租约
+     *
+     * @param leaseName 租约名称
+     * @param nodeId 节点ID
+     * @return 影响行数
+     */
+    int release(@Param("leaseName") String leaseName, @Param("nodeId") String nodeId);
+}
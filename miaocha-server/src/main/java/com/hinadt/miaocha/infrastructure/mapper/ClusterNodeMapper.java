@@ -0,0 +1,43 @@
+package com.hinadt.miaocha.infrastructure.mapper;
+
+import java.util.List;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/** 集群节点Mapper接口 */
+@Mapper
+public interface ClusterNodeMapper {
+
+    /**
+     * 写入或刷新节点心跳
+     *
+     * @param nodeId 节点ID
+     * @param host 节点主机名
+     * @return 影响行数
+     */
+    int upsertHeartbeat(@Param("nodeId") String nodeId, @Param("host") String host);
+
+    /**
+     * 查询心跳未超时的节点ID，按节点ID排序
+     *
+     * @param ttlSeconds 心跳超时时间（秒）
+     * @return 存活节点ID列表
+     */
+    List<String> selectAliveNodeIds(@Param("ttlSeconds") int ttlSeconds);
+
+    /**
+     * 删除节点
+     *
+     * @param nodeId 节点ID
+     * @return 影响行数
+     */
+    int deleteById(@Param("nodeId") String nodeId);
+
+    /**
+     * 删除心跳早于指定时间的节点
+     *
+     * @param expiredSeconds 距今秒数
+     * @return 影响行数
+     */
+    int deleteExpired(@Param("expiredSeconds") int expiredSeconds);
+}
@@ -36,6 +36,8 @@ public interface LogstashProcessMapper {
 
     LogstashProcess selectById(Long id);
 
+    List<LogstashProcess> selectByIds(@Param("ids") List<Long> ids);
+
     LogstashProcess selectByName(String name);
 
     int countByModuleId(Long moduleId);
@@ -12,7 +12,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.security.KeyPair;
 import java.security.Security;
 import java.util.EnumSet;
 import java.util.concurrent.TimeUnit;
@@ -26,14 +25,22 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
 
-/** SSH客户端，提供基础SSH操作 使用Apache MINA SSHD库实现 */
+/**
+ * SSH客户端，提供基础SSH操作 使用Apache MINA SSHD库实现
+ *
+ * <p>会话由 {@link SshSessionPool} 按机器复用，每次命令或文件传输在已认证的会话上打开新的通道
+ */
 @Component
 public class SshClient {
 
     private static final Logger logger = LoggerFactory.getLogger(SshClient.class);
 
+    /** SFTP写请求的大小，写请求异步发送，不必等待上一个请求的确认；OpenSSH单个请求的上限为256KB */
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+    private final SshSessionPool sessionPool;
+
     static {
         // 注册Bouncy Castle安全提供者，以支持更多加密算法
         if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
@@ -42,6 +49,10 @@ public class SshClient {
         }
     }
 
+    public SshClient(SshSessionPool sessionPool) {
+        this.sessionPool = sessionPool;
+    }
+
     /**
      * 从Machine实体创建SSH配置
      *
@@ -186,44 +197,63 @@ public class SshClient {
     public String executeCommand(SshConfig config, String command) throws SshException {
         logger.debug("执行SSH命令: {}", command);
 
-        // 创建SSHD客户端
-        org.apache.sshd.client.SshClient sshd = createConfiguredSshClient();
+        // 复用的会话可能已被服务器关闭，通道打开失败时命令尚未执行，换用新建的会话重试一次
+        try (SshSessionPool.Lease lease = sessionPool.acquire(config)) {
+            return executeCommand(lease, config, command);
+        } catch (ChannelOpenException e) {
+            if (!e.reused) {
+                throw new SshException("SSH命令执行失败: " + e.getMessage(), e.getCause());
+            }
+            logger.debug("复用的SSH会话打开通道失败，重新连接: {}", e.getMessage());
+        }
+        try (SshSessionPool.Lease lease = sessionPool.acquireDedicated(config)) {
+            return executeCommand(lease, config, command);
+        } catch (ChannelOpenException e) {
+            throw new SshException("SSH命令执行失败: " + e.getMessage(), e.getCause());
+        }
+    }
+
+    /** 在租用的会话上打开命令通道并等待命令执行完成 */
+    private String executeCommand(SshSessionPool.Lease lease, SshConfig config, String command)
+            throws SshException, ChannelOpenException {
+        // 创建命令通道
+        ByteArrayOutputStream responseStream = new ByteArrayOutputStream();
+        ByteArrayOutputStream errorStream = new ByteArrayOutputStream();
+
+        ClientChannel channel;
         try {
-            sshd.start();
-
-            // 连接到服务器并创建会话
-            try (ClientSession session = createSession(sshd, config)) {
-                // 创建命令通道
-                ByteArrayOutputStream responseStream = new ByteArrayOutputStream();
-                ByteArrayOutputStream errorStream = new ByteArrayOutputStream();
-
-                try (ClientChannel channel = session.createChannel(Channel.CHANNEL_EXEC, command)) {
-                    channel.setOut(responseStream);
-                    channel.setErr(errorStream);
-
-                    // 打开通道并等待完成
-                    channel.open().verify(config.getConnectTimeout(), TimeUnit.SECONDS);
-
-                    // 等待命令执行完成
-                    channel.waitFor(
-                            EnumSet.of(ClientChannelEvent.CLOSED),
-                            TimeUnit.MINUTES.toMillis(config.getCommandTimeout()));
-
-                    // 检查退出状态
-                    Integer exitStatus = channel.getExitStatus();
-                    if (exitStatus != null && exitStatus != 0) {
-                        String errorMessage = errorStream.toString(StandardCharsets.UTF_8);
-                        throw new SshException("命令执行失败，退出码: " + exitStatus + "\n" + errorMessage);
-                    }
-
-                    // 返回命令输出
-                    return responseStream.toString(StandardCharsets.UTF_8);
-                }
+            channel = lease.getSession().createChannel(Channel.CHANNEL_EXEC, command);
+        } catch (IOException e) {
+            throw new ChannelOpenException(e, lease.isReused());
+        }
+        channel.setOut(responseStream);
+        channel.setErr(errorStream);
+
+        // 打开通道
+        try {
+            channel.open().verify(config.getConnectTimeout(), TimeUnit.SECONDS);
+        } catch (IOException e) {
+            channel.close(true);
+            throw new ChannelOpenException(e, lease.isReused());
+        }
+
+        try (channel) {
+            // 等待命令执行完成
+            channel.waitFor(
+                    EnumSet.of(ClientChannelEvent.CLOSED),
+                    TimeUnit.MINUTES.toMillis(config.getCommandTimeout()));
+
+            // 检查退出状态
+            Integer exitStatus = channel.getExitStatus();
+            if (exitStatus != null && exitStatus != 0) {
+                String errorMessage = errorStream.toString(StandardCharsets.UTF_8);
+                throw new SshException("命令执行失败，退出码: " + exitStatus + "\n" + errorMessage);
             }
+
+            // 返回命令输出
+            return responseStream.toString(StandardCharsets.UTF_8);
         } catch (IOException e) {
             throw new SshException("SSH命令执行失败: " + e.getMessage(), e);
-        } finally {
-            sshd.stop();
         }
     }
 
@@ -262,24 +292,73 @@ public class SshClient {
             throw new SshException("本地文件不存在: " + localPath);
         }
 
-        // 创建SSHD客户端
-        org.apache.sshd.client.SshClient sshd = createConfiguredSshClient();
-        try {
-            sshd.start();
-
-            // 连接到服务器并创建会话
-            try (ClientSession session = createSession(sshd, config)) {
-                // 使用SFTP传输文件
-                if (Files.isDirectory(localFile)) {
-                    uploadDirectory(session, localFile, remotePath);
-                } else {
-                    uploadSingleFile(session, localFile, remotePath);
-                }
+        // 使用SFTP传输文件
+        try (SshSessionPool.Lease lease = sessionPool.acquire(config)) {
+            ClientSession session = lease.getSession();
+            if (Files.isDirectory(localFile)) {
+                uploadDirectory(session, localFile, remotePath);
+            } else {
+                uploadSingleFile(session, localFile, remotePath);
+            }
+        } catch (IOException e) {
+            throw new SshException("文件上传失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 断点续传上传文件
+     *
+     * <p>远程文件已存在时视为上次中断的部分，从本地文件的相同位置继续以追加方式写入；远程文件比本地文件大时重新上传。
+     * 追加写入依赖服务器的追加语义（OpenSSH的sftp-server按O_APPEND打开），调用方应在上传后校验文件内容
+     *
+     * @param machineInfo 机器信息
+     * @param localPath 本地文件路径
+     * @param remotePath 远程文件路径
+     * @throws SshException 如果上传失败
+     */
+    public void uploadFileResumable(MachineInfo machineInfo, String localPath, String remotePath)
+            throws SshException {
+        SshConfig config = createConfig(machineInfo);
+        Path localFile = Paths.get(localPath);
+        try (SshSessionPool.Lease lease = sessionPool.acquire(config);
+                SftpClient sftpClient =
+                        SftpClientFactory.instance().createSftpClient(lease.getSession())) {
+            long localSize = Files.size(localFile);
+            long offset = 0;
+            try {
+                offset = sftpClient.stat(remotePath).getSize();
+            } catch (IOException e) {
+                // 远程文件不存在，从头上传
+            }
+            if (offset > localSize) {
+                sftpClient.remove(remotePath);
+                offset = 0;
+            }
+            if (offset == localSize) {
+                return;
+            }
+            if (offset > 0) {
+                logger.info(
+                        "从 {} 字节处续传文件: {} -> {}:{}",
+                        offset,
+                        localPath,
+                        machineInfo.getIp(),
+                        remotePath);
+            }
+
+            try (InputStream inputStream = Files.newInputStream(localFile);
+                    OutputStream outputStream =
+                            sftpClient.write(
+                                    remotePath,
+                                    TRANSFER_BUFFER_SIZE,
+                                    SftpClient.OpenMode.Write,
+                                    SftpClient.OpenMode.Create,
+                                    SftpClient.OpenMode.Append)) {
+                inputStream.skipNBytes(offset);
+                copy(inputStream, outputStream);
             }
         } catch (IOException e) {
             throw new SshException("文件上传失败: " + e.getMessage(), e);
-        } finally {
-            sshd.stop();
         }
     }
 
@@ -315,77 +394,22 @@ public class SshClient {
         logger.debug("下载文件: {} -> {}", remotePath, localPath);
         Path localFile = Paths.get(localPath);
 
-        // 创建SSHD客户端
-        org.apache.sshd.client.SshClient sshd = createConfiguredSshClient();
-        try {
-            sshd.start();
-
-            // 连接到服务器并创建会话
-            try (ClientSession session = createSession(sshd, config)) {
-                // 创建本地目录(如果需要)
-                Path parentDir = localFile.getParent();
-                if (parentDir != null && !Files.exists(parentDir)) {
-                    Files.createDirectories(parentDir);
-                }
+        try (SshSessionPool.Lease lease = sessionPool.acquire(config)) {
+            // 创建本地目录(如果需要)
+            Path parentDir = localFile.getParent();
+            if (parentDir != null && !Files.exists(parentDir)) {
+                Files.createDirectories(parentDir);
+            }
 
-                // 使用SFTP下载文件
-                try (SftpClient sftpClient =
-                        SftpClientFactory.instance().createSftpClient(session)) {
-                    try (InputStream inputStream = sftpClient.read(remotePath)) {
-                        Files.copy(inputStream, localFile, StandardCopyOption.REPLACE_EXISTING);
-                    }
+            // 使用SFTP下载文件
+            try (SftpClient sftpClient =
+                    SftpClientFactory.instance().createSftpClient(lease.getSession())) {
+                try (InputStream inputStream = sftpClient.read(remotePath)) {
+                    Files.copy(inputStream, localFile, StandardCopyOption.REPLACE_EXISTING);
                 }
             }
         } catch (IOException e) {
             throw new SshException("文件下载失败: " + e.getMessage(), e);
-        } finally {
-            sshd.stop();
-        }
-    }
-
-    /** 创建配置好的SSH客户端 */
-    private org.apache.sshd.client.SshClient createConfiguredSshClient() {
-        org.apache.sshd.client.SshClient sshd =
-                org.apache.sshd.client.SshClient.setUpDefaultClient();
-
-        // 配置服务器密钥验证器，忽略未知主机密钥的警告
-        sshd.setServerKeyVerifier(
-                (clientSession, remoteAddress, serverKey) -> {
-                    logger.debug("接受服务器密钥: {}@{}", serverKey.getAlgorithm(), remoteAddress);
-                    return true; // 总是接受服务器密钥
-                });
-
-        return sshd;
-    }
-
-    /** 创建SSH会话并进行认证 */
-    private ClientSession createSession(org.apache.sshd.client.SshClient sshd, SshConfig config)
-            throws SshException {
-        try {
-            // 连接到服务器
-            ClientSession session =
-                    sshd.connect(config.getUsername(), config.getHost(), config.getPort())
-                            .verify(config.getConnectTimeout(), TimeUnit.SECONDS)
-                            .getSession();
-
-            // 设置认证方式
-            if (StringUtils.hasText(config.getPrivateKey())) {
-                // 私钥认证
-                KeyPair keyPair = SshClientUtil.loadPrivateKey(config.getPrivateKey());
-                session.addPublicKeyIdentity(keyPair);
-            } else if (StringUtils.hasText(config.getPassword())) {
-                // 密码认证
-                session.addPasswordIdentity(config.getPassword());
-            } else {
-                throw new SshException("未提供认证信息，无法连接SSH服务器");
-            }
-
-            // 尝试认证
-            session.auth().verify(config.getConnectTimeout(), TimeUnit.SECONDS);
-
-            return session;
-        } catch (Exception e) {
-            throw new SshException("SSH连接或认证失败: " + e.getMessage(), e);
         }
     }
 
@@ -420,17 +444,24 @@ public class SshClient {
                 OutputStream outputStream =
                         sftpClient.write(
                                 finalRemotePath,
+                                TRANSFER_BUFFER_SIZE,
                                 SftpClient.OpenMode.Create,
                                 SftpClient.OpenMode.Write)) {
-            byte[] buffer = new byte[8192];
-            int len;
-            while ((len = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, len);
-            }
-            outputStream.flush();
+            copy(inputStream, outputStream);
         }
     }
 
+    /** 以SFTP写请求的大小复制数据 */
+    private static void copy(InputStream inputStream, OutputStream outputStream)
+            throws IOException {
+        byte[] buffer = new byte[TRANSFER_BUFFER_SIZE];
+        int len;
+        while ((len = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, len);
+        }
+        outputStream.flush();
+    }
+
     /** 递归上传目录 */
     private void uploadDirectory(ClientSession session, Path localDir, String remoteDir)
             throws IOException {
@@ -462,4 +493,15 @@ public class SshClient {
                             });
         }
     }
+
+    /** 通道打开失败，此时命令尚未执行 */
+    private static final class ChannelOpenException extends Exception {
+
+        private final boolean reused;
+
+        ChannelOpenException(IOException cause, boolean reused) {
+            super(cause.getMessage(), cause);
+            this.reused = reused;
+        }
+    }
 }
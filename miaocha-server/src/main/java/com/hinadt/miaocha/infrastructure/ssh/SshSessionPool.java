@@ -0,0 +1,308 @@
+package com.hinadt.miaocha.infrastructure.ssh;
+
+import com.hinadt.miaocha.common.exception.SshException;
+import jakarta.annotation.PreDestroy;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.core.CoreModuleProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * SSH会话池
+ *
+ * <p>按机器（地址、端口、用户和认证信息）保留已认证的会话，每次命令或文件传输只在会话上打开新的通道， 不必每次都重新建立TCP连接、交换密钥和认证。所有会话共用一个 MINA
+ * 客户端及其I/O线程。
+ *
+ * <p>取用前检查会话是否仍然打开，SSH心跳让空闲连接不被网络设备断开，也能及时发现已断开的连接； 空闲超过指定时间的会话由后台任务关闭。同一会话上同时使用的通道数有上限（sshd 默认
+ * MaxSessions 为10）， 超出时为本次操作单独建立会话，用完即关闭。
+ */
+@Component
+public class SshSessionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(SshSessionPool.class);
+
+    private final org.apache.sshd.client.SshClient client;
+    private final ConcurrentMap<String, PooledSession> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictor;
+    private final boolean enabled;
+    private final long idleTimeoutMillis;
+    private final int maxChannelsPerSession;
+
+    public SshSessionPool(
+            @Value("${miaocha.ssh.pool.enabled:true}") boolean enabled,
+            @Value("${miaocha.ssh.pool.idle-timeout-seconds:300}") long idleTimeoutSeconds,
+            @Value("${miaocha.ssh.pool.max-channels-per-session:8}") int maxChannelsPerSession,
+            @Value("${miaocha.ssh.pool.heartbeat-seconds:30}") long heartbeatSeconds) {
+        this.enabled = enabled;
+        this.idleTimeoutMillis = TimeUnit.SECONDS.toMillis(idleTimeoutSeconds);
+        this.maxChannelsPerSession = Math.max(1, maxChannelsPerSession);
+
+        this.client = org.apache.sshd.client.SshClient.setUpDefaultClient();
+        // 配置服务器密钥验证器，忽略未知主机密钥的警告
+        this.client.setServerKeyVerifier(
+                (clientSession, remoteAddress, serverKey) -> {
+                    logger.debug("接受服务器密钥: {}@{}", serverKey.getAlgorithm(), remoteAddress);
+                    return true; // 总是接受服务器密钥
+                });
+        if (heartbeatSeconds > 0) {
+            CoreModuleProperties.HEARTBEAT_INTERVAL.set(
+                    client, Duration.ofSeconds(heartbeatSeconds));
+        }
+        this.client.start();
+
+        this.evictor =
+                Executors.newSingleThreadScheduledExecutor(
+                        r -> {
+                            Thread thread = new Thread(r);
+                            thread.setName("ssh-session-evictor");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        long evictPeriodSeconds = Math.max(1, idleTimeoutSeconds / 2);
+        this.evictor.scheduleWithFixedDelay(
+                this::evictIdleSessions, evictPeriodSeconds, evictPeriodSeconds, TimeUnit.SECONDS);
+
+        logger.info(
+                "SSH会话池已初始化，enabled={}, idleTimeoutSeconds={}, maxChannelsPerSession={}",
+                enabled,
+                idleTimeoutSeconds,
+                this.maxChannelsPerSession);
+    }
+
+    /**
+     * 取用一个已认证的会话，使用完毕后需关闭租约
+     *
+     * @param config SSH配置
+     * @return 会话租约
+     * @throws SshException 如果连接或认证失败
+     */
+    public Lease acquire(SshConfig config) throws SshException {
+        if (!enabled) {
+            return acquireDedicated(config);
+        }
+        String key = key(config);
+        while (true) {
+            PooledSession pooled = sessions.computeIfAbsent(key, k -> new PooledSession());
+            // 同一机器的其他请求在锁上等待本次连接完成后复用会话，不会同时建立多个连接
+            pooled.lock.lock();
+            try {
+                // 已被空闲回收的会话不再使用，重新取用
+                if (pooled.removed) {
+                    continue;
+                }
+                if (pooled.channels >= maxChannelsPerSession) {
+                    break;
+                }
+                boolean reused = pooled.isHealthy();
+                if (!reused) {
+                    pooled.closeQuietly();
+                    pooled.session = connect(config);
+                }
+                pooled.channels++;
+                pooled.lastUsedMillis = System.currentTimeMillis();
+                return new Lease(pooled, pooled.session, reused);
+            } finally {
+                pooled.lock.unlock();
+            }
+        }
+        logger.debug("{} 的会话通道数已达上限，为本次操作单独建立会话", config.getHost());
+        return acquireDedicated(config);
+    }
+
+    /**
+     * 为本次操作单独建立会话，租约关闭时关闭会话
+     *
+     * @param config SSH配置
+     * @return 会话租约
+     * @throws SshException 如果连接或认证失败
+     */
+    public Lease acquireDedicated(SshConfig config) throws SshException {
+        return new Lease(null, connect(config), false);
+    }
+
+    /** 关闭空闲超时或已断开且没有在使用的会话 */
+    public void evictIdleSessions() {
+        long now = System.currentTimeMillis();
+        sessions.forEach(
+                (key, pooled) -> {
+                    // 正在建立连接的会话不是空闲会话，跳过
+                    if (!pooled.lock.tryLock()) {
+                        return;
+                    }
+                    try {
+                        if (pooled.channels == 0
+                                && (now - pooled.lastUsedMillis >= idleTimeoutMillis
+                                        || !pooled.isHealthy())) {
+                            pooled.removed = true;
+                            sessions.remove(key, pooled);
+                            pooled.closeQuietly();
+                            logger.debug("关闭空闲的SSH会话: {}", key.substring(0, key.indexOf('#')));
+                        }
+                    } finally {
+                        pooled.lock.unlock();
+                    }
+                });
+    }
+
+    /** 当前保留的会话数 */
+    public int size() {
+        return sessions.size();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        evictor.shutdownNow();
+        sessions.forEach(
+                (key, pooled) -> {
+                    pooled.lock.lock();
+                    try {
+                        pooled.removed = true;
+                        pooled.closeQuietly();
+                    } finally {
+                        pooled.lock.unlock();
+                    }
+                });
+        sessions.clear();
+        try {
+            client.stop();
+        } catch (Exception e) {
+            logger.warn("关闭SSH客户端失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 建立SSH会话并进行认证
+     *
+     * @param config SSH配置
+     * @return 已认证的会话
+     * @throws SshException 如果连接或认证失败
+     */
+    protected ClientSession connect(SshConfig config) throws SshException {
+        ClientSession session = null;
+        try {
+            // 连接到服务器
+            session =
+                    client.connect(config.getUsername(), config.getHost(), config.getPort())
+                            .verify(config.getConnectTimeout(), TimeUnit.SECONDS)
+                            .getSession();
+
+            // 设置认证方式
+            if (StringUtils.hasText(config.getPrivateKey())) {
+                // 私钥认证
+                KeyPair keyPair = SshClientUtil.loadPrivateKey(config.getPrivateKey());
+                session.addPublicKeyIdentity(keyPair);
+            } else if (StringUtils.hasText(config.getPassword())) {
+                // 密码认证
+                session.addPasswordIdentity(config.getPassword());
+            } else {
+                throw new SshException("未提供认证信息，无法连接SSH服务器");
+            }
+
+            // 尝试认证
+            session.auth().verify(config.getConnectTimeout(), TimeUnit.SECONDS);
+
+            return session;
+        } catch (Exception e) {
+            if (session != null) {
+                session.close(true);
+            }
+            throw new SshException("SSH连接或认证失败: " + e.getMessage(), e);
+        }
+    }
+
+    /** 会话的键，认证信息变化后使用新的会话 */
+    private static String key(SshConfig config) {
+        return config.getUsername()
+                + '@'
+                + config.getHost()
+                + ':'
+                + config.getPort()
+                + '#'
+                + Objects.hash(config.getPassword(), config.getPrivateKey());
+    }
+
+    /**
+     * 池中一台机器的会话，字段由 lock 保护
+     *
+     * <p>建立连接和认证在锁内进行，使用 ReentrantLock 而不是 synchronized，虚拟线程等待网络握手时不会占住载体线程
+     */
+    private static final class PooledSession {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private ClientSession session;
+        private int channels;
+        private long lastUsedMillis;
+        private boolean removed;
+
+        boolean isHealthy() {
+            return session != null && session.isOpen() && !session.isClosing();
+        }
+
+        void closeQuietly() {
+            if (session != null) {
+                session.close(true);
+                session = null;
+            }
+        }
+    }
+
+    /** 会话租约，关闭时归还会话；单独建立的会话在关闭时断开 */
+    public static final class Lease implements AutoCloseable {
+
+        private final PooledSession pooled;
+        private final ClientSession session;
+        private final boolean reused;
+        private boolean closed;
+
+        private Lease(PooledSession pooled, ClientSession session, boolean reused) {
+            this.pooled = pooled;
+            this.session = session;
+            this.reused = reused;
+        }
+
+        /** 已认证的会话，不要关闭 */
+        public ClientSession getSession() {
+            return session;
+        }
+
+        /** 会话是否为池中复用的会话，复用的会话可能已被服务器关闭 */
+        public boolean isReused() {
+            return reused;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (pooled == null) {
+                session.close(true);
+                return;
+            }
+            pooled.lock.lock();
+            try {
+                pooled.channels = Math.max(0, pooled.channels - 1);
+                pooled.lastUsedMillis = System.currentTimeMillis();
+                // 已断开的会话不再复用，下次取用时重新连接
+                if (pooled.session == session && !pooled.isHealthy()) {
+                    pooled.closeQuietly();
+                }
+            } finally {
+                pooled.lock.unlock();
+            }
+        }
+    }
+}
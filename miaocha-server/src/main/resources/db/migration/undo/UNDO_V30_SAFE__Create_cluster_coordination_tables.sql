@@ -0,0 +1,7 @@
+-- =============================================
+-- UNDO V30 (SAFE): Drop cluster coordination tables
+-- Only node heartbeats and leases are stored, they are recreated by running nodes.
+-- =============================================
+
+DROP TABLE IF EXISTS cluster_lease;
+DROP TABLE IF EXISTS cluster_node;
@@ -0,0 +1,23 @@
+-- =============================================
+-- V30: 创建集群协调表
+-- 多节点部署时用于节点心跳、定时任务的主节点租约以及按存活节点分片
+-- 时间均使用数据库时间，避免各节点时钟不一致
+-- =============================================
+
+-- 集群节点表，节点定期刷新心跳时间，超时未刷新视为下线
+CREATE TABLE IF NOT EXISTS cluster_node (
+    node_id VARCHAR(64) NOT NULL COMMENT '节点ID，由NodeIdProvider生成或配置',
+    host VARCHAR(255) NOT NULL DEFAULT '' COMMENT '节点主机名',
+    start_time DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) COMMENT '节点加入时间',
+    heartbeat_time DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) COMMENT '最近心跳时间',
+    PRIMARY KEY (node_id),
+    KEY idx_heartbeat_time (heartbeat_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='集群节点表';
+
+-- 集群租约表，同一租约在有效期内只属于一个节点
+CREATE TABLE IF NOT EXISTS cluster_lease (
+    lease_name VARCHAR(128) NOT NULL COMMENT '租约名称，如定时任务名',
+    owner_node_id VARCHAR(64) NOT NULL COMMENT '持有租约的节点ID',
+    expire_time DATETIME(3) NOT NULL COMMENT '租约过期时间',
+    PRIMARY KEY (lease_name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='集群租约表';
@@ -0,0 +1,223 @@
+package com.hinadt.miaocha.mock.logstash;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.hinadt.miaocha.application.logstash.command.CommandPipeline;
+import com.hinadt.miaocha.application.logstash.command.CommandPipeline.StepResult;
+import com.hinadt.miaocha.application.logstash.command.CreateConfigCommand;
+import com.hinadt.miaocha.application.logstash.command.CreateDirectoryCommand;
+import com.hinadt.miaocha.application.logstash.command.ExtractPackageCommand;
+import com.hinadt.miaocha.application.logstash.command.LogstashCommand;
+import com.hinadt.miaocha.application.logstash.command.StartProcessCommand;
+import com.hinadt.miaocha.application.logstash.enums.StepStatus;
+import com.hinadt.miaocha.application.logstash.path.LogstashDeployPathManager;
+import com.hinadt.miaocha.common.exception.SshException;
+import com.hinadt.miaocha.domain.entity.MachineInfo;
+import com.hinadt.miaocha.infrastructure.mapper.LogstashMachineMapper;
+import com.hinadt.miaocha.infrastructure.ssh.SshClient;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** 命令流水线测试 验证连续命令编译为单个脚本执行、按标记行解析步骤结果以及失败后跳过后续步骤 */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("命令流水线测试")
+class CommandPipelineTest {
+
+    private static final Long INSTANCE_ID = 1L;
+    private static final String PROCESS_DIR = "/opt/logstash/logstash-1";
+
+    @Mock private SshClient sshClient;
+    @Mock private LogstashMachineMapper logstashMachineMapper;
+    @Mock private LogstashDeployPathManager deployPathManager;
+    @Mock private LogstashCommand uploadCommand;
+
+    private MachineInfo machineInfo;
+    private List<String> events;
+
+    @BeforeEach
+    void setUp() {
+        lenient()
+                .when(deployPathManager.getInstanceDeployPath(INSTANCE_ID))
+                .thenReturn(PROCESS_DIR);
+        lenient().when(uploadCommand.getDescription()).thenReturn("上传Logstash安装包");
+        machineInfo = new MachineInfo();
+        machineInfo.setId(1L);
+        machineInfo.setName("test-machine");
+        events = new ArrayList<>();
+    }
+
+    @Test
+    @DisplayName("连续的命令编译为一个脚本，上传安装包把前后分为两个脚本")
+    void testScriptsSplitByUpload() throws Exception {
+        when(sshClient.executeCommand(eq(machineInfo), anyString()))
+                .thenReturn(marker(0, "begin") + marker(0, "end 0"))
+                .thenReturn(
+                        marker(0, "begin")
+                                + marker(0, "end 0")
+                                + marker(1, "begin")
+                                + "exists\n"
+                                + marker(1, "end 0"));
+        when(uploadCommand.execute(machineInfo)).thenReturn(true);
+
+        StepResult failure =
+                new CommandPipeline(sshClient)
+                        .add("CREATE_REMOTE_DIR", directoryCommand())
+                        .add("UPLOAD_PACKAGE", uploadCommand)
+                        .add("EXTRACT_PACKAGE", extractCommand())
+                        .add("CREATE_CONFIG", configCommand("input {}"))
+                        .execute(machineInfo, listener());
+
+        assertNull(failure);
+        assertEquals(
+                List.of(
+                        "CREATE_REMOTE_DIR RUNNING",
+                        "CREATE_REMOTE_DIR COMPLETED",
+                        "UPLOAD_PACKAGE RUNNING",
+                        "UPLOAD_PACKAGE COMPLETED",
+                        "EXTRACT_PACKAGE RUNNING",
+                        "CREATE_CONFIG RUNNING",
+                        "EXTRACT_PACKAGE COMPLETED",
+                        "CREATE_CONFIG COMPLETED"),
+                events);
+
+        ArgumentCaptor<String> scripts = ArgumentCaptor.forClass(String.class);
+        verify(sshClient, times(2)).executeCommand(eq(machineInfo), scripts.capture());
+        String second = scripts.getAllValues().get(1);
+        assertTrue(second.contains("tar -xzf \"logstash-8.8.0.tar.gz\" --strip-components=1"));
+        assertTrue(second.contains("cat > \"" + PROCESS_DIR + "/config/logstash-1.conf.tmp\""));
+        assertTrue(second.endsWith("exit 0\n"));
+    }
+
+    @Test
+    @DisplayName("步骤失败时报告输出中的错误信息，后续步骤跳过")
+    void testFailedStep() throws Exception {
+        when(sshClient.executeCommand(eq(machineInfo), anyString()))
+                .thenReturn(
+                        marker(0, "begin")
+                                + marker(0, "end 0")
+                                + marker(1, "begin")
+                                + "tar: logstash-8.8.0.tar.gz: Cannot open\n"
+                                + marker(1, "end 2"));
+
+        StepResult failure =
+                new CommandPipeline(sshClient)
+                        .add("CREATE_REMOTE_DIR", directoryCommand())
+                        .add("EXTRACT_PACKAGE", extractCommand())
+                        .add("CREATE_CONFIG", configCommand("input {}"))
+                        .add("UPLOAD_PACKAGE", uploadCommand)
+                        .execute(machineInfo, listener());
+
+        assertNotNull(failure);
+        assertEquals("EXTRACT_PACKAGE", failure.stepId());
+        assertEquals(
+                "解压Logstash安装包失败: tar: logstash-8.8.0.tar.gz: Cannot open", failure.errorMessage());
+        assertTrue(events.contains("EXTRACT_PACKAGE FAILED"));
+        assertTrue(events.contains("CREATE_CONFIG SKIPPED"));
+        verify(uploadCommand, never()).execute(any());
+    }
+
+    @Test
+    @DisplayName("可选步骤失败不影响后续步骤，脚本调用失败时所有步骤失败")
+    void testOptionalStepAndSshFailure() throws Exception {
+        when(sshClient.executeCommand(eq(machineInfo), anyString()))
+                .thenReturn(
+                        marker(0, "begin")
+                                + "rm: cannot remove\n"
+                                + marker(0, "end 1")
+                                + marker(1, "begin")
+                                + marker(1, "end 0"))
+                .thenThrow(new SshException("连接被拒绝"));
+
+        CommandPipeline pipeline =
+                new CommandPipeline(sshClient)
+                        .addOptional(directoryCommand())
+                        .add("CREATE_REMOTE_DIR", directoryCommand());
+        assertNull(pipeline.execute(machineInfo, listener()));
+        assertEquals(List.of("CREATE_REMOTE_DIR RUNNING", "CREATE_REMOTE_DIR COMPLETED"), events);
+
+        StepResult failure = pipeline.execute(machineInfo, listener());
+        assertNotNull(failure);
+        assertEquals("创建Logstash实例目录失败: 连接被拒绝", failure.errorMessage());
+    }
+
+    @Test
+    @DisplayName("配置内容包含heredoc结束符时使用其他结束符")
+    void testHeredocDelimiter() {
+        String script = configCommand("MIAOCHA_EOF\nfilter {}").buildScript();
+
+        assertTrue(script.contains("<< 'MIAOCHA_EOF_'\nMIAOCHA_EOF\nfilter {}\nMIAOCHA_EOF_\n"));
+    }
+
+    @Test
+    @DisplayName("启动步骤从脚本输出中读取PID")
+    void testStartProcessOutput() {
+        StartProcessCommand command =
+                new StartProcessCommand(
+                        sshClient,
+                        "/opt/logstash",
+                        INSTANCE_ID,
+                        logstashMachineMapper,
+                        deployPathManager);
+
+        assertTrue(command.buildScript().contains("sleep 3"));
+        assertTrue(command.handleScriptOutput(machineInfo, "pid=12345"));
+        verify(logstashMachineMapper).updateProcessPidById(INSTANCE_ID, "12345");
+    }
+
+    private CommandPipeline.StepListener listener() {
+        return new CommandPipeline.StepListener() {
+            @Override
+            public void onStart(String stepId) {
+                events.add(stepId + " RUNNING");
+            }
+
+            @Override
+            public void onFinish(StepResult result) {
+                events.add(result.stepId() + " " + result.status());
+                if (result.status() == StepStatus.COMPLETED) {
+                    assertNull(result.errorMessage());
+                }
+            }
+        };
+    }
+
+    private static String marker(int index, String event) {
+        return "@@miaocha-step " + index + " " + event + "\n";
+    }
+
+    private CreateDirectoryCommand directoryCommand() {
+        return new CreateDirectoryCommand(
+                sshClient, "/opt/logstash", INSTANCE_ID, logstashMachineMapper, deployPathManager);
+    }
+
+    private ExtractPackageCommand extractCommand() {
+        return new ExtractPackageCommand(
+                sshClient,
+                "/opt/logstash",
+                "/data/packages/logstash-8.8.0.tar.gz",
+                INSTANCE_ID,
+                logstashMachineMapper,
+                deployPathManager);
+    }
+
+    private CreateConfigCommand configCommand(String content) {
+        return new CreateConfigCommand(
+                sshClient,
+                "/opt/logstash",
+                INSTANCE_ID,
+                content,
+                logstashMachineMapper,
+                deployPathManager);
+    }
+}
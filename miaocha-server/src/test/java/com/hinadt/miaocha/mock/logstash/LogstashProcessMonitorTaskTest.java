@@ -0,0 +1,247 @@
+package com.hinadt.miaocha.mock.logstash;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.hinadt.miaocha.application.logstash.enums.LogstashMachineState;
+import com.hinadt.miaocha.application.logstash.task.LogstashProcessMonitorTask;
+import com.hinadt.miaocha.common.exception.SshException;
+import com.hinadt.miaocha.domain.entity.LogstashMachine;
+import com.hinadt.miaocha.domain.entity.LogstashProcess;
+import com.hinadt.miaocha.domain.entity.MachineInfo;
+import com.hinadt.miaocha.infrastructure.NodeIdProvider;
+import com.hinadt.miaocha.infrastructure.cluster.ClusterCoordinator;
+import com.hinadt.miaocha.infrastructure.email.EmailService;
+import com.hinadt.miaocha.infrastructure.email.EmailTemplateRenderer;
+import com.hinadt.miaocha.infrastructure.mapper.ClusterLeaseMapper;
+import com.hinadt.miaocha.infrastructure.mapper.ClusterNodeMapper;
+import com.hinadt.miaocha.infrastructure.mapper.LogstashMachineMapper;
+import com.hinadt.miaocha.infrastructure.mapper.LogstashProcessMapper;
+import com.hinadt.miaocha.infrastructure.mapper.MachineMapper;
+import com.hinadt.miaocha.infrastructure.ssh.SshClient;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** Logstash进程监控任务测试 验证按机器批量检查进程、批量加载进程信息以及检查失败时不误判 */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Logstash进程监控任务测试")
+class LogstashProcessMonitorTaskTest {
+
+    private static final String END_MARKER = "__miaocha_check_end__";
+
+    @Mock private LogstashMachineMapper logstashMachineMapper;
+    @Mock private LogstashProcessMapper logstashProcessMapper;
+    @Mock private MachineMapper machineMapper;
+    @Mock private SshClient sshClient;
+    @Mock private EmailService emailService;
+    @Mock private EmailTemplateRenderer templateRenderer;
+    @Mock private ClusterCoordinator clusterCoordinator;
+
+    private LogstashProcessMonitorTask task;
+    private MachineInfo machine1;
+    private MachineInfo machine2;
+
+    @BeforeEach
+    void setUp() {
+        machine1 = machine(1L, "192.168.1.1");
+        machine2 = machine(2L, "192.168.1.2");
+
+        LogstashProcess process = new LogstashProcess();
+        process.setId(100L);
+        process.setName("test-process");
+        process.setUpdateTime(LocalDateTime.now().minusHours(1));
+
+        lenient().when(logstashProcessMapper.selectByIds(any())).thenReturn(List.of(process));
+        lenient().when(machineMapper.selectByIds(any())).thenReturn(List.of(machine1, machine2));
+
+        // 默认所有实例都分配给本节点
+        lenient()
+                .when(clusterCoordinator.filterOwned(any(), any()))
+                .thenAnswer(invocation -> List.copyOf(invocation.getArgument(0)));
+
+        // 同步执行器，便于验证
+        task =
+                new LogstashProcessMonitorTask(
+                        logstashMachineMapper,
+                        logstashProcessMapper,
+                        machineMapper,
+                        sshClient,
+                        emailService,
+                        templateRenderer,
+                        Runnable::run,
+                        clusterCoordinator);
+    }
+
+    @Test
+    @DisplayName("同一机器上的实例只执行一次检查命令，并清理已退出的进程")
+    void testCheckPerMachine() throws Exception {
+        when(logstashMachineMapper.selectAllWithProcessPid())
+                .thenReturn(
+                        List.of(
+                                instance(11L, 1L, "1001"),
+                                instance(12L, 1L, "1002"),
+                                instance(21L, 2L, "2001")));
+        when(sshClient.executeCommand(eq(machine1), anyString()))
+                .thenReturn("1001\n" + END_MARKER + "\n");
+        when(sshClient.executeCommand(eq(machine2), anyString()))
+                .thenReturn("2001\n" + END_MARKER + "\n");
+
+        task.monitorLogstashProcesses();
+
+        ArgumentCaptor<String> commandCaptor = ArgumentCaptor.forClass(String.class);
+        verify(sshClient).executeCommand(eq(machine1), commandCaptor.capture());
+        assertTrue(commandCaptor.getValue().contains("1001 1002"));
+        verify(sshClient, times(1)).executeCommand(eq(machine2), anyString());
+
+        verify(logstashProcessMapper, times(1)).selectByIds(List.of(100L));
+        verify(logstashProcessMapper, never()).selectById(anyLong());
+        verify(machineMapper, times(1)).selectByIds(List.of(1L, 2L));
+
+        verify(logstashMachineMapper).updateStateById(12L, LogstashMachineState.NOT_STARTED.name());
+        verify(logstashMachineMapper).updateProcessPidById(12L, null);
+        verify(logstashMachineMapper, never()).updateStateById(eq(11L), anyString());
+        verify(logstashMachineMapper, never()).updateStateById(eq(21L), anyString());
+    }
+
+    @Test
+    @DisplayName("SSH失败或输出不完整时视为进程仍在运行")
+    void testCheckFailureKeepsInstances() throws Exception {
+        when(logstashMachineMapper.selectAllWithProcessPid())
+                .thenReturn(List.of(instance(11L, 1L, "1001"), instance(21L, 2L, "2001")));
+        when(sshClient.executeCommand(eq(machine1), anyString()))
+                .thenThrow(new SshException("connection refused"));
+        when(sshClient.executeCommand(eq(machine2), anyString())).thenReturn("");
+
+        task.monitorLogstashProcesses();
+
+        verify(logstashMachineMapper, never()).updateStateById(anyLong(), anyString());
+        verify(logstashMachineMapper, never()).updateProcessPidById(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("非数字PID和非运行状态的实例不参与检查")
+    void testSkipInvalidInstances() throws Exception {
+        LogstashMachine stopped = instance(12L, 1L, "1002");
+        stopped.setState(LogstashMachineState.NOT_STARTED.name());
+        when(logstashMachineMapper.selectAllWithProcessPid())
+                .thenReturn(List.of(instance(11L, 1L, "1001; rm -rf /"), stopped));
+
+        task.monitorLogstashProcesses();
+
+        verify(sshClient, never()).executeCommand(any(MachineInfo.class), anyString());
+        verify(logstashMachineMapper, never()).updateStateById(anyLong(), anyString());
+    }
+
+    @Test
+    @DisplayName("只检查分配给本节点的实例")
+    void testOnlyOwnedInstancesChecked() throws Exception {
+        LogstashMachine owned = instance(11L, 1L, "1001");
+        when(logstashMachineMapper.selectAllWithProcessPid())
+                .thenReturn(List.of(owned, instance(21L, 2L, "2001")));
+        doReturn(List.of(owned)).when(clusterCoordinator).filterOwned(any(), any());
+        when(sshClient.executeCommand(eq(machine1), anyString())).thenReturn(END_MARKER);
+
+        task.monitorLogstashProcesses();
+
+        verify(sshClient, times(1)).executeCommand(eq(machine1), anyString());
+        verify(sshClient, never()).executeCommand(eq(machine2), anyString());
+        verify(machineMapper).selectByIds(List.of(1L));
+        verify(logstashMachineMapper).updateStateById(11L, LogstashMachineState.NOT_STARTED.name());
+    }
+
+    @Test
+    @DisplayName("多节点部署时每台机器只由一个节点检查一次")
+    void testMachinesShardedAcrossNodes() throws Exception {
+        List<LogstashMachine> instances = new ArrayList<>();
+        Map<Long, MachineInfo> machines = new HashMap<>();
+        for (long machineId = 1; machineId <= 6; machineId++) {
+            machines.put(machineId, machine(machineId, "192.168.1." + machineId));
+            for (long i = 1; i <= 3; i++) {
+                long id = machineId * 10 + i;
+                instances.add(instance(id, machineId, String.valueOf(id * 100)));
+            }
+        }
+        when(logstashMachineMapper.selectAllWithProcessPid()).thenReturn(instances);
+        when(machineMapper.selectByIds(any()))
+                .thenAnswer(
+                        invocation ->
+                                invocation.<List<Long>>getArgument(0).stream()
+                                        .map(machines::get)
+                                        .toList());
+        when(sshClient.executeCommand(any(MachineInfo.class), anyString())).thenReturn(END_MARKER);
+
+        ClusterNodeMapper nodeMapper = mock(ClusterNodeMapper.class);
+        when(nodeMapper.selectAliveNodeIds(anyInt())).thenReturn(List.of("node-a", "node-b"));
+        for (String nodeId : List.of("node-a", "node-b")) {
+            NodeIdProvider nodeIdProvider = mock(NodeIdProvider.class);
+            when(nodeIdProvider.getNodeId()).thenReturn(nodeId);
+            ClusterCoordinator coordinator =
+                    new ClusterCoordinator(
+                            nodeMapper,
+                            mock(ClusterLeaseMapper.class),
+                            nodeIdProvider,
+                            true,
+                            10000,
+                            30,
+                            30,
+                            128);
+            coordinator.heartbeat();
+            new LogstashProcessMonitorTask(
+                            logstashMachineMapper,
+                            logstashProcessMapper,
+                            machineMapper,
+                            sshClient,
+                            emailService,
+                            templateRenderer,
+                            Runnable::run,
+                            coordinator)
+                    .monitorLogstashProcesses();
+        }
+
+        for (MachineInfo machineInfo : machines.values()) {
+            ArgumentCaptor<String> commandCaptor = ArgumentCaptor.forClass(String.class);
+            verify(sshClient, times(1)).executeCommand(eq(machineInfo), commandCaptor.capture());
+            long base = machineInfo.getId() * 1000;
+            assertTrue(
+                    commandCaptor
+                            .getValue()
+                            .contains((base + 100) + " " + (base + 200) + " " + (base + 300)));
+        }
+        verify(logstashMachineMapper, times(instances.size()))
+                .updateStateById(anyLong(), eq(LogstashMachineState.NOT_STARTED.name()));
+    }
+
+    private MachineInfo machine(Long id, String ip) {
+        MachineInfo machineInfo = new MachineInfo();
+        machineInfo.setId(id);
+        machineInfo.setName("machine-" + id);
+        machineInfo.setIp(ip);
+        return machineInfo;
+    }
+
+    private LogstashMachine instance(Long id, Long machineId, String pid) {
+        LogstashMachine logstashMachine = new LogstashMachine();
+        logstashMachine.setId(id);
+        logstashMachine.setLogstashProcessId(100L);
+        logstashMachine.setMachineId(machineId);
+        logstashMachine.setProcessPid(pid);
+        logstashMachine.setState(LogstashMachineState.RUNNING.name());
+        logstashMachine.setDeployPath("/opt/logstash/logstash-" + id);
+        return logstashMachine;
+    }
+}
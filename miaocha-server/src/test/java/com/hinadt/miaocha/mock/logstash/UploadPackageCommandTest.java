@@ -0,0 +1,142 @@
+package com.hinadt.miaocha.mock.logstash;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.hinadt.miaocha.application.logstash.command.UploadPackageCommand;
+import com.hinadt.miaocha.application.logstash.path.LogstashDeployPathManager;
+import com.hinadt.miaocha.common.util.ChecksumUtils;
+import com.hinadt.miaocha.domain.entity.MachineInfo;
+import com.hinadt.miaocha.infrastructure.mapper.LogstashMachineMapper;
+import com.hinadt.miaocha.infrastructure.ssh.SshClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** 安装包上传命令测试 验证按内容缓存跳过上传、续传后校验放入缓存以及校验不一致时重新上传 */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("安装包上传命令测试")
+class UploadPackageCommandTest {
+
+    private static final Long INSTANCE_ID = 7L;
+    private static final String PROCESS_DIR = "/opt/logstash/logstash-7";
+
+    /** "abc" 的SHA-256 */
+    private static final String CHECKSUM =
+            "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    private static final String CACHED_PATH =
+            "/opt/logstash/.package-cache/" + CHECKSUM + "-logstash-8.8.0.tar.gz";
+
+    @Mock private SshClient sshClient;
+    @Mock private LogstashMachineMapper logstashMachineMapper;
+    @Mock private LogstashDeployPathManager deployPathManager;
+
+    @TempDir Path tempDir;
+
+    private MachineInfo machineInfo;
+    private UploadPackageCommand command;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path packageFile = tempDir.resolve("logstash-8.8.0.tar.gz");
+        Files.writeString(packageFile, "abc", StandardCharsets.UTF_8);
+
+        machineInfo = new MachineInfo();
+        machineInfo.setId(1L);
+        machineInfo.setName("test-machine");
+        machineInfo.setIp("192.168.1.100");
+
+        lenient()
+                .when(deployPathManager.getInstanceDeployPath(INSTANCE_ID))
+                .thenReturn(PROCESS_DIR);
+        lenient()
+                .when(deployPathManager.normalizeDeployBaseDir(machineInfo))
+                .thenReturn("/opt/logstash");
+        command =
+                new UploadPackageCommand(
+                        sshClient,
+                        packageFile.toString(),
+                        "/opt/logstash",
+                        INSTANCE_ID,
+                        logstashMachineMapper,
+                        deployPathManager);
+    }
+
+    @Test
+    @DisplayName("本地文件的校验和按大小和修改时间缓存")
+    void testChecksum() throws Exception {
+        Path file = tempDir.resolve("logstash-8.8.0.tar.gz");
+        assertEquals(CHECKSUM, ChecksumUtils.sha256(file));
+
+        Files.writeString(file, "abcd", StandardCharsets.UTF_8);
+        assertNotEquals(CHECKSUM, ChecksumUtils.sha256(file));
+        Files.writeString(file, "abc", StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("机器上已缓存相同内容的安装包时直接链接，不再上传")
+    void testCacheHit() throws Exception {
+        when(sshClient.executeCommand(eq(machineInfo), anyString()))
+                .thenReturn("not_exists\n")
+                .thenReturn("ok\n");
+
+        assertTrue(command.execute(machineInfo));
+
+        verify(sshClient)
+                .executeCommand(
+                        eq(machineInfo),
+                        contains(
+                                "ln -f \""
+                                        + CACHED_PATH
+                                        + "\" \""
+                                        + PROCESS_DIR
+                                        + "/logstash-8.8.0.tar.gz\""));
+        verify(sshClient, never()).uploadFileResumable(any(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("未缓存时续传到临时文件，校验通过后放入缓存")
+    void testUploadAndCommit() throws Exception {
+        when(sshClient.executeCommand(eq(machineInfo), anyString()))
+                .thenReturn("not_exists\n")
+                .thenReturn("miss\n")
+                .thenReturn("ok\n");
+
+        assertTrue(command.execute(machineInfo));
+
+        String partPath = CACHED_PATH + ".7.part";
+        verify(sshClient)
+                .uploadFileResumable(
+                        machineInfo, tempDir.resolve("logstash-8.8.0.tar.gz").toString(), partPath);
+        verify(sshClient)
+                .executeCommand(
+                        eq(machineInfo),
+                        contains("[ \"$(sha256sum \"" + partPath + "\" | cut -d' ' -f1)\" = \""));
+        verify(sshClient).executeCommand(eq(machineInfo), contains("mv -f \"" + partPath + "\""));
+    }
+
+    @Test
+    @DisplayName("校验不一致时删除临时文件重新上传，仍不一致时失败")
+    void testChecksumMismatch() throws Exception {
+        when(sshClient.executeCommand(eq(machineInfo), anyString()))
+                .thenReturn("not_exists\n")
+                .thenReturn("miss\n")
+                .thenReturn("mismatch\n");
+
+        assertFalse(command.execute(machineInfo));
+
+        verify(sshClient, times(2)).uploadFileResumable(eq(machineInfo), anyString(), anyString());
+    }
+}
@@ -0,0 +1,136 @@
+package com.hinadt.miaocha.mock.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.hinadt.miaocha.infrastructure.NodeIdProvider;
+import com.hinadt.miaocha.infrastructure.cluster.ClusterCoordinator;
+import com.hinadt.miaocha.infrastructure.mapper.ClusterLeaseMapper;
+import com.hinadt.miaocha.infrastructure.mapper.ClusterNodeMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** 集群协调服务测试 验证一致性哈希分片、节点变化时的重新分配以及租约选主 */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("集群协调服务测试")
+class ClusterCoordinatorTest {
+
+    private static final List<Long> KEYS = LongStream.rangeClosed(1, 1000).boxed().toList();
+
+    @Mock private ClusterNodeMapper nodeMapper;
+    @Mock private ClusterLeaseMapper leaseMapper;
+
+    private ClusterCoordinator nodeA;
+    private ClusterCoordinator nodeB;
+    private ClusterCoordinator nodeC;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = coordinator("node-a", true);
+        nodeB = coordinator("node-b", true);
+        nodeC = coordinator("node-c", true);
+    }
+
+    @Test
+    @DisplayName("每个分片键只分配给一个存活节点")
+    void testEachKeyOwnedByOneNode() {
+        when(nodeMapper.selectAliveNodeIds(anyInt()))
+                .thenReturn(List.of("node-a", "node-b", "node-c"));
+        nodeA.heartbeat();
+        nodeB.heartbeat();
+        nodeC.heartbeat();
+
+        List<Long> ownedA = nodeA.filterOwned(KEYS, Function.identity());
+        List<Long> ownedB = nodeB.filterOwned(KEYS, Function.identity());
+        List<Long> ownedC = nodeC.filterOwned(KEYS, Function.identity());
+
+        assertEquals(KEYS.size(), ownedA.size() + ownedB.size() + ownedC.size());
+        List<Long> all = new ArrayList<>(ownedA);
+        all.addAll(ownedB);
+        all.addAll(ownedC);
+        assertEquals(KEYS.size(), all.stream().distinct().count());
+        // 虚拟节点使分布大致均衡
+        assertTrue(ownedA.size() > 150 && ownedB.size() > 150 && ownedC.size() > 150);
+        verify(nodeMapper).upsertHeartbeat(eq("node-a"), anyString());
+    }
+
+    @Test
+    @DisplayName("节点下线后只有它负责的分片重新分配")
+    void testRebalanceWhenNodeLeaves() {
+        when(nodeMapper.selectAliveNodeIds(anyInt()))
+                .thenReturn(List.of("node-a", "node-b", "node-c"));
+        nodeA.heartbeat();
+        List<Long> before = nodeA.filterOwned(KEYS, Function.identity());
+
+        when(nodeMapper.selectAliveNodeIds(anyInt())).thenReturn(List.of("node-a", "node-b"));
+        nodeA.heartbeat();
+        nodeB.heartbeat();
+        List<Long> afterA = nodeA.filterOwned(KEYS, Function.identity());
+        List<Long> afterB = nodeB.filterOwned(KEYS, Function.identity());
+
+        assertTrue(afterA.containsAll(before));
+        assertEquals(KEYS.size(), afterA.size() + afterB.size());
+        assertEquals(List.of("node-a", "node-b"), nodeA.getLiveNodeIds());
+    }
+
+    @Test
+    @DisplayName("未完成心跳或心跳失败时不认领分片")
+    void testNoOwnershipWithoutMembership() {
+        assertFalse(nodeA.isOwner(1L));
+        assertTrue(nodeA.filterOwned(KEYS, Function.identity()).isEmpty());
+
+        doThrow(new RuntimeException("db down"))
+                .when(nodeMapper)
+                .upsertHeartbeat(anyString(), anyString());
+        nodeA.heartbeat();
+        assertFalse(nodeA.isLeader("job"));
+        verifyNoInteractions(leaseMapper);
+    }
+
+    @Test
+    @DisplayName("只有租约持有者是主节点，持有的租约在心跳时续期")
+    void testLeaderLease() {
+        when(nodeMapper.selectAliveNodeIds(anyInt())).thenReturn(List.of("node-a", "node-b"));
+        when(leaseMapper.selectOwner("job")).thenReturn("node-a");
+        nodeA.heartbeat();
+        nodeB.heartbeat();
+
+        assertTrue(nodeA.isLeader("job"));
+        assertFalse(nodeB.isLeader("job"));
+
+        // 心跳只续期本节点持有的租约
+        nodeA.heartbeat();
+        nodeB.heartbeat();
+        verify(leaseMapper, times(2)).tryAcquire("job", "node-a", 30);
+        verify(leaseMapper, times(1)).tryAcquire("job", "node-b", 30);
+    }
+
+    @Test
+    @DisplayName("未启用时按单节点处理")
+    void testDisabled() {
+        ClusterCoordinator single = coordinator("node-a", false);
+
+        assertTrue(single.isLeader("job"));
+        assertTrue(single.isOwner(1L));
+        assertEquals(KEYS, single.filterOwned(KEYS, Function.identity()));
+        verifyNoInteractions(nodeMapper, leaseMapper);
+    }
+
+    private ClusterCoordinator coordinator(String nodeId, boolean enabled) {
+        NodeIdProvider nodeIdProvider = mock(NodeIdProvider.class);
+        lenient().when(nodeIdProvider.getNodeId()).thenReturn(nodeId);
+        return new ClusterCoordinator(
+                nodeMapper, leaseMapper, nodeIdProvider, enabled, 10000, 30, 30, 128);
+    }
+}
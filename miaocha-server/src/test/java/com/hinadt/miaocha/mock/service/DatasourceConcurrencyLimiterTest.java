@@ -0,0 +1,190 @@
+package com.hinadt.miaocha.mock.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.hinadt.miaocha.application.service.datasource.DatasourceConcurrencyLimiter;
+import com.hinadt.miaocha.application.service.datasource.QueryPriority;
+import com.hinadt.miaocha.common.exception.BusinessException;
+import com.hinadt.miaocha.common.exception.ErrorCode;
+import com.hinadt.miaocha.domain.entity.DatasourceInfo;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 数据源并发查询限制测试 验证按数据源计数、优先级排队、队列满拒绝、许可只归还一次以及并发上限的自适应调整 */
+@DisplayName("数据源并发查询限制测试")
+class DatasourceConcurrencyLimiterTest {
+
+    private DatasourceConcurrencyLimiter limiter;
+    private ExecutorService threads;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new DatasourceConcurrencyLimiter();
+        limiter.setMaxConcurrentQueries(2);
+        limiter.setAdaptive(false);
+        limiter.setAcquireTimeoutMs(50);
+        threads = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        threads.shutdownNow();
+    }
+
+    private static DatasourceInfo datasource(Long id) {
+        DatasourceInfo datasourceInfo = new DatasourceInfo();
+        datasourceInfo.setId(id);
+        datasourceInfo.setName("doris-" + id);
+        return datasourceInfo;
+    }
+
+    @Test
+    @DisplayName("达到上限后等待超时抛出数据源繁忙，其他数据源不受影响")
+    void testLimitPerDatasource() {
+        DatasourceConcurrencyLimiter.Permit first = limiter.acquire(datasource(1L));
+        DatasourceConcurrencyLimiter.Permit second = limiter.acquire(datasource(1L));
+
+        BusinessException exception =
+                assertThrows(BusinessException.class, () -> limiter.acquire(datasource(1L)));
+        assertEquals(ErrorCode.DATASOURCE_BUSY, exception.getErrorCode());
+        assertNotNull(limiter.acquire(datasource(2L)));
+
+        first.close();
+        second.close();
+        second.close();
+        assertEquals(0, limiter.inFlight(1L));
+    }
+
+    @Test
+    @DisplayName("队列已满时立即拒绝")
+    void testQueueFull() {
+        limiter.setMaxConcurrentQueries(1);
+        limiter.setMaxQueueSize(0);
+        limiter.setAcquireTimeoutMs(60000);
+        limiter.acquire(datasource(1L));
+
+        long start = System.nanoTime();
+        assertThrows(BusinessException.class, () -> limiter.acquire(datasource(1L)));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+    }
+
+    @Test
+    @DisplayName("低优先级只能使用部分并发，释放时先唤醒高优先级的等待者")
+    void testPriority() throws Exception {
+        DatasourceConcurrencyLimiter.Permit first = limiter.acquire(datasource(1L));
+        DatasourceConcurrencyLimiter.Permit second = limiter.acquire(datasource(1L));
+        assertThrows(
+                BusinessException.class, () -> limiter.acquire(datasource(1L), QueryPriority.BULK));
+        assertEquals(0, limiter.queued(1L));
+        limiter.setAcquireTimeoutMs(5000);
+
+        Queue<QueryPriority> admitted = new ConcurrentLinkedQueue<>();
+        Future<DatasourceConcurrencyLimiter.Permit> background =
+                threads.submit(() -> acquireAndRecord(QueryPriority.BACKGROUND, admitted));
+        awaitQueued(1);
+        Future<DatasourceConcurrencyLimiter.Permit> interactive =
+                threads.submit(() -> acquireAndRecord(QueryPriority.INTERACTIVE, admitted));
+        awaitQueued(2);
+
+        // 上限为2时后台查询只能使用1个并发，释放一个许可后只有交互式查询能拿到
+        first.close();
+        interactive.get(5, TimeUnit.SECONDS).close();
+        assertEquals(List.of(QueryPriority.INTERACTIVE), List.copyOf(admitted));
+        assertFalse(background.isDone());
+
+        second.close();
+        background.get(5, TimeUnit.SECONDS).close();
+        assertEquals(
+                List.of(QueryPriority.INTERACTIVE, QueryPriority.BACKGROUND),
+                List.copyOf(admitted));
+        assertEquals(0, limiter.inFlight(1L));
+    }
+
+    @Test
+    @DisplayName("超时时并发上限按比例缩小，正常完成时逐步增加，取消的查询不参与调整")
+    void testAdaptiveLimit() {
+        limiter.setMaxConcurrentQueries(10);
+        limiter.setMinConcurrentQueries(2);
+        limiter.setBackoffRatio(0.5);
+        limiter.setAdaptive(true);
+
+        DatasourceConcurrencyLimiter.Permit overloaded = limiter.acquire(datasource(1L));
+        overloaded.markOverloaded();
+        overloaded.close();
+        assertEquals(5.0, limiter.currentLimit(1L), 0.001);
+
+        DatasourceConcurrencyLimiter.Permit cancelled = limiter.acquire(datasource(1L));
+        cancelled.markIgnored();
+        cancelled.close();
+        assertEquals(5.0, limiter.currentLimit(1L), 0.001);
+
+        limiter.acquire(datasource(1L)).close();
+        assertEquals(5.2, limiter.currentLimit(1L), 0.001);
+
+        for (int i = 0; i < 10; i++) {
+            DatasourceConcurrencyLimiter.Permit permit = limiter.acquire(datasource(1L));
+            permit.markOverloaded();
+            permit.close();
+        }
+        assertEquals(2.0, limiter.currentLimit(1L), 0.001);
+    }
+
+    @Test
+    @DisplayName("记录了语句耗时时按语句耗时调整，不按许可持有时长")
+    void testAdaptiveLimitUsesRecordedQueryTime() throws InterruptedException {
+        limiter.setMaxConcurrentQueries(10);
+        limiter.setMinConcurrentQueries(2);
+        limiter.setBackoffRatio(0.5);
+        limiter.setSlowQueryMs(50);
+        limiter.setAdaptive(true);
+
+        // 许可持有时间超过 slowQueryMs（如向客户端输出结果），但语句本身很快
+        DatasourceConcurrencyLimiter.Permit streaming = limiter.acquire(datasource(1L));
+        streaming.recordQueryTime(TimeUnit.MILLISECONDS.toNanos(5));
+        Thread.sleep(100);
+        streaming.close();
+        assertEquals(10.0, limiter.currentLimit(1L), 0.001);
+
+        DatasourceConcurrencyLimiter.Permit slow = limiter.acquire(datasource(1L));
+        slow.recordQueryTime(TimeUnit.MILLISECONDS.toNanos(5));
+        slow.recordQueryTime(TimeUnit.MILLISECONDS.toNanos(80));
+        slow.close();
+        assertEquals(5.0, limiter.currentLimit(1L), 0.001);
+    }
+
+    @Test
+    @DisplayName("上限为0时不限制并发")
+    void testUnlimited() {
+        limiter.setMaxConcurrentQueries(0);
+
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(limiter.acquire(datasource(1L)));
+        }
+        assertEquals(0, limiter.inFlight(1L));
+    }
+
+    private DatasourceConcurrencyLimiter.Permit acquireAndRecord(
+            QueryPriority priority, Queue<QueryPriority> admitted) {
+        DatasourceConcurrencyLimiter.Permit permit = limiter.acquire(datasource(1L), priority);
+        admitted.add(priority);
+        return permit;
+    }
+
+    /** 等待指定数量的请求在许可上排队 */
+    private void awaitQueued(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.queued(1L) < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, limiter.queued(1L));
+    }
+}
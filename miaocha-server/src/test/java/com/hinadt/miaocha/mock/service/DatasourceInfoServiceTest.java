@@ -6,6 +6,7 @@ import static org.mockito.Mockito.*;
 
 import com.hinadt.miaocha.application.service.datasource.HikariDatasourceManager;
 import com.hinadt.miaocha.application.service.impl.DatasourceServiceImpl;
+import com.hinadt.miaocha.application.service.impl.module.ModuleMetadataCache;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.domain.converter.DatasourceConverter;
@@ -49,6 +50,8 @@ class DatasourceInfoServiceTest {
 
     @Mock private HikariDatasourceManager hikariDatasourceManager;
 
+    @Mock private ModuleMetadataCache moduleMetadataCache;
+
     @Spy @InjectMocks private DatasourceServiceImpl datasourceService;
 
     private DatasourceCreateDTO createDTO;
@@ -0,0 +1,119 @@
+package com.hinadt.miaocha.mock.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.hinadt.miaocha.config.security.JwtAuthenticationFilter;
+import com.hinadt.miaocha.config.security.JwtUtils;
+import com.hinadt.miaocha.config.security.VerifiedTokenCache;
+import com.hinadt.miaocha.domain.dto.user.UserDTO;
+import com.hinadt.miaocha.domain.entity.User;
+import java.util.Date;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/** JWT认证过滤器测试 验证token只解析一次以及已验证token的缓存 */
+@DisplayName("JWT认证过滤器测试")
+class JwtAuthenticationFilterTest {
+
+    private JwtUtils jwtUtils;
+    private VerifiedTokenCache verifiedTokenCache;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = spy(new JwtUtils());
+        ReflectionTestUtils.setField(
+                jwtUtils, "jwtSecret", "testSecretKeyNeedsToBeAtLeast32CharsLong");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3600000);
+        ReflectionTestUtils.setField(jwtUtils, "refreshTokenExpirationMs", 86400000);
+        verifiedTokenCache = new VerifiedTokenCache(true, 300, 100);
+        filter = new JwtAuthenticationFilter(jwtUtils, verifiedTokenCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static User user(int status) {
+        User user = new User();
+        user.setId(1L);
+        user.setUid("user-1");
+        user.setNickname("测试用户");
+        user.setEmail("test@example.com");
+        user.setRole("USER");
+        user.setStatus(status);
+        return user;
+    }
+
+    private MockHttpServletRequest doFilter(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/logs");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return request;
+    }
+
+    @Test
+    @DisplayName("同一token只解析一次，后续请求从缓存获取用户信息")
+    void testParseOnceAndCache() throws Exception {
+        String token = jwtUtils.generateTokenWithUserInfo(user(1), "system");
+
+        for (int i = 0; i < 3; i++) {
+            doFilter(token);
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            assertNotNull(authentication);
+            UserDTO principal = (UserDTO) authentication.getPrincipal();
+            assertEquals("user-1", principal.getUid());
+            assertEquals(1L, principal.getId());
+            assertEquals("test@example.com", principal.getEmail());
+            assertEquals("ROLE_USER", authentication.getAuthorities().iterator().next().toString());
+        }
+
+        verify(jwtUtils, times(1)).parseClaims(token);
+        verify(jwtUtils, never()).validateToken(anyString());
+        verify(jwtUtils, never()).getUidFromToken(anyString());
+    }
+
+    @Test
+    @DisplayName("缓存返回副本，过期token不命中缓存")
+    void testCacheCopyAndExpiry() {
+        UserDTO user = new UserDTO();
+        user.setUid("user-1");
+        user.setStatus(1);
+
+        verifiedTokenCache.put("token", user, new Date(System.currentTimeMillis() + 60000));
+        UserDTO cached = verifiedTokenCache.get("token");
+        cached.setRole("ADMIN");
+        assertNull(verifiedTokenCache.get("token").getRole());
+
+        verifiedTokenCache.put("expired", user, new Date(System.currentTimeMillis() - 1000));
+        assertNull(verifiedTokenCache.get("expired"));
+    }
+
+    @Test
+    @DisplayName("无效token和禁用用户不设置认证信息")
+    void testInvalidAndDisabled() throws Exception {
+        MockHttpServletRequest request = doFilter("invalid.token.value");
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNotNull(request.getAttribute(JwtAuthenticationFilter.JWT_EXCEPTION_ATTRIBUTE));
+        assertNull(verifiedTokenCache.get("invalid.token.value"));
+
+        String disabledToken = jwtUtils.generateTokenWithUserInfo(user(0), "system");
+        request = doFilter(disabledToken);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(
+                "User is disabled",
+                ((Exception) request.getAttribute(JwtAuthenticationFilter.JWT_EXCEPTION_ATTRIBUTE))
+                        .getMessage());
+    }
+}
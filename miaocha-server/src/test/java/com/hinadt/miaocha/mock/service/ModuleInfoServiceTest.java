@@ -7,9 +7,12 @@ import static org.mockito.Mockito.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hinadt.miaocha.application.service.TableValidationService;
 import com.hinadt.miaocha.application.service.impl.ModuleInfoServiceImpl;
+import com.hinadt.miaocha.application.service.impl.module.ModuleMetadataCache;
 import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
+import com.hinadt.miaocha.application.service.sql.builder.AggregationSqlBuilder;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
+import com.hinadt.miaocha.config.LogSearchProperties;
 import com.hinadt.miaocha.domain.converter.ModuleInfoConverter;
 import com.hinadt.miaocha.domain.converter.ModulePermissionConverter;
 import com.hinadt.miaocha.domain.dto.SqlQueryResultDTO;
@@ -53,6 +56,7 @@ class ModuleInfoServiceTest {
     @Mock private ModulePermissionConverter modulePermissionConverter;
     @Mock private TableValidationService tableValidationService;
     @Mock private ObjectMapper objectMapper;
+    @Mock private AggregationSqlBuilder aggregationSqlBuilder;
 
     private ModuleInfoServiceImpl moduleInfoService;
 
@@ -74,7 +78,14 @@ class ModuleInfoServiceTest {
                         userMapper,
                         modulePermissionConverter,
                         tableValidationService,
-                        objectMapper);
+                        objectMapper,
+                        new ModuleMetadataCache(
+                                moduleInfoMapper,
+                                datasourceMapper,
+                                objectMapper,
+                                event -> {},
+                                new LogSearchProperties()),
+                        aggregationSqlBuilder);
 
         setupTestData();
     }
@@ -0,0 +1,150 @@
+package com.hinadt.miaocha.mock.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hinadt.miaocha.application.service.impl.logsearch.cache.LogCountCache;
+import com.hinadt.miaocha.application.service.impl.module.ModuleConfigChangedEvent;
+import com.hinadt.miaocha.application.service.impl.module.ModuleMetadataCache;
+import com.hinadt.miaocha.application.service.impl.module.ModuleMetadataCache.ModuleMetadata;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.entity.DatasourceInfo;
+import com.hinadt.miaocha.domain.entity.ModuleInfo;
+import com.hinadt.miaocha.infrastructure.mapper.DatasourceMapper;
+import com.hinadt.miaocha.infrastructure.mapper.ModuleInfoMapper;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/** 模块元数据缓存测试 验证缓存命中、失效、版本号以及变更事件的发布 */
+@DisplayName("模块元数据缓存测试")
+class ModuleMetadataCacheTest {
+
+    private ModuleInfoMapper moduleInfoMapper;
+    private DatasourceMapper datasourceMapper;
+    private List<ModuleConfigChangedEvent> events;
+    private ModuleMetadataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        moduleInfoMapper = mock(ModuleInfoMapper.class);
+        datasourceMapper = mock(DatasourceMapper.class);
+        events = new ArrayList<>();
+        cache =
+                new ModuleMetadataCache(
+                        moduleInfoMapper,
+                        datasourceMapper,
+                        new ObjectMapper(),
+                        event -> events.add((ModuleConfigChangedEvent) event),
+                        new LogSearchProperties());
+
+        ModuleInfo moduleInfo = new ModuleInfo();
+        moduleInfo.setId(1L);
+        moduleInfo.setName("nginx");
+        moduleInfo.setDatasourceId(10L);
+        moduleInfo.setTableName("nginx_logs");
+        moduleInfo.setQueryConfig("{\"timeField\":\"log_time\"}");
+        DatasourceInfo datasourceInfo = new DatasourceInfo();
+        datasourceInfo.setId(10L);
+        when(moduleInfoMapper.selectByName("nginx")).thenReturn(moduleInfo);
+        when(datasourceMapper.selectById(10L)).thenReturn(datasourceInfo);
+    }
+
+    @Test
+    @DisplayName("同一模块只查询和解析一次")
+    void testLoadOnce() {
+        for (int i = 0; i < 3; i++) {
+            ModuleMetadata metadata = cache.get("nginx");
+            assertEquals("nginx_logs", metadata.tableName());
+            assertEquals(10L, metadata.datasourceInfo().getId());
+            assertEquals("log_time", metadata.queryConfig().getTimeField());
+        }
+
+        verify(moduleInfoMapper, times(1)).selectByName("nginx");
+        verify(datasourceMapper, times(1)).selectById(10L);
+        assertNull(cache.get("missing"));
+        assertNull(cache.get(" "));
+    }
+
+    @Test
+    @DisplayName("失效后递增版本号、发布事件并重新加载")
+    void testInvalidate() {
+        ModuleMetadata before = cache.get("nginx");
+
+        cache.invalidate("nginx");
+        ModuleMetadata after = cache.get("nginx");
+
+        verify(moduleInfoMapper, times(2)).selectByName("nginx");
+        assertTrue(after.version() > before.version());
+        assertEquals(1, events.size());
+        assertEquals(List.of("nginx"), events.get(0).modules());
+        assertTrue(events.get(0).affects("nginx"));
+        assertFalse(events.get(0).affects("app"));
+
+        cache.invalidateAll();
+        assertTrue(events.get(1).affects("app"));
+        assertEquals(cache.getVersion(), events.get(1).version());
+    }
+
+    @Test
+    @DisplayName("事务中失效时提交后再次清理并发布事件，提交前重新加载的旧数据不会保留")
+    void testInvalidateInTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate("nginx");
+            // 提交前的并发读取加载到旧数据
+            cache.get("nginx");
+            assertTrue(events.isEmpty());
+
+            for (TransactionSynchronization sync :
+                    TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        cache.get("nginx");
+        verify(moduleInfoMapper, times(2)).selectByName("nginx");
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    @DisplayName("加载期间发生失效时结果不写入缓存")
+    void testStaleLoadNotCached() {
+        when(moduleInfoMapper.selectByName("app"))
+                .thenAnswer(
+                        inv -> {
+                            cache.invalidate("app");
+                            return new ModuleInfo();
+                        })
+                .thenReturn(new ModuleInfo());
+
+        assertNotNull(cache.get("app"));
+        cache.get("app");
+        cache.get("app");
+
+        verify(moduleInfoMapper, times(2)).selectByName("app");
+    }
+
+    @Test
+    @DisplayName("总数缓存收到变更事件后清理对应模块")
+    void testCountCacheListener() {
+        LogCountCache countCache = new LogCountCache(new LogSearchProperties());
+        BoundSql nginxCount = BoundSql.of("SELECT COUNT(*) FROM nginx_logs");
+        BoundSql appCount = BoundSql.of("SELECT COUNT(*) FROM app_logs");
+        countCache.put("nginx", nginxCount, 10L);
+        countCache.put("app", appCount, 20L);
+
+        countCache.onModuleConfigChanged(new ModuleConfigChangedEvent(List.of("nginx"), 1L));
+
+        assertNull(countCache.get("nginx", nginxCount));
+        assertEquals(20L, countCache.get("app", appCount));
+    }
+}
@@ -4,9 +4,13 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hinadt.miaocha.application.service.impl.ModulePermissionServiceImpl;
+import com.hinadt.miaocha.application.service.impl.module.ModuleMetadataCache;
+import com.hinadt.miaocha.application.service.impl.permission.PermissionSnapshotCache;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
+import com.hinadt.miaocha.config.LogSearchProperties;
 import com.hinadt.miaocha.domain.converter.ModulePermissionConverter;
 import com.hinadt.miaocha.domain.dto.permission.UserModulePermissionDTO;
 import com.hinadt.miaocha.domain.entity.DatasourceInfo;
@@ -65,7 +69,20 @@ public class ModulePermissionServiceTest {
                         datasourceMapper,
                         userModulePermissionMapper,
                         moduleInfoMapper,
-                        modulePermissionConverter);
+                        modulePermissionConverter,
+                        new PermissionSnapshotCache(
+                                userMapper,
+                                userModulePermissionMapper,
+                                moduleInfoMapper,
+                                600,
+                                5000,
+                                60),
+                        new ModuleMetadataCache(
+                                moduleInfoMapper,
+                                datasourceMapper,
+                                new ObjectMapper(),
+                                event -> {},
+                                new LogSearchProperties()));
 
         // 准备测试数据
         setupTestData();
@@ -117,7 +134,7 @@ public class ModulePermissionServiceTest {
         // Mock设置
         when(userMapper.selectById(1L)).thenReturn(testUser);
         when(moduleInfoMapper.selectByName("用户模块")).thenReturn(testModule);
-        when(userModulePermissionMapper.select(1L, 1L, "用户模块")).thenReturn(testPermission);
+        when(userModulePermissionMapper.selectByUser(1L)).thenReturn(List.of(testPermission));
 
         // 执行测试
         boolean result = modulePermissionService.hasModulePermission(1L, "用户模块");
@@ -125,8 +142,8 @@ public class ModulePermissionServiceTest {
         // 验证结果
         assertTrue(result);
         verify(userMapper).selectById(1L);
-        verify(moduleInfoMapper, times(2)).selectByName("用户模块"); // 一次检查状态，一次获取数据源ID
-        verify(userModulePermissionMapper).select(1L, 1L, "用户模块");
+        verify(moduleInfoMapper).selectByName("用户模块"); // 模块状态和数据源ID来自同一次查询
+        verify(userModulePermissionMapper).selectByUser(1L);
     }
 
     @Test
@@ -135,7 +152,7 @@ public class ModulePermissionServiceTest {
         // Mock设置
         when(userMapper.selectById(1L)).thenReturn(testUser);
         when(moduleInfoMapper.selectByName("用户模块")).thenReturn(testModule);
-        when(userModulePermissionMapper.select(1L, 1L, "用户模块")).thenReturn(null);
+        when(userModulePermissionMapper.selectByUser(1L)).thenReturn(List.of());
 
         // 执行测试
         boolean result = modulePermissionService.hasModulePermission(1L, "用户模块");
@@ -144,8 +161,8 @@ public class ModulePermissionServiceTest {
         assertFalse(result);
 
         verify(userMapper).selectById(1L);
-        verify(moduleInfoMapper, times(2)).selectByName("用户模块"); // 一次检查状态，一次获取数据源ID
-        verify(userModulePermissionMapper).select(1L, 1L, "用户模块");
+        verify(moduleInfoMapper).selectByName("用户模块"); // 模块状态和数据源ID来自同一次查询
+        verify(userModulePermissionMapper).selectByUser(1L);
     }
 
     @Test
@@ -164,6 +181,7 @@ public class ModulePermissionServiceTest {
         // 管理员需要检查模块状态，但不需要检查具体权限
         verify(moduleInfoMapper).selectByName("用户模块");
         verify(userModulePermissionMapper, never()).select(anyLong(), anyLong(), anyString());
+        verify(userModulePermissionMapper, never()).selectByUser(anyLong());
     }
 
     @Test
@@ -0,0 +1,130 @@
+package com.hinadt.miaocha.mock.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.hinadt.miaocha.application.service.impl.module.ModuleConfigChangedEvent;
+import com.hinadt.miaocha.application.service.impl.permission.PermissionSnapshotCache;
+import com.hinadt.miaocha.application.service.impl.permission.PermissionSnapshotCache.PermissionSnapshot;
+import com.hinadt.miaocha.common.exception.BusinessException;
+import com.hinadt.miaocha.common.exception.ErrorCode;
+import com.hinadt.miaocha.domain.entity.User;
+import com.hinadt.miaocha.domain.entity.UserModulePermission;
+import com.hinadt.miaocha.domain.enums.UserRole;
+import com.hinadt.miaocha.infrastructure.mapper.ModuleInfoMapper;
+import com.hinadt.miaocha.infrastructure.mapper.UserMapper;
+import com.hinadt.miaocha.infrastructure.mapper.UserModulePermissionMapper;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 用户权限快照缓存测试 验证快照复用、懒加载以及授权和模块变更后的失效 */
+@DisplayName("用户权限快照缓存测试")
+class PermissionSnapshotCacheTest {
+
+    private UserMapper userMapper;
+    private UserModulePermissionMapper userModulePermissionMapper;
+    private ModuleInfoMapper moduleInfoMapper;
+    private PermissionSnapshotCache cache;
+
+    @BeforeEach
+    void setUp() {
+        userMapper = mock(UserMapper.class);
+        userModulePermissionMapper = mock(UserModulePermissionMapper.class);
+        moduleInfoMapper = mock(ModuleInfoMapper.class);
+        cache =
+                new PermissionSnapshotCache(
+                        userMapper, userModulePermissionMapper, moduleInfoMapper, 600, 100, 60);
+
+        when(userMapper.selectById(1L)).thenReturn(user(1L, UserRole.USER));
+        when(userMapper.selectById(2L)).thenReturn(user(2L, UserRole.ADMIN));
+        UserModulePermission permission = new UserModulePermission();
+        permission.setUserId(1L);
+        permission.setDatasourceId(10L);
+        permission.setModule("nginx");
+        when(userModulePermissionMapper.selectByUser(1L)).thenReturn(List.of(permission));
+        when(userModulePermissionMapper.selectPermittedTableNames(1L, 10L))
+                .thenReturn(List.of("nginx_logs"));
+    }
+
+    private static User user(Long id, UserRole role) {
+        User user = new User();
+        user.setId(id);
+        user.setRole(role.name());
+        return user;
+    }
+
+    @Test
+    @DisplayName("同一用户的快照、模块授权和表权限只查询一次")
+    void testSnapshotReuse() {
+        for (int i = 0; i < 3; i++) {
+            PermissionSnapshot snapshot = cache.getSnapshot(1L);
+            assertFalse(snapshot.isAdmin());
+            assertTrue(snapshot.hasModuleGrant(10L, "nginx"));
+            assertFalse(snapshot.hasModuleGrant(11L, "nginx"));
+            assertEquals(Set.of("nginx_logs"), snapshot.getPermittedTables(10L));
+        }
+
+        verify(userMapper, times(1)).selectById(1L);
+        verify(userModulePermissionMapper, times(1)).selectByUser(1L);
+        verify(userModulePermissionMapper, times(1)).selectPermittedTableNames(1L, 10L);
+    }
+
+    @Test
+    @DisplayName("管理员的表权限为所有启用模块的表，数据源为空时也可缓存")
+    void testAdminTables() {
+        when(moduleInfoMapper.selectEnabledModuleTableNames(null))
+                .thenReturn(List.of("nginx_logs", "app_logs"));
+
+        PermissionSnapshot snapshot = cache.getSnapshot(2L);
+        snapshot.getPermittedTables(null);
+
+        assertTrue(snapshot.isAdmin());
+        assertEquals(Set.of("nginx_logs", "app_logs"), snapshot.getPermittedTables(null));
+        verify(moduleInfoMapper, times(1)).selectEnabledModuleTableNames(null);
+        verify(userModulePermissionMapper, never()).selectPermittedTableNames(any(), any());
+    }
+
+    @Test
+    @DisplayName("授权变更后重新加载，模块变更事件清空所有快照")
+    void testInvalidation() {
+        cache.getSnapshot(1L).hasModuleGrant(10L, "nginx");
+        cache.getSnapshot(2L);
+
+        cache.invalidate(1L);
+        cache.getSnapshot(1L).hasModuleGrant(10L, "nginx");
+        cache.getSnapshot(2L);
+        verify(userMapper, times(2)).selectById(1L);
+        verify(userModulePermissionMapper, times(2)).selectByUser(1L);
+        verify(userMapper, times(1)).selectById(2L);
+
+        cache.putDatabaseTables(10L, Set.of("nginx_logs"));
+        cache.onModuleConfigChanged(new ModuleConfigChangedEvent(List.of("nginx"), 1L));
+        cache.getSnapshot(2L);
+        verify(userMapper, times(2)).selectById(2L);
+        assertNull(cache.getDatabaseTables(10L));
+    }
+
+    @Test
+    @DisplayName("加载期间发生失效时快照不写入缓存，用户不存在时抛出异常")
+    void testStaleLoadAndMissingUser() {
+        when(userMapper.selectById(3L))
+                .thenAnswer(
+                        inv -> {
+                            cache.invalidate(3L);
+                            return user(3L, UserRole.USER);
+                        })
+                .thenReturn(user(3L, UserRole.USER));
+
+        cache.getSnapshot(3L);
+        cache.getSnapshot(3L);
+        cache.getSnapshot(3L);
+        verify(userMapper, times(2)).selectById(3L);
+
+        BusinessException exception =
+                assertThrows(BusinessException.class, () -> cache.getSnapshot(999L));
+        assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
+    }
+}
@@ -6,6 +6,7 @@ import static org.mockito.Mockito.*;
 
 import com.hinadt.miaocha.application.service.TableValidationService;
 import com.hinadt.miaocha.application.service.impl.QueryPermissionChecker;
+import com.hinadt.miaocha.application.service.impl.permission.PermissionSnapshotCache;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.domain.entity.User;
@@ -59,9 +60,13 @@ class QueryPermissionCheckerTest {
         queryPermissionChecker =
                 new QueryPermissionChecker(
                         tableValidationService,
-                        userModulePermissionMapper,
-                        userMapper,
-                        moduleInfoMapper);
+                        new PermissionSnapshotCache(
+                                userMapper,
+                                userModulePermissionMapper,
+                                moduleInfoMapper,
+                                600,
+                                5000,
+                                60));
 
         // 准备管理员用户
         adminUser = new User();
@@ -0,0 +1,179 @@
+package com.hinadt.miaocha.mock.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.hinadt.miaocha.common.exception.SshException;
+import com.hinadt.miaocha.infrastructure.ssh.SshConfig;
+import com.hinadt.miaocha.infrastructure.ssh.SshSessionPool;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.sshd.client.session.ClientSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** SSH会话池测试 验证会话按机器复用、断开后重连、通道数超限时单独建立会话以及空闲回收 */
+@DisplayName("SSH会话池测试")
+class SshSessionPoolTest {
+
+    private TestPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new TestPool(300, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.destroy();
+    }
+
+    private static SshConfig config(String host, String password) {
+        return SshConfig.builder()
+                .host(host)
+                .port(22)
+                .username("deploy")
+                .password(password)
+                .build();
+    }
+
+    @Test
+    @DisplayName("同一机器的操作复用已认证的会话，认证信息不同时使用新会话")
+    void testReuseSession() throws Exception {
+        SshSessionPool.Lease first = pool.acquire(config("10.0.0.1", "secret"));
+        first.close();
+        SshSessionPool.Lease second = pool.acquire(config("10.0.0.1", "secret"));
+        second.close();
+
+        assertSame(first.getSession(), second.getSession());
+        assertFalse(first.isReused());
+        assertTrue(second.isReused());
+        assertEquals(1, pool.connected.size());
+
+        pool.acquire(config("10.0.0.1", "changed")).close();
+        pool.acquire(config("10.0.0.2", "secret")).close();
+        assertEquals(3, pool.connected.size());
+        assertEquals(3, pool.size());
+    }
+
+    @Test
+    @DisplayName("会话已断开时重新连接")
+    void testReconnectClosedSession() throws Exception {
+        try (SshSessionPool.Lease lease = pool.acquire(config("10.0.0.1", "secret"))) {
+            when(lease.getSession().isOpen()).thenReturn(false);
+        }
+
+        try (SshSessionPool.Lease lease = pool.acquire(config("10.0.0.1", "secret"))) {
+            assertFalse(lease.isReused());
+            assertSame(pool.connected.get(1), lease.getSession());
+        }
+        verify(pool.connected.get(0)).close(true);
+    }
+
+    @Test
+    @DisplayName("会话上的通道数达到上限时单独建立会话，用完即关闭")
+    void testDedicatedSessionWhenBusy() throws Exception {
+        SshSessionPool.Lease first = pool.acquire(config("10.0.0.1", "secret"));
+        SshSessionPool.Lease second = pool.acquire(config("10.0.0.1", "secret"));
+        SshSessionPool.Lease third = pool.acquire(config("10.0.0.1", "secret"));
+
+        assertSame(first.getSession(), second.getSession());
+        assertNotSame(first.getSession(), third.getSession());
+        third.close();
+        verify(third.getSession()).close(true);
+
+        first.close();
+        second.close();
+        verify(first.getSession(), never()).close(true);
+    }
+
+    @Test
+    @DisplayName("空闲回收只关闭没有在使用的会话")
+    void testEvictIdleSessions() throws Exception {
+        pool.destroy();
+        pool = new TestPool(0, 2);
+        SshSessionPool.Lease busy = pool.acquire(config("10.0.0.1", "secret"));
+        pool.acquire(config("10.0.0.2", "secret")).close();
+
+        pool.evictIdleSessions();
+
+        assertEquals(1, pool.size());
+        verify(pool.connected.get(1)).close(true);
+        verify(busy.getSession(), never()).close(true);
+
+        busy.close();
+        pool.evictIdleSessions();
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    @DisplayName("建立连接期间同一机器的请求等待复用，空闲回收不被阻塞")
+    void testConcurrentAcquireConnectsOnce() throws Exception {
+        pool.destroy();
+        pool = new TestPool(0, 2);
+        pool.connectStarted = new CountDownLatch(1);
+        pool.connectAllowed = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<SshSessionPool.Lease> first =
+                    executor.submit(() -> pool.acquire(config("10.0.0.1", "secret")));
+            assertTrue(pool.connectStarted.await(5, TimeUnit.SECONDS));
+            Future<SshSessionPool.Lease> second =
+                    executor.submit(() -> pool.acquire(config("10.0.0.1", "secret")));
+
+            // 握手进行中，回收任务跳过该会话而不是等待
+            assertTimeoutPreemptively(Duration.ofSeconds(5), pool::evictIdleSessions);
+            assertEquals(1, pool.size());
+
+            pool.connectAllowed.countDown();
+            SshSessionPool.Lease firstLease = first.get(5, TimeUnit.SECONDS);
+            SshSessionPool.Lease secondLease = second.get(5, TimeUnit.SECONDS);
+            assertSame(firstLease.getSession(), secondLease.getSession());
+            assertEquals(1, pool.connected.size());
+            firstLease.close();
+            secondLease.close();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** 不建立真实连接的会话池，连接时返回模拟会话 */
+    private static final class TestPool extends SshSessionPool {
+
+        private final List<ClientSession> connected = new ArrayList<>();
+
+        /** 设置后连接时等待 connectAllowed，模拟耗时的握手 */
+        private volatile CountDownLatch connectStarted;
+
+        private volatile CountDownLatch connectAllowed;
+
+        TestPool(long idleTimeoutSeconds, int maxChannelsPerSession) {
+            super(true, idleTimeoutSeconds, maxChannelsPerSession, 0);
+        }
+
+        @Override
+        protected ClientSession connect(SshConfig config) throws SshException {
+            if (connectStarted != null) {
+                connectStarted.countDown();
+                try {
+                    connectAllowed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SshException(e);
+                }
+            }
+            ClientSession session = mock(ClientSession.class);
+            when(session.isOpen()).thenReturn(true);
+            connected.add(session);
+            return session;
+        }
+    }
+}
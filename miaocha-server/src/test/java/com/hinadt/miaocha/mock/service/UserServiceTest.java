@@ -7,6 +7,7 @@ import static org.mockito.Mockito.reset;
 
 import com.hinadt.miaocha.application.service.ModulePermissionService;
 import com.hinadt.miaocha.application.service.impl.UserServiceImpl;
+import com.hinadt.miaocha.application.service.impl.permission.PermissionSnapshotCache;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.config.security.JwtUtils;
@@ -53,6 +54,8 @@ public class UserServiceTest {
 
     @Mock private UserModulePermissionMapper userModulePermissionMapper;
 
+    @Mock private PermissionSnapshotCache permissionSnapshotCache;
+
     private UserServiceImpl userService;
 
     private User testUser;
@@ -81,7 +84,8 @@ public class UserServiceTest {
                         jwtUtils,
                         userConverter,
                         modulePermissionService,
-                        userModulePermissionMapper);
+                        userModulePermissionMapper,
+                        permissionSnapshotCache);
 
         // 准备测试用户
         testUser = createTestUser();
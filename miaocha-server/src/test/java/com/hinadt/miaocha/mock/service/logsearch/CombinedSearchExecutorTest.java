@@ -0,0 +1,162 @@
+package com.hinadt.miaocha.mock.service.logsearch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.hinadt.miaocha.application.service.impl.logsearch.executor.CombinedSearchExecutor;
+import com.hinadt.miaocha.application.service.impl.logsearch.executor.DetailSearchExecutor;
+import com.hinadt.miaocha.application.service.impl.logsearch.executor.FieldDistributionSearchExecutor;
+import com.hinadt.miaocha.application.service.impl.logsearch.executor.HistogramSearchExecutor;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.LogSearchTemplate.SearchExecutor;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchContext;
+import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
+import com.hinadt.miaocha.application.service.sql.converter.LogSearchDTOConverter;
+import com.hinadt.miaocha.common.exception.ErrorCode;
+import com.hinadt.miaocha.common.exception.LogQueryException;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.dto.logsearch.LogDetailResultDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogFieldDistributionResultDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogHistogramResultDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchCombinedDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchCombinedResultDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 组合检索执行器测试 验证各部分的上下文划分、连接租用以及失败时的整体取消 */
+@DisplayName("组合检索执行器测试")
+class CombinedSearchExecutorTest {
+
+    private DetailSearchExecutor detailExecutor;
+    private HistogramSearchExecutor histogramExecutor;
+    private FieldDistributionSearchExecutor fieldDistributionExecutor;
+    private CombinedSearchExecutor combinedExecutor;
+
+    private Connection connection;
+    private Connection leasedConnection;
+    private LogSearchCombinedDTO request;
+
+    @BeforeEach
+    void setUp() {
+        detailExecutor = mock(DetailSearchExecutor.class);
+        histogramExecutor = mock(HistogramSearchExecutor.class);
+        fieldDistributionExecutor = mock(FieldDistributionSearchExecutor.class);
+        LogSearchDTOConverter dtoConverter = mock(LogSearchDTOConverter.class);
+        when(dtoConverter.convert(any())).thenAnswer(inv -> inv.getArgument(0));
+        Executor directExecutor = Runnable::run;
+
+        combinedExecutor =
+                new CombinedSearchExecutor(
+                        mock(JdbcQueryExecutor.class),
+                        detailExecutor,
+                        histogramExecutor,
+                        fieldDistributionExecutor,
+                        dtoConverter,
+                        directExecutor);
+
+        connection = mock(Connection.class);
+        leasedConnection = mock(Connection.class);
+        request = new LogSearchCombinedDTO();
+        request.setModule("nginx");
+        request.setFields(List.of("message"));
+        request.setWhereSqls(List.of("level = 'ERROR'"));
+        request.setDistributionFields(List.of("level", "host"));
+    }
+
+    private SearchContext newContext(int maxConnections) {
+        return new SearchContext(
+                connection,
+                request,
+                "logs",
+                "log_time",
+                () -> leasedConnection,
+                maxConnections,
+                60);
+    }
+
+    @Test
+    @DisplayName("明细使用主连接，时间分布和字段分布使用独立连接，字段分布按 distributionFields 查询")
+    void testPartsRunOnForkedContexts() throws Exception {
+        SearchContext context = newContext(4);
+        when(detailExecutor.execute(any()))
+                .thenAnswer(
+                        inv -> {
+                            SearchContext ctx = inv.getArgument(0);
+                            assertSame(connection, ctx.getConnection());
+                            assertSame(request, ctx.getDto());
+                            return new LogDetailResultDTO();
+                        });
+        when(histogramExecutor.execute(any()))
+                .thenAnswer(
+                        inv -> {
+                            SearchContext ctx = inv.getArgument(0);
+                            assertSame(leasedConnection, ctx.getConnection());
+                            assertSame(request, ctx.getDto());
+                            return new LogHistogramResultDTO();
+                        });
+        when(fieldDistributionExecutor.execute(any()))
+                .thenAnswer(
+                        inv -> {
+                            SearchContext ctx = inv.getArgument(0);
+                            LogSearchDTO dto = ctx.getDto();
+                            assertSame(leasedConnection, ctx.getConnection());
+                            assertEquals(List.of("level", "host"), dto.getFields());
+                            assertEquals(List.of("level = 'ERROR'"), dto.getWhereSqls());
+                            return new LogFieldDistributionResultDTO();
+                        });
+
+        SearchExecutor<LogSearchCombinedResultDTO> executor = combinedExecutor.forRequest(request);
+        LogSearchCombinedResultDTO result = executor.execute(context);
+
+        assertEquals("combined", executor.getSearchType());
+        assertEquals(4, executor.getMaxConnections(new LogSearchProperties()));
+        assertNotNull(result.getDetails().getExecutionTimeMs());
+        assertNotNull(result.getHistogram().getExecutionTimeMs());
+        assertNotNull(result.getFieldDistributions().getExecutionTimeMs());
+
+        // 子上下文租用的连接由根上下文统一归还
+        context.close();
+        verify(leasedConnection, times(2)).close();
+    }
+
+    @Test
+    @DisplayName("未请求的部分不执行，也不租用连接")
+    void testSkipsUnrequestedParts() {
+        request.setIncludeHistogram(false);
+        request.setDistributionFields(null);
+        when(detailExecutor.execute(any())).thenReturn(new LogDetailResultDTO());
+
+        LogSearchCombinedResultDTO result =
+                combinedExecutor.forRequest(request).execute(newContext(4));
+
+        assertNotNull(result.getDetails());
+        assertNull(result.getHistogram());
+        assertNull(result.getFieldDistributions());
+        verifyNoInteractions(histogramExecutor, fieldDistributionExecutor);
+    }
+
+    @Test
+    @DisplayName("任一部分失败时取消整个请求并抛出该部分的异常")
+    void testFailureCancelsOtherParts() {
+        SearchContext context = newContext(4);
+        LogQueryException failure =
+                new LogQueryException(ErrorCode.LOG_HISTOGRAM_QUERY_FAILED, "HistogramQuery", "失败");
+        when(histogramExecutor.execute(any())).thenThrow(failure);
+        when(fieldDistributionExecutor.execute(any()))
+                .thenReturn(new LogFieldDistributionResultDTO());
+        when(detailExecutor.execute(any())).thenReturn(new LogDetailResultDTO());
+
+        LogQueryException thrown =
+                assertThrows(
+                        LogQueryException.class,
+                        () -> combinedExecutor.forRequest(request).execute(context));
+
+        assertSame(failure, thrown);
+        assertTrue(context.isCancelled());
+    }
+}
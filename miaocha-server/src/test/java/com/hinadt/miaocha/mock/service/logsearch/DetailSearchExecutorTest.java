@@ -0,0 +1,172 @@
+package com.hinadt.miaocha.mock.service.logsearch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.hinadt.miaocha.application.service.impl.logsearch.acceleration.AggregationRouter;
+import com.hinadt.miaocha.application.service.impl.logsearch.cache.LogCountCache;
+import com.hinadt.miaocha.application.service.impl.logsearch.executor.CountSearchExecutor;
+import com.hinadt.miaocha.application.service.impl.logsearch.executor.DetailSearchExecutor;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchContext;
+import com.hinadt.miaocha.application.service.impl.logsearch.validator.QueryConfigValidationService;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
+import com.hinadt.miaocha.application.service.sql.builder.AggregationSqlBuilder;
+import com.hinadt.miaocha.application.service.sql.builder.LogSqlBuilder;
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
+import com.hinadt.miaocha.application.service.sql.processor.QueryResult;
+import com.hinadt.miaocha.application.service.sql.processor.ResultProcessor;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.dto.logsearch.LogCountResultDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogDetailResultDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 明细查询总数缓存与延迟统计测试 */
+@DisplayName("明细查询总数缓存与延迟统计测试")
+class DetailSearchExecutorTest {
+
+    private static final BoundSql DETAIL_SQL = BoundSql.of("SELECT * FROM logs LIMIT 50 OFFSET 0");
+    private static final BoundSql COUNT_SQL = BoundSql.of("SELECT COUNT(*) AS total FROM logs");
+    private static final BoundSql SLICE_SQL =
+            BoundSql.of("SELECT * FROM logs WHERE slice LIMIT 1 OFFSET 0");
+
+    private JdbcQueryExecutor jdbcQueryExecutor;
+    private LogSqlBuilder logSqlBuilder;
+    private DetailSearchExecutor detailExecutor;
+    private CountSearchExecutor countExecutor;
+    private Connection connection;
+    private LogSearchDTO dto;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcQueryExecutor = mock(JdbcQueryExecutor.class);
+        logSqlBuilder = mock(LogSqlBuilder.class);
+        ResultProcessor resultProcessor = new ResultProcessor();
+        LogSearchProperties properties = new LogSearchProperties();
+        LogCountCache countCache = new LogCountCache(properties);
+        Executor directExecutor = Runnable::run;
+        // 模块未开启聚合加速，总数查询不改写
+        AggregationRouter aggregationRouter =
+                new AggregationRouter(
+                        mock(AggregationSqlBuilder.class),
+                        mock(QueryConfigValidationService.class),
+                        properties);
+
+        detailExecutor =
+                new DetailSearchExecutor(
+                        jdbcQueryExecutor,
+                        logSqlBuilder,
+                        resultProcessor,
+                        properties,
+                        countCache,
+                        aggregationRouter,
+                        directExecutor);
+        countExecutor =
+                new CountSearchExecutor(
+                        jdbcQueryExecutor,
+                        logSqlBuilder,
+                        resultProcessor,
+                        countCache,
+                        aggregationRouter,
+                        directExecutor);
+
+        connection = mock(Connection.class);
+        when(connection.createStatement()).thenAnswer(inv -> mock(Statement.class));
+
+        dto = new LogSearchDTO();
+        dto.setModule("nginx");
+        when(logSqlBuilder.buildDetailQuery(any(), anyString(), anyString()))
+                .thenReturn(DETAIL_SQL);
+        when(logSqlBuilder.buildCountQuery(any(), anyString(), anyString())).thenReturn(COUNT_SQL);
+
+        QueryResult detailResult = new QueryResult();
+        detailResult.setColumns(List.of("message"));
+        detailResult.setRows(List.of(Map.of("message", "hello")));
+        QueryResult countResult = new QueryResult();
+        countResult.setColumns(List.of("total"));
+        countResult.setRows(List.of(Map.of("total", 42L)));
+        when(jdbcQueryExecutor.executeStructuredQuery(any(Statement.class), eq(DETAIL_SQL)))
+                .thenReturn(detailResult);
+        when(jdbcQueryExecutor.executeStructuredQuery(any(Statement.class), eq(COUNT_SQL)))
+                .thenReturn(countResult);
+    }
+
+    private SearchContext newContext() {
+        return new SearchContext(connection, dto, "logs", "log_time");
+    }
+
+    @Test
+    @DisplayName("翻页时复用缓存的总数，只执行明细查询")
+    void testCountCachedAcrossPages() throws Exception {
+        LogDetailResultDTO firstPage = detailExecutor.execute(newContext());
+        LogDetailResultDTO secondPage = detailExecutor.execute(newContext());
+
+        assertEquals(42L, firstPage.getTotalCount());
+        assertEquals(42L, secondPage.getTotalCount());
+        assertFalse(secondPage.getCountDeferred());
+        verify(jdbcQueryExecutor, times(2))
+                .executeStructuredQuery(any(Statement.class), eq(DETAIL_SQL));
+        verify(jdbcQueryExecutor, times(1))
+                .executeStructuredQuery(any(Statement.class), eq(COUNT_SQL));
+    }
+
+    @Test
+    @DisplayName("延迟统计模式不执行总数查询，总数查询接口统计后写入缓存")
+    void testDeferredCount() throws Exception {
+        dto.setDeferCount(true);
+
+        LogDetailResultDTO page = detailExecutor.execute(newContext());
+
+        assertNull(page.getTotalCount());
+        assertTrue(page.getCountDeferred());
+        assertEquals(1, page.getRows().size());
+        verify(jdbcQueryExecutor, never())
+                .executeStructuredQuery(any(Statement.class), eq(COUNT_SQL));
+
+        LogCountResultDTO count = countExecutor.execute(newContext());
+        assertEquals(42L, count.getTotalCount());
+        assertFalse(count.getCached());
+
+        // 总数已缓存，延迟模式下也直接返回总数
+        LogDetailResultDTO nextPage = detailExecutor.execute(newContext());
+        assertEquals(42L, nextPage.getTotalCount());
+        assertFalse(nextPage.getCountDeferred());
+        assertTrue(countExecutor.execute(newContext()).getCached());
+        verify(jdbcQueryExecutor, times(1))
+                .executeStructuredQuery(any(Statement.class), eq(COUNT_SQL));
+    }
+
+    @Test
+    @DisplayName("按时间倒序查询时从最近的切片开始，查满一页后不再查询更早的切片")
+    void testTimeSlicedDetails() throws Exception {
+        dto.setPageSize(1);
+        when(logSqlBuilder.resolveDetailSliceRange(any(), anyString()))
+                .thenReturn(new TimeWindow("2024-01-01 00:00:00", "2024-01-08 00:00:00"));
+        when(logSqlBuilder.buildDetailQueryForSlice(any(), anyString(), anyString(), any(), eq(1)))
+                .thenReturn(SLICE_SQL);
+        QueryResult sliceResult = new QueryResult();
+        sliceResult.setColumns(List.of("message"));
+        sliceResult.setRows(List.of(Map.of("message", "latest")));
+        when(jdbcQueryExecutor.executeStructuredQuery(any(Statement.class), eq(SLICE_SQL)))
+                .thenReturn(sliceResult);
+
+        LogDetailResultDTO page = detailExecutor.execute(newContext());
+
+        assertEquals(List.of(Map.of("message", "latest")), page.getRows());
+        verify(logSqlBuilder, times(1))
+                .buildDetailQueryForSlice(any(), anyString(), anyString(), any(), anyInt());
+        verify(jdbcQueryExecutor, times(1))
+                .executeStructuredQuery(any(Statement.class), eq(SLICE_SQL));
+        verify(jdbcQueryExecutor, never())
+                .executeStructuredQuery(any(Statement.class), eq(DETAIL_SQL));
+    }
+}
@@ -0,0 +1,162 @@
+package com.hinadt.miaocha.mock.service.logsearch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.hinadt.miaocha.application.service.impl.logsearch.cache.HistogramBucketCache;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.dto.logsearch.LogHistogramResultDTO.LogDistributionData;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 时间分布增量缓存测试 验证稳定时间桶的缓存、首尾窗口的计算以及结果拼接 */
+@DisplayName("时间分布增量缓存测试")
+class HistogramBucketCacheTest {
+
+    private static final BoundSql SIGNATURE =
+            new BoundSql(
+                    "SELECT ... WHERE message MATCH_PHRASE ? GROUP BY bucket", List.of("error"));
+
+    private HistogramBucketCache cache;
+
+    @BeforeEach
+    void setUp() {
+        LogSearchProperties properties = new LogSearchProperties();
+        properties.getHistogramCache().setSettleSeconds(30);
+        cache = new HistogramBucketCache(properties);
+    }
+
+    private static LogDistributionData bucket(String minute, long count) {
+        LogDistributionData data = new LogDistributionData();
+        data.setTimePoint("2024-01-01 10:" + minute + ":00");
+        data.setCount(count);
+        return data;
+    }
+
+    /** 生成 [from, to] 分钟的时间桶，计数为分钟数 */
+    private static List<LogDistributionData> buckets(int from, int to) {
+        List<LogDistributionData> result = new ArrayList<>();
+        for (int minute = from; minute <= to; minute++) {
+            result.add(bucket(String.format("%02d", minute), minute));
+        }
+        return result;
+    }
+
+    private HistogramBucketCache.Plan plan(String start, String end) {
+        return cache.plan(
+                "nginx",
+                SIGNATURE,
+                "2024-01-01 " + start + ".000",
+                "2024-01-01 " + end + ".000",
+                "minute",
+                1);
+    }
+
+    private static LocalDateTime at(String time) {
+        return LocalDateTime.parse("2024-01-01T" + time);
+    }
+
+    @Test
+    @DisplayName("滑动刷新时只查询首桶和尾部窗口，中间时间桶来自缓存")
+    void testIncrementalRefresh() {
+        // 首次全量统计 10:00:30 ~ 10:15:30
+        HistogramBucketCache.Plan first = plan("10:00:30", "10:15:30");
+        assertEquals(
+                List.of(new TimeWindow("2024-01-01 10:00:30.000", "2024-01-01 10:15:30.000")),
+                first.windows());
+        assertTrue(first.cachedBuckets().isEmpty());
+        assertEquals(16, cache.stitch(first, buckets(0, 15), at("10:15:30")).size());
+
+        // 一分钟后刷新，10:02 ~ 10:14 已稳定
+        HistogramBucketCache.Plan second = plan("10:01:30", "10:16:30");
+        assertEquals(
+                List.of(
+                        new TimeWindow("2024-01-01 10:01:30.000", "2024-01-01 10:02:00.000"),
+                        new TimeWindow("2024-01-01 10:15:00.000", "2024-01-01 10:16:30.000")),
+                second.windows());
+        assertEquals(13, second.cachedBuckets().size());
+
+        List<LogDistributionData> queried = new ArrayList<>();
+        queried.add(bucket("01", 100));
+        queried.addAll(buckets(15, 16));
+        List<LogDistributionData> stitched = cache.stitch(second, queried, at("10:16:30"));
+
+        assertEquals(16, stitched.size());
+        assertEquals("2024-01-01 10:01:00", stitched.get(0).getTimePoint());
+        assertEquals(100L, stitched.get(0).getCount());
+        assertEquals("2024-01-01 10:02:00", stitched.get(1).getTimePoint());
+        assertEquals(2L, stitched.get(1).getCount());
+        assertEquals("2024-01-01 10:16:00", stitched.get(15).getTimePoint());
+
+        // 再次刷新时尾部窗口从新的稳定边界开始
+        HistogramBucketCache.Plan third = plan("10:02:30", "10:17:30");
+        assertEquals("2024-01-01 10:16:00.000", third.windows().get(1).start());
+        assertEquals(13, third.cachedBuckets().size());
+    }
+
+    @Test
+    @DisplayName("未到稳定时间的时间桶不缓存，缺失的桶视为计数为0")
+    void testSettleTimeAndEmptyBuckets() {
+        HistogramBucketCache.Plan first = plan("10:00:00", "10:10:00");
+        List<LogDistributionData> sparse = List.of(bucket("00", 1), bucket("05", 5));
+        // 当前时间 10:10:20，10:09 的桶结束不足30秒
+        cache.stitch(first, sparse, at("10:10:20"));
+
+        HistogramBucketCache.Plan second = plan("10:00:00", "10:10:00");
+        assertEquals(
+                List.of(new TimeWindow("2024-01-01 10:09:00.000", "2024-01-01 10:10:00.000")),
+                second.windows());
+        assertEquals(2, second.cachedBuckets().size());
+
+        List<LogDistributionData> stitched = cache.stitch(second, List.of(), at("10:11:00"));
+        assertEquals(List.of(sparse.get(0), sparse.get(1)), stitched);
+    }
+
+    @Test
+    @DisplayName("SQL相同但绑定参数不同的检索不共享时间桶")
+    void testSignatureIncludesParameters() {
+        cache.stitch(plan("10:00:00", "10:10:00"), buckets(0, 9), at("10:11:00"));
+
+        HistogramBucketCache.Plan other =
+                cache.plan(
+                        "nginx",
+                        new BoundSql(SIGNATURE.sql(), List.of("timeout")),
+                        "2024-01-01 10:00:00.000",
+                        "2024-01-01 10:10:00.000",
+                        "minute",
+                        1);
+        assertTrue(other.cachedBuckets().isEmpty());
+        assertFalse(plan("10:00:00", "10:10:00").cachedBuckets().isEmpty());
+    }
+
+    @Test
+    @DisplayName("毫秒级颗粒度、无法解析的时间或禁用缓存时不使用增量缓存")
+    void testNotCacheable() {
+        assertNull(
+                cache.plan(
+                        "nginx",
+                        SIGNATURE,
+                        "2024-01-01 10:00:00.000",
+                        "2024-01-01 10:00:01.000",
+                        "millisecond",
+                        20));
+        assertNull(cache.plan("nginx", SIGNATURE, "invalid", "2024-01-01 10:00:01", "minute", 1));
+
+        LogSearchProperties properties = new LogSearchProperties();
+        properties.getHistogramCache().setEnabled(false);
+        HistogramBucketCache disabled = new HistogramBucketCache(properties);
+        assertNull(
+                disabled.plan(
+                        "nginx",
+                        SIGNATURE,
+                        "2024-01-01 10:00:00.000",
+                        "2024-01-01 10:10:00.000",
+                        "minute",
+                        1));
+    }
+}
@@ -9,15 +9,20 @@ import com.hinadt.miaocha.application.service.SystemCacheService;
 import com.hinadt.miaocha.application.service.database.DatabaseMetadataService;
 import com.hinadt.miaocha.application.service.database.DatabaseMetadataServiceFactory;
 import com.hinadt.miaocha.application.service.impl.LogSearchServiceImpl;
+import com.hinadt.miaocha.application.service.impl.logsearch.executor.CombinedSearchExecutor;
+import com.hinadt.miaocha.application.service.impl.logsearch.executor.CountSearchExecutor;
 import com.hinadt.miaocha.application.service.impl.logsearch.executor.DetailSearchExecutor;
 import com.hinadt.miaocha.application.service.impl.logsearch.executor.FieldDistributionSearchExecutor;
 import com.hinadt.miaocha.application.service.impl.logsearch.executor.HistogramSearchExecutor;
+import com.hinadt.miaocha.application.service.impl.logsearch.executor.ProgressiveSearchExecutor;
 import com.hinadt.miaocha.application.service.impl.logsearch.template.LogSearchTemplate;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchSessionRegistry;
 import com.hinadt.miaocha.application.service.impl.logsearch.validator.LogSearchValidator;
 import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.common.exception.LogQueryException;
+import com.hinadt.miaocha.config.LogSearchProperties;
 import com.hinadt.miaocha.domain.dto.SchemaInfoDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogDetailResultDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogFieldDistributionResultDTO;
@@ -29,6 +34,7 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -49,12 +55,16 @@ class LogSearchServiceImplTest {
     @Mock private LogSearchValidator validator;
     @Mock private LogSearchTemplate searchTemplate;
     @Mock private DetailSearchExecutor detailExecutor;
+    @Mock private CountSearchExecutor countExecutor;
     @Mock private HistogramSearchExecutor histogramExecutor;
     @Mock private FieldDistributionSearchExecutor fieldDistributionExecutor;
+    @Mock private CombinedSearchExecutor combinedExecutor;
+    @Mock private ProgressiveSearchExecutor progressiveExecutor;
     @Mock private DatabaseMetadataServiceFactory metadataServiceFactory;
     @Mock private ModuleInfoService moduleInfoService;
     @Mock private JdbcQueryExecutor jdbcQueryExecutor;
     @Mock private SystemCacheService systemCacheService;
+    @Mock private SearchSessionRegistry searchSessionRegistry;
     @Mock private DatabaseMetadataService metadataService;
     @Mock private Connection connection;
 
@@ -71,12 +81,18 @@ class LogSearchServiceImplTest {
                         validator,
                         searchTemplate,
                         detailExecutor,
+                        countExecutor,
                         histogramExecutor,
                         fieldDistributionExecutor,
+                        combinedExecutor,
+                        progressiveExecutor,
                         metadataServiceFactory,
                         moduleInfoService,
                         jdbcQueryExecutor,
-                        systemCacheService);
+                        systemCacheService,
+                        searchSessionRegistry,
+                        new LogSearchProperties(),
+                        Runnable::run);
 
         testDto = new LogSearchDTO();
         testDto.setModule("test-module");
@@ -472,6 +488,38 @@ class LogSearchServiceImplTest {
         verify(moduleInfoService).getQueryConfigByModule(module);
     }
 
+    @Test
+    @DisplayName("渐进式检索线程占满时返回繁忙错误，不在请求线程中执行")
+    void testSearchProgressiveRejectedWhenExecutorSaturated() {
+        logSearchService =
+                new LogSearchServiceImpl(
+                        validator,
+                        searchTemplate,
+                        detailExecutor,
+                        countExecutor,
+                        histogramExecutor,
+                        fieldDistributionExecutor,
+                        combinedExecutor,
+                        progressiveExecutor,
+                        metadataServiceFactory,
+                        moduleInfoService,
+                        jdbcQueryExecutor,
+                        systemCacheService,
+                        searchSessionRegistry,
+                        new LogSearchProperties(),
+                        task -> {
+                            throw new RejectedExecutionException("saturated");
+                        });
+        when(validator.validateAndGetDatasource("test-module")).thenReturn(testDatasource);
+
+        BusinessException exception =
+                assertThrows(
+                        BusinessException.class, () -> logSearchService.searchProgressive(testDto));
+
+        assertEquals(ErrorCode.DATASOURCE_BUSY, exception.getErrorCode());
+        verify(searchTemplate, never()).execute(any(), any(), any(), any());
+    }
+
     // ==================== 边界条件测试 ====================
 
     @Test
@@ -4,9 +4,15 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hinadt.miaocha.application.service.ModuleInfoService;
+import com.hinadt.miaocha.application.service.datasource.DatasourceConcurrencyLimiter;
+import com.hinadt.miaocha.application.service.datasource.QueryPriority;
+import com.hinadt.miaocha.application.service.impl.logsearch.cache.SearchResultCoalescer;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.AssistantSearchRegistry;
 import com.hinadt.miaocha.application.service.impl.logsearch.template.LogSearchTemplate;
 import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchContext;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchSessionRegistry;
 import com.hinadt.miaocha.application.service.impl.logsearch.validator.QueryConfigValidationService;
 import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
 import com.hinadt.miaocha.application.service.sql.converter.LogSearchDTOConverter;
@@ -15,17 +21,23 @@ import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
 import com.hinadt.miaocha.common.exception.KeywordSyntaxException;
 import com.hinadt.miaocha.common.exception.LogQueryException;
+import com.hinadt.miaocha.common.util.UserContextUtil;
+import com.hinadt.miaocha.config.LogSearchProperties;
 import com.hinadt.miaocha.domain.dto.logsearch.LogDetailResultDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
 import com.hinadt.miaocha.domain.entity.DatasourceInfo;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * LogSearchTemplate单元测试
@@ -46,6 +58,7 @@ class LogSearchTemplateTest {
     @Mock private Connection connection;
     @Mock private LogSearchTemplate.SearchExecutor<LogDetailResultDTO> mockExecutor;
 
+    private AssistantSearchRegistry assistantSearchRegistry;
     private LogSearchTemplate logSearchTemplate;
     private LogSearchDTO testDto;
     private LogSearchDTO convertedDto;
@@ -53,13 +66,19 @@ class LogSearchTemplateTest {
 
     @BeforeEach
     void setUp() {
+        assistantSearchRegistry = new AssistantSearchRegistry();
         logSearchTemplate =
                 new LogSearchTemplate(
                         jdbcQueryExecutor,
                         timeRangeProcessor,
                         moduleInfoService,
                         dtoConverter,
-                        queryConfigValidationService);
+                        queryConfigValidationService,
+                        new LogSearchProperties(),
+                        new SearchSessionRegistry(),
+                        new SearchResultCoalescer(new ObjectMapper(), new LogSearchProperties()),
+                        new DatasourceConcurrencyLimiter(),
+                        assistantSearchRegistry);
 
         testDto = new LogSearchDTO();
         testDto.setModule("test-module");
@@ -138,7 +157,8 @@ class LogSearchTemplateTest {
         verify(moduleInfoService).getTableNameByModule("test-module");
         verify(queryConfigValidationService).getTimeField("test-module");
         verify(jdbcQueryExecutor).getConnection(testDatasource);
-        verifyNoInteractions(mockExecutor);
+        // 超时时间和是否可共享在合并相同检索之前确定，执行器不会被执行
+        verify(mockExecutor, never()).execute(any());
     }
 
     @Test
@@ -190,8 +210,11 @@ class LogSearchTemplateTest {
 
         verify(timeRangeProcessor).processTimeRange(testDto);
         verify(dtoConverter).convert(testDto);
-        verifyNoInteractions(
-                moduleInfoService, queryConfigValidationService, jdbcQueryExecutor, mockExecutor);
+        verifyNoInteractions(moduleInfoService, jdbcQueryExecutor);
+        // 超时时间和是否可共享在合并相同检索之前确定，执行器不会被执行
+        verify(queryConfigValidationService).getQueryTimeoutSeconds("test-module");
+        verify(queryConfigValidationService, never()).getTimeField(anyString());
+        verify(mockExecutor, never()).execute(any());
     }
 
     @Test
@@ -218,7 +241,10 @@ class LogSearchTemplateTest {
         verify(timeRangeProcessor).processTimeRange(testDto);
         verify(dtoConverter).convert(testDto);
         verify(moduleInfoService).getTableNameByModule("test-module");
-        verifyNoInteractions(queryConfigValidationService, jdbcQueryExecutor, mockExecutor);
+        verifyNoInteractions(jdbcQueryExecutor);
+        // 超时时间和是否可共享在合并相同检索之前确定，执行器不会被执行
+        verify(queryConfigValidationService, never()).getTimeField(anyString());
+        verify(mockExecutor, never()).execute(any());
     }
 
     @Test
@@ -247,7 +273,9 @@ class LogSearchTemplateTest {
         verify(dtoConverter).convert(testDto);
         verify(moduleInfoService).getTableNameByModule("test-module");
         verify(queryConfigValidationService).getTimeField("test-module");
-        verifyNoInteractions(jdbcQueryExecutor, mockExecutor);
+        verifyNoInteractions(jdbcQueryExecutor);
+        // 超时时间和是否可共享在合并相同检索之前确定，执行器不会被执行
+        verify(mockExecutor, never()).execute(any());
     }
 
     @Test
@@ -309,6 +337,39 @@ class LogSearchTemplateTest {
         assertEquals("invalid_expression", thrownException.getExpression());
     }
 
+    @Test
+    @DisplayName("子查询连接 - 按上限租用独立连接并在执行结束后归还")
+    void testExecute_LeasesSubQueryConnectionsWithinCap() throws Exception {
+        // Arrange
+        Connection leasedConnection = mock(Connection.class);
+        LogDetailResultDTO expectedResult = new LogDetailResultDTO();
+
+        doNothing().when(timeRangeProcessor).processTimeRange(testDto);
+        when(dtoConverter.convert(testDto)).thenReturn(convertedDto);
+        when(moduleInfoService.getTableNameByModule("test-module")).thenReturn("test_table");
+        when(queryConfigValidationService.getTimeField("test-module")).thenReturn("timestamp");
+        when(jdbcQueryExecutor.getConnection(testDatasource))
+                .thenReturn(connection, leasedConnection);
+        when(mockExecutor.getMaxConnections(any(LogSearchProperties.class))).thenCallRealMethod();
+        when(mockExecutor.execute(any(SearchContext.class)))
+                .thenAnswer(
+                        invocation -> {
+                            SearchContext context = invocation.getArgument(0);
+                            // 默认上限为2：第一次租到独立连接，之后退回主连接
+                            assertSame(leasedConnection, context.leaseConnection());
+                            assertSame(connection, context.leaseConnection());
+                            return expectedResult;
+                        });
+
+        // Act
+        logSearchTemplate.execute(testDatasource, testDto, mockExecutor);
+
+        // Assert
+        verify(jdbcQueryExecutor, times(2)).getConnection(testDatasource);
+        verify(leasedConnection).close();
+        verify(connection).close();
+    }
+
     // 注意：连接关闭失败测试已移除，因为现在连接由HikariCP管理，不再手动关闭
 
     @Test
@@ -337,4 +398,68 @@ class LogSearchTemplateTest {
         assertTrue(result.getExecutionTimeMs() >= 0);
         assertTrue(result.getExecutionTimeMs() <= (endTime - startTime) + 100); // 允许100ms误差
     }
+
+    @Test
+    @DisplayName("查询优先级 - 请求头只能降低服务端确定的优先级")
+    void testResolvePriority_HeaderOnlyDowngrades() {
+        try {
+            withPriorityHeader("INTERACTIVE");
+            assertEquals(
+                    QueryPriority.BACKGROUND,
+                    logSearchTemplate.resolvePriority(testDto, QueryPriority.BACKGROUND));
+
+            withPriorityHeader("BULK");
+            assertEquals(
+                    QueryPriority.BULK,
+                    logSearchTemplate.resolvePriority(testDto, QueryPriority.INTERACTIVE));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    @DisplayName("查询优先级 - 自动刷新的检索按后台优先级执行")
+    void testResolvePriority_AutoRefreshIsBackground() {
+        assertEquals(
+                QueryPriority.INTERACTIVE,
+                logSearchTemplate.resolvePriority(testDto, QueryPriority.INTERACTIVE));
+
+        testDto.setAutoRefresh(true);
+        assertEquals(
+                QueryPriority.BACKGROUND,
+                logSearchTemplate.resolvePriority(testDto, QueryPriority.INTERACTIVE));
+    }
+
+    @Test
+    @DisplayName("查询优先级 - AI助手推送的检索条件按后台优先级执行")
+    void testResolvePriority_AssistantSearchIsBackground() {
+        testDto.setKeywords(List.of("error"));
+        testDto.setTimeRange("last_15m");
+        assertEquals(
+                QueryPriority.INTERACTIVE,
+                logSearchTemplate.resolvePriority(testDto, QueryPriority.INTERACTIVE));
+
+        LogSearchDTO assistantDto = new LogSearchDTO();
+        assistantDto.setModule("test-module");
+        assistantDto.setKeywords(List.of("error"));
+        assistantDto.setTimeRange("last_15m");
+        assistantSearchRegistry.register(UserContextUtil.getCurrentUserEmail(), assistantDto);
+
+        try {
+            withPriorityHeader("INTERACTIVE");
+            assertEquals(
+                    QueryPriority.BACKGROUND,
+                    logSearchTemplate.resolvePriority(testDto, QueryPriority.INTERACTIVE));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        // 其他用户的相同条件不受影响
+        assertFalse(assistantSearchRegistry.contains("other@example.com", testDto));
+    }
+
+    private void withPriorityHeader(String priority) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(QueryPriority.HEADER, priority);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
 }
@@ -0,0 +1,183 @@
+package com.hinadt.miaocha.mock.service.logsearch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.hinadt.miaocha.application.service.impl.logsearch.cache.LogCountCache;
+import com.hinadt.miaocha.application.service.impl.logsearch.executor.ProgressiveSearchExecutor;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchContext;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
+import com.hinadt.miaocha.application.service.sql.builder.LogSqlBuilder;
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
+import com.hinadt.miaocha.application.service.sql.processor.QueryResult;
+import com.hinadt.miaocha.application.service.sql.processor.ResultProcessor;
+import com.hinadt.miaocha.application.service.sql.processor.TimeGranularityCalculator;
+import com.hinadt.miaocha.application.service.sql.processor.TimeRangeProcessor;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.dto.logsearch.LogDetailResultDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogHistogramResultDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchSummaryDTO;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 渐进式检索执行器测试 验证按切片输出明细和累计时间桶、查满一页后只统计时间分布以及汇总总数 */
+@DisplayName("渐进式检索执行器测试")
+class ProgressiveSearchExecutorTest {
+
+    private static final BoundSql DETAIL_SQL = BoundSql.of("SELECT * FROM logs LIMIT 1 OFFSET 0");
+    private static final BoundSql SLICE_DETAIL_SQL =
+            BoundSql.of("SELECT * FROM logs WHERE slice LIMIT 1");
+    private static final BoundSql DISTRIBUTION_SQL =
+            BoundSql.of("SELECT log_time_, COUNT(*) AS count FROM logs");
+    private static final BoundSql COUNT_SQL = BoundSql.of("SELECT COUNT(*) AS total FROM logs");
+
+    private JdbcQueryExecutor jdbcQueryExecutor;
+    private LogSqlBuilder logSqlBuilder;
+    private LogCountCache countCache;
+    private ProgressiveSearchExecutor executor;
+    private Connection connection;
+    private LogSearchDTO dto;
+    private List<String> events;
+    private List<Object> payloads;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcQueryExecutor = mock(JdbcQueryExecutor.class);
+        logSqlBuilder = mock(LogSqlBuilder.class);
+        TimeRangeProcessor timeRangeProcessor = mock(TimeRangeProcessor.class);
+        LogSearchProperties properties = new LogSearchProperties();
+        countCache = new LogCountCache(properties);
+
+        executor =
+                new ProgressiveSearchExecutor(
+                        jdbcQueryExecutor,
+                        logSqlBuilder,
+                        new ResultProcessor(),
+                        timeRangeProcessor,
+                        properties,
+                        countCache,
+                        Runnable::run);
+
+        connection = mock(Connection.class);
+        when(connection.createStatement()).thenAnswer(inv -> mock(Statement.class));
+
+        dto = new LogSearchDTO();
+        dto.setModule("nginx");
+        dto.setStartTime("2024-01-01 00:00:00");
+        dto.setEndTime("2024-01-08 00:00:00");
+        dto.setPageSize(1);
+
+        when(timeRangeProcessor.calculateOptimalTimeGranularity(any(), any()))
+                .thenReturn(
+                        TimeGranularityCalculator.TimeGranularityResult.builder()
+                                .timeUnit("hour")
+                                .interval(3)
+                                .build());
+        when(logSqlBuilder.buildDetailQuery(any(), anyString(), anyString()))
+                .thenReturn(DETAIL_SQL);
+        when(logSqlBuilder.buildDetailQueryForSlice(any(), anyString(), anyString(), any(), eq(1)))
+                .thenReturn(SLICE_DETAIL_SQL);
+        when(logSqlBuilder.buildDistributionSqlForWindows(
+                        any(), anyString(), anyString(), anyInt(), anyList()))
+                .thenReturn(DISTRIBUTION_SQL);
+        when(logSqlBuilder.buildCountQuery(any(), anyString(), anyString())).thenReturn(COUNT_SQL);
+
+        when(jdbcQueryExecutor.executeStructuredQuery(any(Statement.class), eq(DETAIL_SQL)))
+                .thenReturn(rows(Map.of("message", "full")));
+        when(jdbcQueryExecutor.executeStructuredQuery(any(Statement.class), eq(SLICE_DETAIL_SQL)))
+                .thenReturn(rows(Map.of("message", "latest")));
+        // 每个切片都落在同一个时间桶中，模拟时间桶跨越切片边界
+        when(jdbcQueryExecutor.executeStructuredQuery(any(Statement.class), eq(DISTRIBUTION_SQL)))
+                .thenReturn(rows(Map.of("log_time_", "2024-01-07 21:00:00", "count", 2L)));
+
+        events = new ArrayList<>();
+        payloads = new ArrayList<>();
+    }
+
+    private static QueryResult rows(Map<String, Object> row) {
+        QueryResult result = new QueryResult();
+        result.setColumns(List.copyOf(row.keySet()));
+        result.setRows(List.of(row));
+        return result;
+    }
+
+    private LogSearchSummaryDTO execute() {
+        return executor.forSink(
+                        (event, data) -> {
+                            events.add(event);
+                            payloads.add(data);
+                        })
+                .execute(new SearchContext(connection, dto, "logs", "log_time"));
+    }
+
+    @Test
+    @DisplayName("按时间倒序时明细随首个切片输出，查满一页后后续切片只输出累计的时间桶")
+    void testSlicedDetails() throws Exception {
+        when(logSqlBuilder.resolveDetailSliceRange(any(), anyString()))
+                .thenReturn(new TimeWindow(dto.getStartTime(), dto.getEndTime()));
+
+        LogSearchSummaryDTO summary = execute();
+
+        assertEquals(
+                List.of("details", "histogram", "histogram", "histogram", "histogram", "histogram"),
+                events);
+        assertEquals(
+                List.of(Map.of("message", "latest")),
+                ((LogDetailResultDTO) payloads.get(0)).getRows());
+        LogHistogramResultDTO last = (LogHistogramResultDTO) payloads.get(payloads.size() - 1);
+        assertEquals(10L, last.getDistributionData().get(0).getCount());
+        assertEquals("hour", last.getTimeUnit());
+
+        assertEquals(10L, summary.getTotalCount());
+        assertEquals(1, summary.getRowCount());
+        assertEquals(5, summary.getSlices());
+        assertEquals(10L, countCache.get("nginx", COUNT_SQL));
+        verify(logSqlBuilder, times(1))
+                .buildDetailQueryForSlice(any(), anyString(), anyString(), any(), anyInt());
+        verify(jdbcQueryExecutor, never())
+                .executeStructuredQuery(any(Statement.class), eq(DETAIL_SQL));
+    }
+
+    @Test
+    @DisplayName("排序方式不支持切片时先查询整个范围的明细")
+    void testFullRangeDetails() throws Exception {
+        LogSearchSummaryDTO summary = execute();
+
+        assertEquals("details", events.get(0));
+        assertEquals(
+                List.of(Map.of("message", "full")),
+                ((LogDetailResultDTO) payloads.get(0)).getRows());
+        assertEquals(6, events.size());
+        assertEquals(10L, summary.getTotalCount());
+        verify(logSqlBuilder, never())
+                .buildDetailQueryForSlice(any(), anyString(), anyString(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("输出失败时取消查询并停止后续切片")
+    void testClientDisconnected() throws Exception {
+        SearchContext context = new SearchContext(connection, dto, "logs", "log_time");
+
+        assertThrows(
+                RuntimeException.class,
+                () ->
+                        executor.forSink(
+                                        (event, data) -> {
+                                            throw new IOException("Broken pipe");
+                                        })
+                                .execute(context));
+        assertTrue(context.isCancelled());
+        verify(jdbcQueryExecutor, times(1))
+                .executeStructuredQuery(any(Statement.class), any(BoundSql.class));
+    }
+}
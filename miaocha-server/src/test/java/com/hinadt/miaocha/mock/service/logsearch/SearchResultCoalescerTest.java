@@ -0,0 +1,318 @@
+package com.hinadt.miaocha.mock.service.logsearch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hinadt.miaocha.application.service.impl.logsearch.cache.SearchResultCoalescer;
+import com.hinadt.miaocha.application.service.impl.module.ModuleConfigChangedEvent;
+import com.hinadt.miaocha.common.exception.ErrorCode;
+import com.hinadt.miaocha.common.exception.LogQueryException;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.dto.logsearch.LogDetailResultDTO;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 检索请求合并测试 验证并发相同检索只执行一次、结果短时复用、签名区分以及取消后的重新执行 */
+@DisplayName("检索请求合并测试")
+class SearchResultCoalescerTest {
+
+    private static final int TIMEOUT_SECONDS = 30;
+
+    private SearchResultCoalescer coalescer;
+    private ExecutorService threads;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new SearchResultCoalescer(new ObjectMapper(), new LogSearchProperties());
+        threads = Executors.newFixedThreadPool(4);
+        executions = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        threads.shutdownNow();
+    }
+
+    private static LogSearchDTO dto(String session, String startTime) {
+        LogSearchDTO dto = new LogSearchDTO();
+        dto.setModule("nginx");
+        dto.setKeywords(List.of("error"));
+        dto.setStartTime(startTime);
+        dto.setEndTime("2024-01-02 00:00:00");
+        dto.setSearchSessionId(session);
+        return dto;
+    }
+
+    private IntFunction<LogDetailResultDTO> search(List<Map<String, Object>> rows) {
+        return timeoutSeconds -> {
+            executions.incrementAndGet();
+            LogDetailResultDTO result = new LogDetailResultDTO();
+            result.setRows(rows);
+            result.setTotalCount(1L);
+            return result;
+        };
+    }
+
+    @Test
+    @DisplayName("并发的相同检索只执行一次，每个调用方拿到独立的结果副本")
+    void testConcurrentSearchesShareExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Map<String, Object>> rows = List.of(Map.of("message", "error"));
+        IntFunction<LogDetailResultDTO> blocking =
+                timeoutSeconds -> {
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return search(rows).apply(timeoutSeconds);
+                };
+
+        List<Future<LogDetailResultDTO>> futures = new ArrayList<>();
+        futures.add(
+                threads.submit(
+                        () ->
+                                coalescer.execute(
+                                        "detail",
+                                        1L,
+                                        dto("a", "2024-01-01"),
+                                        TIMEOUT_SECONDS,
+                                        blocking)));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            String session = "s" + i;
+            futures.add(
+                    threads.submit(
+                            () ->
+                                    coalescer.execute(
+                                            "detail",
+                                            1L,
+                                            dto(session, "2024-01-01"),
+                                            TIMEOUT_SECONDS,
+                                            blocking)));
+        }
+        release.countDown();
+
+        List<LogDetailResultDTO> results = new ArrayList<>();
+        for (Future<LogDetailResultDTO> future : futures) {
+            results.add(future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, executions.get());
+        for (LogDetailResultDTO result : results) {
+            assertSame(rows, result.getRows());
+            assertEquals(1L, result.getTotalCount());
+        }
+        results.get(0).setExecutionTimeMs(10L);
+        assertNull(results.get(1).getExecutionTimeMs());
+    }
+
+    @Test
+    @DisplayName("时间范围、查询类型或数据源不同时分别执行，模块变更后重新执行")
+    void testSignature() {
+        List<Map<String, Object>> rows = List.of();
+        coalescer.execute("detail", 1L, dto("a", "2024-01-01"), TIMEOUT_SECONDS, search(rows));
+        coalescer.execute("detail", 1L, dto("b", "2024-01-01"), TIMEOUT_SECONDS, search(rows));
+        assertEquals(1, executions.get());
+
+        coalescer.execute(
+                "detail", 1L, dto("a", "2024-01-01 12:00:00"), TIMEOUT_SECONDS, search(rows));
+        coalescer.execute("count", 1L, dto("a", "2024-01-01"), TIMEOUT_SECONDS, search(rows));
+        coalescer.execute("detail", 2L, dto("a", "2024-01-01"), TIMEOUT_SECONDS, search(rows));
+        assertEquals(4, executions.get());
+
+        coalescer.onModuleConfigChanged(new ModuleConfigChangedEvent(List.of("nginx"), 1L));
+        coalescer.execute("detail", 1L, dto("a", "2024-01-01"), TIMEOUT_SECONDS, search(rows));
+        assertEquals(5, executions.get());
+    }
+
+    @Test
+    @DisplayName("执行者被取消时等待者重新执行，失败结果不缓存")
+    void testCancelledLeader() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> leader =
+                threads.submit(
+                        () ->
+                                coalescer.execute(
+                                        "detail",
+                                        1L,
+                                        dto("a", "2024-01-01"),
+                                        TIMEOUT_SECONDS,
+                                        timeoutSeconds -> {
+                                            started.countDown();
+                                            try {
+                                                release.await(5, TimeUnit.SECONDS);
+                                            } catch (InterruptedException e) {
+                                                Thread.currentThread().interrupt();
+                                            }
+                                            throw new LogQueryException(
+                                                    ErrorCode.LOG_QUERY_CANCELLED,
+                                                    "DetailQuery",
+                                                    "查询已被取消");
+                                        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        AtomicReference<Thread> waiting = new AtomicReference<>();
+        Future<LogDetailResultDTO> follower =
+                threads.submit(
+                        () -> {
+                            waiting.set(Thread.currentThread());
+                            return coalescer.execute(
+                                    "detail",
+                                    1L,
+                                    dto("b", "2024-01-01"),
+                                    TIMEOUT_SECONDS,
+                                    search(List.of()));
+                        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        // 等待者阻塞在执行者的结果上后再让执行者被取消
+        while ((waiting.get() == null || waiting.get().getState() != Thread.State.WAITING)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        Exception leaderFailure =
+                assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(LogQueryException.class, leaderFailure.getCause());
+        assertNotNull(follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    @DisplayName("执行者被取消时多个等待者中只有一个重新执行")
+    void testCancelledLeaderReplacedByOneFollower() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> leader =
+                threads.submit(
+                        () ->
+                                coalescer.execute(
+                                        "detail",
+                                        1L,
+                                        dto("a", "2024-01-01"),
+                                        TIMEOUT_SECONDS,
+                                        timeoutSeconds -> {
+                                            started.countDown();
+                                            await(release);
+                                            throw new LogQueryException(
+                                                    ErrorCode.LOG_QUERY_CANCELLED,
+                                                    "DetailQuery",
+                                                    "查询已被取消");
+                                        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // 新的执行者执行期间其余等待者继续等待它的结果
+        IntFunction<LogDetailResultDTO> slowSearch =
+                timeoutSeconds -> {
+                    sleep(200);
+                    return search(List.of()).apply(timeoutSeconds);
+                };
+        List<Future<LogDetailResultDTO>> followers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String session = "s" + i;
+            followers.add(
+                    threads.submit(
+                            () ->
+                                    coalescer.execute(
+                                            "detail",
+                                            1L,
+                                            dto(session, "2024-01-01"),
+                                            TIMEOUT_SECONDS,
+                                            slowSearch)));
+        }
+        sleep(200);
+        release.countDown();
+
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        for (Future<LogDetailResultDTO> follower : followers) {
+            assertNotNull(follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    @DisplayName("等待者超过自己的超时时间后返回查询超时")
+    void testFollowerTimeout() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<LogDetailResultDTO> leader =
+                threads.submit(
+                        () ->
+                                coalescer.execute(
+                                        "detail",
+                                        1L,
+                                        dto("a", "2024-01-01"),
+                                        TIMEOUT_SECONDS,
+                                        timeoutSeconds -> {
+                                            started.countDown();
+                                            await(release);
+                                            return search(List.of()).apply(timeoutSeconds);
+                                        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        LogQueryException e =
+                assertThrows(
+                        LogQueryException.class,
+                        () ->
+                                coalescer.execute(
+                                        "detail",
+                                        1L,
+                                        dto("b", "2024-01-01"),
+                                        1,
+                                        search(List.of())));
+        assertEquals(ErrorCode.LOG_QUERY_TIMEOUT, e.getErrorCode());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+
+        release.countDown();
+        assertNotNull(leader.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    @DisplayName("关闭后每次都执行检索")
+    void testDisabled() {
+        LogSearchProperties properties = new LogSearchProperties();
+        properties.getCoalescing().setEnabled(false);
+        SearchResultCoalescer disabled = new SearchResultCoalescer(new ObjectMapper(), properties);
+
+        disabled.execute("detail", 1L, dto("a", "2024-01-01"), TIMEOUT_SECONDS, search(List.of()));
+        disabled.execute("detail", 1L, dto("a", "2024-01-01"), TIMEOUT_SECONDS, search(List.of()));
+
+        assertEquals(2, executions.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
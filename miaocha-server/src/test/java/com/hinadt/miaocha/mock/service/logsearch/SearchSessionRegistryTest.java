@@ -0,0 +1,148 @@
+package com.hinadt.miaocha.mock.service.logsearch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchContext;
+import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchSessionRegistry;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 检索会话登记与取消测试 验证新请求取代旧请求、主动取消以及语句超时设置 */
+@DisplayName("检索会话登记与取消测试")
+class SearchSessionRegistryTest {
+
+    private SearchSessionRegistry registry;
+    private Connection connection;
+    private Statement statement;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        registry = new SearchSessionRegistry();
+        connection = mock(Connection.class);
+        statement = mock(Statement.class);
+        when(connection.createStatement()).thenReturn(statement);
+    }
+
+    private SearchContext newContext(int timeoutSeconds) {
+        return new SearchContext(
+                connection, new LogSearchDTO(), "test_table", "log_time", null, 1, timeoutSeconds);
+    }
+
+    @Test
+    @DisplayName("语句按剩余时间设置查询超时")
+    void testCreateStatementSetsQueryTimeout() throws SQLException {
+        SearchContext context = newContext(30);
+
+        assertSame(statement, context.createStatement(connection));
+        verify(statement).setQueryTimeout(30);
+    }
+
+    @Test
+    @DisplayName("未设置超时时不限制查询时间")
+    void testCreateStatementWithoutTimeout() throws SQLException {
+        SearchContext context = newContext(0);
+
+        context.createStatement(connection);
+
+        assertEquals(Long.MAX_VALUE, context.getRemainingMillis());
+        verify(statement, never()).setQueryTimeout(anyInt());
+    }
+
+    @Test
+    @DisplayName("同一会话的新检索取消旧检索的运行中语句")
+    void testNewSearchSupersedesPrevious() throws SQLException {
+        SearchContext previous = newContext(30);
+        previous.createStatement(connection);
+        SearchContext current = newContext(30);
+        String key = SearchSessionRegistry.buildKey("user@test.com", "tab-1", "details");
+
+        registry.register(key, previous);
+        registry.register(key, current);
+
+        assertTrue(previous.isCancelled());
+        assertFalse(current.isCancelled());
+        verify(statement).cancel();
+    }
+
+    @Test
+    @DisplayName("不同查询类型互不影响")
+    void testDifferentSearchTypesDoNotSupersede() {
+        SearchContext details = newContext(30);
+        SearchContext histogram = newContext(30);
+
+        registry.register(SearchSessionRegistry.buildKey("u", "tab-1", "details"), details);
+        registry.register(SearchSessionRegistry.buildKey("u", "tab-1", "histogram"), histogram);
+
+        assertFalse(details.isCancelled());
+        assertFalse(histogram.isCancelled());
+    }
+
+    @Test
+    @DisplayName("主动取消会话下的所有检索，已结束的检索不受影响")
+    void testCancelSession() {
+        SearchContext details = newContext(30);
+        SearchContext histogram = newContext(30);
+        SearchContext finished = newContext(30);
+        SearchContext otherSession = newContext(30);
+        String finishedKey = SearchSessionRegistry.buildKey("u", "tab-1", "field-distributions");
+
+        registry.register(SearchSessionRegistry.buildKey("u", "tab-1", "details"), details);
+        registry.register(SearchSessionRegistry.buildKey("u", "tab-1", "histogram"), histogram);
+        registry.register(finishedKey, finished);
+        registry.unregister(finishedKey, finished);
+        registry.register(SearchSessionRegistry.buildKey("u", "tab-2", "details"), otherSession);
+
+        assertEquals(2, registry.cancel("u", "tab-1"));
+        assertTrue(details.isCancelled());
+        assertTrue(histogram.isCancelled());
+        assertFalse(finished.isCancelled());
+        assertFalse(otherSession.isCancelled());
+    }
+
+    @Test
+    @DisplayName("已取消的上下文拒绝创建新语句")
+    void testCancelledContextRejectsNewStatements() throws SQLException {
+        SearchContext context = newContext(30);
+        context.cancel();
+
+        assertThrows(SQLException.class, () -> context.createStatement(connection));
+        verify(statement).close();
+    }
+
+    @Test
+    @DisplayName("创建语句期间被取消时拒绝该语句")
+    void testCancelWhileCreatingStatement() throws SQLException {
+        SearchContext context = newContext(30);
+        doAnswer(
+                        invocation -> {
+                            context.cancel();
+                            return null;
+                        })
+                .when(statement)
+                .setQueryTimeout(anyInt());
+
+        assertThrows(SQLException.class, () -> context.createStatement(connection));
+        verify(statement).close();
+    }
+
+    @Test
+    @DisplayName("超时时间优先级：模块 > 角色 > 默认")
+    void testTimeoutResolution() {
+        LogSearchProperties.QueryTimeout timeout = new LogSearchProperties.QueryTimeout();
+        timeout.setDefaultSeconds(60);
+        timeout.setRoles(Map.of("USER", 20));
+
+        assertEquals(10, timeout.resolveSeconds(10, "USER"));
+        assertEquals(20, timeout.resolveSeconds(null, "USER"));
+        assertEquals(60, timeout.resolveSeconds(null, "ADMIN"));
+        assertEquals(60, timeout.resolveSeconds(null, null));
+    }
+}
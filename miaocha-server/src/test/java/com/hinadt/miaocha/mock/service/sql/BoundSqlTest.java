@@ -0,0 +1,123 @@
+package com.hinadt.miaocha.mock.service.sql;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.hinadt.miaocha.application.service.impl.logsearch.template.SearchContext;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 带绑定参数的SQL测试 验证片段拼接的参数顺序、参数写回时的转义、缓存键以及预编译语句的执行 */
+@DisplayName("带绑定参数的SQL测试")
+class BoundSqlTest {
+
+    private static BoundSql detailSql(String start, String keyword) {
+        return BoundSql.format(
+                "SELECT * FROM logs WHERE log_time >= %s AND log_time < %s"
+                        + " AND (message MATCH_PHRASE %s) ORDER BY log_time DESC LIMIT 50 OFFSET 0",
+                BoundSql.value(start),
+                BoundSql.value("2024-01-02 00:00:00"),
+                BoundSql.value(keyword));
+    }
+
+    @Test
+    @DisplayName("片段按出现顺序合并参数，不同取值得到相同的SQL文本")
+    void testComposeKeepsParameterOrder() {
+        BoundSql first = detailSql("2024-01-01 00:00:00", "error");
+        BoundSql second = detailSql("2024-01-01 12:00:00", "timeout");
+
+        assertEquals(
+                "SELECT * FROM logs WHERE log_time >= ? AND log_time < ?"
+                        + " AND (message MATCH_PHRASE ?) ORDER BY log_time DESC LIMIT 50 OFFSET 0",
+                first.sql());
+        assertEquals(first.sql(), second.sql());
+        assertEquals(
+                List.of("2024-01-01 00:00:00", "2024-01-02 00:00:00", "error"), first.params());
+
+        BoundSql joined =
+                BoundSql.join(" OR ", List.of(BoundSql.value("a"), BoundSql.of("x IS NULL")))
+                        .wrap("(", ")")
+                        .append(BoundSql.value("b"));
+        assertEquals("(? OR x IS NULL)?", joined.sql());
+        assertEquals(List.of("a", "b"), joined.params());
+    }
+
+    @Test
+    @DisplayName("参数写回时转义引号和反斜杠，引号中的问号不是占位符")
+    void testInline() {
+        BoundSql sql =
+                new BoundSql(
+                        "SELECT '?' AS q, `a?` FROM logs WHERE message LIKE ? AND host = ?",
+                        List.of("%it's a\\b%", "web"));
+
+        assertEquals(
+                "SELECT '?' AS q, `a?` FROM logs WHERE message LIKE '%it''s a\\\\b%'"
+                        + " AND host = 'web'",
+                sql.inline());
+        assertThrows(
+                IllegalStateException.class,
+                () -> new BoundSql("SELECT '?' FROM logs", List.of("x")).inline());
+    }
+
+    @Test
+    @DisplayName("只有引号之外的问号视为占位符")
+    void testContainsPlaceholder() {
+        assertTrue(BoundSql.containsPlaceholder("level = ?"));
+        assertFalse(BoundSql.containsPlaceholder("url = '/api?id=1'"));
+        assertFalse(BoundSql.containsPlaceholder("msg = 'it''s ?' AND `col?` = \"?\""));
+        assertFalse(BoundSql.containsPlaceholder(null));
+    }
+
+    @Test
+    @DisplayName("缓存键区分参数取值，参数边界不会混淆")
+    void testCacheKey() {
+        assertEquals(
+                detailSql("2024-01-01 00:00:00", "error").cacheKey(),
+                detailSql("2024-01-01 00:00:00", "error").cacheKey());
+        assertNotEquals(
+                detailSql("2024-01-01 00:00:00", "error").cacheKey(),
+                detailSql("2024-01-01 00:00:00", "timeout").cacheKey());
+        assertNotEquals(
+                new BoundSql("? ?", List.of("a b", "c")).cacheKey(),
+                new BoundSql("? ?", List.of("a", "b c")).cacheKey());
+    }
+
+    @Test
+    @DisplayName("启用参数化时创建已绑定参数的预编译语句，未启用时使用普通语句")
+    void testSearchContextStatements() throws Exception {
+        BoundSql sql = detailSql("2024-01-01 00:00:00", "error");
+        Connection connection = mock(Connection.class);
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(sql.sql())).thenReturn(prepared);
+        when(prepared.executeQuery()).thenReturn(resultSet);
+
+        SearchContext context =
+                new SearchContext(
+                        connection, new LogSearchDTO(), "logs", "log_time", null, 1, 0, true);
+        Statement statement = context.createStatement(connection, sql);
+
+        assertSame(prepared, statement);
+        verify(prepared).setString(1, "2024-01-01 00:00:00");
+        verify(prepared).setString(2, "2024-01-02 00:00:00");
+        verify(prepared).setString(3, "error");
+        assertSame(resultSet, JdbcQueryExecutor.openResultSet(statement, sql));
+        verify(prepared, never()).executeQuery(anyString());
+
+        Statement plain = mock(Statement.class);
+        when(connection.createStatement()).thenReturn(plain);
+        SearchContext plainContext =
+                new SearchContext(connection, new LogSearchDTO(), "logs", "log_time");
+        assertSame(plain, plainContext.createStatement(connection, sql));
+        JdbcQueryExecutor.openResultSet(plain, sql);
+        verify(plain).executeQuery(sql.inline());
+    }
+}
@@ -0,0 +1,146 @@
+package com.hinadt.miaocha.mock.service.sql.builder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.hinadt.miaocha.application.service.impl.logsearch.acceleration.AggregationRouter;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.builder.AggregationSqlBuilder;
+import com.hinadt.miaocha.application.service.sql.builder.AggregationSqlBuilder.Split;
+import com.hinadt.miaocha.application.service.sql.builder.KeywordConditionBuilder;
+import com.hinadt.miaocha.application.service.sql.builder.WhereConditionBuilder;
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 聚合加速SQL构建测试 验证物化视图DDL、时间范围拆分、改写后的统计SQL以及过滤条件的维度覆盖判断 */
+@DisplayName("聚合加速SQL构建测试")
+class AggregationSqlBuilderTest {
+
+    private static final List<String> DIMENSIONS = List.of("level", "service");
+
+    private AggregationSqlBuilder builder;
+    private LogSearchDTO dto;
+
+    @BeforeEach
+    void setUp() {
+        builder =
+                new AggregationSqlBuilder(
+                        new KeywordConditionBuilder(), new WhereConditionBuilder());
+        dto = new LogSearchDTO();
+        dto.setModule("nginx");
+        dto.setWhereSqls(List.of("level = 'ERROR'"));
+    }
+
+    @Test
+    @DisplayName("物化视图按分钟和维度聚合日志条数")
+    void testCreateView() {
+        String sql = builder.buildCreateView("logs", "log_time", DIMENSIONS, 5);
+
+        assertTrue(sql.startsWith("CREATE MATERIALIZED VIEW IF NOT EXISTS logs_agg_1m"));
+        assertTrue(sql.contains("REFRESH AUTO ON SCHEDULE EVERY 5 MINUTE"));
+        assertTrue(
+                sql.contains(
+                        "SELECT date_trunc(log_time, 'minute') AS log_time, level, service,"
+                                + " COUNT(*) AS log_count FROM logs"));
+        assertTrue(sql.endsWith("GROUP BY date_trunc(log_time, 'minute'), level, service"));
+        assertEquals("DROP MATERIALIZED VIEW IF EXISTS logs_agg_1m", builder.buildDropView("logs"));
+    }
+
+    @Test
+    @DisplayName("不完整的首尾分钟和物化视图最新一分钟之后查询原表")
+    void testSplit() {
+        Split split =
+                AggregationRouter.split(
+                        LocalDateTime.of(2024, 1, 1, 0, 0, 30),
+                        LocalDateTime.of(2024, 1, 1, 3, 0, 0),
+                        LocalDateTime.of(2024, 1, 1, 2, 30, 0),
+                        60);
+
+        assertNotNull(split);
+        assertEquals(
+                new TimeWindow("2024-01-01 00:01:00.000", "2024-01-01 02:30:00.000"),
+                split.viewWindow());
+        assertEquals(
+                List.of(
+                        new TimeWindow("2024-01-01 00:00:30.000", "2024-01-01 00:01:00.000"),
+                        new TimeWindow("2024-01-01 02:30:00.000", "2024-01-01 03:00:00.000")),
+                split.tableWindows());
+
+        // 物化视图可提供的时间段不足最小分钟数时不改写
+        assertNull(
+                AggregationRouter.split(
+                        LocalDateTime.of(2024, 1, 1, 2, 0, 0),
+                        LocalDateTime.of(2024, 1, 1, 3, 0, 0),
+                        LocalDateTime.of(2024, 1, 1, 2, 30, 0),
+                        60));
+    }
+
+    @Test
+    @DisplayName("改写后的统计SQL合并原表和物化视图的结果")
+    void testRoutedQueries() {
+        Split split =
+                new Split(
+                        List.of(
+                                new TimeWindow(
+                                        "2024-01-01 00:00:30.000", "2024-01-01 00:01:00.000")),
+                        new TimeWindow("2024-01-01 00:01:00.000", "2024-01-01 02:30:00.000"));
+
+        BoundSql countSql = builder.buildCount(dto, "logs", "log_time", split);
+        assertEquals(
+                "SELECT COALESCE(SUM(total), 0) AS total FROM (SELECT COUNT(*) AS total FROM logs"
+                        + " WHERE log_time >= '2024-01-01 00:00:30.000' AND log_time < '2024-01-01"
+                        + " 00:01:00.000' AND (level = 'ERROR') UNION ALL SELECT SUM(log_count) AS"
+                        + " total FROM logs_agg_1m WHERE log_time >= '2024-01-01 00:01:00.000' AND"
+                        + " log_time < '2024-01-01 02:30:00.000' AND (level = 'ERROR')) AS"
+                        + " accelerated",
+                countSql.inline());
+        assertEquals(
+                List.of(
+                        "2024-01-01 00:00:30.000",
+                        "2024-01-01 00:01:00.000",
+                        "2024-01-01 00:01:00.000",
+                        "2024-01-01 02:30:00.000"),
+                countSql.params());
+
+        String distributionSql =
+                builder.buildDistribution(dto, "logs", "log_time", "minute", 5, split).inline();
+        assertTrue(distributionSql.startsWith("SELECT log_time_, SUM(`count`) AS count FROM ("));
+        assertTrue(distributionSql.contains("SUM(log_count) AS count FROM logs_agg_1m"));
+        assertTrue(distributionSql.endsWith("GROUP BY log_time_ ORDER BY log_time_ ASC"));
+
+        // 时间范围按整分钟对齐且物化视图已刷新时只查询物化视图
+        Split viewOnly =
+                new Split(
+                        List.of(),
+                        new TimeWindow("2024-01-01 00:00:00.000", "2024-01-01 02:00:00.000"));
+        BoundSql viewOnlySql = builder.buildCount(dto, "logs", "log_time", viewOnly);
+        assertFalse(viewOnlySql.sql().contains("FROM logs "));
+    }
+
+    @Test
+    @DisplayName("过滤条件只引用维度字段时才能在物化视图上执行")
+    void testCoverage() {
+        assertTrue(AggregationSqlBuilder.isCoveredBy(null, DIMENSIONS));
+        assertTrue(
+                AggregationSqlBuilder.isCoveredBy(
+                        List.of(
+                                "level IN ('ERROR', 'WARN')",
+                                "`service` = 'api' OR service IS NULL",
+                                "NOT lower(level) LIKE 'debug%'",
+                                "level = 'host.name[0]' AND service != '1.5'"),
+                        DIMENSIONS));
+
+        assertFalse(AggregationSqlBuilder.isCoveredBy(List.of("host = 'a'"), DIMENSIONS));
+        assertFalse(AggregationSqlBuilder.isCoveredBy(List.of("log_time > '2024'"), DIMENSIONS));
+        assertFalse(
+                AggregationSqlBuilder.isCoveredBy(
+                        List.of("message['level'] = 'ERROR'"), DIMENSIONS));
+        assertFalse(AggregationSqlBuilder.isCoveredBy(List.of("t.level = 'ERROR'"), DIMENSIONS));
+        assertFalse(
+                AggregationSqlBuilder.isCoveredBy(List.of("level MATCH_ANY 'error'"), DIMENSIONS));
+    }
+}
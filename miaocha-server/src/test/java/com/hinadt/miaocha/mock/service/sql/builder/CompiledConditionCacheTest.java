@@ -0,0 +1,105 @@
+package com.hinadt.miaocha.mock.service.sql.builder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.builder.CompiledConditionCache;
+import com.hinadt.miaocha.application.service.sql.converter.LogSearchDTOConverter;
+import com.hinadt.miaocha.application.service.sql.converter.NumericOperatorConverter;
+import com.hinadt.miaocha.application.service.sql.converter.VariantFieldConverter;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import com.hinadt.miaocha.domain.dto.module.QueryConfigDTO.KeywordFieldConfigDTO;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 已编译查询条件缓存测试 验证关键字条件和字段转换结果的复用以及配置变化后的重新编译 */
+@DisplayName("已编译查询条件缓存测试")
+class CompiledConditionCacheTest {
+
+    private CompiledConditionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CompiledConditionCache(new LogSearchProperties());
+    }
+
+    private static KeywordFieldConfigDTO field(String name, String method) {
+        KeywordFieldConfigDTO field = new KeywordFieldConfigDTO();
+        field.setFieldName(name);
+        field.setSearchMethod(method);
+        return field;
+    }
+
+    @Test
+    @DisplayName("相同关键字和字段配置只编译一次，字段检索方法变化后重新编译")
+    void testKeywordConditionReuse() {
+        AtomicInteger compilations = new AtomicInteger();
+        List<String> keywords = List.of("error", "'timeout' || 'refused'");
+
+        BoundSql first =
+                cache.getKeywordCondition(
+                        List.of(field("message", "MATCH_PHRASE")),
+                        keywords,
+                        () -> BoundSql.of("compiled-" + compilations.incrementAndGet()));
+        BoundSql second =
+                cache.getKeywordCondition(
+                        List.of(field("message", "MATCH_PHRASE")),
+                        new ArrayList<>(keywords),
+                        () -> BoundSql.of("compiled-" + compilations.incrementAndGet()));
+        BoundSql changed =
+                cache.getKeywordCondition(
+                        List.of(field("message", "LIKE")),
+                        keywords,
+                        () -> BoundSql.of("compiled-" + compilations.incrementAndGet()));
+
+        assertEquals("compiled-1", first.sql());
+        assertEquals(first, second);
+        assertEquals("compiled-2", changed.sql());
+    }
+
+    @Test
+    @DisplayName("DTO转换器复用字段和WHERE条件的转换结果")
+    void testConverterReusesConversions() {
+        VariantFieldConverter variantFieldConverter = mock(VariantFieldConverter.class);
+        when(variantFieldConverter.needsVariantConversion(anyString()))
+                .thenAnswer(inv -> ((String) inv.getArgument(0)).contains("."));
+        when(variantFieldConverter.convertSelectFields(anyList()))
+                .thenReturn(List.of("message['level']"));
+        LogSearchDTOConverter converter =
+                new LogSearchDTOConverter(
+                        variantFieldConverter, new NumericOperatorConverter(), cache);
+
+        for (int i = 0; i < 3; i++) {
+            LogSearchDTO dto = new LogSearchDTO();
+            dto.setFields(new ArrayList<>(List.of("message.level")));
+            assertEquals(List.of("message['level']"), converter.convert(dto).getFields());
+        }
+
+        verify(variantFieldConverter, times(1)).convertSelectFields(anyList());
+    }
+
+    @Test
+    @DisplayName("禁用缓存时每次重新编译")
+    void testDisabled() {
+        LogSearchProperties properties = new LogSearchProperties();
+        properties.getConditionCache().setEnabled(false);
+        CompiledConditionCache disabled = new CompiledConditionCache(properties);
+        AtomicInteger compilations = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            disabled.getKeywordCondition(
+                    List.of(field("message", "LIKE")),
+                    List.of("error"),
+                    () -> BoundSql.of("compiled-" + compilations.incrementAndGet()));
+        }
+
+        assertEquals(2, compilations.get());
+    }
+}
@@ -2,6 +2,7 @@ package com.hinadt.miaocha.mock.service.sql.builder;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.hinadt.miaocha.application.service.sql.BoundSql;
 import com.hinadt.miaocha.application.service.sql.expression.FieldExpressionParser;
 import com.hinadt.miaocha.application.service.sql.search.SearchMethod;
 import org.junit.jupiter.api.DisplayName;
@@ -27,7 +28,7 @@ class FieldExpressionParserTest {
         void testSimpleKeywordParsing() {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
-            String result = parser.parseKeywordExpression("error");
+            String result = parser.parseKeywordExpression("error").inline();
 
             assertEquals("message LIKE '%error%'", result);
         }
@@ -37,7 +38,7 @@ class FieldExpressionParserTest {
         void testQuotedKeywordParsing() {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
-            String result = parser.parseKeywordExpression("'error message'");
+            String result = parser.parseKeywordExpression("'error message'").inline();
 
             assertEquals("message LIKE '%error message%'", result);
         }
@@ -47,9 +48,9 @@ class FieldExpressionParserTest {
         void testEmptyExpression() {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
-            String result1 = parser.parseKeywordExpression("");
-            String result2 = parser.parseKeywordExpression(null);
-            String result3 = parser.parseKeywordExpression("   ");
+            String result1 = parser.parseKeywordExpression("").inline();
+            String result2 = parser.parseKeywordExpression(null).inline();
+            String result3 = parser.parseKeywordExpression("   ").inline();
 
             assertEquals("", result1);
             assertEquals("", result2);
@@ -68,7 +69,7 @@ class FieldExpressionParserTest {
             SearchMethod method = SearchMethod.fromString(methodName);
             FieldExpressionParser parser = new FieldExpressionParser("message", method);
 
-            String result = parser.parseKeywordExpression(expression);
+            String result = parser.parseKeywordExpression(expression).inline();
 
             assertEquals(expected, result);
         }
@@ -83,7 +84,7 @@ class FieldExpressionParserTest {
         void testOrOperatorParsing() {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
-            String result = parser.parseKeywordExpression("'error' || 'warning'");
+            String result = parser.parseKeywordExpression("'error' || 'warning'").inline();
 
             assertEquals("message LIKE '%error%' OR message LIKE '%warning%'", result);
         }
@@ -93,7 +94,7 @@ class FieldExpressionParserTest {
         void testAndOperatorParsing() {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
-            String result = parser.parseKeywordExpression("'error' && 'critical'");
+            String result = parser.parseKeywordExpression("'error' && 'critical'").inline();
 
             assertEquals("message LIKE '%error%' AND message LIKE '%critical%'", result);
         }
@@ -105,7 +106,8 @@ class FieldExpressionParserTest {
 
             // AND 在 OR 之前处理，所以 'error' && 'critical' || 'warning'
             // 应该解析为 ('error' && 'critical') || 'warning'
-            String result = parser.parseKeywordExpression("'error' && 'critical' || 'warning'");
+            String result =
+                    parser.parseKeywordExpression("'error' && 'critical' || 'warning'").inline();
 
             assertEquals(
                     "message LIKE '%error%' AND message LIKE '%critical%' OR message LIKE"
@@ -119,7 +121,7 @@ class FieldExpressionParserTest {
             FieldExpressionParser parser =
                     new FieldExpressionParser("level", SearchMethod.MATCH_PHRASE);
 
-            String result = parser.parseKeywordExpression("'ERROR' || 'WARN' || 'INFO'");
+            String result = parser.parseKeywordExpression("'ERROR' || 'WARN' || 'INFO'").inline();
 
             assertEquals(
                     "level MATCH_PHRASE 'ERROR' OR level MATCH_PHRASE 'WARN' OR level MATCH_PHRASE"
@@ -133,7 +135,8 @@ class FieldExpressionParserTest {
             FieldExpressionParser parser =
                     new FieldExpressionParser("content", SearchMethod.MATCH_ALL);
 
-            String result = parser.parseKeywordExpression("'java' && 'error' && 'exception'");
+            String result =
+                    parser.parseKeywordExpression("'java' && 'error' && 'exception'").inline();
 
             assertEquals(
                     "content MATCH_ALL 'java' AND content MATCH_ALL 'error' AND content MATCH_ALL"
@@ -151,7 +154,7 @@ class FieldExpressionParserTest {
         void testSimpleBracketExpression() {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
-            String result = parser.parseKeywordExpression("('error' || 'warning')");
+            String result = parser.parseKeywordExpression("('error' || 'warning')").inline();
 
             // 根据 FieldExpressionParser 的实际逻辑，整体括号表达式会添加空格
             assertEquals("( message LIKE '%error%' OR message LIKE '%warning%' )", result);
@@ -162,7 +165,8 @@ class FieldExpressionParserTest {
         void testComplexBracketNesting() {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
-            String result = parser.parseKeywordExpression("('error' || 'warning') && 'critical'");
+            String result =
+                    parser.parseKeywordExpression("('error' || 'warning') && 'critical'").inline();
 
             assertEquals(
                     "( message LIKE '%error%' OR message LIKE '%warning%' ) AND message LIKE"
@@ -176,14 +180,14 @@ class FieldExpressionParserTest {
             FieldExpressionParser parser =
                     new FieldExpressionParser("content", SearchMethod.MATCH_PHRASE);
 
-            String result =
+            BoundSql result =
                     parser.parseKeywordExpression(
                             "(('java' || 'python') && 'error') || 'exception'");
 
             assertEquals(
                     "( ( content MATCH_PHRASE 'java' OR content MATCH_PHRASE 'python' ) AND content"
                             + " MATCH_PHRASE 'error' ) OR content MATCH_PHRASE 'exception'",
-                    result);
+                    result.inline());
         }
 
         @Test
@@ -191,7 +195,7 @@ class FieldExpressionParserTest {
         void testSingleItemInBrackets() {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
-            String result = parser.parseKeywordExpression("('error')");
+            String result = parser.parseKeywordExpression("('error')").inline();
 
             assertEquals("( message LIKE '%error%' )", result);
         }
@@ -207,7 +211,7 @@ class FieldExpressionParserTest {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
             // 包含单引号的恶意输入 - 测试实际能提取的内容
-            String result = parser.parseKeywordExpression("'test'; DROP TABLE users; --'");
+            String result = parser.parseKeywordExpression("'test'; DROP TABLE users; --'").inline();
 
             // 验证单引号被正确转义，只提取引号内的内容
             assertEquals("message LIKE '%test%'", result);
@@ -219,7 +223,7 @@ class FieldExpressionParserTest {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
             // 包含单引号的正常内容 - 符合正则表达式的格式
-            String result = parser.parseKeywordExpression("'user'");
+            String result = parser.parseKeywordExpression("'user'").inline();
 
             // 验证基本提取正常
             assertEquals("message LIKE '%user%'", result);
@@ -230,7 +234,7 @@ class FieldExpressionParserTest {
         void testBackslashEscaping() {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
-            String result = parser.parseKeywordExpression("'C:\\\\temp\\\\file.log'");
+            String result = parser.parseKeywordExpression("'C:\\\\temp\\\\file.log'").inline();
 
             // 验证反斜杠被正确转义
             assertEquals("message LIKE '%C:\\\\\\\\temp\\\\\\\\file.log%'", result);
@@ -241,7 +245,8 @@ class FieldExpressionParserTest {
         void testOperatorsInQuotes() {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
-            String result = parser.parseKeywordExpression("'error || warning && critical'");
+            String result =
+                    parser.parseKeywordExpression("'error || warning && critical'").inline();
 
             // 引号内的运算符应该被当作普通字符处理
             assertEquals("message LIKE '%error || warning && critical%'", result);
@@ -258,9 +263,9 @@ class FieldExpressionParserTest {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
             // 测试各种空格情况
-            String result1 = parser.parseKeywordExpression("'error'||'warning'");
-            String result2 = parser.parseKeywordExpression("'error' ||'warning'");
-            String result3 = parser.parseKeywordExpression("'error'|| 'warning'");
+            String result1 = parser.parseKeywordExpression("'error'||'warning'").inline();
+            String result2 = parser.parseKeywordExpression("'error' ||'warning'").inline();
+            String result3 = parser.parseKeywordExpression("'error'|| 'warning'").inline();
 
             String expected = "message LIKE '%error%' OR message LIKE '%warning%'";
             assertEquals(expected, result1);
@@ -274,8 +279,10 @@ class FieldExpressionParserTest {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
             // 测试各种括号空格情况
-            String result1 = parser.parseKeywordExpression("('error'||'warning')&&'critical'");
-            String result2 = parser.parseKeywordExpression("( 'error'||'warning' )&&'critical'");
+            String result1 =
+                    parser.parseKeywordExpression("('error'||'warning')&&'critical'").inline();
+            String result2 =
+                    parser.parseKeywordExpression("( 'error'||'warning' )&&'critical'").inline();
 
             String expected =
                     "( message LIKE '%error%' OR message LIKE '%warning%' ) AND message LIKE"
@@ -294,7 +301,7 @@ class FieldExpressionParserTest {
         void testEmptyKeywordExtraction() {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
-            String result = parser.parseKeywordExpression("''");
+            String result = parser.parseKeywordExpression("''").inline();
 
             assertEquals("", result);
         }
@@ -304,8 +311,8 @@ class FieldExpressionParserTest {
         void testOperatorOnlyExpression() {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
-            String result1 = parser.parseKeywordExpression("||");
-            String result2 = parser.parseKeywordExpression("&&");
+            String result1 = parser.parseKeywordExpression("||").inline();
+            String result2 = parser.parseKeywordExpression("&&").inline();
 
             // 只有运算符的表达式应该被处理为空或产生合理结果
             assertTrue(result1.isEmpty() || result1.contains("LIKE"));
@@ -320,8 +327,8 @@ class FieldExpressionParserTest {
             // 不匹配的括号应该被正常处理，不抛出异常
             assertDoesNotThrow(
                     () -> {
-                        String result1 = parser.parseKeywordExpression("('error'");
-                        String result2 = parser.parseKeywordExpression("'error')");
+                        String result1 = parser.parseKeywordExpression("('error'").inline();
+                        String result2 = parser.parseKeywordExpression("'error')").inline();
                         // 验证结果不为null
                         assertNotNull(result1);
                         assertNotNull(result2);
@@ -339,7 +346,8 @@ class FieldExpressionParserTest {
             FieldExpressionParser parser =
                     new FieldExpressionParser("level", SearchMethod.MATCH_PHRASE);
 
-            String result = parser.parseKeywordExpression("'ERROR' || 'FATAL' || 'CRITICAL'");
+            String result =
+                    parser.parseKeywordExpression("'ERROR' || 'FATAL' || 'CRITICAL'").inline();
 
             assertEquals(
                     "level MATCH_PHRASE 'ERROR' OR level MATCH_PHRASE 'FATAL' OR level MATCH_PHRASE"
@@ -352,14 +360,14 @@ class FieldExpressionParserTest {
         void testErrorMessageQueryScenario() {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
-            String result =
+            BoundSql result =
                     parser.parseKeywordExpression(
                             "('NullPointerException' || 'IllegalArgumentException') && 'java'");
 
             assertEquals(
                     "( message LIKE '%NullPointerException%' OR message LIKE"
                             + " '%IllegalArgumentException%' ) AND message LIKE '%java%'",
-                    result);
+                    result.inline());
         }
 
         @Test
@@ -368,7 +376,7 @@ class FieldExpressionParserTest {
             FieldExpressionParser parser =
                     new FieldExpressionParser("tags", SearchMethod.MATCH_ANY);
 
-            String result = parser.parseKeywordExpression("'urgent' || 'critical'");
+            String result = parser.parseKeywordExpression("'urgent' || 'critical'").inline();
 
             assertEquals("tags MATCH_ANY 'urgent' OR tags MATCH_ANY 'critical'", result);
         }
@@ -379,7 +387,7 @@ class FieldExpressionParserTest {
             FieldExpressionParser parser =
                     new FieldExpressionParser("content", SearchMethod.MATCH_ALL);
 
-            String result = parser.parseKeywordExpression("'timeout' || 'exception'");
+            String result = parser.parseKeywordExpression("'timeout' || 'exception'").inline();
 
             assertEquals("content MATCH_ALL 'timeout' OR content MATCH_ALL 'exception'", result);
         }
@@ -389,7 +397,8 @@ class FieldExpressionParserTest {
         void testLikeMethodComplexExpression() {
             FieldExpressionParser parser = new FieldExpressionParser("message", SearchMethod.LIKE);
 
-            String result = parser.parseKeywordExpression("('error' || 'warn') && 'database'");
+            String result =
+                    parser.parseKeywordExpression("('error' || 'warn') && 'database'").inline();
 
             assertEquals(
                     "( message LIKE '%error%' OR message LIKE '%warn%' ) AND message LIKE"
@@ -403,14 +412,14 @@ class FieldExpressionParserTest {
             FieldExpressionParser parser =
                     new FieldExpressionParser("content", SearchMethod.MATCH_PHRASE);
 
-            String result =
+            BoundSql result =
                     parser.parseKeywordExpression(
                             "'NullPointerException' && ('service' || 'controller')");
 
             assertEquals(
                     "content MATCH_PHRASE 'NullPointerException' AND ( content MATCH_PHRASE"
                             + " 'service' OR content MATCH_PHRASE 'controller' )",
-                    result);
+                    result.inline());
         }
 
         @Test
@@ -419,13 +428,13 @@ class FieldExpressionParserTest {
             FieldExpressionParser parser =
                     new FieldExpressionParser("tags", SearchMethod.MATCH_ANY);
 
-            String result =
+            BoundSql result =
                     parser.parseKeywordExpression("('production' && 'urgent') || 'critical'");
 
             assertEquals(
                     "( tags MATCH_ANY 'production' AND tags MATCH_ANY 'urgent' ) OR tags MATCH_ANY"
                             + " 'critical'",
-                    result);
+                    result.inline());
         }
 
         @Test
@@ -434,7 +443,8 @@ class FieldExpressionParserTest {
             FieldExpressionParser parser =
                     new FieldExpressionParser("keywords", SearchMethod.MATCH_ALL);
 
-            String result = parser.parseKeywordExpression("'payment' && ('success' || 'failure')");
+            String result =
+                    parser.parseKeywordExpression("'payment' && ('success' || 'failure')").inline();
 
             assertEquals(
                     "keywords MATCH_ALL 'payment' AND ( keywords MATCH_ALL 'success' OR keywords"
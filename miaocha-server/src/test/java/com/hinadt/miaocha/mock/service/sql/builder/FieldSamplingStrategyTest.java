@@ -0,0 +1,135 @@
+package com.hinadt.miaocha.mock.service.sql.builder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.builder.FieldDistributionSqlBuilder;
+import com.hinadt.miaocha.application.service.sql.builder.KeywordConditionBuilder;
+import com.hinadt.miaocha.application.service.sql.builder.WhereConditionBuilder;
+import com.hinadt.miaocha.application.service.sql.sampling.FieldSampling;
+import com.hinadt.miaocha.application.service.sql.sampling.SamplingStrategy;
+import com.hinadt.miaocha.common.exception.BusinessException;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 字段分布采样策略测试 验证各采样策略生成的采样SQL以及采样列的裁剪 */
+@DisplayName("字段分布采样策略测试")
+class FieldSamplingStrategyTest {
+
+    private static final String TABLE = "test_logs";
+    private static final String TIME_FIELD = "log_time";
+    private static final String TOPN_PREFIX =
+            "SELECT TOPN(level, 5) AS 'level', TOPN(message['host'], 5) AS 'message.host',"
+                    + " count(*) AS 'total' FROM (";
+
+    private FieldDistributionSqlBuilder builder;
+    private LogSearchDTO dto;
+
+    @BeforeEach
+    void setUp() {
+        builder =
+                new FieldDistributionSqlBuilder(
+                        new KeywordConditionBuilder(), new WhereConditionBuilder());
+        dto = new LogSearchDTO();
+        dto.setModule("test-module");
+        dto.setStartTime("2024-01-01 00:00:00.000");
+        dto.setEndTime("2024-01-01 01:00:00.000");
+    }
+
+    private String build(FieldSampling sampling) {
+        BoundSql sql =
+                builder.buildFieldDistribution(
+                        dto,
+                        TABLE,
+                        TIME_FIELD,
+                        List.of("level", "message['host']"),
+                        List.of("level", "message.host"),
+                        5,
+                        sampling);
+        return sql.inline();
+    }
+
+    @Test
+    @DisplayName("最新N条采样只读取统计字段所在的列")
+    void testLatestWithProjection() {
+        String sql = build(new FieldSampling(SamplingStrategy.LATEST, 500, 10, 10));
+
+        assertEquals(
+                TOPN_PREFIX
+                        + "SELECT level, message FROM test_logs WHERE log_time >= '2024-01-01"
+                        + " 00:00:00.000' AND log_time < '2024-01-01 01:00:00.000' ORDER BY"
+                        + " log_time DESC LIMIT 500 OFFSET 0) AS sub_query",
+                sql);
+    }
+
+    @Test
+    @DisplayName("随机采样在整个时间范围内随机排序取N条")
+    void testUniform() {
+        String sql = build(new FieldSampling(SamplingStrategy.UNIFORM, 1000, 10, 10));
+
+        assertTrue(sql.endsWith(" ORDER BY RAND() LIMIT 1000 OFFSET 0) AS sub_query"));
+    }
+
+    @Test
+    @DisplayName("分层采样按时间等分，各层条数之和等于采样条数")
+    void testStratified() {
+        String sql = build(new FieldSampling(SamplingStrategy.STRATIFIED, 1000, 3, 10));
+
+        assertEquals(
+                TOPN_PREFIX
+                        + "(SELECT level, message FROM test_logs WHERE log_time >= '2024-01-01"
+                        + " 00:00:00.000' AND log_time < '2024-01-01 00:20:00.000' ORDER BY"
+                        + " log_time DESC LIMIT 334 OFFSET 0) UNION ALL (SELECT level, message"
+                        + " FROM test_logs WHERE log_time >= '2024-01-01 00:20:00.000' AND"
+                        + " log_time < '2024-01-01 00:40:00.000' ORDER BY log_time DESC LIMIT"
+                        + " 333 OFFSET 0) UNION ALL (SELECT level, message FROM test_logs WHERE"
+                        + " log_time >= '2024-01-01 00:40:00.000' AND log_time < '2024-01-01"
+                        + " 01:00:00.000' ORDER BY log_time DESC LIMIT 333 OFFSET 0)) AS"
+                        + " sub_query",
+                sql);
+    }
+
+    @Test
+    @DisplayName("时间范围无法解析时分层采样退化为最新N条")
+    void testStratifiedFallback() {
+        dto.setStartTime("invalid");
+        FieldSampling stratified = new FieldSampling(SamplingStrategy.STRATIFIED, 1000, 3, 10);
+        FieldSampling latest = new FieldSampling(SamplingStrategy.LATEST, 1000, 3, 10);
+
+        assertEquals(build(latest), build(stratified));
+    }
+
+    @Test
+    @DisplayName("TABLESAMPLE 采样按比例抽取分片后过滤")
+    void testTableSample() {
+        String sql = build(new FieldSampling(SamplingStrategy.TABLESAMPLE, 1000, 10, 5));
+
+        assertTrue(
+                sql.contains(
+                        "(SELECT level, message FROM test_logs TABLESAMPLE(5 PERCENT) WHERE"
+                                + " log_time >= '2024-01-01 00:00:00.000'"));
+        assertTrue(sql.endsWith(" LIMIT 1000 OFFSET 0) AS sub_query"));
+    }
+
+    @Test
+    @DisplayName("无法识别的字段表达式读取全部列，未知的策略名称被拒绝")
+    void testUnknownExpressionAndStrategy() {
+        BoundSql sql =
+                builder.buildFieldDistribution(
+                        dto,
+                        TABLE,
+                        TIME_FIELD,
+                        List.of("lower(level)"),
+                        List.of("lower(level)"),
+                        5,
+                        FieldSampling.DEFAULT);
+
+        assertTrue(sql.sql().contains("FROM (SELECT * FROM test_logs"));
+        assertEquals(SamplingStrategy.STRATIFIED, SamplingStrategy.of("stratified"));
+        assertNull(SamplingStrategy.of(" "));
+        assertThrows(BusinessException.class, () -> SamplingStrategy.of("reservoir"));
+    }
+}
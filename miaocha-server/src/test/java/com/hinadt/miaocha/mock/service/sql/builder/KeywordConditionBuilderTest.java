@@ -64,7 +64,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("nginx", List.of("error"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             assertEquals("(message LIKE '%error%')", result);
         }
@@ -80,7 +80,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("app", List.of("error"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             assertEquals("((message LIKE '%error%') OR (content MATCH_PHRASE 'error'))", result);
         }
@@ -93,7 +93,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("nginx", List.of("error", "timeout"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             assertEquals("((message LIKE '%error%') AND (message LIKE '%timeout%'))", result);
         }
@@ -109,7 +109,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("system", List.of("error", "warning"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             String expected =
                     "(((message LIKE '%error%') OR (content MATCH_PHRASE 'error')) AND ((message"
@@ -132,7 +132,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("test", List.of(keyword));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             assertEquals(expected, result);
         }
@@ -144,7 +144,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("test", List.of("'java exception'"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             assertEquals("(message MATCH_PHRASE 'java exception')", result);
         }
@@ -156,7 +156,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("test", List.of("'urgent critical'"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             assertEquals("(message MATCH_ANY 'urgent critical')", result);
         }
@@ -168,7 +168,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("test", List.of("'payment success'"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             assertEquals("(message MATCH_ALL 'payment success')", result);
         }
@@ -181,7 +181,7 @@ class KeywordConditionBuilderTest {
             LogSearchDTO dto =
                     createLogSearchDTO("app", List.of("('error' || 'exception') && 'processing'"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             // 验证复杂表达式被正确解析：'error' || 'exception' 和 'processing' 分别处理
             assertEquals(
@@ -206,7 +206,7 @@ class KeywordConditionBuilderTest {
                             "system",
                             List.of("(('error' || 'exception') && 'processing') || 'critical'"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             // 验证多字段复杂表达式：每个字段都应用完整的复杂表达式，字段间用OR连接
             String expected =
@@ -238,7 +238,7 @@ class KeywordConditionBuilderTest {
                                     "'user' || 'admin'" // 第二个复杂关键字
                                     ));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             // 验证：多个关键字间AND连接，每个关键字对所有字段使用OR连接
             String expected =
@@ -264,7 +264,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("app", List.of("ERROR"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             // 验证点语法字段被转换为bracket语法
             assertEquals("(message['level'] LIKE '%ERROR%')", result);
@@ -281,7 +281,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("test", List.of("server"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             // 验证点语法字段被转换，普通字段保持不变
             assertEquals(
@@ -297,7 +297,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("system", List.of("admin"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             // 验证多层嵌套点语法被正确转换
             assertEquals("(request['user']['profile']['name'] MATCH_PHRASE 'admin')", result);
@@ -313,7 +313,7 @@ class KeywordConditionBuilderTest {
         void testEmptyKeywords() {
             LogSearchDTO dto = createLogSearchDTO("nginx", Collections.emptyList());
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             assertEquals("", result);
         }
@@ -323,7 +323,7 @@ class KeywordConditionBuilderTest {
         void testNullKeywords() {
             LogSearchDTO dto = createLogSearchDTO("nginx", null);
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             assertEquals("", result);
         }
@@ -335,7 +335,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("nginx", List.of("", "  ", "error", "\t"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             assertEquals("(message LIKE '%error%')", result);
         }
@@ -351,7 +351,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("empty", List.of("error"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             assertEquals("", result);
         }
@@ -363,7 +363,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("nginx", List.of("  error  "));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             assertEquals("(message LIKE '%error%')", result);
         }
@@ -375,7 +375,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("test", List.of("- "));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             // 单独的减号应该被当作普通搜索词
             assertEquals("(message MATCH_PHRASE '-')", result);
@@ -388,7 +388,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("test", List.of("test-data"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             // 单词中间的减号应该被当作普通字符
             assertEquals("(message MATCH_PHRASE 'test-data')", result);
@@ -406,7 +406,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("test", List.of("error"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             assertEquals("(message LIKE '%error%')", result);
         }
@@ -421,7 +421,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("test", List.of("error"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             assertEquals("((message LIKE '%error%') OR (content MATCH_PHRASE 'error'))", result);
         }
@@ -433,7 +433,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("test", List.of("error", "warning"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             assertEquals("((message LIKE '%error%') AND (message LIKE '%warning%'))", result);
         }
@@ -450,7 +450,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("test", List.of("- error"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             // 单字段NOT条件，保留表达式逻辑结构
             assertEquals("NOT (message MATCH_PHRASE 'error')", result);
@@ -466,7 +466,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("test", List.of("- error"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             // 全局排除逻辑：NOT (任何字段包含term)
             assertEquals("NOT (message MATCH_PHRASE 'error' OR source LIKE '%error%')", result);
@@ -487,7 +487,7 @@ class KeywordConditionBuilderTest {
                                     "( engine || service ) && hina-cloud && ( - module || - engine"
                                             + " )"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             // 期望：((正向条件) AND NOT (负向条件))
             // 正向：( engine || service ) && hina-cloud 应用到两个字段
@@ -512,7 +512,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("test", List.of("error", "- debug"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             // 多个关键字AND连接，每个关键字保留自己的逻辑结构
             assertEquals(
@@ -527,7 +527,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("test", List.of("'test-data' && - error"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             // 引号内的减号作为普通字符，表达式外的减号作为NOT操作符
             assertEquals(
@@ -542,7 +542,7 @@ class KeywordConditionBuilderTest {
 
             LogSearchDTO dto = createLogSearchDTO("test", List.of("- ERROR"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             // 验证Variant字段转换：message.level -> message['level']
             assertEquals("NOT (message['level'] MATCH_PHRASE 'ERROR')", result);
@@ -563,7 +563,7 @@ class KeywordConditionBuilderTest {
                                     "( engine || service ) && hina-cloud && - 'module' && -"
                                             + " 'engine'"));
 
-            String result = keywordConditionBuilder.buildKeywords(dto);
+            String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
             // 期望：正向条件 AND 全局排除条件
             // 正向：( engine || service ) && hina-cloud 应用到两个字段
@@ -4,10 +4,12 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import com.hinadt.miaocha.application.service.impl.logsearch.validator.QueryConfigValidationService;
+import com.hinadt.miaocha.application.service.sql.BoundSql;
 import com.hinadt.miaocha.application.service.sql.builder.*;
 import com.hinadt.miaocha.application.service.sql.converter.LogSearchDTOConverter;
 import com.hinadt.miaocha.application.service.sql.converter.NumericOperatorConverter;
 import com.hinadt.miaocha.application.service.sql.converter.VariantFieldConverter;
+import com.hinadt.miaocha.config.LogSearchProperties;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
 import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTODecorator;
 import java.util.Arrays;
@@ -70,7 +72,8 @@ class LogSqlBuilderTest {
                         detailSqlBuilder,
                         fieldDistributionSqlBuilder,
                         keywordConditionBuilder,
-                        queryConfigValidationService);
+                        queryConfigValidationService,
+                        new LogSearchProperties());
 
         // 创建DTO转换器用于测试
         VariantFieldConverter variantFieldConverter = new VariantFieldConverter();
@@ -96,7 +99,7 @@ class LogSqlBuilderTest {
                     .thenReturn(expectedTimeField);
 
             // Act
-            String result =
+            BoundSql result =
                     logSqlBuilder.buildDistributionSqlWithInterval(
                             dto, tableName, timeUnit, intervalValue);
 
@@ -109,7 +112,7 @@ class LogSqlBuilderTest {
                             + " ORDER BY log_time_ ASC";
 
             assertNotNull(result, "SQL不应为null");
-            assertEquals(expectedSql, result, "生成的SQL应与预期完全一致");
+            assertEquals(expectedSql, result.inline(), "生成的SQL应与预期完全一致");
 
             // 验证调用了配置服务
             verify(queryConfigValidationService, times(1)).getTimeField("test-module");
@@ -128,7 +131,7 @@ class LogSqlBuilderTest {
                     .thenThrow(new RuntimeException("配置未找到"));
 
             // Act
-            String result =
+            BoundSql result =
                     logSqlBuilder.buildDistributionSqlWithInterval(
                             dto, tableName, timeUnit, intervalValue);
 
@@ -141,7 +144,7 @@ class LogSqlBuilderTest {
                         + " ORDER BY log_time_ ASC";
 
             assertNotNull(result, "SQL不应为null");
-            assertEquals(expectedSql, result, "配置异常时应使用默认时间字段");
+            assertEquals(expectedSql, result.inline(), "配置异常时应使用默认时间字段");
             verify(queryConfigValidationService, times(1)).getTimeField("test-module");
         }
     }
@@ -175,7 +178,7 @@ class LogSqlBuilderTest {
             String timeField = "log_time";
 
             // Act
-            String result = logSqlBuilder.buildDetailQuery(dto, tableName, timeField);
+            BoundSql result = logSqlBuilder.buildDetailQuery(dto, tableName, timeField);
 
             // Assert - 验证完整的SQL结构
             String expectedSql =
@@ -185,7 +188,7 @@ class LogSqlBuilderTest {
                             + " OFFSET 100";
 
             assertNotNull(result, "SQL不应为null");
-            assertEquals(expectedSql, result, "生成的SQL应与预期完全一致");
+            assertEquals(expectedSql, result.inline(), "生成的SQL应与预期完全一致");
         }
 
         @Test
@@ -198,7 +201,7 @@ class LogSqlBuilderTest {
             String timeField = "log_time";
 
             // Act
-            String result = logSqlBuilder.buildCountQuery(dto, tableName, timeField);
+            BoundSql result = logSqlBuilder.buildCountQuery(dto, tableName, timeField);
 
             // Assert - 验证完整的SQL结构
             String expectedSql =
@@ -206,7 +209,13 @@ class LogSqlBuilderTest {
                             + " 00:00:00.000' AND log_time < '2024-01-01 01:00:00.000'";
 
             assertNotNull(result, "SQL不应为null");
-            assertEquals(expectedSql, result, "生成的SQL应与预期完全一致");
+            assertEquals(expectedSql, result.inline(), "生成的SQL应与预期完全一致");
+            assertEquals(
+                    "SELECT COUNT(*) AS total FROM test_logs WHERE log_time >= ? AND log_time < ?",
+                    result.sql(),
+                    "时间范围应作为绑定参数");
+            assertEquals(
+                    List.of("2024-01-01 00:00:00.000", "2024-01-01 01:00:00.000"), result.params());
         }
 
         @Test
@@ -228,7 +237,7 @@ class LogSqlBuilderTest {
             String timeField = "log_time";
 
             // Act
-            String result = logSqlBuilder.buildDetailQuery(dto, tableName, timeField);
+            BoundSql result = logSqlBuilder.buildDetailQuery(dto, tableName, timeField);
 
             // Assert - 验证完整的SQL结构
             String expectedSql =
@@ -237,7 +246,7 @@ class LogSqlBuilderTest {
                         + " OFFSET 0";
 
             assertNotNull(result, "SQL不应为null");
-            assertEquals(expectedSql, result, "用户指定时间字段排序应覆盖默认排序");
+            assertEquals(expectedSql, result.inline(), "用户指定时间字段排序应覆盖默认排序");
         }
 
         @Test
@@ -253,7 +262,7 @@ class LogSqlBuilderTest {
             String timeField = "log_time";
 
             // Act
-            String result = logSqlBuilder.buildDetailQuery(dto, tableName, timeField);
+            BoundSql result = logSqlBuilder.buildDetailQuery(dto, tableName, timeField);
 
             // Assert - 验证完整的SQL结构
             String expectedSql =
@@ -262,7 +271,7 @@ class LogSqlBuilderTest {
                         + " 20 OFFSET 0";
 
             assertNotNull(result, "SQL不应为null");
-            assertEquals(expectedSql, result, "无排序字段时应包含默认时间字段倒序排序");
+            assertEquals(expectedSql, result.inline(), "无排序字段时应包含默认时间字段倒序排序");
         }
     }
 
@@ -288,20 +297,20 @@ class LogSqlBuilderTest {
                     .thenReturn(expectedTimeField);
 
             // Act
-            String result =
+            BoundSql result =
                     logSqlBuilder.buildFieldDistributionSql(
                             dto, tableName, convertedFields, originalFields, topN);
 
             // Assert - 验证完整的SQL结构
             String expectedSql =
                     "SELECT TOPN(message['level'], 5) AS 'message.level', TOPN(host, 5) AS 'host',"
-                        + " TOPN(source, 5) AS 'source', count(*) AS 'total' FROM (SELECT * FROM"
-                        + " test_logs WHERE log_time >= '2024-01-01 00:00:00.000' AND log_time <"
-                        + " '2024-01-01 01:00:00.000' ORDER BY log_time DESC LIMIT 1000 OFFSET 0)"
-                        + " AS sub_query";
+                        + " TOPN(source, 5) AS 'source', count(*) AS 'total' FROM (SELECT message,"
+                        + " host, source FROM test_logs WHERE log_time >= '2024-01-01 00:00:00.000'"
+                        + " AND log_time < '2024-01-01 01:00:00.000' ORDER BY log_time DESC LIMIT"
+                        + " 1000 OFFSET 0) AS sub_query";
 
             assertNotNull(result, "SQL不应为null");
-            assertEquals(expectedSql, result, "生成的SQL应与预期完全一致");
+            assertEquals(expectedSql, result.inline(), "生成的SQL应与预期完全一致");
 
             verify(queryConfigValidationService, times(1)).getTimeField("test-module");
         }
@@ -323,19 +332,19 @@ class LogSqlBuilderTest {
                     .thenThrow(new RuntimeException("配置未找到"));
 
             // Act
-            String result =
+            BoundSql result =
                     logSqlBuilder.buildFieldDistributionSql(
                             dto, tableName, convertedFields, originalFields, topN);
 
             // Assert - 验证完整的SQL结构，确保使用默认时间字段
             String expectedSql =
-                    "SELECT TOPN(level, 10) AS 'level', count(*) AS 'total' FROM (SELECT * FROM"
+                    "SELECT TOPN(level, 10) AS 'level', count(*) AS 'total' FROM (SELECT level FROM"
                         + " test_logs WHERE log_time >= '2024-01-01 00:00:00.000' AND log_time <"
                         + " '2024-01-01 01:00:00.000' ORDER BY log_time DESC LIMIT 1000 OFFSET 0)"
                         + " AS sub_query";
 
             assertNotNull(result, "SQL不应为null");
-            assertEquals(expectedSql, result, "配置异常时应使用默认时间字段并包含总数统计");
+            assertEquals(expectedSql, result.inline(), "配置异常时应使用默认时间字段并包含总数统计");
             verify(queryConfigValidationService, times(1)).getTimeField("test-module");
         }
     }
@@ -363,19 +372,19 @@ class LogSqlBuilderTest {
                     .thenReturn(expectedTimeField);
 
             // Act
-            String result =
+            BoundSql result =
                     logSqlBuilder.buildFieldDistributionSql(
                             dto, tableName, convertedFields, originalFields, topN);
 
             // Assert - 验证完整的SQL结构
             String expectedSql =
-                    "SELECT TOPN(level, 5) AS 'level', count(*) AS 'total' FROM (SELECT * FROM"
+                    "SELECT TOPN(level, 5) AS 'level', count(*) AS 'total' FROM (SELECT level FROM"
                         + " test_logs WHERE log_time >= '2024-01-01 00:00:00.000' AND log_time <"
                         + " '2024-01-01 01:00:00.000' AND (message['level'] = 'ERROR') AND (host ="
                         + " 'server1') ORDER BY log_time DESC LIMIT 1000 OFFSET 0) AS sub_query";
 
             assertNotNull(result, "SQL不应为null");
-            assertEquals(expectedSql, result, "包含WHERE条件的字段分布SQL应与预期完全一致");
+            assertEquals(expectedSql, result.inline(), "包含WHERE条件的字段分布SQL应与预期完全一致");
         }
 
         @Test
@@ -398,7 +407,7 @@ class LogSqlBuilderTest {
                     .thenReturn(expectedTimeField);
 
             // Act
-            String result =
+            BoundSql result =
                     logSqlBuilder.buildDistributionSqlWithInterval(
                             dto, tableName, timeUnit, intervalValue);
 
@@ -413,7 +422,7 @@ class LogSqlBuilderTest {
                         + " log_time_ ASC";
 
             assertNotNull(result, "SQL不应为null");
-            assertEquals(expectedSql, result, "复杂嵌套字段的时间分布SQL应与预期完全一致");
+            assertEquals(expectedSql, result.inline(), "复杂嵌套字段的时间分布SQL应与预期完全一致");
         }
     }
 
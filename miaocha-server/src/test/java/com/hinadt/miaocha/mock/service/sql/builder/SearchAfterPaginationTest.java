@@ -0,0 +1,173 @@
+package com.hinadt.miaocha.mock.service.sql.builder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.hinadt.miaocha.application.service.sql.BoundSql;
+import com.hinadt.miaocha.application.service.sql.builder.DetailSqlBuilder;
+import com.hinadt.miaocha.application.service.sql.builder.KeywordConditionBuilder;
+import com.hinadt.miaocha.application.service.sql.builder.SearchAfterCursor;
+import com.hinadt.miaocha.application.service.sql.builder.WhereConditionBuilder;
+import com.hinadt.miaocha.common.exception.BusinessException;
+import com.hinadt.miaocha.domain.dto.logsearch.LogSearchDTO;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 明细查询游标分页测试 验证游标生成、范围条件构建以及与排序条件的一致性校验 */
+@DisplayName("明细查询游标分页测试")
+class SearchAfterPaginationTest {
+
+    private static final String TABLE = "test_logs";
+    private static final String TIME_FIELD = "log_time";
+    private static final String TIME_RANGE =
+            " WHERE log_time >= '2024-01-01 00:00:00.000' AND log_time < '2024-01-01"
+                    + " 01:00:00.000'";
+
+    private DetailSqlBuilder detailSqlBuilder;
+    private LogSearchDTO dto;
+
+    @BeforeEach
+    void setUp() {
+        detailSqlBuilder =
+                new DetailSqlBuilder(new KeywordConditionBuilder(), new WhereConditionBuilder());
+        dto = new LogSearchDTO();
+        dto.setModule("test-module");
+        dto.setStartTime("2024-01-01 00:00:00.000");
+        dto.setEndTime("2024-01-01 01:00:00.000");
+        dto.setPageSize(3);
+        dto.setOffset(300);
+    }
+
+    private static Map<String, Object> row(String time, long offset) {
+        return Map.of(TIME_FIELD, LocalDateTime.parse(time), "log_offset", offset);
+    }
+
+    @Test
+    @DisplayName("配置并列排序字段时，游标使用严格的范围条件且不再使用偏移量")
+    void testSearchAfterWithTiebreaker() {
+        List<Map<String, Object>> rows =
+                List.of(
+                        row("2024-01-01T00:59:00.500", 9),
+                        row("2024-01-01T00:58:00", 8),
+                        row("2024-01-01T00:58:00", 7));
+
+        String cursor = detailSqlBuilder.buildNextCursor(dto, TIME_FIELD, "log_offset", rows);
+        dto.setSearchAfter(cursor);
+        String sql =
+                detailSqlBuilder.buildDetailQuery(dto, TABLE, TIME_FIELD, "log_offset").inline();
+
+        assertEquals(
+                "SELECT * FROM test_logs"
+                        + TIME_RANGE
+                        + " AND (log_time < '2024-01-01 00:58:00' OR (log_time = '2024-01-01"
+                        + " 00:58:00' AND log_offset < '7')) ORDER BY log_time DESC, log_offset"
+                        + " DESC LIMIT 3 OFFSET 0",
+                sql);
+    }
+
+    @Test
+    @DisplayName("未配置并列排序字段时，跳过与最后一行时间相同的已返回行")
+    void testSearchAfterWithoutTiebreaker() {
+        List<Map<String, Object>> firstPage =
+                List.of(
+                        row("2024-01-01T00:59:00", 1),
+                        row("2024-01-01T00:58:00", 1),
+                        row("2024-01-01T00:58:00", 1));
+        dto.setSearchAfter(detailSqlBuilder.buildNextCursor(dto, TIME_FIELD, null, firstPage));
+
+        assertEquals(
+                "SELECT * FROM test_logs"
+                        + TIME_RANGE
+                        + " AND log_time <= '2024-01-01 00:58:00' ORDER BY log_time DESC"
+                        + " LIMIT 3 OFFSET 2",
+                detailSqlBuilder.buildDetailQuery(dto, TABLE, TIME_FIELD, null).inline());
+
+        // 整页时间都相同时，累计需要跳过的行数
+        List<Map<String, Object>> secondPage =
+                List.of(
+                        row("2024-01-01T00:58:00", 1),
+                        row("2024-01-01T00:58:00", 1),
+                        row("2024-01-01T00:58:00", 1));
+        dto.setSearchAfter(detailSqlBuilder.buildNextCursor(dto, TIME_FIELD, null, secondPage));
+
+        assertTrue(
+                detailSqlBuilder
+                        .buildDetailQuery(dto, TABLE, TIME_FIELD, null)
+                        .inline()
+                        .endsWith("LIMIT 3 OFFSET 5"));
+    }
+
+    @Test
+    @DisplayName("升序排序时范围条件方向相反，未取满一页时没有下一页游标")
+    void testAscendingAndLastPage() {
+        LogSearchDTO.SortField timeSort = new LogSearchDTO.SortField();
+        timeSort.setFieldName(TIME_FIELD);
+        timeSort.setDirection("ASC");
+        dto.setSortFields(List.of(timeSort));
+
+        List<Map<String, Object>> fullPage =
+                List.of(
+                        row("2024-01-01T00:01:00", 1),
+                        row("2024-01-01T00:02:00", 2),
+                        row("2024-01-01T00:03:00", 3));
+        dto.setSearchAfter(
+                detailSqlBuilder.buildNextCursor(dto, TIME_FIELD, "log_offset", fullPage));
+
+        assertTrue(
+                detailSqlBuilder
+                        .buildDetailQuery(dto, TABLE, TIME_FIELD, "log_offset")
+                        .inline()
+                        .contains(
+                                "(log_time > '2024-01-01 00:03:00' OR (log_time = '2024-01-01"
+                                        + " 00:03:00' AND log_offset > '3'))"));
+        assertNull(
+                detailSqlBuilder.buildNextCursor(
+                        dto, TIME_FIELD, "log_offset", fullPage.subList(0, 2)));
+    }
+
+    @Test
+    @DisplayName("按非时间字段排序时不生成游标，传入游标则拒绝")
+    void testUnsupportedSort() {
+        LogSearchDTO.SortField levelSort = new LogSearchDTO.SortField();
+        levelSort.setFieldName("level");
+        levelSort.setDirection("ASC");
+        dto.setSortFields(List.of(levelSort));
+        List<Map<String, Object>> rows =
+                List.of(
+                        row("2024-01-01T00:01:00", 1),
+                        row("2024-01-01T00:02:00", 2),
+                        row("2024-01-01T00:03:00", 3));
+
+        assertNull(detailSqlBuilder.buildNextCursor(dto, TIME_FIELD, null, rows));
+
+        dto.setSearchAfter(
+                new SearchAfterCursor("2024-01-01 00:03:00", "DESC", null, null, 1).encode());
+        assertThrows(
+                BusinessException.class,
+                () -> detailSqlBuilder.buildDetailQuery(dto, TABLE, TIME_FIELD, null));
+    }
+
+    @Test
+    @DisplayName("游标与当前排序方向不一致或内容被篡改时拒绝，游标值作为绑定参数")
+    void testCursorValidation() {
+        dto.setSearchAfter(
+                new SearchAfterCursor("2024-01-01 00:03:00", "ASC", null, null, 1).encode());
+        assertThrows(
+                BusinessException.class,
+                () -> detailSqlBuilder.buildDetailQuery(dto, TABLE, TIME_FIELD, null));
+
+        dto.setSearchAfter("not-a-cursor");
+        assertThrows(
+                BusinessException.class,
+                () -> detailSqlBuilder.buildDetailQuery(dto, TABLE, TIME_FIELD, null));
+
+        dto.setSearchAfter(
+                new SearchAfterCursor("2024-01-01' OR '1'='1", "DESC", null, null, 0).encode());
+        BoundSql sql = detailSqlBuilder.buildDetailQuery(dto, TABLE, TIME_FIELD, null);
+        assertTrue(sql.sql().contains("log_time <= ?"));
+        assertTrue(sql.params().contains("2024-01-01' OR '1'='1"));
+    }
+}
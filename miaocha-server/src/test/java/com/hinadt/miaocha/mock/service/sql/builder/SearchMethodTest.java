@@ -2,9 +2,11 @@ package com.hinadt.miaocha.mock.service.sql.builder;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.hinadt.miaocha.application.service.sql.BoundSql;
 import com.hinadt.miaocha.application.service.sql.search.SearchMethod;
 import com.hinadt.miaocha.common.exception.BusinessException;
 import com.hinadt.miaocha.common.exception.ErrorCode;
+import java.util.List;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -13,7 +15,7 @@ import org.junit.jupiter.params.provider.CsvSource;
 /**
  * 搜索方法枚举测试
  *
- * <p>验证SearchMethod枚举的基本功能和SQL生成逻辑
+ * <p>验证SearchMethod枚举的基本功能和SQL生成逻辑，关键字作为绑定参数
  */
 @DisplayName("搜索方法枚举测试")
 class SearchMethodTest {
@@ -44,16 +46,32 @@ class SearchMethodTest {
     @ParameterizedTest
     @DisplayName("单个条件SQL生成测试 - 验证各搜索方法的SQL语法")
     @CsvSource({
-        "LIKE, message, error, 'message LIKE ''%error%'''",
-        "MATCH_PHRASE, content, 'java exception', 'content MATCH_PHRASE ''java exception'''",
-        "MATCH_ANY, tags, critical, 'tags MATCH_ANY ''critical'''",
-        "MATCH_ALL, keywords, payment, 'keywords MATCH_ALL ''payment'''"
+        "LIKE, message, error, message LIKE ?, %error%",
+        "MATCH_PHRASE, content, java exception, content MATCH_PHRASE ?, java exception",
+        "MATCH_ANY, tags, critical, tags MATCH_ANY ?, critical",
+        "MATCH_ALL, keywords, payment, keywords MATCH_ALL ?, payment"
     })
     void testBuildSingleCondition(
-            String methodName, String fieldName, String keyword, String expected) {
+            String methodName,
+            String fieldName,
+            String keyword,
+            String expectedSql,
+            String expectedParam) {
         SearchMethod method = SearchMethod.fromString(methodName);
-        String result = method.buildSingleCondition(fieldName, keyword);
-        assertEquals(expected, result);
+        BoundSql result = method.buildSingleCondition(fieldName, keyword);
+        assertEquals(expectedSql, result.sql());
+        assertEquals(List.of(expectedParam), result.params());
+    }
+
+    @Test
+    @DisplayName("关键字中的引号原样作为参数 - 验证不写入SQL文本")
+    void testKeywordBoundAsParameter() {
+        String keyword = "a' OR '1'='1";
+        BoundSql result = SearchMethod.MATCH_PHRASE.buildSingleCondition("message", keyword);
+
+        assertEquals("message MATCH_PHRASE ?", result.sql());
+        assertEquals(List.of(keyword), result.params());
+        assertEquals("message MATCH_PHRASE 'a'' OR ''1''=''1'", result.inline());
     }
 
     @Test
@@ -62,16 +80,18 @@ class SearchMethodTest {
         SearchMethod method = SearchMethod.LIKE;
 
         // 简单表达式
-        String result1 = method.parseExpression("message", "'error'");
-        assertEquals("message LIKE '%error%'", result1);
+        BoundSql result1 = method.parseExpression("message", "'error'");
+        assertEquals("message LIKE ?", result1.sql());
+        assertEquals(List.of("%error%"), result1.params());
 
         // OR表达式
-        String result2 = method.parseExpression("message", "'error' || 'warning'");
-        assertEquals("message LIKE '%error%' OR message LIKE '%warning%'", result2);
+        BoundSql result2 = method.parseExpression("message", "'error' || 'warning'");
+        assertEquals("message LIKE ? OR message LIKE ?", result2.sql());
+        assertEquals(List.of("%error%", "%warning%"), result2.params());
 
         // AND表达式
-        String result3 = method.parseExpression("message", "'java' && 'exception'");
-        assertEquals("message LIKE '%java%' AND message LIKE '%exception%'", result3);
+        BoundSql result3 = method.parseExpression("message", "'java' && 'exception'");
+        assertEquals("message LIKE '%java%' AND message LIKE '%exception%'", result3.inline());
     }
 
     @Test
@@ -79,13 +99,8 @@ class SearchMethodTest {
     void testEmptyExpression() {
         SearchMethod method = SearchMethod.LIKE;
 
-        String result1 = method.parseExpression("message", "");
-        assertEquals("", result1);
-
-        String result2 = method.parseExpression("message", null);
-        assertEquals("", result2);
-
-        String result3 = method.parseExpression("message", "   ");
-        assertEquals("", result3);
+        assertEquals(BoundSql.EMPTY, method.parseExpression("message", ""));
+        assertEquals(BoundSql.EMPTY, method.parseExpression("message", null));
+        assertEquals(BoundSql.EMPTY, method.parseExpression("message", "   "));
     }
 }
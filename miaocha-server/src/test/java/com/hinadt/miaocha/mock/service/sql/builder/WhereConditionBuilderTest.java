@@ -35,13 +35,13 @@ class WhereConditionBuilderTest {
     void testEmptyConditions() {
         LogSearchDTO dto = new LogSearchDTO();
         dto.setWhereSqls(null);
-        assertEquals("", whereConditionBuilder.buildWhereConditions(dto));
+        assertEquals("", whereConditionBuilder.buildWhereConditions(dto).sql());
 
         dto.setWhereSqls(Collections.emptyList());
-        assertEquals("", whereConditionBuilder.buildWhereConditions(dto));
+        assertEquals("", whereConditionBuilder.buildWhereConditions(dto).sql());
 
         dto.setWhereSqls(Arrays.asList("", "   ", null));
-        assertEquals("", whereConditionBuilder.buildWhereConditions(dto));
+        assertEquals("", whereConditionBuilder.buildWhereConditions(dto).sql());
     }
 
     @Test
@@ -50,7 +50,7 @@ class WhereConditionBuilderTest {
         LogSearchDTO dto = new LogSearchDTO();
         dto.setWhereSqls(List.of("level = 'ERROR'"));
 
-        String result = whereConditionBuilder.buildWhereConditions(dto);
+        String result = whereConditionBuilder.buildWhereConditions(dto).sql();
 
         assertEquals("(level = 'ERROR')", result);
     }
@@ -63,7 +63,7 @@ class WhereConditionBuilderTest {
                 Arrays.asList(
                         "level = 'ERROR'", "service = 'user-service'", "host LIKE 'server-%'"));
 
-        String result = whereConditionBuilder.buildWhereConditions(dto);
+        String result = whereConditionBuilder.buildWhereConditions(dto).sql();
 
         String expected =
                 "(level = 'ERROR') AND (service = 'user-service') AND (host LIKE 'server-%')";
@@ -77,7 +77,7 @@ class WhereConditionBuilderTest {
         dto.setWhereSqls(
                 Arrays.asList("level = 'ERROR'", "", "   ", null, "service = 'user-service'"));
 
-        String result = whereConditionBuilder.buildWhereConditions(dto);
+        String result = whereConditionBuilder.buildWhereConditions(dto).sql();
 
         String expected = "(level = 'ERROR') AND (service = 'user-service')";
         assertEquals(expected, result);
@@ -117,6 +117,27 @@ class WhereConditionBuilderTest {
         assertTrue(exception.getMessage().contains("可疑的引号模式"));
     }
 
+    @Test
+    @DisplayName("SQL注入防护 - 字符串之外的问号")
+    void testPlaceholderOutsideStringRejected() {
+        LogSearchDTO dto = new LogSearchDTO();
+        dto.setWhereSqls(List.of("level = ?"));
+
+        BusinessException exception =
+                assertThrows(
+                        BusinessException.class,
+                        () -> {
+                            whereConditionBuilder.buildWhereConditions(dto);
+                        });
+
+        assertEquals(ErrorCode.VALIDATION_ERROR, exception.getErrorCode());
+        assertTrue(exception.getMessage().contains("问号"));
+
+        // 字符串中的问号不是占位符
+        dto.setWhereSqls(List.of("url = '/api?id=1'"));
+        assertEquals("(url = '/api?id=1')", whereConditionBuilder.buildWhereConditions(dto).sql());
+    }
+
     @Test
     @DisplayName("正常条件不被误拦截")
     void testValidConditionsNotBlocked() {
@@ -129,7 +150,7 @@ class WhereConditionBuilderTest {
                         "log_time > DATE_SUB(NOW(), INTERVAL 1 HOUR)",
                         "variant_field['meta']['type'] = 'request'"));
 
-        String result = whereConditionBuilder.buildWhereConditions(dto);
+        String result = whereConditionBuilder.buildWhereConditions(dto).sql();
 
         String expected =
                 "(level = 'ERROR') AND (service IN ('user', 'order')) AND (message LIKE"
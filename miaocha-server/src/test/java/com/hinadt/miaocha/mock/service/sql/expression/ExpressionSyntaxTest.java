@@ -76,13 +76,13 @@ class ExpressionSyntaxTest {
         // 测试语法分析
         FieldExpressionParser parser =
                 new FieldExpressionParser("message", SearchMethod.MATCH_PHRASE);
-        String result = parser.parseKeywordExpression(input);
+        String result = parser.parseKeywordExpression(input).inline();
         assertEquals("NOT message MATCH_PHRASE 'error'", result);
 
         // 测试完整流程
         mockModuleConfig("test", createKeywordField("message", "MATCH_PHRASE"));
         LogSearchDTO dto = createLogSearchDTO("test", List.of("- error"));
-        String fullResult = keywordConditionBuilder.buildKeywords(dto);
+        String fullResult = keywordConditionBuilder.buildKeywords(dto).inline();
         assertEquals("NOT (message MATCH_PHRASE 'error')", fullResult);
 
         System.out.println("✅ `- a` 解析正确: " + fullResult);
@@ -107,13 +107,13 @@ class ExpressionSyntaxTest {
         // 测试语法分析
         FieldExpressionParser parser =
                 new FieldExpressionParser("message", SearchMethod.MATCH_PHRASE);
-        String result = parser.parseKeywordExpression(input);
+        String result = parser.parseKeywordExpression(input).inline();
         assertEquals("NOT message MATCH_PHRASE 'java exception'", result);
 
         // 测试完整流程
         mockModuleConfig("test", createKeywordField("message", "MATCH_PHRASE"));
         LogSearchDTO dto = createLogSearchDTO("test", List.of("- 'java exception'"));
-        String fullResult = keywordConditionBuilder.buildKeywords(dto);
+        String fullResult = keywordConditionBuilder.buildKeywords(dto).inline();
         assertEquals("NOT (message MATCH_PHRASE 'java exception')", fullResult);
 
         System.out.println("✅ `- 'a'` 解析正确: " + fullResult);
@@ -136,13 +136,13 @@ class ExpressionSyntaxTest {
         // 测试语法分析
         FieldExpressionParser parser =
                 new FieldExpressionParser("message", SearchMethod.MATCH_PHRASE);
-        String result = parser.parseKeywordExpression(input);
+        String result = parser.parseKeywordExpression(input).inline();
         assertEquals("message MATCH_PHRASE '- error'", result); // 没有NOT，是普通搜索
 
         // 测试完整流程
         mockModuleConfig("test", createKeywordField("message", "MATCH_PHRASE"));
         LogSearchDTO dto = createLogSearchDTO("test", List.of("'- error'"));
-        String fullResult = keywordConditionBuilder.buildKeywords(dto);
+        String fullResult = keywordConditionBuilder.buildKeywords(dto).inline();
         assertEquals("(message MATCH_PHRASE '- error')", fullResult);
 
         System.out.println("✅ `'- a'` 解析正确: " + fullResult);
@@ -156,7 +156,7 @@ class ExpressionSyntaxTest {
 
         mockModuleConfig("test", createKeywordField("message", "MATCH_PHRASE"));
         LogSearchDTO dto = createLogSearchDTO("test", List.of(input));
-        String result = keywordConditionBuilder.buildKeywords(dto);
+        String result = keywordConditionBuilder.buildKeywords(dto).inline();
 
         String expected =
                 """
@@ -190,7 +190,7 @@ class ExpressionSyntaxTest {
     private void testSingleCase(String module, String input, String expected, String description) {
         mockModuleConfig(module, createKeywordField("message", "MATCH_PHRASE"));
         LogSearchDTO dto = createLogSearchDTO(module, List.of(input));
-        String result = keywordConditionBuilder.buildKeywords(dto);
+        String result = keywordConditionBuilder.buildKeywords(dto).inline();
         assertEquals(expected, result);
         System.out.println("✅ " + description + ": " + result);
     }
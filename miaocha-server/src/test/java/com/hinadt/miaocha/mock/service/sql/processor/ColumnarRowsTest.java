@@ -0,0 +1,170 @@
+package com.hinadt.miaocha.mock.service.sql.processor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hinadt.miaocha.application.service.sql.JdbcQueryExecutor;
+import com.hinadt.miaocha.application.service.sql.processor.ColumnarRows;
+import com.hinadt.miaocha.application.service.sql.processor.QueryResult;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 列式查询结果测试 验证列式存储与逐行Map在取值和JSON输出上保持一致 */
+@DisplayName("列式查询结果测试")
+class ColumnarRowsTest {
+
+    /** 超过初始容量，覆盖扩容逻辑 */
+    private static final int ROW_COUNT = 150;
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 1, 10, 0, 0);
+
+    private ResultSet resultSet;
+    private List<Map<String, Object>> expectedRows;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(4);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnLabel(2)).thenReturn("log_time");
+        when(metaData.getColumnLabel(3)).thenReturn("message");
+        when(metaData.getColumnLabel(4)).thenReturn("cost");
+        when(metaData.getColumnType(1)).thenReturn(Types.INTEGER);
+        when(metaData.getColumnType(2)).thenReturn(Types.TIMESTAMP);
+        when(metaData.getColumnType(3)).thenReturn(Types.VARCHAR);
+        when(metaData.getColumnType(4)).thenReturn(Types.DOUBLE);
+        when(metaData.isSigned(1)).thenReturn(true);
+        when(metaData.getColumnClassName(2)).thenReturn(LocalDateTime.class.getName());
+
+        int[] cursor = {-1};
+        boolean[] lastNull = {false};
+        resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(resultSet.next()).thenAnswer(inv -> ++cursor[0] < ROW_COUNT);
+        when(resultSet.getInt(1))
+                .thenAnswer(
+                        inv -> {
+                            lastNull[0] = cursor[0] % 10 == 0;
+                            return lastNull[0] ? 0 : cursor[0];
+                        });
+        when(resultSet.getDouble(4))
+                .thenAnswer(
+                        inv -> {
+                            lastNull[0] = cursor[0] % 7 == 0;
+                            return lastNull[0] ? 0.0 : cursor[0] * 1.5;
+                        });
+        when(resultSet.wasNull()).thenAnswer(inv -> lastNull[0]);
+        when(resultSet.getObject(2, LocalDateTime.class))
+                .thenAnswer(inv -> BASE_TIME.plusNanos(cursor[0] * 1_000_000L));
+        when(resultSet.getObject(3))
+                .thenAnswer(inv -> cursor[0] == 5 ? null : "message-" + cursor[0]);
+
+        expectedRows = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", i % 10 == 0 ? null : i);
+            row.put("log_time", BASE_TIME.plusNanos(i * 1_000_000L));
+            row.put("message", i == 5 ? null : "message-" + i);
+            row.put("cost", i % 7 == 0 ? null : i * 1.5);
+            expectedRows.add(row);
+        }
+    }
+
+    @Test
+    @DisplayName("行视图与逐行Map内容一致")
+    void testRowViewMatchesRowMaps() throws Exception {
+        ColumnarRows rows = ColumnarRows.read(resultSet);
+
+        assertEquals(ROW_COUNT, rows.size());
+        assertEquals(List.of("id", "log_time", "message", "cost"), rows.getColumns());
+        assertEquals(expectedRows, rows);
+        assertEquals(List.copyOf(expectedRows.get(3).keySet()), List.copyOf(rows.get(3).keySet()));
+        assertInstanceOf(Integer.class, rows.get(1).get("id"));
+        assertNull(rows.get(0).get("id"));
+        assertTrue(rows.get(0).containsKey("id"));
+        assertFalse(rows.get(0).containsKey("unknown"));
+    }
+
+    @Test
+    @DisplayName("按行号直接读取列值")
+    void testGetValueByRowAndColumn() throws Exception {
+        QueryResult result = QueryResult.columnar(ColumnarRows.read(resultSet));
+
+        assertTrue(result.isColumnar());
+        assertEquals(ROW_COUNT, result.getRowCount());
+        assertEquals(42, result.getValue(42, "id"));
+        assertEquals(BASE_TIME.plusNanos(99 * 1_000_000L), result.getValue(99, "log_time"));
+        assertEquals("message-149", result.getValue(149, "message"));
+        assertNull(result.getValue(5, "message"));
+        assertTrue(result.hasColumn(0, "cost"));
+        assertFalse(result.hasColumn(0, "unknown"));
+        assertThrows(IndexOutOfBoundsException.class, () -> result.getValue(ROW_COUNT, "id"));
+    }
+
+    @Test
+    @DisplayName("JSON序列化结果与逐行Map一致")
+    void testJsonMatchesRowMaps() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        ColumnarRows rows = ColumnarRows.read(resultSet);
+
+        assertEquals(
+                objectMapper.writeValueAsString(expectedRows),
+                objectMapper.writeValueAsString(rows));
+    }
+
+    @Test
+    @DisplayName("追加切片结果后与逐行Map内容一致")
+    void testAppendAllMatchesRowMaps() throws Exception {
+        ColumnarRows head = ColumnarRows.create(resultSet.getMetaData());
+        ColumnarRows tail = ColumnarRows.create(resultSet.getMetaData());
+        for (int i = 0; resultSet.next(); i++) {
+            (i < 100 ? head : tail).appendRow(resultSet);
+        }
+
+        head.appendAll(tail);
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        assertEquals(ROW_COUNT, head.size());
+        assertEquals(expectedRows, head);
+        assertEquals(
+                objectMapper.writeValueAsString(expectedRows),
+                objectMapper.writeValueAsString(head));
+
+        ResultSetMetaData otherMetaData = mock(ResultSetMetaData.class);
+        when(otherMetaData.getColumnCount()).thenReturn(1);
+        when(otherMetaData.getColumnLabel(1)).thenReturn("id");
+        when(otherMetaData.getColumnType(1)).thenReturn(Types.VARCHAR);
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> head.appendAll(ColumnarRows.create(otherMetaData)));
+    }
+
+    @Test
+    @DisplayName("JdbcQueryExecutor返回列式结果")
+    void testExecuteStructuredQueryReturnsColumnarResult() throws Exception {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery("SELECT 1")).thenReturn(resultSet);
+
+        QueryResult result = new JdbcQueryExecutor().executeStructuredQuery(connection, "SELECT 1");
+
+        assertTrue(result.isColumnar());
+        assertEquals(List.of("id", "log_time", "message", "cost"), result.getColumns());
+        assertEquals(expectedRows, result.getRows());
+        verify(resultSet).close();
+        verify(statement).close();
+    }
+}
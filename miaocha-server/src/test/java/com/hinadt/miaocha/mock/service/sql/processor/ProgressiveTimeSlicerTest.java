@@ -0,0 +1,92 @@
+package com.hinadt.miaocha.mock.service.sql.processor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.hinadt.miaocha.application.service.sql.expression.SqlFragment.TimeWindow;
+import com.hinadt.miaocha.application.service.sql.processor.ProgressiveTimeSlicer;
+import com.hinadt.miaocha.config.LogSearchProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 明细查询时间切片测试 验证切片从新到旧按倍数增长、按数据密度放大、最后一片覆盖剩余范围以及不切片的条件 */
+@DisplayName("明细查询时间切片测试")
+class ProgressiveTimeSlicerTest {
+
+    private LogSearchProperties.TimeSlicing config;
+
+    @BeforeEach
+    void setUp() {
+        config = new LogSearchProperties.TimeSlicing();
+    }
+
+    private static TimeWindow window(String start, String end) {
+        return new TimeWindow(start, end);
+    }
+
+    @Test
+    @DisplayName("切片从结束时间开始按倍数增长，最后一片覆盖到开始时间")
+    void testExponentialSlices() {
+        ProgressiveTimeSlicer slicer =
+                ProgressiveTimeSlicer.create(
+                        window("2024-01-01 00:00:00", "2024-01-08 00:00:00"), config);
+
+        assertNotNull(slicer);
+        assertEquals(
+                window("2024-01-07 23:55:00.000", "2024-01-08 00:00:00.000"), slicer.next(0, 50));
+        assertEquals(
+                window("2024-01-07 23:35:00.000", "2024-01-07 23:55:00.000"), slicer.next(0, 50));
+        assertEquals(
+                window("2024-01-07 22:15:00.000", "2024-01-07 23:35:00.000"), slicer.next(0, 50));
+        assertEquals(
+                window("2024-01-07 16:55:00.000", "2024-01-07 22:15:00.000"), slicer.next(0, 50));
+        assertEquals(
+                window("2024-01-01 00:00:00.000", "2024-01-07 16:55:00.000"), slicer.next(0, 50));
+        assertNull(slicer.next(0, 50));
+        assertEquals(5, slicer.getSlices());
+    }
+
+    @Test
+    @DisplayName("已查到部分数据时按数据密度估算下一片的宽度")
+    void testDensityEstimate() {
+        ProgressiveTimeSlicer slicer =
+                ProgressiveTimeSlicer.create(
+                        window("2024-01-01 00:00:00", "2024-01-08 00:00:00"), config);
+
+        slicer.next(0, 50);
+        // 5分钟查到10行，剩余40行按1.5倍余量估算需要30分钟，大于按倍数增长的20分钟
+        assertEquals(
+                window("2024-01-07 23:25:00.000", "2024-01-07 23:55:00.000"), slicer.next(10, 50));
+    }
+
+    @Test
+    @DisplayName("剩余范围不足下一片宽度时直接查到开始时间")
+    void testMergeRemainder() {
+        ProgressiveTimeSlicer slicer =
+                ProgressiveTimeSlicer.create(
+                        window("2024-01-01 00:00:00", "2024-01-01 01:00:00"), config);
+
+        assertEquals(
+                window("2024-01-01 00:55:00.000", "2024-01-01 01:00:00.000"), slicer.next(0, 50));
+        assertEquals(
+                window("2024-01-01 00:35:00.000", "2024-01-01 00:55:00.000"), slicer.next(0, 50));
+        assertEquals(
+                window("2024-01-01 00:00:00.000", "2024-01-01 00:35:00.000"), slicer.next(0, 50));
+        assertNull(slicer.next(0, 50));
+    }
+
+    @Test
+    @DisplayName("时间范围过短、无法解析或关闭时不切片")
+    void testNotSliced() {
+        assertNull(
+                ProgressiveTimeSlicer.create(
+                        window("2024-01-01 00:00:00", "2024-01-01 00:30:00"), config));
+        assertNull(ProgressiveTimeSlicer.create(window("yesterday", "now"), config));
+        assertNull(ProgressiveTimeSlicer.create(null, config));
+
+        config.setEnabled(false);
+        assertNull(
+                ProgressiveTimeSlicer.create(
+                        window("2024-01-01 00:00:00", "2024-01-08 00:00:00"), config));
+    }
+}
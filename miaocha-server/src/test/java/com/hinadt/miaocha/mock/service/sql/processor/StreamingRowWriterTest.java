@@ -0,0 +1,103 @@
+package com.hinadt.miaocha.mock.service.sql.processor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hinadt.miaocha.application.service.sql.processor.StreamingRowWriter;
+import java.io.StringWriter;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** 结果集流式写出测试 验证流式输出与逐行Map序列化结果一致 */
+@DisplayName("结果集流式写出测试")
+class StreamingRowWriterTest {
+
+    private static final int ROW_COUNT = 25;
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 1, 10, 0, 0);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private ResultSet resultSet;
+    private List<Map<String, Object>> expectedRows;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(3);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnLabel(2)).thenReturn("log_time");
+        when(metaData.getColumnLabel(3)).thenReturn("message");
+        when(metaData.getColumnType(1)).thenReturn(Types.BIGINT);
+        when(metaData.getColumnType(2)).thenReturn(Types.TIMESTAMP);
+        when(metaData.getColumnType(3)).thenReturn(Types.VARCHAR);
+        when(metaData.isSigned(1)).thenReturn(true);
+        when(metaData.getColumnClassName(2)).thenReturn(LocalDateTime.class.getName());
+
+        int[] cursor = {-1};
+        boolean[] lastNull = {false};
+        resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(resultSet.next()).thenAnswer(inv -> ++cursor[0] < ROW_COUNT);
+        when(resultSet.getLong(1))
+                .thenAnswer(
+                        inv -> {
+                            lastNull[0] = cursor[0] == 3;
+                            return lastNull[0] ? 0L : cursor[0] * 1000L;
+                        });
+        when(resultSet.wasNull()).thenAnswer(inv -> lastNull[0]);
+        when(resultSet.getObject(2, LocalDateTime.class))
+                .thenAnswer(inv -> BASE_TIME.plusSeconds(cursor[0]));
+        when(resultSet.getObject(3)).thenAnswer(inv -> "message-" + cursor[0]);
+
+        expectedRows = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", i == 3 ? null : i * 1000L);
+            row.put("log_time", BASE_TIME.plusSeconds(i));
+            row.put("message", "message-" + i);
+            expectedRows.add(row);
+        }
+    }
+
+    @Test
+    @DisplayName("流式输出与逐行Map的JSON一致")
+    void testStreamedJsonMatchesRowMaps() throws Exception {
+        StreamingRowWriter writer = StreamingRowWriter.create(resultSet.getMetaData());
+        StringWriter out = new StringWriter();
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            assertEquals(ROW_COUNT, writer.writeRows(resultSet, generator, 10));
+            generator.writeEndArray();
+        }
+
+        assertEquals(List.of("id", "log_time", "message"), writer.getColumns());
+        assertEquals(objectMapper.writeValueAsString(expectedRows), out.toString());
+    }
+
+    @Test
+    @DisplayName("首行及每隔flushRows行刷新一次")
+    void testFlushInterval() throws Exception {
+        StreamingRowWriter writer = StreamingRowWriter.create(resultSet.getMetaData());
+        JsonGenerator generator =
+                spy(objectMapper.getFactory().createGenerator(new StringWriter()));
+        generator.writeStartArray();
+
+        writer.writeRows(resultSet, generator, 10);
+
+        // 第1、10、20行各刷新一次
+        verify(generator, times(3)).flush();
+    }
+}